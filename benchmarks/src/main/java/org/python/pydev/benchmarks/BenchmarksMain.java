@@ -0,0 +1,38 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks (accepts the same arguments as the JMH main), always with the GC profiler and writing
+ * the results to target/jmh-<label>.json (label given by -Dpydev.benchmarks.label).
+ *
+ * @author Fabio
+ */
+public class BenchmarksMain {
+
+    public static final String LABEL_PROPERTY = "pydev.benchmarks.label";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        String label = System.getProperty(LABEL_PROPERTY, "current");
+
+        Options opts = new OptionsBuilder()
+                .parent(cmdOptions)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-" + label + ".json")
+                .build();
+        new Runner(opts).run();
+    }
+}
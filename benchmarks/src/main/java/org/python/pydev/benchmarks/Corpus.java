@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+/**
+ * The python sources used in the benchmarks (always the same for a given corpus name, so that the results can
+ * be compared among commits).
+ *
+ * @author Fabio
+ */
+public final class Corpus {
+
+    public static final String GENERATED = "generated";
+    public static final String STDLIB = "stdlib";
+
+    /**
+     * System property with the directory with the sources used as the 'stdlib' corpus.
+     */
+    public static final String CORPUS_DIR_PROPERTY = "pydev.benchmarks.corpus";
+
+    private static final String DEFAULT_CORPUS_DIR = "../plugins/org.python.pydev.jython/Lib";
+
+    /**
+     * Number of modules in the generated corpus (roughly the size of the standard library).
+     */
+    private static final int GENERATED_MODULES = 600;
+
+    private static final long GENERATED_SEED = 42;
+
+    public static final class Source {
+
+        public final String moduleName;
+        public final File file;
+        public final String contents;
+
+        public Source(String moduleName, File file, String contents) {
+            this.moduleName = moduleName;
+            this.file = file;
+            this.contents = contents;
+        }
+    }
+
+    public final String name;
+    public final List<Source> sources;
+    public final int totalChars;
+
+    private Corpus(String name, List<Source> sources) {
+        this.name = name;
+        this.sources = Collections.unmodifiableList(sources);
+        int total = 0;
+        for (Source source : sources) {
+            total += source.contents.length();
+        }
+        this.totalChars = total;
+    }
+
+    public static Corpus create(String name) {
+        if (GENERATED.equals(name)) {
+            return new Corpus(name, generate(GENERATED_MODULES, GENERATED_SEED));
+        }
+        if (STDLIB.equals(name)) {
+            File dir = new File(System.getProperty(CORPUS_DIR_PROPERTY, DEFAULT_CORPUS_DIR));
+            if (!dir.isDirectory()) {
+                throw new RuntimeException("Corpus dir: " + dir.getAbsolutePath() + " does not exist (set it with -D"
+                        + CORPUS_DIR_PROPERTY + "=<dir>).");
+            }
+            return new Corpus(name, load(dir));
+        }
+        throw new IllegalArgumentException("Unexpected corpus: " + name);
+    }
+
+    /**
+     * Loads all the .py files beneath the given dir (sorted by path so that the order is always the same).
+     */
+    public static List<Source> load(File root) {
+        List<File> files = new ArrayList<File>();
+        collectPyFiles(root, files);
+        Collections.sort(files, new Comparator<File>() {
+
+            @Override
+            public int compare(File o1, File o2) {
+                return o1.getPath().compareTo(o2.getPath());
+            }
+        });
+
+        int rootLen = root.getAbsolutePath().length() + 1;
+        List<Source> ret = new ArrayList<Source>(files.size());
+        for (File f : files) {
+            String relative = f.getAbsolutePath().substring(rootLen);
+            String moduleName = relative.substring(0, relative.length() - 3).replace(File.separatorChar, '.');
+            if (moduleName.endsWith(".__init__")) {
+                moduleName = moduleName.substring(0, moduleName.length() - 9);
+            }
+            ret.add(new Source(moduleName, f, FileUtils.getFileContents(f)));
+        }
+        return ret;
+    }
+
+    private static void collectPyFiles(File dir, List<File> files) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectPyFiles(child, files);
+            } else if (child.getName().endsWith(".py")) {
+                files.add(child);
+            }
+        }
+    }
+
+    /**
+     * Generates python modules with imports, classes, methods, functions, docstrings and comments.
+     */
+    public static List<Source> generate(int modules, long seed) {
+        Random random = new Random(seed);
+        List<Source> ret = new ArrayList<Source>(modules);
+        FastStringBuffer buf = new FastStringBuffer(32 * 1024);
+        for (int i = 0; i < modules; i++) {
+            buf.clear();
+            String moduleName = "pkg" + (i % 20) + ".mod" + i;
+            generateModule(random, i, buf);
+            ret.add(new Source(moduleName, new File(moduleName.replace('.', '/') + ".py"), buf.toString()));
+        }
+        return ret;
+    }
+
+    private static final List<String> WORDS = Arrays.asList("get", "set", "create", "update", "delete", "find",
+            "load", "save", "parse", "compute", "value", "item", "node", "tree", "token", "module", "cache", "index",
+            "name", "path", "buffer", "stream", "request", "response", "handler", "context", "config", "data");
+
+    private static String identifier(Random random, int words, boolean capitalize) {
+        FastStringBuffer buf = new FastStringBuffer(words * 8);
+        for (int i = 0; i < words; i++) {
+            String word = WORDS.get(random.nextInt(WORDS.size()));
+            if (capitalize) {
+                buf.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+            } else {
+                if (i > 0) {
+                    buf.append('_');
+                }
+                buf.append(word);
+            }
+        }
+        return buf.toString();
+    }
+
+    private static void generateModule(Random random, int moduleIndex, FastStringBuffer buf) {
+        buf.append("'''\nGenerated module ").append(moduleIndex).append(".\n'''\n");
+        int imports = 2 + random.nextInt(6);
+        for (int i = 0; i < imports; i++) {
+            if (random.nextBoolean()) {
+                buf.append("import pkg").append(random.nextInt(20)).append(".mod").append(random.nextInt(600))
+                        .append('\n');
+            } else {
+                buf.append("from pkg").append(random.nextInt(20)).append(".mod").append(random.nextInt(600))
+                        .append(" import ").append(identifier(random, 2, true)).append('\n');
+            }
+        }
+        buf.append("\nCONSTANT_").append(moduleIndex).append(" = {'a': 1, 'b': [1, 2, 3], 'c': (4, 5)}\n\n");
+
+        int classes = 1 + random.nextInt(4);
+        for (int c = 0; c < classes; c++) {
+            String className = identifier(random, 2, true) + c;
+            buf.append("\nclass ").append(className).append("(object):\n");
+            buf.append("    '''Docstring for ").append(className).append("'''\n\n");
+            buf.append("    class_attr = ").append(random.nextInt(1000)).append("\n\n");
+            buf.append("    def __init__(self, value=None, *args, **kwargs):\n");
+            buf.append("        self.value = value\n");
+            buf.append("        self.items = []\n\n");
+            int methods = 3 + random.nextInt(8);
+            for (int m = 0; m < methods; m++) {
+                generateFunction(random, "    ", identifier(random, 2, false), true, buf);
+            }
+        }
+
+        int functions = 2 + random.nextInt(8);
+        for (int f = 0; f < functions; f++) {
+            generateFunction(random, "", identifier(random, 3, false), false, buf);
+        }
+        buf.append("\nif __name__ == '__main__':\n    main_").append(moduleIndex).append("()\n");
+    }
+
+    private static void generateFunction(Random random, String indent, String name, boolean method,
+            FastStringBuffer buf) {
+        buf.append('\n').append(indent).append("def ").append(name).append(method ? "(self, a, b=10):\n" : "(a, b=10):\n");
+        buf.append(indent).append("    # Comment for ").append(name).append('\n');
+        buf.append(indent).append("    result = []\n");
+        buf.append(indent).append("    for i in range(a):\n");
+        buf.append(indent).append("        if i % 2 == 0 and b > ").append(random.nextInt(50)).append(":\n");
+        buf.append(indent).append("            result.append(i * b)\n");
+        buf.append(indent).append("        else:\n");
+        buf.append(indent).append("            try:\n");
+        buf.append(indent).append("                result.append(str(i) + 'value')\n");
+        buf.append(indent).append("            except (ValueError, TypeError), e:\n");
+        buf.append(indent).append("                raise RuntimeError('Error: %s' % (e,))\n");
+        if (method) {
+            buf.append(indent).append("    self.items.extend([x for x in result if x])\n");
+            buf.append(indent).append("    return self.items\n");
+        } else {
+            buf.append(indent).append("    return dict((k, v) for k, v in enumerate(result))\n");
+        }
+    }
+}
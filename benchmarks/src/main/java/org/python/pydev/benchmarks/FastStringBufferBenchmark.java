@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+/**
+ * Benchmarks the FastStringBuffer operations used in the hot paths (creating a buffer for each operation and
+ * reusing a buffer with clear()).
+ *
+ * @author Fabio
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-DPyDevInTestMode=true" })
+public class FastStringBufferBenchmark {
+
+    private static final int ITEMS = 1000;
+
+    private String[] words;
+    private String text;
+    private FastStringBuffer reused;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        words = new String[ITEMS];
+        FastStringBuffer buf = new FastStringBuffer(ITEMS * 16);
+        for (int i = 0; i < ITEMS; i++) {
+            words[i] = "token_" + i;
+            buf.append("self.").append(words[i]).append(" = value\n");
+        }
+        text = buf.toString();
+        reused = new FastStringBuffer(ITEMS * 16);
+    }
+
+    private static FastStringBuffer appendMixed(FastStringBuffer buf, String[] words) {
+        for (int i = 0; i < words.length; i++) {
+            buf.append(words[i]).append('\t').append(i).append('\t').append((long) i * 31).append('\n');
+        }
+        return buf;
+    }
+
+    @Benchmark
+    public String appendMixedNewBuffer() {
+        return appendMixed(new FastStringBuffer(), words).toString();
+    }
+
+    @Benchmark
+    public String appendMixedReusedBuffer() {
+        return appendMixed(reused.clear(), words).toString();
+    }
+
+    @Benchmark
+    public String insertAtStart() {
+        FastStringBuffer buf = reused.clear();
+        for (int i = 0; i < 200; i++) {
+            buf.insert(0, words[i]);
+        }
+        return buf.toString();
+    }
+
+    @Benchmark
+    public String replaceAll() {
+        return reused.clear().append(text).replaceAll("self.", "obj.").toString();
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.text.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.python.pydev.core.IGrammarVersionProvider;
+import org.python.pydev.parser.PyParser;
+import org.python.pydev.parser.fastparser.FastDefinitionsParser;
+import org.python.pydev.parser.jython.AstBinarySerializer;
+import org.python.pydev.parser.jython.SimpleNode;
+import org.python.pydev.shared_core.parsing.BaseParser.ParseOutput;
+
+/**
+ * Parses the whole corpus with the full parser (PyParser.reparseDocument, used in the editor and for the
+ * code-analysis) and with the FastDefinitionsParser (used to index the modules). Also restores the ASTs from their
+ * serialized version (as done when library modules are gotten from the disk cache instead of being parsed again).
+ *
+ * @author Fabio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-DPyDevInTestMode=true", "-Xmx1g" })
+public class ParserBenchmark {
+
+    @Param({ Corpus.GENERATED, Corpus.STDLIB })
+    public String corpus;
+
+    private Document[] documents;
+    private char[][] contents;
+    private String[] moduleNames;
+    private byte[][] serializedAsts;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Corpus c = Corpus.create(corpus);
+        int size = c.sources.size();
+        documents = new Document[size];
+        contents = new char[size][];
+        moduleNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            Corpus.Source source = c.sources.get(i);
+            documents[i] = new Document(source.contents);
+            contents[i] = source.contents.toCharArray();
+            moduleNames[i] = source.moduleName;
+        }
+
+        List<byte[]> lst = new ArrayList<byte[]>();
+        for (Document doc : documents) {
+            ParseOutput output = PyParser.reparseDocument(new PyParser.ParserInfo(doc,
+                    IGrammarVersionProvider.GRAMMAR_PYTHON_VERSION_2_7));
+            if (output.ast != null) {
+                try {
+                    lst.add(AstBinarySerializer.write((SimpleNode) output.ast));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        serializedAsts = lst.toArray(new byte[lst.size()][]);
+    }
+
+    @Benchmark
+    public void reparseDocument(Blackhole bh) {
+        for (Document doc : documents) {
+            ParseOutput output = PyParser.reparseDocument(new PyParser.ParserInfo(doc,
+                    IGrammarVersionProvider.GRAMMAR_PYTHON_VERSION_2_7));
+            bh.consume(output.ast);
+            bh.consume(output.error);
+        }
+    }
+
+    @Benchmark
+    public void fastDefinitionsParse(Blackhole bh) {
+        for (int i = 0; i < contents.length; i++) {
+            bh.consume(FastDefinitionsParser.parse(contents[i], moduleNames[i]));
+        }
+    }
+
+    @Benchmark
+    public void readSerializedAst(Blackhole bh) throws IOException {
+        for (byte[] bytes : serializedAsts) {
+            bh.consume(AstBinarySerializer.read(bytes, 0, bytes.length));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.rules.IPartitionTokenScanner;
+import org.eclipse.jface.text.rules.IToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.python.pydev.core.IPythonPartitions;
+import org.python.pydev.core.partition.AbstractPyPartitionScanner;
+import org.python.pydev.core.partition.PyPartitionScanner;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+/**
+ * Benchmarks the partitioning of a big (50k lines) python file with the hand-written scanner used in the editor
+ * and with the rule-based one: a full scan (done when the file is opened) and the scan done by the partitioner
+ * after typing in the middle of a big triple-quoted string (which resumes inside the string partition).
+ *
+ * @author Fabio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-DPyDevInTestMode=true", "-Xmx1g" })
+public class PartitionScannerBenchmark {
+
+    public static final String HAND_WRITTEN = "hand-written";
+    public static final String RULE_BASED = "rule-based";
+
+    private static final int LINES = 50000;
+    private static final int BIG_STRING_LINES = 5000;
+
+    @Param({ HAND_WRITTEN, RULE_BASED })
+    public String scanner;
+
+    private IDocument doc;
+    private int bigStringOffset;
+    private int bigStringMiddleLineOffset;
+
+    @Setup(Level.Trial)
+    public void setup() throws BadLocationException {
+        FastStringBuffer buf = new FastStringBuffer(4 * 1024 * 1024);
+        int module = 0;
+        int lines = 0;
+        int bigStringStart = -1;
+        while (lines < LINES) {
+            for (Corpus.Source source : Corpus.generate(1, module)) {
+                buf.append(source.contents);
+                lines += source.contents.split("\n", -1).length - 1;
+            }
+            module++;
+
+            if (bigStringStart == -1 && lines >= LINES / 2) {
+                bigStringStart = buf.length();
+                buf.append("BIG = '''\n");
+                for (int i = 0; i < BIG_STRING_LINES; i++) {
+                    buf.append("    Line ").append(i)
+                            .append(" of a big string with 'quotes' and \"quotes\" # not a comment\n");
+                }
+                buf.append("'''\n");
+                lines += BIG_STRING_LINES + 2;
+            }
+        }
+        doc = new Document(buf.toString());
+        bigStringOffset = bigStringStart + "BIG = ".length();
+        int bigStringLine = doc.getLineOfOffset(bigStringOffset);
+        bigStringMiddleLineOffset = doc.getLineOffset(bigStringLine + (BIG_STRING_LINES / 2));
+    }
+
+    private IPartitionTokenScanner createScanner() {
+        if (HAND_WRITTEN.equals(scanner)) {
+            return new PyPartitionScanner();
+        }
+        return new AbstractPyPartitionScanner();
+    }
+
+    /**
+     * Scans the whole document (as done by the partitioner when the document is connected).
+     */
+    @Benchmark
+    public int fullScan() {
+        IPartitionTokenScanner s = createScanner();
+        s.setRange(doc, 0, doc.getLength());
+        int partitions = 0;
+        IToken token = s.nextToken();
+        while (!token.isEOF()) {
+            if (token.getData() != null) {
+                partitions++;
+            }
+            token = s.nextToken();
+        }
+        return partitions;
+    }
+
+    /**
+     * Gets the string partition resuming at a line in the middle of a big string (as done by the partitioner after
+     * an edit in that line: as the partition found is the same one it had before the change, it stops there).
+     */
+    @Benchmark
+    public int resumeInBigString() {
+        IPartitionTokenScanner s = createScanner();
+        s.setPartialRange(doc, bigStringMiddleLineOffset, doc.getLength() - bigStringMiddleLineOffset,
+                IPythonPartitions.PY_MULTILINE_BYTES_OR_UNICODE1, bigStringOffset);
+        s.nextToken();
+        return s.getTokenLength();
+    }
+}
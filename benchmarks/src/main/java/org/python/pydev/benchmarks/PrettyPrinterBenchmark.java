@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.text.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.python.pydev.core.IGrammarVersionProvider;
+import org.python.pydev.core.MisconfigurationException;
+import org.python.pydev.parser.PyParser;
+import org.python.pydev.parser.jython.SimpleNode;
+import org.python.pydev.parser.prettyprinterv2.MakeAstValidForPrettyPrintingVisitor;
+import org.python.pydev.parser.prettyprinterv2.PrettyPrinterPrefsV2;
+import org.python.pydev.parser.prettyprinterv2.PrettyPrinterV2;
+import org.python.pydev.shared_core.parsing.BaseParser.ParseOutput;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+/**
+ * Pretty-prints the ASTs of the whole corpus (as done by the refactorings to generate code from the AST): getting
+ * a new String for each module, printing into a reused buffer and printing in parallel (one printer/buffer per
+ * thread).
+ *
+ * @author Fabio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-DPyDevInTestMode=true", "-Xmx1g" })
+public class PrettyPrinterBenchmark {
+
+    @Param({ Corpus.GENERATED, Corpus.STDLIB })
+    public String corpus;
+
+    private SimpleNode[] asts;
+    private PrettyPrinterPrefsV2 prefs;
+    private int threads;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Corpus c = Corpus.create(corpus);
+        List<SimpleNode> lst = new ArrayList<SimpleNode>();
+        for (Corpus.Source source : c.sources) {
+            ParseOutput output = PyParser.reparseDocument(new PyParser.ParserInfo(new Document(source.contents),
+                    IGrammarVersionProvider.GRAMMAR_PYTHON_VERSION_2_7));
+            if (output.ast == null) {
+                continue;
+            }
+            SimpleNode ast = (SimpleNode) output.ast;
+            try {
+                MakeAstValidForPrettyPrintingVisitor.makeValid(ast);
+            } catch (Exception e) {
+                continue;
+            }
+            lst.add(ast);
+        }
+        asts = lst.toArray(new SimpleNode[lst.size()]);
+
+        prefs = new PrettyPrinterPrefsV2("\n", "    ", new IGrammarVersionProvider() {
+
+            public int getGrammarVersion() throws MisconfigurationException {
+                return IGrammarVersionProvider.GRAMMAR_PYTHON_VERSION_2_7;
+            }
+        });
+        prefs.setSpacesAfterComma(1);
+        prefs.setSpacesBeforeComment(1);
+        prefs.setLinesAfterMethod(1);
+        prefs.setLinesAfterClass(2);
+        prefs.setLinesAfterSuite(1);
+
+        threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void printToString(Blackhole bh) throws Exception {
+        for (SimpleNode ast : asts) {
+            bh.consume(new PrettyPrinterV2(prefs).print(ast));
+        }
+    }
+
+    @Benchmark
+    public void printIntoSink(Blackhole bh) throws Exception {
+        PrettyPrinterV2 printer = new PrettyPrinterV2(prefs);
+        FastStringBuffer sink = new FastStringBuffer(64 * 1024);
+        for (SimpleNode ast : asts) {
+            printer.print(ast, sink);
+            bh.consume(sink.length());
+        }
+    }
+
+    @Benchmark
+    public int printInParallel() throws Exception {
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>(threads);
+        for (int i = 0; i < threads; i++) {
+            final int start = i;
+            futures.add(executor.submit(new Callable<Integer>() {
+
+                public Integer call() throws Exception {
+                    PrettyPrinterV2 printer = new PrettyPrinterV2(prefs);
+                    FastStringBuffer sink = new FastStringBuffer(64 * 1024);
+                    int chars = 0;
+                    for (int j = start; j < asts.length; j += threads) {
+                        printer.print(asts[j], sink);
+                        chars += sink.length();
+                    }
+                    return chars;
+                }
+            }));
+        }
+        int chars = 0;
+        for (Future<Integer> future : futures) {
+            chars += future.get();
+        }
+        return chars;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.python.pydev.parser.fastparser.FastDefinitionsParser;
+import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.io.PySourceLoader;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+/**
+ * Benchmarks loading the python files of the stdlib corpus from the disk (as done by the indexer and when creating
+ * modules): getting the encoding and the contents with streams (opening each file twice) and with the
+ * PySourceLoader (also followed by the fast definitions parse done by the indexer).
+ *
+ * @author Fabio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-DPyDevInTestMode=true", "-Xmx1g" })
+public class SourceLoaderBenchmark {
+
+    private File[] files;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Corpus c = Corpus.create(Corpus.STDLIB);
+        files = new File[c.sources.size()];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = c.sources.get(i).file;
+        }
+        FileUtils.LOG_ENCODING_ERROR = false;
+    }
+
+    @Benchmark
+    public void loadWithStreams(Blackhole bh) throws IOException {
+        for (File f : files) {
+            String encoding = FileUtils.getPythonFileEncoding(f);
+            FileInputStream stream = new FileInputStream(f);
+            try {
+                bh.consume(FileUtils.getStreamContents(stream, encoding, null, FastStringBuffer.class));
+            } finally {
+                stream.close();
+            }
+        }
+    }
+
+    @Benchmark
+    public void loadWithSourceLoader(Blackhole bh) throws IOException {
+        for (File f : files) {
+            FastStringBuffer buffer = PySourceLoader.acquireBuffer();
+            try {
+                bh.consume(PySourceLoader.load(f, buffer).length());
+            } finally {
+                PySourceLoader.releaseBuffer(buffer);
+            }
+        }
+    }
+
+    @Benchmark
+    public void loadAndParseDefinitions(Blackhole bh) throws IOException {
+        for (File f : files) {
+            FastStringBuffer buffer = PySourceLoader.acquireBuffer();
+            try {
+                PySourceLoader.load(f, buffer);
+                bh.consume(FastDefinitionsParser.parse(buffer.getInternalCharsArray(), f.getName(),
+                        buffer.length()));
+            } finally {
+                PySourceLoader.releaseBuffer(buffer);
+            }
+        }
+    }
+}
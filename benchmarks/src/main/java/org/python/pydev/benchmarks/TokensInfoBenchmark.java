@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.python.pydev.core.FastBufferedReader;
+import org.python.pydev.core.ModulesKey;
+import org.python.pydev.core.ObjectsInternPool.ObjectsPoolMap;
+import org.python.pydev.parser.fastparser.FastDefinitionsParser;
+import org.python.pydev.parser.jython.SimpleNode;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+import com.python.pydev.analysis.additionalinfo.AbstractAdditionalTokensInfo;
+import com.python.pydev.analysis.additionalinfo.IInfo;
+import com.python.pydev.analysis.additionalinfo.TreeIO;
+
+/**
+ * Benchmarks the index of tokens used for the context-insensitive completions, auto-import and go to definition:
+ * filling it (addAstInfo), querying it (getTokensStartingWith) and saving/restoring it (TreeIO).
+ *
+ * @author Fabio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-DPyDevInTestMode=true", "-Xmx1g" })
+public class TokensInfoBenchmark {
+
+    /**
+     * Info which is only kept in memory (and gives access to the trees which are persisted).
+     */
+    private static final class BenchmarkTokensInfo extends AbstractAdditionalTokensInfo {
+
+        @Override
+        protected File getPersistingLocation() {
+            return null;
+        }
+
+        @Override
+        protected File getPersistingFolder() {
+            return null;
+        }
+
+        @Override
+        public List<ModulesKey> getModulesWithToken(IProject project, String token, IProgressMonitor monitor) {
+            return new ArrayList<ModulesKey>();
+        }
+
+        public SortedMap<String, Set<IInfo>> getTopLevelTree() {
+            return topLevelInitialsToInfo;
+        }
+
+        public SortedMap<String, Set<IInfo>> getInnerTree() {
+            return innerInitialsToInfo;
+        }
+    }
+
+    @Param({ Corpus.GENERATED, Corpus.STDLIB })
+    public String corpus;
+
+    private SimpleNode[] asts;
+    private ModulesKey[] keys;
+    private BenchmarkTokensInfo filledInfo;
+    private String[] qualifiers;
+    private String savedTrees;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Corpus c = Corpus.create(corpus);
+        int size = c.sources.size();
+        asts = new SimpleNode[size];
+        keys = new ModulesKey[size];
+        for (int i = 0; i < size; i++) {
+            Corpus.Source source = c.sources.get(i);
+            asts[i] = FastDefinitionsParser.parse(source.contents, source.moduleName);
+            keys[i] = new ModulesKey(source.moduleName, source.file);
+        }
+        filledInfo = fill();
+
+        //The qualifiers are gotten from the tokens in the index (1 to 4 chars), always in the same order.
+        Set<String> found = new HashSet<String>();
+        List<String> q = new ArrayList<String>();
+        int i = 0;
+        for (Set<IInfo> infos : filledInfo.getTopLevelTree().values()) {
+            for (IInfo info : infos) {
+                String name = info.getName();
+                String qualifier = name.substring(0, Math.min(name.length(), 1 + (i % 4)));
+                if (found.add(qualifier)) {
+                    q.add(qualifier);
+                }
+                i++;
+            }
+        }
+        qualifiers = q.toArray(new String[q.size()]);
+        savedTrees = save(filledInfo);
+    }
+
+    private BenchmarkTokensInfo fill() {
+        BenchmarkTokensInfo info = new BenchmarkTokensInfo();
+        for (int i = 0; i < asts.length; i++) {
+            info.addAstInfo(asts[i], keys[i], false);
+        }
+        return info;
+    }
+
+    /**
+     * Saves the trees in the same format used in AbstractAdditionalTokensInfo.saveTo.
+     */
+    private static String save(BenchmarkTokensInfo info) {
+        FastStringBuffer tempBuf = new FastStringBuffer();
+        Map<String, Integer> dictionary = new HashMap<String, Integer>();
+        tempBuf.append("-- START TREE 1\n");
+        TreeIO.dumpTreeToBuffer(info.getTopLevelTree(), tempBuf, dictionary);
+
+        tempBuf.append("-- START TREE 2\n");
+        TreeIO.dumpTreeToBuffer(info.getInnerTree(), tempBuf, dictionary);
+
+        FastStringBuffer buf2 = new FastStringBuffer(50 * (dictionary.size() + 4) + tempBuf.length());
+        TreeIO.dumpDictToBuffer(dictionary, buf2);
+        buf2.append(tempBuf);
+        return buf2.toString();
+    }
+
+    @Benchmark
+    public Object addAstInfo() {
+        return fill();
+    }
+
+    @Benchmark
+    public void getTokensStartingWith(Blackhole bh) {
+        for (String qualifier : qualifiers) {
+            bh.consume(filledInfo.getTokensStartingWith(qualifier, AbstractAdditionalTokensInfo.TOP_LEVEL));
+            bh.consume(filledInfo.getTokensStartingWith(qualifier, AbstractAdditionalTokensInfo.INNER));
+        }
+    }
+
+    @Benchmark
+    public String treeIOSave() {
+        return save(filledInfo);
+    }
+
+    /**
+     * Restores the trees as AbstractAdditionalDependencyInfo.loadContentsFromFile does.
+     */
+    @Benchmark
+    public void treeIORestore(Blackhole bh) throws IOException {
+        FastBufferedReader reader = new FastBufferedReader(new StringReader(savedTrees));
+        ObjectsPoolMap objectsPoolMap = new ObjectsPoolMap();
+        FastStringBuffer tempBuf = new FastStringBuffer(1024);
+        Map<Integer, String> dictionary = null;
+        FastStringBuffer line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("-- START DICTIONARY")) {
+                dictionary = TreeIO.loadDictFrom(reader, tempBuf.clear(), objectsPoolMap);
+
+            } else if (line.startsWith("-- START TREE")) {
+                bh.consume(TreeIO.loadTreeFrom(reader, dictionary, tempBuf.clear(), objectsPoolMap));
+            }
+        }
+        reader.close();
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+import com.python.pydev.analysis.additionalinfo.ClassInfo;
+import com.python.pydev.analysis.additionalinfo.FuncInfo;
+import com.python.pydev.analysis.additionalinfo.IInfo;
+import com.python.pydev.analysis.additionalinfo.TokensSignatureIndex;
+
+/**
+ * Benchmarks a single query in the camel-case/subsequence index of tokens (TokensSignatureIndex) with as many
+ * tokens as a big workspace with its interpreter (the goal is that a query takes less than 20ms with 500k tokens).
+ *
+ * The queries are camel-hump patterns (i.e.: HRSH), lower-case subsequences (i.e.: rqhand) and prefixes, all
+ * gotten from the tokens in the index and returning at most the number of camel-case matches CtxParticipant adds.
+ *
+ * @author Fabio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-DPyDevInTestMode=true", "-Xmx2g" })
+public class TokensMatchingBenchmark {
+
+    private static final String[] WORDS = new String[] { "http", "request", "server", "handler", "client", "data",
+            "file", "path", "config", "manager", "parse", "token", "node", "tree", "module", "cache", "index", "item",
+            "list", "dict", "value", "key", "event", "thread", "socket", "stream", "buffer", "reader", "writer",
+            "error", "test", "case", "util", "base", "abstract", "factory", "builder", "info", "context", "session",
+            "user", "query", "result", "table", "column", "row", "view", "model", "widget", "window" };
+
+    private static final int MAX_RESULTS = 500;
+
+    private static final int QUERIES = 64;
+
+    @Param({ "500000" })
+    public int tokens;
+
+    private TokensSignatureIndex index;
+    private String[] camelCase;
+    private String[] subsequence;
+    private String[] prefix;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        List<List<String>> allWords = new ArrayList<List<String>>(tokens);
+        index = new TokensSignatureIndex();
+        FastStringBuffer buf = new FastStringBuffer();
+        for (int i = 0; i < tokens; i++) {
+            int nWords = 1 + random.nextInt(4);
+            List<String> words = new ArrayList<String>(nWords);
+            for (int j = 0; j < nWords; j++) {
+                words.add(WORDS[random.nextInt(WORDS.length)]);
+            }
+            allWords.add(words);
+
+            String module = "pkg" + (i % 97) + ".mod" + (i % 1009);
+            buf.clear();
+            if (i % 2 == 0) {
+                for (String word : words) {
+                    buf.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+                }
+                index.add(new ClassInfo(buf.toString(), module, null, true));
+            } else {
+                for (String word : words) {
+                    if (buf.length() > 0) {
+                        buf.append('_');
+                    }
+                    buf.append(word);
+                }
+                index.add(new FuncInfo(buf.toString(), module, null, true));
+            }
+        }
+
+        camelCase = new String[QUERIES];
+        subsequence = new String[QUERIES];
+        prefix = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            List<String> words = allWords.get(random.nextInt(tokens));
+            buf.clear();
+            for (String word : words) {
+                buf.append(Character.toUpperCase(word.charAt(0)));
+            }
+            if (buf.length() < 2) {
+                buf.append(Character.toUpperCase(words.get(0).charAt(1)));
+            }
+            camelCase[i] = buf.toString();
+
+            buf.clear();
+            for (String word : words) {
+                buf.append(word.substring(word.length() / 2));
+            }
+            subsequence[i] = buf.toString();
+
+            prefix[i] = words.get(0).substring(0, 3);
+        }
+    }
+
+    private List<IInfo> query(String[] patterns) {
+        String pattern = patterns[next++ % QUERIES];
+        return index.getMatches(pattern, MAX_RESULTS);
+    }
+
+    @Benchmark
+    public List<IInfo> camelCase() {
+        return query(camelCase);
+    }
+
+    @Benchmark
+    public List<IInfo> subsequence() {
+        return query(subsequence);
+    }
+
+    @Benchmark
+    public List<IInfo> prefix() {
+        return query(prefix);
+    }
+}
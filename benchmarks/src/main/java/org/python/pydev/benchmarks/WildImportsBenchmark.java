@@ -0,0 +1,233 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.benchmarks;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.python.pydev.core.ICompletionState;
+import org.python.pydev.core.IGrammarVersionProvider;
+import org.python.pydev.core.IModule;
+import org.python.pydev.core.IPythonNature;
+import org.python.pydev.core.IToken;
+import org.python.pydev.core.structure.CompletionRecursionException;
+import org.python.pydev.editor.codecompletion.revisited.AbstractASTManager;
+import org.python.pydev.editor.codecompletion.revisited.CompletionState;
+import org.python.pydev.editor.codecompletion.revisited.modules.SourceModule;
+import org.python.pydev.parser.PyParser;
+import org.python.pydev.parser.jython.SimpleNode;
+import org.python.pydev.shared_core.callbacks.ICallback0;
+import org.python.pydev.shared_core.parsing.BaseParser.ParseOutput;
+
+/**
+ * Benchmarks the globals completion (AbstractASTManager.getCompletionsForModule) of a module whose tokens come from
+ * wild imports (as in numpy, PyQt or django settings): the modules form a tree where each module does a
+ * 'from x import *' for each of its children and for one of a few modules shared by all the others.
+ *
+ * The wild imports are resolved in parallel or one after the other in the calling thread with a single state (the
+ * original resolution, used when parallel=false) and the modules are either already in memory (warm) or only parsed
+ * when requested (cold, as when they're not in the modules manager cache). The setup checks that both give the same
+ * completions.
+ *
+ * @author Fabio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-DPyDevInTestMode=true", "-Xmx1g" })
+public class WildImportsBenchmark {
+
+    /**
+     * Modules in the tree (each with 3 children: 1 + 3 + 9 + 27 + 81 + 243).
+     */
+    private static final int TREE_MODULES = 364;
+
+    private static final int CHILDREN = 3;
+
+    /**
+     * Modules which are wild imported by all the others (besides their children in the tree).
+     */
+    private static final int SHARED_MODULES = 4;
+
+    private static final String ROOT = "wild0";
+
+    /**
+     * Manager which gets the modules from memory (no nature/modules manager/builtins needed).
+     */
+    private static final class InMemoryASTManager extends AbstractASTManager {
+
+        private final Map<String, String> sources;
+        private volatile Map<String, IModule> modules = new ConcurrentHashMap<String, IModule>();
+
+        private InMemoryASTManager(Map<String, String> sources) {
+            this.sources = sources;
+        }
+
+        private void createAll() {
+            for (String name : sources.keySet()) {
+                getModule(name);
+            }
+        }
+
+        private void clear() {
+            modules = new ConcurrentHashMap<String, IModule>();
+        }
+
+        private IModule getModule(String name) {
+            IModule module = modules.get(name);
+            if (module == null) {
+                String contents = sources.get(name);
+                if (contents == null) {
+                    return null;
+                }
+                ParseOutput output = PyParser.reparseDocument(new PyParser.ParserInfo(new Document(contents),
+                        IGrammarVersionProvider.GRAMMAR_PYTHON_VERSION_2_7));
+                module = new SourceModule(name, new File(name + ".py"), (SimpleNode) output.ast, null);
+                modules.put(name, module);
+            }
+            return module;
+        }
+
+        @Override
+        public IModule getModule(String name, IPythonNature nature, boolean dontSearchInit) {
+            return getModule(name);
+        }
+
+        @Override
+        public IModule getModule(String name, IPythonNature nature, boolean dontSearchInit,
+                boolean lookingForRelative) {
+            return getModule(name);
+        }
+
+        @Override
+        protected IModule getBuiltinMod(IPythonNature nature) {
+            return null;
+        }
+
+        @Override
+        protected IToken[] getBuiltinComps(IPythonNature nature) {
+            return null;
+        }
+
+        @Override
+        public void setProject(IProject project, IPythonNature nature, boolean restoreDeltas) {
+        }
+
+        @Override
+        public void rebuildModule(File file, ICallback0<IDocument> doc, IProject project, IProgressMonitor monitor,
+                IPythonNature nature) {
+        }
+
+        @Override
+        public void removeModule(File file, IProject project, IProgressMonitor monitor) {
+        }
+
+        public void changePythonPath(String pythonpath, IProject project, IProgressMonitor monitor) {
+        }
+
+        public void saveToFile(File astOutputFile) {
+        }
+    }
+
+    @Param({ "true", "false" })
+    public boolean parallel;
+
+    private InMemoryASTManager manager;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Corpus.Source> generated = Corpus.generate(TREE_MODULES + SHARED_MODULES, 42);
+        Map<String, String> sources = new HashMap<String, String>();
+        for (int i = 0; i < TREE_MODULES; i++) {
+            StringBuilder buf = new StringBuilder();
+            for (int c = 1; c <= CHILDREN; c++) {
+                int child = i * CHILDREN + c;
+                if (child < TREE_MODULES) {
+                    buf.append("from wild").append(child).append(" import *\n");
+                }
+            }
+            buf.append("from shared").append(i % SHARED_MODULES).append(" import *\n");
+            buf.append(generated.get(i).contents);
+            sources.put("wild" + i, buf.toString());
+        }
+        for (int i = 0; i < SHARED_MODULES; i++) {
+            sources.put("shared" + i, generated.get(TREE_MODULES + i).contents);
+        }
+        manager = new InMemoryASTManager(sources);
+        manager.createAll();
+        checkParallelSameAsSequential();
+        AbstractASTManager.resolveWildImportsInParallel = parallel;
+    }
+
+    private void checkParallelSameAsSequential() {
+        try {
+            AbstractASTManager.resolveWildImportsInParallel = false;
+            Set<String> sequential = getDistinctCompletions(getGlobalCompletions());
+            AbstractASTManager.resolveWildImportsInParallel = true;
+            Set<String> parallel = getDistinctCompletions(getGlobalCompletions());
+            if (!sequential.equals(parallel)) {
+                throw new IllegalStateException("Completions differ. Sequential: " + sequential.size()
+                        + " Parallel: " + parallel.size());
+            }
+        } catch (CompletionRecursionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Note: the tokens are compared without duplicates (the original resolution stops resolving a module which is
+     * wild imported many times with the same state, which may give less duplicates).
+     */
+    private static Set<String> getDistinctCompletions(IToken[] tokens) {
+        Set<String> ret = new LinkedHashSet<String>();
+        for (IToken token : tokens) {
+            ret.add(token.getParentPackage() + ":" + token.getRepresentation());
+        }
+        return ret;
+    }
+
+    private IToken[] getGlobalCompletions() throws CompletionRecursionException {
+        ICompletionState state = new CompletionState(-1, -1, "", null, "");
+        state.setBuiltinsGotten(true);
+        return manager.getCompletionsForModule(manager.getModule(ROOT), state, true, false);
+    }
+
+    @Benchmark
+    public IToken[] warm() throws CompletionRecursionException {
+        return getGlobalCompletions();
+    }
+
+    @Benchmark
+    public IToken[] cold() throws CompletionRecursionException {
+        manager.clear();
+        return getGlobalCompletions();
+    }
+}
@@ -59,6 +59,8 @@ import org.python.pydev.parser.jython.ast.factory.AdapterPrefs;
 import org.python.pydev.parser.jython.ast.factory.PyAstFactory;
 import org.python.pydev.shared_core.callbacks.CallbackWithListeners;
 import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.metrics.Histogram;
+import org.python.pydev.shared_core.metrics.Metrics;
 import org.python.pydev.shared_core.out_of_memory.OnExpectedOutOfMemory;
 import org.python.pydev.shared_core.string.FastStringBuffer;
 import org.python.pydev.shared_core.string.StringUtils;
@@ -85,6 +87,8 @@ public abstract class AbstractAdditionalDependencyInfo extends AbstractAdditiona
 
     public static final boolean DEBUG = false;
 
+    private static final Histogram LOAD_TIME = Metrics.histogram("index.load");
+
     /**
      * indexes all the names that are available
      * 
@@ -679,10 +683,13 @@ public abstract class AbstractAdditionalDependencyInfo extends AbstractAdditiona
                 return false;
             }
             if (file.exists() && file.isFile()) {
+                long startTime = Metrics.startTime();
                 try {
                     return loadContentsFromFile(file) != null;
                 } catch (Throwable e) {
                     errorFound = e;
+                } finally {
+                    LOAD_TIME.recordSince(startTime);
                 }
             }
         }
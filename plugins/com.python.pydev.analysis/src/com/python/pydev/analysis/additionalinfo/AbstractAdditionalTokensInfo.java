@@ -48,6 +48,9 @@ import org.python.pydev.parser.jython.ast.NameTok;
 import org.python.pydev.parser.visitors.NodeUtils;
 import org.python.pydev.parser.visitors.scope.ASTEntry;
 import org.python.pydev.parser.visitors.scope.DefinitionsASTIteratorVisitor;
+import org.python.pydev.shared_core.io.PySourceLoader;
+import org.python.pydev.shared_core.metrics.Histogram;
+import org.python.pydev.shared_core.metrics.Metrics;
 import org.python.pydev.shared_core.string.FastStringBuffer;
 import org.python.pydev.shared_core.string.StringUtils;
 import org.python.pydev.shared_core.structure.FastStack;
@@ -95,6 +98,8 @@ public abstract class AbstractAdditionalTokensInfo {
      */
     private static final boolean DEBUG_ADDITIONAL_INFO = false;
 
+    private static final Histogram SAVE_TIME = Metrics.histogram("index.save");
+
     /**
      * Defines that some operation should be done on top level tokens
      */
@@ -120,6 +125,15 @@ public abstract class AbstractAdditionalTokensInfo {
      */
     protected SortedMap<String, Set<IInfo>> innerInitialsToInfo = new PyPublicTreeMap<String, Set<IInfo>>();
 
+    /**
+     * Indexes used for camel-case/subsequence matching (kept in sync with topLevelInitialsToInfo and
+     * innerInitialsToInfo when info is added/removed).
+     *
+     * This index is not persisted (when null, it's lazily recreated from the initials trees).
+     */
+    private TokensSignatureIndex topLevelSignatureIndex;
+    private TokensSignatureIndex innerSignatureIndex;
+
     /**
      * Should be used before re-creating the info, so that we have enough memory.
      */
@@ -131,6 +145,8 @@ public abstract class AbstractAdditionalTokensInfo {
             if (innerInitialsToInfo != null) {
                 innerInitialsToInfo.clear();
             }
+            topLevelSignatureIndex = null;
+            innerSignatureIndex = null;
         }
     }
 
@@ -192,6 +208,7 @@ public abstract class AbstractAdditionalTokensInfo {
             String name = info.getName();
             String initials = getInitials(name);
             SortedMap<String, Set<IInfo>> initialsToInfo;
+            TokensSignatureIndex signatureIndex;
 
             if (doOn == TOP_LEVEL) {
                 if (info.getPath() != null && info.getPath().length() > 0) {
@@ -199,6 +216,7 @@ public abstract class AbstractAdditionalTokensInfo {
                             "Error: the info being added is added as an 'top level' info, but has path. Info:" + info);
                 }
                 initialsToInfo = topLevelInitialsToInfo;
+                signatureIndex = topLevelSignatureIndex;
 
             } else if (doOn == INNER) {
                 if (info.getPath() == null || info.getPath().length() == 0) {
@@ -207,12 +225,15 @@ public abstract class AbstractAdditionalTokensInfo {
                                     + info);
                 }
                 initialsToInfo = innerInitialsToInfo;
+                signatureIndex = innerSignatureIndex;
 
             } else {
                 throw new RuntimeException("List to add is invalid: " + doOn);
             }
             Set<IInfo> listForInitials = getAndCreateListForInitials(initials, initialsToInfo);
-            listForInitials.add(info);
+            if (listForInitials.add(info) && signatureIndex != null) {
+                signatureIndex.add(info);
+            }
         }
     }
 
@@ -273,42 +294,50 @@ public abstract class AbstractAdditionalTokensInfo {
             modulesKeyForZip = (ModulesKeyForZip) key;
         }
 
-        Object doc;
+        SimpleNode node;
         if (isZipModule) {
-            doc = FileUtilsFileBuffer.getCustomReturnFromZip(modulesKeyForZip.file, modulesKeyForZip.zipModulePath,
-                    null);
-
-        } else {
-            doc = FileUtilsFileBuffer.getCustomReturnFromFile(key.file, true, null);
-        }
-
-        char[] charArray;
-        int len;
-        if (doc instanceof IDocument) {
-            IDocument document = (IDocument) doc;
-            charArray = document.get().toCharArray();
-            len = charArray.length;
+            Object doc = FileUtilsFileBuffer.getCustomReturnFromZip(modulesKeyForZip.file,
+                    modulesKeyForZip.zipModulePath, null);
+
+            char[] charArray;
+            int len;
+            if (doc instanceof IDocument) {
+                IDocument document = (IDocument) doc;
+                charArray = document.get().toCharArray();
+                len = charArray.length;
+
+            } else if (doc instanceof FastStringBuffer) {
+                FastStringBuffer fastStringBuffer = (FastStringBuffer) doc;
+                //In this case, we can actually get the internal array without doing any copies (and just specifying the len).
+                charArray = fastStringBuffer.getInternalCharsArray();
+                len = fastStringBuffer.length();
+
+            } else if (doc instanceof String) {
+                String str = (String) doc;
+                charArray = str.toCharArray();
+                len = charArray.length;
+
+            } else if (doc instanceof char[]) {
+                charArray = (char[]) doc;
+                len = charArray.length;
 
-        } else if (doc instanceof FastStringBuffer) {
-            FastStringBuffer fastStringBuffer = (FastStringBuffer) doc;
-            //In this case, we can actually get the internal array without doing any copies (and just specifying the len).
-            charArray = fastStringBuffer.getInternalCharsArray();
-            len = fastStringBuffer.length();
-
-        } else if (doc instanceof String) {
-            String str = (String) doc;
-            charArray = str.toCharArray();
-            len = charArray.length;
-
-        } else if (doc instanceof char[]) {
-            charArray = (char[]) doc;
-            len = charArray.length;
+            } else {
+                throw new RuntimeException("Don't know how to handle: " + doc + " -- " + doc.getClass());
+            }
+            node = FastDefinitionsParser.parse(charArray, key.file.getName(), len);
 
         } else {
-            throw new RuntimeException("Don't know how to handle: " + doc + " -- " + doc.getClass());
+            //The contents are only needed during the parse, so, a pooled buffer is used (and its internal array is
+            //passed directly to the parser).
+            FastStringBuffer buffer = PySourceLoader.acquireBuffer();
+            try {
+                FileUtilsFileBuffer.fillBufferWithFileContents(key.file, buffer);
+                node = FastDefinitionsParser.parse(buffer.getInternalCharsArray(), key.file.getName(),
+                        buffer.length());
+            } finally {
+                PySourceLoader.releaseBuffer(buffer);
+            }
         }
-
-        SimpleNode node = FastDefinitionsParser.parse(charArray, key.file.getName(), len);
         if (node == null) {
             return null;
         }
@@ -542,6 +571,12 @@ public abstract class AbstractAdditionalTokensInfo {
         synchronized (lock) {
             removeInfoFromMap(moduleName, topLevelInitialsToInfo);
             removeInfoFromMap(moduleName, innerInitialsToInfo);
+            if (topLevelSignatureIndex != null) {
+                topLevelSignatureIndex.removeInfoFromModule(moduleName);
+            }
+            if (innerSignatureIndex != null) {
+                innerSignatureIndex.removeInfoFromModule(moduleName);
+            }
         }
 
     }
@@ -641,6 +676,41 @@ public abstract class AbstractAdditionalTokensInfo {
         }
     }
 
+    /**
+     * Provides the tokens matching the given pattern by prefix, camel-humps (i.e.: HRSH matches
+     * HttpRequestServerHandler) or subsequence, ranked with the best matches first.
+     *
+     * @param maxResults the maximum number of tokens to be returned (<= 0 means no limit).
+     */
+    public List<IInfo> getTokensMatching(String pattern, int getWhat, int maxResults) {
+        TokensSignatureIndex.Matches matches = new TokensSignatureIndex.Matches(maxResults);
+        getTokensMatching(pattern, getWhat, matches);
+        return matches.getSorted();
+    }
+
+    /**
+     * Same as getTokensMatching, but adds the results to the passed matches (so that the results of multiple infos
+     * can be ranked together).
+     */
+    public void getTokensMatching(String pattern, int getWhat, TokensSignatureIndex.Matches matches) {
+        synchronized (lock) {
+            if ((getWhat & TOP_LEVEL) != 0) {
+                if (topLevelSignatureIndex == null) {
+                    topLevelSignatureIndex = new TokensSignatureIndex();
+                    topLevelSignatureIndex.fillFrom(topLevelInitialsToInfo);
+                }
+                topLevelSignatureIndex.collectMatches(pattern, matches);
+            }
+            if ((getWhat & INNER) != 0) {
+                if (innerSignatureIndex == null) {
+                    innerSignatureIndex = new TokensSignatureIndex();
+                    innerSignatureIndex.fillFrom(innerInitialsToInfo);
+                }
+                innerSignatureIndex.collectMatches(pattern, matches);
+            }
+        }
+    }
+
     /**
      * @return all the tokens that are in this info (top level or inner)
      */
@@ -686,6 +756,7 @@ public abstract class AbstractAdditionalTokensInfo {
     }
 
     protected void save(File persistingLocation) {
+        long startTime = Metrics.startTime();
         try {
             FileOutputStream stream = new FileOutputStream(persistingLocation);
             OutputStreamWriter writer = new OutputStreamWriter(stream);
@@ -708,6 +779,7 @@ public abstract class AbstractAdditionalTokensInfo {
         } catch (Exception e) {
             Log.log(e);
         }
+        SAVE_TIME.recordSince(startTime);
     }
 
     /**
@@ -770,6 +842,8 @@ public abstract class AbstractAdditionalTokensInfo {
             }
             this.topLevelInitialsToInfo = o1;
             this.innerInitialsToInfo = o2;
+            this.topLevelSignatureIndex = null;
+            this.innerSignatureIndex = null;
             if (readFromFile.o3 != null) {
                 //may be null in new format (where that's checked during load time).
                 if (AbstractAdditionalTokensInfo.version != (Integer) readFromFile.o3) {
@@ -254,6 +254,20 @@ public class AdditionalProjectInterpreterInfo extends AbstractAdditionalInfoWith
         return ret;
     }
 
+    /**
+     * @return the tokens matching the given pattern (by prefix, camel-humps or subsequence), ranked with the best
+     * matches first.
+     */
+    public static List<IInfo> getTokensMatching(String pattern, IPythonNature nature, int getWhat, int maxResults)
+            throws MisconfigurationException {
+        TokensSignatureIndex.Matches matches = new TokensSignatureIndex.Matches(maxResults);
+        List<AbstractAdditionalTokensInfo> additionalInfo = getAdditionalInfo(nature);
+        for (AbstractAdditionalTokensInfo info : additionalInfo) {
+            info.getTokensMatching(pattern, getWhat, matches);
+        }
+        return matches.getSorted();
+    }
+
     /**
      * @param project the project we want to get info on
      * @return a list of the additional info for the project + referencing projects
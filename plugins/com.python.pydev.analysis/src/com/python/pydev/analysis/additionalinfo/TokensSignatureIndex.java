@@ -0,0 +1,513 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.analysis.additionalinfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * An index which complements the initials tree in the AbstractAdditionalTokensInfo so that it's possible to
+ * match tokens by camel-humps (i.e.: HRSH matches HttpRequestServerHandler) or by subsequence (i.e.: rqhand matches
+ * RequestHandler) without having to go through getAllTokens().
+ *
+ * Each token has a signature (a bit mask with the chars it contains, ignoring case) kept in a flat array, so,
+ * a query first discards any token that doesn't have all the chars of the pattern (which is just a long
+ * comparison per token) and only the remaining candidates are actually matched and ranked.
+ *
+ * Note that this index is not persisted: it's rebuilt from the initials tree when needed (i.e.: after a restore).
+ *
+ * Not thread-safe: access must be synchronized by the owner (AbstractAdditionalTokensInfo.lock).
+ *
+ * @author Fabio
+ */
+public final class TokensSignatureIndex {
+
+    /**
+     * Collects the matches (which may come from different indexes) and provides them ranked.
+     *
+     * When created with a maximum number of results, only the best ranked matches are kept (in a heap with the
+     * worst match at the top), so, broad patterns don't need to keep/sort all the tokens matched.
+     */
+    public static final class Matches {
+
+        private final int maxResults;
+        private IInfo[] infos = new IInfo[16];
+        private int[] scores = new int[16];
+        private int size;
+
+        public Matches() {
+            this(0);
+        }
+
+        /**
+         * @param maxResults the maximum number of results to be kept (<= 0 means no limit).
+         */
+        public Matches(int maxResults) {
+            this.maxResults = maxResults;
+        }
+
+        public void add(IInfo info, int score) {
+            if (maxResults > 0 && size == maxResults) {
+                if (!isWorse(0, info, score)) {
+                    return;
+                }
+                infos[0] = info;
+                scores[0] = score;
+                siftDown(0);
+                return;
+            }
+            if (size == infos.length) {
+                infos = Arrays.copyOf(infos, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            infos[size] = info;
+            scores[size] = score;
+            size++;
+            if (maxResults > 0) {
+                siftUp(size - 1);
+            }
+        }
+
+        /**
+         * @return true if the match at the given index is ranked after the passed match (the same order used in
+         * getSorted, so that the bounded results are the first ones of the unbounded results).
+         */
+        private boolean isWorse(int i, IInfo info, int score) {
+            if (scores[i] != score) {
+                return scores[i] < score;
+            }
+            return infos[i].getName().compareTo(info.getName()) > 0;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!isWorse(i, infos[parent], scores[parent])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = (i << 1) + 1;
+                if (left >= size) {
+                    break;
+                }
+                int worst = left;
+                int right = left + 1;
+                if (right < size && isWorse(right, infos[left], scores[left])) {
+                    worst = right;
+                }
+                if (!isWorse(worst, infos[i], scores[i])) {
+                    break;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int i, int j) {
+            IInfo info = infos[i];
+            infos[i] = infos[j];
+            infos[j] = info;
+            int score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the minimum score a match must have to be kept (0 while the maximum number of results is not
+         * reached -- a match with this score is only kept if its name is sorted before the worst match kept).
+         */
+        public int getMinScore() {
+            if (maxResults > 0 && size == maxResults) {
+                return scores[0];
+            }
+            return 0;
+        }
+
+        /**
+         * @return the infos found sorted by the best score first (ties are sorted by name).
+         */
+        public List<IInfo> getSorted() {
+            Integer[] indexes = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                indexes[i] = i;
+            }
+            Arrays.sort(indexes, new Comparator<Integer>() {
+
+                public int compare(Integer o1, Integer o2) {
+                    int s1 = scores[o1];
+                    int s2 = scores[o2];
+                    if (s1 != s2) {
+                        return s1 > s2 ? -1 : 1;
+                    }
+                    return infos[o1].getName().compareTo(infos[o2].getName());
+                }
+            });
+            ArrayList<IInfo> ret = new ArrayList<IInfo>(size);
+            for (int i = 0; i < size; i++) {
+                ret.add(infos[indexes[i]]);
+            }
+            return ret;
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private IInfo[] infos = new IInfo[INITIAL_CAPACITY];
+    private long[] signatures = new long[INITIAL_CAPACITY];
+    private int size;
+    private int removed;
+
+    /**
+     * Adds some info to the index.
+     */
+    public void add(IInfo info) {
+        if (size == infos.length) {
+            int newCapacity = infos.length * 2;
+            infos = Arrays.copyOf(infos, newCapacity);
+            signatures = Arrays.copyOf(signatures, newCapacity);
+        }
+        infos[size] = info;
+        signatures[size] = getSignature(info.getName());
+        size++;
+    }
+
+    /**
+     * Removes all the info that was declared in the given module.
+     */
+    public void removeInfoFromModule(String moduleName) {
+        for (int i = 0; i < size; i++) {
+            IInfo info = infos[i];
+            if (info != null && moduleName.equals(info.getDeclaringModuleName())) {
+                infos[i] = null;
+                removed++;
+            }
+        }
+        if (removed > size / 2) {
+            compact();
+        }
+    }
+
+    public void clear() {
+        infos = new IInfo[INITIAL_CAPACITY];
+        signatures = new long[INITIAL_CAPACITY];
+        size = 0;
+        removed = 0;
+    }
+
+    /**
+     * @return the number of tokens in this index.
+     */
+    public int size() {
+        return size - removed;
+    }
+
+    /**
+     * Clears the index and fills it with the contents of the passed initials tree.
+     */
+    public void fillFrom(SortedMap<String, Set<IInfo>> initialsToInfo) {
+        clear();
+        for (Set<IInfo> infosForInitials : initialsToInfo.values()) {
+            for (IInfo info : infosForInitials) {
+                add(info);
+            }
+        }
+    }
+
+    private void compact() {
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            if (infos[i] != null) {
+                infos[j] = infos[i];
+                signatures[j] = signatures[i];
+                j++;
+            }
+        }
+        Arrays.fill(infos, j, size, null);
+        size = j;
+        removed = 0;
+    }
+
+    /**
+     * Adds to the passed matches all the tokens that match the given pattern (see: getMatchScore).
+     */
+    public void collectMatches(String pattern, Matches matches) {
+        long patternSignature = getSignature(pattern);
+        char[] patternChars = pattern.toCharArray();
+        final IInfo[] infos = this.infos;
+        final long[] signatures = this.signatures;
+
+        for (int i = 0; i < size; i++) {
+            if ((signatures[i] & patternSignature) != patternSignature) {
+                continue;
+            }
+            IInfo info = infos[i];
+            if (info == null) {
+                continue;
+            }
+            int score = getMatchScore(patternChars, info.getName(), matches.getMinScore());
+            if (score > 0) {
+                matches.add(info, score);
+            }
+        }
+    }
+
+    /**
+     * Convenience to get the matches already ranked.
+     */
+    public List<IInfo> getMatches(String pattern, int maxResults) {
+        Matches matches = new Matches(maxResults);
+        collectMatches(pattern, matches);
+        return matches.getSorted();
+    }
+
+    /**
+     * @return a bit mask with the chars available in the passed string (case-insensitive).
+     */
+    public static long getSignature(String name) {
+        long signature = 0;
+        int len = name.length();
+        for (int i = 0; i < len; i++) {
+            signature |= getSignatureBit(name.charAt(i));
+        }
+        return signature;
+    }
+
+    private static long getSignatureBit(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return 1L << (c - 'a');
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return 1L << (c - 'A');
+        }
+        if (c >= '0' && c <= '9') {
+            return 1L << (26 + (c - '0'));
+        }
+        if (c == '_') {
+            return 1L << 36;
+        }
+        return 1L << 37;
+    }
+
+    /**
+     * @return true if the passed qualifier should be considered a camel-hump pattern (i.e.: it has at least 2
+     * upper case chars, such as HRSH or HttpReq).
+     */
+    public static boolean isCamelCasePattern(String qualifier) {
+        int upper = 0;
+        int len = qualifier.length();
+        for (int i = 0; i < len; i++) {
+            if (Character.isUpperCase(qualifier.charAt(i))) {
+                upper++;
+                if (upper >= 2) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the tokens matched through this index (by camel-humps/subsequence) should be added to the
+     * ones matched by prefix (only for camel-hump patterns or acronyms such as HRSH: for a plain lower-case
+     * qualifier the prefix matches are what's expected).
+     */
+    public static boolean isFuzzyPattern(String qualifier) {
+        return isCamelCasePattern(qualifier);
+    }
+
+    private static boolean isWordStart(String name, int i) {
+        if (i == 0) {
+            return true;
+        }
+        char c = name.charAt(i);
+        char prev = name.charAt(i - 1);
+        if (prev == '_' || prev == '.') {
+            return c != '_';
+        }
+        if (Character.isUpperCase(c)) {
+            return !Character.isUpperCase(prev) || (i + 1 < name.length() && Character.isLowerCase(name.charAt(i + 1)));
+        }
+        if (Character.isDigit(c)) {
+            return !Character.isDigit(prev);
+        }
+        return false;
+    }
+
+    private static char toLower(char c) {
+        if (c < 128) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static boolean charsMatch(char patternChar, char nameChar) {
+        return patternChar == nameChar || toLower(patternChar) == toLower(nameChar);
+    }
+
+    /**
+     * Fast check to discard names before computing the actual score.
+     */
+    private static boolean isSubsequence(char[] pattern, String name) {
+        int plen = pattern.length;
+        int nlen = name.length();
+        int j = 0;
+        for (int i = 0; i < plen; i++) {
+            char c = toLower(pattern[i]);
+            while (true) {
+                if (nlen - j < plen - i) {
+                    return false;
+                }
+                if (toLower(name.charAt(j++)) == c) {
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a score (the higher the better) for how well the pattern matches the given name or 0 if it does
+     * not match at all.
+     *
+     * Exact matches are better than prefix matches, which are better than camel-hump matches, which are better
+     * than subsequence matches (all matches are case-insensitive).
+     */
+    public static int getMatchScore(char[] pattern, String name) {
+        return getMatchScore(pattern, name, 0);
+    }
+
+    private static final int EXACT_SCORE = 3000000;
+    private static final int PREFIX_SCORE = 2000000;
+    private static final int HUMPS_SCORE = 1000000;
+
+    /**
+     * Same as getMatchScore(pattern, name), but returns 0 as soon as it's known that the score would be lower than
+     * the passed minimum score (so, when enough good matches were already found, the more expensive camel-humps
+     * and subsequence matching is skipped).
+     */
+    private static int getMatchScore(char[] pattern, String name, int minScore) {
+        int plen = pattern.length;
+        int nlen = name.length();
+        if (plen == 0) {
+            return 1;
+        }
+        if (plen > nlen) {
+            return 0;
+        }
+
+        boolean prefix = true;
+        for (int i = 0; i < plen; i++) {
+            if (!charsMatch(pattern[i], name.charAt(i))) {
+                prefix = false;
+                break;
+            }
+        }
+        if (prefix) {
+            if (plen == nlen) {
+                return EXACT_SCORE;
+            }
+            return PREFIX_SCORE + getLengthBonus(plen, nlen);
+        }
+        if (minScore >= PREFIX_SCORE || !isSubsequence(pattern, name)) {
+            return 0;
+        }
+
+        int score = getHumpsScore(pattern, name);
+        if (score > 0) {
+            return HUMPS_SCORE + score;
+        }
+        if (minScore >= HUMPS_SCORE) {
+            return 0;
+        }
+        return getSubsequenceScore(pattern, name);
+    }
+
+    /**
+     * Prefer shorter names (which have less unmatched chars).
+     */
+    private static int getLengthBonus(int plen, int nlen) {
+        return 999 - Math.min(nlen - plen, 999);
+    }
+
+    /**
+     * Matches each pattern char either right after the previous match or at the start of a word (so, each
+     * hump may be matched by more than one char, as in HttpReqH for HttpRequestHandler).
+     */
+    private static int getHumpsScore(char[] pattern, String name) {
+        int plen = pattern.length;
+        int nlen = name.length();
+        int score = 0;
+        int last = -1;
+        for (int i = 0; i < plen; i++) {
+            char c = pattern[i];
+            if (last >= 0 && last + 1 < nlen && charsMatch(c, name.charAt(last + 1))
+                    && !(Character.isUpperCase(c) && !isWordStart(name, last + 1))) {
+                last++;
+                score += 2;
+                continue;
+            }
+            int found = -1;
+            for (int j = last + 1; j < nlen; j++) {
+                if (charsMatch(c, name.charAt(j)) && isWordStart(name, j)) {
+                    found = j;
+                    break;
+                }
+            }
+            if (found == -1) {
+                return 0;
+            }
+            score += 3;
+            last = found;
+        }
+        return score * 1000 + getLengthBonus(plen, nlen);
+    }
+
+    /**
+     * Matches the pattern as a subsequence of the name (preferring to match consecutive chars).
+     */
+    private static int getSubsequenceScore(char[] pattern, String name) {
+        int plen = pattern.length;
+        int nlen = name.length();
+        int score = 0;
+        int last = -1;
+        for (int i = 0; i < plen; i++) {
+            char c = pattern[i];
+            int found = -1;
+            for (int j = last + 1; j < nlen; j++) {
+                if (charsMatch(c, name.charAt(j))) {
+                    found = j;
+                    break;
+                }
+            }
+            if (found == -1) {
+                return 0;
+            }
+            if (found == last + 1) {
+                score += 2;
+            } else if (isWordStart(name, found)) {
+                score += 1;
+            }
+            last = found;
+        }
+        return 1 + score * 1000 + getLengthBonus(plen, nlen);
+    }
+
+}
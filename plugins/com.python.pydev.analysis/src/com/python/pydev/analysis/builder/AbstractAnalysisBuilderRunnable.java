@@ -12,6 +12,9 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.python.pydev.core.IPythonNature;
 import org.python.pydev.core.log.Log;
 import org.python.pydev.logging.DebugSettings;
+import org.python.pydev.shared_core.metrics.Counter;
+import org.python.pydev.shared_core.metrics.Histogram;
+import org.python.pydev.shared_core.metrics.Metrics;
 
 
 /**
@@ -21,6 +24,10 @@ import org.python.pydev.logging.DebugSettings;
  */
 public abstract class AbstractAnalysisBuilderRunnable implements IAnalysisBuilderRunnable {
 
+    private static final Histogram QUEUE_WAIT_TIME = Metrics.histogram("analysis.queue.wait");
+    private static final Histogram ANALYSIS_TIME = Metrics.histogram("analysis.run");
+    private static final Counter ANALYSIS_CANCELLED = Metrics.counter("analysis.cancelled");
+
     // -------------------------------------------------------------------------------------------- ATTRIBUTES
     protected IProgressMonitor monitorSetExternally;
 
@@ -54,6 +61,7 @@ public abstract class AbstractAnalysisBuilderRunnable implements IAnalysisBuilde
     private IAnalysisBuilderRunnable oldAnalysisBuilderThread;
     private long documentTime;
     private long resourceModificationStamp;
+    private final long createdTime = Metrics.startTime();
 
     // ---------------------------------------------------------------------------------------- END ATTRIBUTES
 
@@ -108,6 +116,7 @@ public abstract class AbstractAnalysisBuilderRunnable implements IAnalysisBuilde
     }
 
     protected void logOperationCancelled() {
+        ANALYSIS_CANCELLED.inc();
         if (DebugSettings.DEBUG_ANALYSIS_REQUESTS) {
             Log.toLogFile(this, "OperationCanceledException: cancelled by new runnable -- " + moduleName
                     + ". Cancelled was from: " + getAnalysisCauseStr());
@@ -120,6 +129,7 @@ public abstract class AbstractAnalysisBuilderRunnable implements IAnalysisBuilde
      * This method will do that and call doAnalysis() if it hasn't been cancelled itself.
      */
     public void run() {
+        QUEUE_WAIT_TIME.recordSince(createdTime);
         try {
             try {
                 if (oldAnalysisBuilderThread != null) {
@@ -149,7 +159,9 @@ public abstract class AbstractAnalysisBuilderRunnable implements IAnalysisBuilde
                 this.oldAnalysisBuilderThread = null;
 
                 if (!internalCancelMonitor.isCanceled()) {
+                    long startTime = Metrics.startTime();
                     doAnalysis();
+                    ANALYSIS_TIME.recordSince(startTime);
                 } else {
                     logOperationCancelled();
                 }
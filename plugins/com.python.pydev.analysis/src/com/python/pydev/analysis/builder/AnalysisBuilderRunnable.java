@@ -17,6 +17,7 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jface.text.IDocument;
 import org.python.pydev.builder.PyDevBuilderPrefPage;
 import org.python.pydev.builder.PyDevBuilderVisitor;
+import org.python.pydev.core.IIndentPrefs;
 import org.python.pydev.core.IModule;
 import org.python.pydev.core.IPythonNature;
 import org.python.pydev.core.log.Log;
@@ -25,6 +26,7 @@ import org.python.pydev.editor.autoedit.DefaultIndentPrefs;
 import org.python.pydev.editor.codecompletion.revisited.modules.SourceModule;
 import org.python.pydev.logging.DebugSettings;
 import org.python.pydev.shared_core.callbacks.ICallback;
+import org.python.pydev.shared_core.callbacks.ICallback0;
 
 import com.python.pydev.analysis.AnalysisPreferences;
 import com.python.pydev.analysis.IAnalysisPreferences;
@@ -224,15 +226,30 @@ public class AnalysisBuilderRunnable extends AbstractAnalysisBuilderRunnable {
                 //might be already there)
                 if (r != null) {
                     runner.setMarkers(r, document, new IMessage[0], this.internalCancelMonitor);
+                    AnalysisResultsCache.invalidate(r);
                 }
                 return;
             }
 
+            //if nothing changed since the last analysis (module, preferences nor imported modules), the markers
+            //that are already in the resource are still valid.
+            IIndentPrefs indentPrefs = DefaultIndentPrefs.get(this.resource);
+            String analysisKey = AnalysisResultsCache.computeKey(nature, module, document, analysisPreferences,
+                    indentPrefs);
+            if (!forceAnalysis && AnalysisResultsCache.isUpToDate(r, analysisKey)) {
+                if (DebugSettings.DEBUG_ANALYSIS_REQUESTS) {
+                    Log.toLogFile(this, "Skipping: analysis results still valid -- " + moduleName);
+                }
+                //The markers are the ones the analysis would set, so, the listeners are still notified.
+                notifyAnalysisBuilderListeners(r);
+                return;
+            }
+
             //ok, let's do it
             OccurrencesAnalyzer analyzer = new OccurrencesAnalyzer();
             checkStop();
             IMessage[] messages = analyzer.analyzeDocument(nature, module, analysisPreferences, document,
-                    this.internalCancelMonitor, DefaultIndentPrefs.get(this.resource));
+                    this.internalCancelMonitor, indentPrefs);
 
             checkStop();
             if (DebugSettings.DEBUG_ANALYSIS_REQUESTS) {
@@ -252,7 +269,16 @@ public class AnalysisBuilderRunnable extends AbstractAnalysisBuilderRunnable {
                         || !analyzeOnlyActiveEditor
                         || (analyzeOnlyActiveEditor && (!PyDevBuilderPrefPage.getRemoveErrorsWhenEditorIsClosed() || PyEdit
                                 .isEditorOpenForResource(r)))) {
-                    runner.setMarkers(r, document, messages, this.internalCancelMonitor);
+                    //The key is only stored after the markers are actually set (which may be delayed in a batch).
+                    final IResource resource = r;
+                    final String key = analysisKey;
+                    runner.setMarkers(r, document, messages, this.internalCancelMonitor, new ICallback0<Object>() {
+
+                        public Object call() {
+                            AnalysisResultsCache.setAnalyzed(resource, key);
+                            return null;
+                        }
+                    });
                 } else {
                     if (DebugSettings.DEBUG_ANALYSIS_REQUESTS) {
                         Log.toLogFile(this, "Skipped adding markers for module: " + moduleName
@@ -261,14 +287,7 @@ public class AnalysisBuilderRunnable extends AbstractAnalysisBuilderRunnable {
                 }
             }
 
-            //if there are callbacks registered, call them if we still didn't return (mostly for tests)
-            for (ICallback<Object, IResource> callback : analysisBuilderListeners) {
-                try {
-                    callback.call(r);
-                } catch (Exception e) {
-                    Log.log(e);
-                }
-            }
+            notifyAnalysisBuilderListeners(r);
 
         } catch (OperationCanceledException e) {
             //ok, ignore it
@@ -291,6 +310,19 @@ public class AnalysisBuilderRunnable extends AbstractAnalysisBuilderRunnable {
         }
     }
 
+    /**
+     * If there are callbacks registered, call them (mostly for tests).
+     */
+    private void notifyAnalysisBuilderListeners(IResource r) {
+        for (ICallback<Object, IResource> callback : analysisBuilderListeners) {
+            try {
+                callback.call(r);
+            } catch (Exception e) {
+                Log.log(e);
+            }
+        }
+    }
+
     /**
      * @return false if there's no modification among the current version of the file and the last version analyzed.
      */
@@ -19,6 +19,8 @@ import org.python.pydev.core.log.Log;
 import org.python.pydev.logging.DebugSettings;
 import org.python.pydev.shared_core.cache.LRUCache;
 import org.python.pydev.shared_core.callbacks.ICallback;
+import org.python.pydev.shared_core.callbacks.ICallback0;
+import org.python.pydev.shared_core.metrics.Metrics;
 import org.python.pydev.shared_core.structure.Tuple;
 
 public class AnalysisBuilderRunnableFactory {
@@ -39,6 +41,18 @@ public class AnalysisBuilderRunnableFactory {
 
     private static final Object lock = new Object();
 
+    static {
+        Metrics.registerGauge("analysis.queue.size", new ICallback0<Long>() {
+
+            @Override
+            public Long call() {
+                synchronized (lock) {
+                    return (long) getAvailableThreads().size();
+                }
+            }
+        });
+    }
+
     /**
      * @return Returns the availableThreads.
      */
@@ -0,0 +1,345 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.analysis.builder;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.jface.text.IDocument;
+import org.python.pydev.core.FullRepIterable;
+import org.python.pydev.core.IIndentPrefs;
+import org.python.pydev.core.IInterpreterInfo;
+import org.python.pydev.core.IModule;
+import org.python.pydev.core.IModulesManager;
+import org.python.pydev.core.IPythonNature;
+import org.python.pydev.core.IToken;
+import org.python.pydev.core.log.Log;
+import org.python.pydev.editor.codecompletion.revisited.modules.SourceModule;
+import org.python.pydev.logging.DebugSettings;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+import org.python.pydev.shared_core.structure.Tuple;
+
+import com.python.pydev.analysis.AnalysisPlugin;
+import com.python.pydev.analysis.IAnalysisPreferences;
+import com.python.pydev.analysis.ui.AnalysisPreferencesPage;
+
+/**
+ * Keeps (as a persistent property in the resource) the key of the last analysis whose results were set as markers
+ * in the resource, so that a module which didn't change (nor its analysis preferences nor the modules it imports)
+ * doesn't need to be analyzed again (i.e.: after a workspace restart or a clean that only touched other files).
+ *
+ * The key is composed by:
+ * - a hash of the module contents
+ * - a hash of the analysis preferences (and the interpreter used and the indent preferences used in the
+ *   indentation/TabNanny messages)
+ * - a signature of the resolved imports (the file, modification time and size of each imported module -- the
+ *   modules which re-export the imported names are also followed, i.e.: the modules wild imported by an imported
+ *   module or the module where the name of a 'from x import y' is actually defined if x imports it from another
+ *   module).
+ *
+ * The number of analysis markers in the resource is stored along with the key (so, if markers are deleted
+ * outside of the builder, the key is no longer valid).
+ *
+ * As the analysis markers are persistent, when the key matches, the markers already in the resource are the ones
+ * the analysis would generate.
+ *
+ * @author Fabio
+ */
+public class AnalysisResultsCache {
+
+    /**
+     * Should be raised whenever the analysis changes in a way that the previous results are no longer valid
+     * (the plugin version is also part of the key).
+     */
+    private static final int CACHE_VERSION = 2;
+
+    /**
+     * Levels of re-exports followed (to avoid spending too much time computing the key).
+     */
+    private static final int MAX_REEXPORTS_DEPTH = 5;
+
+    private static final QualifiedName ANALYSIS_RESULTS_KEY = new QualifiedName("com.python.pydev.analysis",
+            "ANALYSIS_RESULTS_KEY");
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * @return the key for the analysis of the given module or null if it wasn't possible to compute it (in which
+     * case the analysis should always be done).
+     */
+    public static String computeKey(IPythonNature nature, SourceModule module, IDocument document,
+            IAnalysisPreferences prefs, IIndentPrefs indentPrefs) {
+        try {
+            FastStringBuffer buf = new FastStringBuffer(100);
+            buf.append(hash(document.get()));
+            buf.append(':');
+            buf.append(hash(getPreferencesSignature(nature, prefs, indentPrefs)));
+            buf.append(':');
+            buf.append(hash(getImportsSignature(nature, module)));
+            return buf.toString();
+        } catch (Exception e) {
+            Log.log(e);
+            return null;
+        }
+    }
+
+    /**
+     * @return true if the markers in the resource were generated by an analysis with the same key (and no
+     * analysis marker was removed since then).
+     */
+    public static boolean isUpToDate(IResource resource, String key) {
+        if (key == null || resource == null) {
+            return false;
+        }
+        try {
+            return isUpToDate(resource.getPersistentProperty(ANALYSIS_RESULTS_KEY), key, getMarkersCount(resource));
+        } catch (CoreException e) {
+            //the resource may not exist anymore.
+            return false;
+        }
+    }
+
+    /*default*/static boolean isUpToDate(String stored, String key, int markersCount) {
+        return stored != null && key != null && stored.equals(getStoredKey(key, markersCount));
+    }
+
+    /*default*/static String getStoredKey(String key, int markersCount) {
+        return key + '#' + markersCount;
+    }
+
+    private static int getMarkersCount(IResource resource) throws CoreException {
+        return resource.findMarkers(AnalysisRunner.PYDEV_ANALYSIS_PROBLEM_MARKER, true, IResource.DEPTH_ZERO).length;
+    }
+
+    /**
+     * Marks that the markers in the resource are the result of the analysis with the given key (must be called
+     * only after the markers are actually set in the resource).
+     */
+    public static void setAnalyzed(IResource resource, String key) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.setPersistentProperty(ANALYSIS_RESULTS_KEY,
+                    key != null ? getStoredKey(key, getMarkersCount(resource)) : null);
+        } catch (CoreException e) {
+            if (resource.exists()) {
+                Log.log(e);
+            }
+        }
+    }
+
+    /**
+     * Should be called whenever the analysis markers are changed without a new analysis.
+     */
+    public static void invalidate(IResource resource) {
+        setAnalyzed(resource, null);
+    }
+
+    /**
+     * Provides the modules by name (so that the imports signature doesn't depend on the modules manager).
+     */
+    /*default*/static interface IModuleProvider {
+
+        IModule getModule(String name);
+    }
+
+    /**
+     * @return the signature of the indent preferences used by the analysis (to decide whether tabs or spaces are
+     * reported in the indentation and the tab width used by the TabNanny).
+     */
+    /*default*/static String getIndentPrefsSignature(IIndentPrefs indentPrefs) {
+        return indentPrefs.getUseSpaces(false) + "," + indentPrefs.getTabWidth();
+    }
+
+    private static String getPreferencesSignature(IPythonNature nature, IAnalysisPreferences prefs,
+            IIndentPrefs indentPrefs) throws Exception {
+        FastStringBuffer buf = new FastStringBuffer();
+        buf.append(CACHE_VERSION).append('|');
+        buf.append(AnalysisPlugin.getDefault().getBundle().getVersion().toString()).append('|');
+
+        for (int type = IAnalysisPreferences.TYPE_UNUSED_IMPORT; type <= IAnalysisPreferences.TYPE_ARGUMENTS_MISATCH; type++) {
+            buf.append(prefs.getSeverityForType(type)).append(',');
+        }
+        buf.append('|');
+        appendSorted(buf, prefs.getNamesIgnoredByUnusedVariable());
+        appendSorted(buf, prefs.getModuleNamePatternsToBeIgnored());
+        appendSorted(buf, prefs.getTokensAlwaysInGlobals());
+        buf.append(getIndentPrefsSignature(indentPrefs)).append('|');
+
+        if (prefs.getSeverityForType(IAnalysisPreferences.TYPE_PEP8) >= 0) {
+            buf.append(AnalysisPreferencesPage.getPep8CommandLineAsStr(prefs.getProjectAdaptable())).append('|');
+            buf.append(AnalysisPreferencesPage.useSystemInterpreter(prefs.getProjectAdaptable())).append('|');
+        }
+
+        IInterpreterInfo interpreter = nature.getProjectInterpreter();
+        if (interpreter != null) {
+            buf.append(interpreter.getExecutableOrJar()).append('|');
+            for (String s : interpreter.getPythonPath()) {
+                buf.append(s).append(',');
+            }
+        }
+        buf.append('|');
+        buf.append(nature.getPythonPathNature().getOnlyProjectPythonPathStr(true));
+        return buf.toString();
+    }
+
+    private static void appendSorted(FastStringBuffer buf, Set<String> set) {
+        if (set != null) {
+            for (String s : new TreeSet<String>(set)) {
+                buf.append(s).append(',');
+            }
+        }
+        buf.append('|');
+    }
+
+    private static String getImportsSignature(final IPythonNature nature, SourceModule module) {
+        final IModulesManager modulesManager = nature.getAstManager().getModulesManager();
+        return getImportsSignature(new IModuleProvider() {
+
+            public IModule getModule(String name) {
+                return modulesManager.getModule(name, nature, true);
+            }
+        }, module);
+    }
+
+    /**
+     * @return a signature with the file, modification time and size of the modules which provide the names
+     * imported in the given module.
+     */
+    /*default*/static String getImportsSignature(IModuleProvider provider, IModule module) {
+        List<String> entries = new ArrayList<String>();
+        Set<String> added = new HashSet<String>();
+        Set<String> followed = new HashSet<String>();
+        added.add(module.getName());
+        for (IToken token : module.getTokenImportedModules()) {
+            addImportSignature(provider, module, token.getOriginalRep(), false, entries, added, followed, 0);
+        }
+        for (IToken token : module.getWildImportedModules()) {
+            addImportSignature(provider, module, token.getOriginalRep(), true, entries, added, followed, 0);
+        }
+
+        //Sort so that the order of the imports found doesn't matter.
+        Collections.sort(entries);
+        FastStringBuffer buf = new FastStringBuffer(entries.size() * 60);
+        for (String entry : entries) {
+            buf.append(entry).append('\n');
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Adds the signature of the module which the passed import resolves to and follows the imports of that module
+     * which may re-export the imported names.
+     */
+    private static void addImportSignature(IModuleProvider provider, IModule module, String rep,
+            boolean wildImport, List<String> entries, Set<String> added, Set<String> followed, int depth) {
+        if (rep == null || rep.length() == 0) {
+            return;
+        }
+        Tuple<IModule, String> resolved = resolve(provider, module, rep);
+        if (resolved == null) {
+            entries.add(rep + "|unresolved");
+            return;
+        }
+        IModule imported = resolved.o1;
+        String name = imported.getName();
+        if (added.add(name)) {
+            File file = imported.getFile();
+            if (file != null) {
+                entries.add(name + '|' + file + '|' + file.lastModified() + '|' + file.length());
+            } else {
+                entries.add(name + "|no_file");
+            }
+        }
+        if (depth >= MAX_REEXPORTS_DEPTH || !(imported instanceof SourceModule)) {
+            return;
+        }
+
+        if (wildImport) {
+            //All the names of the module are imported: follow everything it re-exports.
+            if (followed.add(name + "|*")) {
+                for (IToken token : imported.getTokenImportedModules()) {
+                    addImportSignature(provider, imported, token.getOriginalRep(), false, entries, added, followed,
+                            depth + 1);
+                }
+                for (IToken token : imported.getWildImportedModules()) {
+                    addImportSignature(provider, imported, token.getOriginalRep(), true, entries, added, followed,
+                            depth + 1);
+                }
+            }
+
+        } else if (resolved.o2.length() > 0) {
+            //A name inside the module: it may be defined in the module itself or be imported from another module.
+            String importedName = FullRepIterable.getFirstPart(resolved.o2);
+            if (followed.add(name + '|' + importedName)) {
+                for (IToken token : imported.getTokenImportedModules()) {
+                    if (importedName.equals(token.getRepresentation())) {
+                        addImportSignature(provider, imported, token.getOriginalRep(), false, entries, added,
+                                followed, depth + 1);
+                    }
+                }
+                for (IToken token : imported.getWildImportedModules()) {
+                    addImportSignature(provider, imported, token.getOriginalRep(), true, entries, added,
+                            followed, depth + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the module which the given representation (which may be a module or a token inside a module)
+     * resolves to along with the part of the representation inside the module (empty if the representation is
+     * the module itself) or null if it couldn't be resolved.
+     */
+    private static Tuple<IModule, String> resolve(IModuleProvider provider, IModule module, String rep) {
+        String relativePrefix = null;
+        String moduleName = module.getName();
+        if (moduleName != null && moduleName.indexOf('.') != -1) {
+            relativePrefix = FullRepIterable.getWithoutLastPart(moduleName) + '.';
+        }
+
+        String current = rep;
+        while (current.length() > 0) {
+            String inModule = current.length() < rep.length() ? rep.substring(current.length() + 1) : "";
+            if (relativePrefix != null) {
+                IModule found = provider.getModule(relativePrefix + current);
+                if (found != null) {
+                    return new Tuple<IModule, String>(found, inModule);
+                }
+            }
+            IModule found = provider.getModule(current);
+            if (found != null) {
+                return new Tuple<IModule, String>(found, inModule);
+            }
+            if (current.indexOf('.') == -1) {
+                break;
+            }
+            current = FullRepIterable.getWithoutLastPart(current);
+        }
+        if (DebugSettings.DEBUG_ANALYSIS_REQUESTS) {
+            Log.toLogFile("Unable to resolve import: " + rep + " in " + moduleName, AnalysisResultsCache.class);
+        }
+        return null;
+    }
+
+    private static String hash(String contents) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-1");
+        return new BigInteger(1, md.digest(contents.getBytes(UTF8))).toString(Character.MAX_RADIX);
+    }
+}
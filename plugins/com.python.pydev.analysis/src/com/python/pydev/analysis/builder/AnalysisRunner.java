@@ -20,6 +20,7 @@ import org.eclipse.jface.text.IDocument;
 import org.python.pydev.core.IMiscConstants;
 import org.python.pydev.core.docutils.PySelection;
 import org.python.pydev.core.log.Log;
+import org.python.pydev.shared_core.callbacks.ICallback0;
 import org.python.pydev.shared_ui.utils.PyMarkerUtils;
 import org.python.pydev.shared_ui.utils.PyMarkerUtils.MarkerInfo;
 
@@ -80,6 +81,7 @@ public class AnalysisRunner {
 
         try {
             resource.deleteMarkers(PYDEV_ANALYSIS_PROBLEM_MARKER, true, IResource.DEPTH_ZERO);
+            AnalysisResultsCache.invalidate(resource);
         } catch (CoreException e) {
             //ok, if it is a resource exception, it may have happened because the resource does not exist anymore
             //so, there is no need to log this failure
@@ -103,6 +105,15 @@ public class AnalysisRunner {
      * should be removed.
      */
     public void setMarkers(IResource resource, IDocument document, IMessage[] messages, IProgressMonitor monitor) {
+        setMarkers(resource, document, messages, monitor, null);
+    }
+
+    /**
+     * Same as setMarkers, but onApplied is called after the markers are actually set in the resource (which may
+     * only happen later on if markers are being batched -- see: PyMarkerUtils.startBatch()).
+     */
+    public void setMarkers(IResource resource, IDocument document, IMessage[] messages, IProgressMonitor monitor,
+            ICallback0<Object> onApplied) {
         if (resource == null) {
             return;
         }
@@ -115,7 +126,8 @@ public class AnalysisRunner {
                 return;
             }
 
-            PyMarkerUtils.replaceMarkers(lst, resource, AnalysisRunner.PYDEV_ANALYSIS_PROBLEM_MARKER, true, monitor);
+            PyMarkerUtils.replaceMarkers(lst, resource, AnalysisRunner.PYDEV_ANALYSIS_PROBLEM_MARKER, true, monitor,
+                    onApplied);
             //timer.printDiff("Time to put markers: "+lst.size());
         } catch (Exception e) {
             Log.log("Error when setting markers on: " + resource, e);
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.analysis.headless;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.python.pydev.core.log.Log;
+import org.python.pydev.shared_core.io.FileUtils;
+
+/**
+ * Entry point to run the code analysis without any UI. I.e.:
+ *
+ * eclipse -nosplash -application com.python.pydev.analysis.headlessAnalysis -data /tmp/workspace
+ *      -interpreter /usr/bin/python -source /path/to/src [-source /other/src] -output results.sarif
+ *      [-format json|sarif] [-threads 4]
+ *
+ * The exit code is 0 if no error was found, 1 if errors were found and 2 if it was not possible to do the analysis
+ * (or if some module could not be analyzed -- those are listed in the report).
+ *
+ * @author Fabio
+ */
+public class HeadlessAnalysisApplication implements IApplication {
+
+    public static final Integer EXIT_FINDINGS_WITH_ERRORS = 1;
+    public static final Integer EXIT_FAILED = 2;
+
+    private static final String USAGE = "Usage: -interpreter <python executable> -source <dir> [-source <dir>]* "
+            + "[-output <file>] [-format json|sarif] [-threads <n>]";
+
+    private volatile NullProgressMonitor monitor;
+
+    /**
+     * The arguments for the application (all validated in {@link #parse(String[])} before any analysis is done).
+     */
+    /*default*/static class Arguments {
+
+        /*default*/String interpreter;
+        /*default*/String output;
+        /*default*/String format = HeadlessAnalysisReportWriter.FORMAT_JSON;
+        /*default*/int threads = 0;
+        /*default*/final List<File> sourceRoots = new ArrayList<File>();
+
+        /**
+         * @throws IllegalArgumentException with a message to be shown to the user if some argument is not valid.
+         */
+        /*default*/static Arguments parse(String[] args) {
+            Arguments arguments = new Arguments();
+            if (args == null) {
+                args = new String[0];
+            }
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (!"-interpreter".equals(arg) && !"-source".equals(arg) && !"-output".equals(arg)
+                        && !"-format".equals(arg) && !"-threads".equals(arg)) {
+                    throw new IllegalArgumentException("Unexpected argument: " + arg);
+                }
+                if (i + 1 >= args.length || args[i + 1].startsWith("-")) {
+                    throw new IllegalArgumentException("Expected value for: " + arg);
+                }
+                String value = args[++i];
+
+                if ("-interpreter".equals(arg)) {
+                    arguments.interpreter = value;
+                } else if ("-source".equals(arg)) {
+                    File dir = new File(value);
+                    if (!dir.isDirectory()) {
+                        throw new IllegalArgumentException("Source folder does not exist: " + value);
+                    }
+                    arguments.sourceRoots.add(dir);
+                } else if ("-output".equals(arg)) {
+                    arguments.output = value;
+                } else if ("-format".equals(arg)) {
+                    arguments.format = value.toLowerCase();
+                    if (!HeadlessAnalysisReportWriter.FORMAT_JSON.equals(arguments.format)
+                            && !HeadlessAnalysisReportWriter.FORMAT_SARIF.equals(arguments.format)) {
+                        throw new IllegalArgumentException("Unexpected format: " + value
+                                + " (expected: json or sarif).");
+                    }
+                } else if ("-threads".equals(arg)) {
+                    try {
+                        arguments.threads = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        arguments.threads = -1;
+                    }
+                    if (arguments.threads <= 0) {
+                        throw new IllegalArgumentException("Expected a positive number of threads. Found: " + value);
+                    }
+                }
+            }
+
+            if (arguments.interpreter == null) {
+                throw new IllegalArgumentException("The -interpreter argument is required.");
+            }
+            if (arguments.sourceRoots.size() == 0) {
+                throw new IllegalArgumentException("At least one -source argument is required.");
+            }
+            if (arguments.output != null) {
+                File parent = new File(arguments.output).getAbsoluteFile().getParentFile();
+                if (parent == null || !parent.isDirectory()) {
+                    throw new IllegalArgumentException("Directory for output does not exist: " + arguments.output);
+                }
+            }
+            return arguments;
+        }
+    }
+
+    @Override
+    public Object start(IApplicationContext context) throws Exception {
+        String[] args = (String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+
+        Arguments arguments;
+        try {
+            arguments = Arguments.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return EXIT_FAILED;
+        }
+        String interpreter = arguments.interpreter;
+        String output = arguments.output;
+        String format = arguments.format;
+        int threads = arguments.threads;
+        List<File> sourceRoots = arguments.sourceRoots;
+
+        monitor = new NullProgressMonitor();
+        HeadlessAnalysisRunner runner = new HeadlessAnalysisRunner(interpreter, sourceRoots, threads);
+        try {
+            runner.run(monitor);
+        } catch (Exception e) {
+            Log.log(e);
+            e.printStackTrace();
+            return EXIT_FAILED;
+        }
+
+        long initial = System.currentTimeMillis();
+        List<HeadlessAnalysisFailure> failures = runner.getFailures();
+        String contents = new HeadlessAnalysisReportWriter().write(format, runner.getFindings(), failures,
+                runner.getTimings(), runner.getModulesAnalyzed());
+        if (output != null) {
+            FileUtils.writeStrToFile(contents, new File(output));
+        } else {
+            System.out.println(contents);
+        }
+        System.err.println("Analyzed " + runner.getModulesAnalyzed() + " modules (" + runner.getFindings().size()
+                + " findings). Timings (millis): " + runner.getTimings() + " output: "
+                + (System.currentTimeMillis() - initial));
+
+        if (failures.size() > 0) {
+            System.err.println("Unable to analyze " + failures.size() + " modules:");
+            for (HeadlessAnalysisFailure failure : failures) {
+                System.err.println("  " + failure);
+            }
+            return EXIT_FAILED;
+        }
+
+        for (HeadlessAnalysisFinding finding : runner.getFindings()) {
+            if ("error".equals(HeadlessAnalysisReportWriter.getSeverityName(finding.severity))) {
+                return EXIT_FINDINGS_WITH_ERRORS;
+            }
+        }
+        return IApplication.EXIT_OK;
+    }
+
+    @Override
+    public void stop() {
+        NullProgressMonitor m = monitor;
+        if (m != null) {
+            m.setCanceled(true);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.analysis.headless;
+
+/**
+ * Immutable.
+ *
+ * A module which the headless analysis was not able to analyze (so, its findings are not in the results).
+ *
+ * @author Fabio
+ */
+public final class HeadlessAnalysisFailure {
+
+    public final String file;
+    public final String moduleName;
+    public final String error;
+
+    public HeadlessAnalysisFailure(String file, String moduleName, String error) {
+        this.file = file;
+        this.moduleName = moduleName;
+        this.error = error;
+    }
+
+    /**
+     * @return a failure for the given module with the error that happened while analyzing it.
+     */
+    public static HeadlessAnalysisFailure create(String file, String moduleName, Throwable e) {
+        String error = e.getMessage();
+        return new HeadlessAnalysisFailure(file, moduleName, error != null ? e.getClass().getName() + ": " + error
+                : e.getClass().getName());
+    }
+
+    @Override
+    public String toString() {
+        return file + ": " + error;
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.analysis.headless;
+
+import org.eclipse.jface.text.IDocument;
+
+import com.python.pydev.analysis.messages.IMessage;
+
+/**
+ * Immutable.
+ *
+ * A finding of the headless analysis (created from an IMessage, but without keeping references to the document
+ * or the AST used in the analysis).
+ *
+ * @author Fabio
+ */
+public final class HeadlessAnalysisFinding {
+
+    public final String file;
+    public final String moduleName;
+    public final int type;
+    public final int severity;
+    public final String message;
+
+    /**
+     * Lines and cols start at 1 (end line and end col may be -1 if unknown).
+     */
+    public final int startLine;
+    public final int startCol;
+    public final int endLine;
+    public final int endCol;
+
+    public HeadlessAnalysisFinding(String file, String moduleName, int type, int severity, String message,
+            int startLine, int startCol, int endLine, int endCol) {
+        this.file = file;
+        this.moduleName = moduleName;
+        this.type = type;
+        this.severity = severity;
+        this.message = message;
+        this.startLine = startLine;
+        this.startCol = startCol;
+        this.endLine = endLine;
+        this.endCol = endCol;
+    }
+
+    public static HeadlessAnalysisFinding create(String file, String moduleName, IMessage m, IDocument doc) {
+        return new HeadlessAnalysisFinding(file, moduleName, m.getType(), m.getSeverity(), m.getMessage(),
+                m.getStartLine(doc), m.getStartCol(doc), m.getEndLine(doc), m.getEndCol(doc));
+    }
+
+    @Override
+    public String toString() {
+        return file + ":" + startLine + ":" + startCol + ": " + message;
+    }
+}
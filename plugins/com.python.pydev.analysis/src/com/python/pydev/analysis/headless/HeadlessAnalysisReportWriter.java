@@ -0,0 +1,276 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.analysis.headless;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeSet;
+
+import org.eclipse.core.resources.IMarker;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+import com.python.pydev.analysis.IAnalysisPreferences;
+
+/**
+ * Writes the results of the headless analysis as JSON (a simple format with the findings, the modules which could
+ * not be analyzed and the time spent in each phase) or SARIF 2.1.0 (so that the results can be consumed by CI tools
+ * -- the modules which could not be analyzed are reported as tool execution notifications).
+ *
+ * @author Fabio
+ */
+public class HeadlessAnalysisReportWriter {
+
+    public static final String FORMAT_JSON = "json";
+    public static final String FORMAT_SARIF = "sarif";
+
+    private static final String SARIF_SCHEMA = "https://json.schemastore.org/sarif-2.1.0.json";
+
+    /**
+     * @return an identifier for the given analysis type (IAnalysisPreferences.TYPE_*).
+     */
+    public static String getRuleId(int type) {
+        switch (type) {
+            case IAnalysisPreferences.TYPE_UNUSED_IMPORT:
+                return "unused-import";
+            case IAnalysisPreferences.TYPE_UNUSED_VARIABLE:
+                return "unused-variable";
+            case IAnalysisPreferences.TYPE_UNDEFINED_VARIABLE:
+                return "undefined-variable";
+            case IAnalysisPreferences.TYPE_DUPLICATED_SIGNATURE:
+                return "duplicated-signature";
+            case IAnalysisPreferences.TYPE_REIMPORT:
+                return "reimport";
+            case IAnalysisPreferences.TYPE_UNRESOLVED_IMPORT:
+                return "unresolved-import";
+            case IAnalysisPreferences.TYPE_NO_SELF:
+                return "no-self";
+            case IAnalysisPreferences.TYPE_UNUSED_WILD_IMPORT:
+                return "unused-wild-import";
+            case IAnalysisPreferences.TYPE_UNDEFINED_IMPORT_VARIABLE:
+                return "undefined-import-variable";
+            case IAnalysisPreferences.TYPE_UNUSED_PARAMETER:
+                return "unused-parameter";
+            case IAnalysisPreferences.TYPE_NO_EFFECT_STMT:
+                return "no-effect-statement";
+            case IAnalysisPreferences.TYPE_INDENTATION_PROBLEM:
+                return "indentation-problem";
+            case IAnalysisPreferences.TYPE_UNDEFINED_VARIABLE_IN_SELF:
+                return "undefined-variable-in-self";
+            case IAnalysisPreferences.TYPE_ASSIGNMENT_TO_BUILT_IN_SYMBOL:
+                return "assignment-to-builtin";
+            case IAnalysisPreferences.TYPE_PEP8:
+                return "pep8";
+            case IAnalysisPreferences.TYPE_ARGUMENTS_MISATCH:
+                return "arguments-mismatch";
+        }
+        return "type-" + type;
+    }
+
+    public static String getSeverityName(int severity) {
+        switch (severity) {
+            case IMarker.SEVERITY_ERROR:
+                return "error";
+            case IMarker.SEVERITY_WARNING:
+                return "warning";
+        }
+        return "info";
+    }
+
+    /**
+     * SARIF uses 'note' instead of 'info'.
+     */
+    private static String getSarifLevel(int severity) {
+        switch (severity) {
+            case IMarker.SEVERITY_ERROR:
+                return "error";
+            case IMarker.SEVERITY_WARNING:
+                return "warning";
+        }
+        return "note";
+    }
+
+    public String write(String format, List<HeadlessAnalysisFinding> findings,
+            List<HeadlessAnalysisFailure> failures, Map<String, Long> timings, int modulesAnalyzed) {
+        FastStringBuffer buf = new FastStringBuffer((findings.size() + failures.size()) * 200 + 500);
+        if (FORMAT_SARIF.equals(format)) {
+            writeSarif(buf, findings, failures, timings, modulesAnalyzed);
+        } else if (FORMAT_JSON.equals(format)) {
+            writeJson(buf, findings, failures, timings, modulesAnalyzed);
+        } else {
+            throw new IllegalArgumentException("Unexpected format: " + format + " (expected: json or sarif).");
+        }
+        return buf.toString();
+    }
+
+    private void writeJson(FastStringBuffer buf, List<HeadlessAnalysisFinding> findings,
+            List<HeadlessAnalysisFailure> failures, Map<String, Long> timings, int modulesAnalyzed) {
+        buf.append("{\n  \"modulesAnalyzed\": ").append(modulesAnalyzed).append(",\n");
+        buf.append("  \"modulesFailed\": ").append(failures.size()).append(",\n");
+        buf.append("  \"timingsMillis\": ");
+        writeTimings(buf, timings);
+        buf.append(",\n  \"failures\": [");
+        boolean first = true;
+        for (HeadlessAnalysisFailure f : failures) {
+            buf.append(first ? "\n" : ",\n");
+            first = false;
+            buf.append("    {\"file\": ");
+            appendString(buf, f.file);
+            buf.append(", \"module\": ");
+            appendString(buf, f.moduleName);
+            buf.append(", \"error\": ");
+            appendString(buf, f.error);
+            buf.append('}');
+        }
+        buf.append(first ? "]" : "\n  ]");
+        buf.append(",\n  \"findings\": [");
+        first = true;
+        for (HeadlessAnalysisFinding f : findings) {
+            buf.append(first ? "\n" : ",\n");
+            first = false;
+            buf.append("    {\"file\": ");
+            appendString(buf, f.file);
+            buf.append(", \"module\": ");
+            appendString(buf, f.moduleName);
+            buf.append(", \"rule\": ");
+            appendString(buf, getRuleId(f.type));
+            buf.append(", \"severity\": ");
+            appendString(buf, getSeverityName(f.severity));
+            buf.append(", \"line\": ").append(f.startLine);
+            buf.append(", \"column\": ").append(f.startCol);
+            buf.append(", \"endLine\": ").append(f.endLine);
+            buf.append(", \"endColumn\": ").append(f.endCol);
+            buf.append(", \"message\": ");
+            appendString(buf, f.message);
+            buf.append('}');
+        }
+        buf.append(first ? "]\n}\n" : "\n  ]\n}\n");
+    }
+
+    private void writeSarif(FastStringBuffer buf, List<HeadlessAnalysisFinding> findings,
+            List<HeadlessAnalysisFailure> failures, Map<String, Long> timings, int modulesAnalyzed) {
+        TreeSet<String> rules = new TreeSet<String>();
+        for (HeadlessAnalysisFinding f : findings) {
+            rules.add(getRuleId(f.type));
+        }
+
+        buf.append("{\n  \"$schema\": ");
+        appendString(buf, SARIF_SCHEMA);
+        buf.append(",\n  \"version\": \"2.1.0\",\n  \"runs\": [{\n");
+        buf.append("    \"tool\": {\"driver\": {\"name\": \"PyDev\", \"informationUri\": \"http://pydev.org\", \"rules\": [");
+        boolean first = true;
+        for (String rule : rules) {
+            if (!first) {
+                buf.append(", ");
+            }
+            first = false;
+            buf.append("{\"id\": ");
+            appendString(buf, rule);
+            buf.append('}');
+        }
+        buf.append("]}},\n");
+        buf.append("    \"invocations\": [{\"executionSuccessful\": ").append(failures.isEmpty() ? "true" : "false");
+        buf.append(", \"toolExecutionNotifications\": [");
+        first = true;
+        for (HeadlessAnalysisFailure f : failures) {
+            buf.append(first ? "\n" : ",\n");
+            first = false;
+            buf.append("      {\"level\": \"error\", \"message\": {\"text\": ");
+            appendString(buf, "Unable to analyze " + f.moduleName + ": " + f.error);
+            buf.append("}, \"locations\": [{\"physicalLocation\": {\"artifactLocation\": {\"uri\": ");
+            appendString(buf, new File(f.file).toURI().toString());
+            buf.append("}}}]}");
+        }
+        buf.append(first ? "]}],\n" : "\n    ]}],\n");
+        buf.append("    \"properties\": {\"modulesAnalyzed\": ").append(modulesAnalyzed);
+        buf.append(", \"modulesFailed\": ").append(failures.size());
+        buf.append(", \"timingsMillis\": ");
+        writeTimings(buf, timings);
+        buf.append("},\n    \"results\": [");
+
+        first = true;
+        for (HeadlessAnalysisFinding f : findings) {
+            buf.append(first ? "\n" : ",\n");
+            first = false;
+            buf.append("      {\"ruleId\": ");
+            appendString(buf, getRuleId(f.type));
+            buf.append(", \"level\": ");
+            appendString(buf, getSarifLevel(f.severity));
+            buf.append(", \"message\": {\"text\": ");
+            appendString(buf, f.message);
+            buf.append("}, \"locations\": [{\"physicalLocation\": {\"artifactLocation\": {\"uri\": ");
+            appendString(buf, new File(f.file).toURI().toString());
+            buf.append("}, \"region\": {\"startLine\": ").append(Math.max(1, f.startLine));
+            buf.append(", \"startColumn\": ").append(Math.max(1, f.startCol));
+            if (f.endLine >= f.startLine && f.endCol > 0) {
+                buf.append(", \"endLine\": ").append(f.endLine);
+                buf.append(", \"endColumn\": ").append(f.endCol);
+            }
+            buf.append("}}}]}");
+        }
+        buf.append(first ? "]\n  }]\n}\n" : "\n    ]\n  }]\n}\n");
+    }
+
+    private void writeTimings(FastStringBuffer buf, Map<String, Long> timings) {
+        buf.append('{');
+        boolean first = true;
+        for (Entry<String, Long> entry : timings.entrySet()) {
+            if (!first) {
+                buf.append(", ");
+            }
+            first = false;
+            appendString(buf, entry.getKey());
+            buf.append(": ").append(entry.getValue());
+        }
+        buf.append('}');
+    }
+
+    /**
+     * Appends the given string as a JSON string (quoted and escaped).
+     */
+    public static void appendString(FastStringBuffer buf, String s) {
+        if (s == null) {
+            buf.append("null");
+            return;
+        }
+        buf.append('"');
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    buf.append("\\\"");
+                    break;
+                case '\\':
+                    buf.append("\\\\");
+                    break;
+                case '\n':
+                    buf.append("\\n");
+                    break;
+                case '\r':
+                    buf.append("\\r");
+                    break;
+                case '\t':
+                    buf.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        String hex = Integer.toHexString(c);
+                        buf.append("\\u");
+                        for (int j = hex.length(); j < 4; j++) {
+                            buf.append('0');
+                        }
+                        buf.append(hex);
+                    } else {
+                        buf.append(c);
+                    }
+            }
+        }
+        buf.append('"');
+    }
+}
@@ -0,0 +1,311 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.analysis.headless;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceDescription;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jface.text.IDocument;
+import org.python.pydev.core.FileUtilsFileBuffer;
+import org.python.pydev.core.IIndentPrefs;
+import org.python.pydev.core.IInterpreterInfo;
+import org.python.pydev.core.IInterpreterManager;
+import org.python.pydev.core.IPythonNature;
+import org.python.pydev.core.ModulesKey;
+import org.python.pydev.core.log.Log;
+import org.python.pydev.editor.autoedit.DefaultIndentPrefs;
+import org.python.pydev.editor.codecompletion.revisited.PythonPathHelper;
+import org.python.pydev.editor.codecompletion.revisited.modules.AbstractModule;
+import org.python.pydev.editor.codecompletion.revisited.modules.SourceModule;
+import org.python.pydev.plugin.PydevPlugin;
+import org.python.pydev.plugin.nature.PythonNature;
+import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.string.StringUtils;
+
+import com.python.pydev.analysis.AnalysisPreferences;
+import com.python.pydev.analysis.IAnalysisPreferences;
+import com.python.pydev.analysis.OccurrencesAnalyzer;
+import com.python.pydev.analysis.additionalinfo.AdditionalProjectInterpreterInfo;
+import com.python.pydev.analysis.messages.IMessage;
+
+/**
+ * Runs the code analysis (the same one done by the builder) on all the modules found in a list of source roots
+ * without any UI (i.e.: to be used in a CI server).
+ *
+ * The process is done in phases (each one is timed so that the throughput can be tracked):
+ * - interpreter: the interpreter info is created (or reused if it was already configured in the workspace).
+ * - project: a project is created in the workspace with the source roots as its external source folders
+ *   (and its ProjectModulesManager is filled).
+ * - index: the additional info (global tokens index) is created for the project.
+ * - analysis: the modules are analyzed in parallel (the modules whose analysis failed are kept in the failures).
+ *
+ * @author Fabio
+ */
+public class HeadlessAnalysisRunner {
+
+    public static final String PHASE_INTERPRETER = "interpreter";
+    public static final String PHASE_PROJECT = "project";
+    public static final String PHASE_INDEX = "index";
+    public static final String PHASE_ANALYSIS = "analysis";
+
+    private static final String PROJECT_NAME = "pydev_headless_analysis";
+
+    /**
+     * Max time to wait for the project modules to be computed (in millis).
+     */
+    private static final long NATURE_TIMEOUT = 30 * 60 * 1000;
+
+    private final String interpreterExecutable;
+    private final List<File> sourceRoots;
+    private final int threads;
+
+    private final Map<String, Long> timings = new LinkedHashMap<String, Long>();
+    private final List<HeadlessAnalysisFinding> findings = new ArrayList<HeadlessAnalysisFinding>();
+    private final List<HeadlessAnalysisFailure> failures = new ArrayList<HeadlessAnalysisFailure>();
+    private int modulesAnalyzed;
+
+    public HeadlessAnalysisRunner(String interpreterExecutable, List<File> sourceRoots, int threads) {
+        this.interpreterExecutable = interpreterExecutable;
+        this.sourceRoots = sourceRoots;
+        this.threads = threads <= 0 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
+    public Map<String, Long> getTimings() {
+        return timings;
+    }
+
+    public List<HeadlessAnalysisFinding> getFindings() {
+        return findings;
+    }
+
+    /**
+     * @return the modules which could not be analyzed.
+     */
+    public List<HeadlessAnalysisFailure> getFailures() {
+        return failures;
+    }
+
+    public int getModulesAnalyzed() {
+        return modulesAnalyzed;
+    }
+
+    public void addTiming(String phase, long initialTime) {
+        timings.put(phase, System.currentTimeMillis() - initialTime);
+    }
+
+    public void run(IProgressMonitor monitor) throws Exception {
+        if (monitor == null) {
+            monitor = new NullProgressMonitor();
+        }
+        disableAutoBuilding();
+
+        long initial = System.currentTimeMillis();
+        IInterpreterInfo interpreterInfo = configureInterpreter(monitor);
+        addTiming(PHASE_INTERPRETER, initial);
+
+        initial = System.currentTimeMillis();
+        IPythonNature nature = createProject(interpreterInfo, monitor);
+        addTiming(PHASE_PROJECT, initial);
+
+        initial = System.currentTimeMillis();
+        AdditionalProjectInterpreterInfo.recreateAllInfo(nature, monitor);
+        addTiming(PHASE_INDEX, initial);
+
+        initial = System.currentTimeMillis();
+        analyzeModules(nature, monitor);
+        addTiming(PHASE_ANALYSIS, initial);
+    }
+
+    /**
+     * The builder must not run: the analysis is done explicitly (and the builder would create markers for all the
+     * files).
+     */
+    private void disableAutoBuilding() throws Exception {
+        IWorkspace workspace = ResourcesPlugin.getWorkspace();
+        IWorkspaceDescription description = workspace.getDescription();
+        if (description.isAutoBuilding()) {
+            description.setAutoBuilding(false);
+            workspace.setDescription(description);
+        }
+    }
+
+    private IInterpreterInfo configureInterpreter(IProgressMonitor monitor) throws Exception {
+        IInterpreterManager manager = PydevPlugin.getPythonInterpreterManager();
+        IInterpreterInfo[] current = manager.getInterpreterInfos();
+        for (IInterpreterInfo info : current) {
+            if (new File(info.getExecutableOrJar()).equals(new File(interpreterExecutable))) {
+                return info;
+            }
+        }
+        IInterpreterInfo info = manager.createInterpreterInfo(interpreterExecutable, monitor, false);
+        if (info == null) {
+            throw new RuntimeException("Unable to get interpreter info for: " + interpreterExecutable);
+        }
+        info.setName(interpreterExecutable);
+
+        IInterpreterInfo[] infos = new IInterpreterInfo[current.length + 1];
+        System.arraycopy(current, 0, infos, 0, current.length);
+        infos[current.length] = info;
+        HashSet<String> namesToRestore = new HashSet<String>();
+        namesToRestore.add(info.getName());
+        manager.setInfos(infos, namesToRestore, monitor);
+        return info;
+    }
+
+    private IPythonNature createProject(IInterpreterInfo interpreterInfo, IProgressMonitor monitor)
+            throws Exception {
+        IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT_NAME);
+        if (project.exists()) {
+            //Always start from a clean state (the source roots may have changed).
+            project.delete(true, true, monitor);
+        }
+        project.create(monitor);
+        project.open(monitor);
+
+        ArrayList<String> paths = new ArrayList<String>(sourceRoots.size());
+        for (File root : sourceRoots) {
+            paths.add(FileUtils.getFileAbsolutePath(root));
+        }
+        IPythonNature nature = PythonNature.addNature(project, monitor, getNatureVersion(interpreterInfo), null,
+                StringUtils.join("|", paths), interpreterInfo.getName(), null);
+        if (nature == null) {
+            throw new RuntimeException("Unable to configure the PyDev nature for: " + project);
+        }
+
+        //The modules manager is filled asynchronously: wait for it.
+        long timeout = System.currentTimeMillis() + NATURE_TIMEOUT;
+        while (!nature.isOkToUse()) {
+            if (System.currentTimeMillis() > timeout) {
+                throw new RuntimeException("Timed out waiting for the PyDev nature to be configured.");
+            }
+            if (monitor.isCanceled()) {
+                throw new RuntimeException("Canceled.");
+            }
+            Thread.sleep(50);
+        }
+        return nature;
+    }
+
+    private String getNatureVersion(IInterpreterInfo interpreterInfo) {
+        String version = interpreterInfo.getVersion();
+        if (version != null) {
+            if (version.startsWith("3")) {
+                return IPythonNature.PYTHON_VERSION_3_0;
+            }
+            String natureVersion = "python " + version;
+            if (IPythonNature.Versions.ALL_PYTHON_VERSIONS.contains(natureVersion)) {
+                return natureVersion;
+            }
+        }
+        return IPythonNature.PYTHON_VERSION_LATEST;
+    }
+
+    private void analyzeModules(final IPythonNature nature, final IProgressMonitor monitor) throws Exception {
+        ModulesKey[] keys = nature.getAstManager().getModulesManager().getOnlyDirectModules();
+        final IAnalysisPreferences prefs = new AnalysisPreferences(nature.getProject());
+        final IIndentPrefs indentPrefs = DefaultIndentPrefs.get(nature.getProject());
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<HeadlessAnalysisFinding>>> futures = new ArrayList<Future<List<HeadlessAnalysisFinding>>>(
+                    keys.length);
+            List<ModulesKey> futuresKeys = new ArrayList<ModulesKey>(keys.length);
+            for (final ModulesKey key : keys) {
+                if (key.file == null || !PythonPathHelper.isValidSourceFile(key.file.getName())) {
+                    continue;
+                }
+                futuresKeys.add(key);
+                futures.add(executor.submit(new Callable<List<HeadlessAnalysisFinding>>() {
+
+                    @Override
+                    public List<HeadlessAnalysisFinding> call() throws Exception {
+                        if (monitor.isCanceled()) {
+                            return null;
+                        }
+                        return analyzeModule(nature, key, prefs, indentPrefs, monitor);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                ModulesKey key = futuresKeys.get(i);
+                try {
+                    List<HeadlessAnalysisFinding> found = futures.get(i).get();
+                    if (found != null) {
+                        modulesAnalyzed++;
+                        findings.addAll(found);
+                    }
+                } catch (ExecutionException e) {
+                    Log.log("Error analyzing: " + key.file, e.getCause());
+                    failures.add(HeadlessAnalysisFailure.create(FileUtils.getFileAbsolutePath(key.file), key.name,
+                            e.getCause()));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Collections.sort(failures, new Comparator<HeadlessAnalysisFailure>() {
+
+            @Override
+            public int compare(HeadlessAnalysisFailure o1, HeadlessAnalysisFailure o2) {
+                return o1.file.compareTo(o2.file);
+            }
+        });
+        Collections.sort(findings, new Comparator<HeadlessAnalysisFinding>() {
+
+            @Override
+            public int compare(HeadlessAnalysisFinding o1, HeadlessAnalysisFinding o2) {
+                int ret = o1.file.compareTo(o2.file);
+                if (ret != 0) {
+                    return ret;
+                }
+                ret = Integer.compare(o1.startLine, o2.startLine);
+                if (ret != 0) {
+                    return ret;
+                }
+                return Integer.compare(o1.startCol, o2.startCol);
+            }
+        });
+    }
+
+    /**
+     * Analyzes a single module. Only the findings are kept (the document and the AST may be garbage-collected as soon
+     * as the module is analyzed).
+     */
+    private List<HeadlessAnalysisFinding> analyzeModule(IPythonNature nature, ModulesKey key,
+            IAnalysisPreferences prefs, IIndentPrefs indentPrefs, IProgressMonitor monitor) throws Exception {
+        IDocument doc = FileUtilsFileBuffer.getDocFromFile(key.file);
+        SourceModule module = AbstractModule.createModuleFromDoc(key.name, key.file, doc, nature, false);
+        IMessage[] messages = new OccurrencesAnalyzer().analyzeDocument(nature, module, prefs, doc, monitor,
+                indentPrefs);
+
+        String path = FileUtils.getFileAbsolutePath(key.file);
+        ArrayList<HeadlessAnalysisFinding> ret = new ArrayList<HeadlessAnalysisFinding>(messages.length);
+        for (IMessage m : messages) {
+            ret.add(HeadlessAnalysisFinding.create(path, key.name, m, doc));
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.analysis.additionalinfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TokensSignatureIndexTest extends TestCase {
+
+    private TokensSignatureIndex index;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        index = new TokensSignatureIndex();
+        index.add(new ClassInfo("HttpRequestServerHandler", "mod1", null, true));
+        index.add(new ClassInfo("HRSHandler", "mod1", null, true));
+        index.add(new ClassInfo("RequestHandler", "mod2", null, true));
+        index.add(new FuncInfo("handle_request", "mod2", null, true));
+        index.add(new FuncInfo("other", "mod3", null, true));
+    }
+
+    private List<String> getNames(List<IInfo> infos) {
+        ArrayList<String> ret = new ArrayList<String>();
+        for (IInfo info : infos) {
+            ret.add(info.getName());
+        }
+        return ret;
+    }
+
+    public void testCamelCase() throws Exception {
+        List<String> names = getNames(index.getMatches("HRSH", 0));
+        assertEquals(2, names.size());
+        //prefix match is better than the camel-case match
+        assertEquals("HRSHandler", names.get(0));
+        assertEquals("HttpRequestServerHandler", names.get(1));
+
+        names = getNames(index.getMatches("HttpReqServH", 0));
+        assertEquals(1, names.size());
+        assertEquals("HttpRequestServerHandler", names.get(0));
+    }
+
+    public void testUnderscoreHumps() throws Exception {
+        List<String> names = getNames(index.getMatches("hr", 0));
+        assertTrue(names.contains("handle_request"));
+        assertTrue(names.contains("HttpRequestServerHandler"));
+        //matched only as a subsequence, so, it's ranked last
+        assertEquals("other", names.get(names.size() - 1));
+    }
+
+    public void testSubsequence() throws Exception {
+        List<String> names = getNames(index.getMatches("qhand", 0));
+        assertEquals(2, names.size());
+        assertTrue(names.contains("RequestHandler"));
+        assertTrue(names.contains("HttpRequestServerHandler"));
+    }
+
+    public void testRanking() throws Exception {
+        List<String> names = getNames(index.getMatches("RequestHandler", 0));
+        assertEquals("RequestHandler", names.get(0));
+
+        assertEquals(1, index.getMatches("HRSH", 1).size());
+    }
+
+    public void testRemove() throws Exception {
+        assertEquals(5, index.size());
+        index.removeInfoFromModule("mod1");
+        assertEquals(3, index.size());
+        assertEquals(0, index.getMatches("HRSH", 0).size());
+
+        index.add(new ClassInfo("HRSHandler", "mod4", null, true));
+        assertEquals(1, index.getMatches("HRSH", 0).size());
+    }
+
+    public void testScore() throws Exception {
+        assertTrue(TokensSignatureIndex.getMatchScore("abc".toCharArray(), "abc") > TokensSignatureIndex
+                .getMatchScore("abc".toCharArray(), "abcd"));
+        assertTrue(TokensSignatureIndex.getMatchScore("abc".toCharArray(), "abcd") > TokensSignatureIndex
+                .getMatchScore("AB".toCharArray(), "AxxBxx"));
+        assertEquals(0, TokensSignatureIndex.getMatchScore("abc".toCharArray(), "cba"));
+        assertTrue(TokensSignatureIndex.isCamelCasePattern("HRSH"));
+        assertFalse(TokensSignatureIndex.isCamelCasePattern("Http"));
+    }
+
+    public void testBoundedSameAsUnbounded() throws Exception {
+        //the matches which can't be better than the ones already kept are skipped, but the results must be the same
+        for (int i = 0; i < 50; i++) {
+            index.add(new FuncInfo("handle_request" + i, "mod5", null, true));
+            index.add(new ClassInfo("HandleRequest" + i, "mod5", null, true));
+            index.add(new ClassInfo("XHandleRequest" + i, "mod5", null, true));
+        }
+        for (String pattern : new String[] { "hr", "HRSH", "handle", "qhand", "XHR" }) {
+            List<String> all = getNames(index.getMatches(pattern, 0));
+            for (int max : new int[] { 1, 10, 60, 200 }) {
+                assertEquals(all.subList(0, Math.min(max, all.size())), getNames(index.getMatches(pattern, max)));
+            }
+        }
+    }
+
+    public void testFuzzyPattern() throws Exception {
+        //only camel-case patterns and acronyms (plain qualifiers are only matched by prefix)
+        assertTrue(TokensSignatureIndex.isFuzzyPattern("HR"));
+        assertTrue(TokensSignatureIndex.isFuzzyPattern("HttpReq"));
+        assertFalse(TokensSignatureIndex.isFuzzyPattern("rqhand"));
+        assertFalse(TokensSignatureIndex.isFuzzyPattern("get"));
+        assertFalse(TokensSignatureIndex.isFuzzyPattern("Ht"));
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.analysis.builder;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jface.text.Document;
+import org.python.pydev.core.IGrammarVersionProvider;
+import org.python.pydev.core.IModule;
+import org.python.pydev.editor.autoedit.TestIndentPrefs;
+import org.python.pydev.editor.codecompletion.revisited.modules.SourceModule;
+import org.python.pydev.parser.PyParser;
+import org.python.pydev.parser.jython.SimpleNode;
+import org.python.pydev.shared_core.io.FileUtils;
+
+public class AnalysisResultsCacheTest extends TestCase {
+
+    private File baseDir;
+    private Map<String, IModule> modules;
+    private AnalysisResultsCache.IModuleProvider provider;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        baseDir = new File(System.getProperty("java.io.tmpdir"), "analysis_results_cache_test");
+        FileUtils.deleteDirectoryTree(baseDir);
+        baseDir.mkdirs();
+        modules = new HashMap<String, IModule>();
+        provider = new AnalysisResultsCache.IModuleProvider() {
+
+            public IModule getModule(String name) {
+                return modules.get(name);
+            }
+        };
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtils.deleteDirectoryTree(baseDir);
+        super.tearDown();
+    }
+
+    private IModule addModule(String name, String contents) {
+        File file = new File(baseDir, name + ".py");
+        FileUtils.writeStrToFile(contents, file);
+        PyParser.ParserInfo info = new PyParser.ParserInfo(new Document(contents),
+                IGrammarVersionProvider.GRAMMAR_PYTHON_VERSION_2_7);
+        SourceModule module = new SourceModule(name, file, (SimpleNode) PyParser.reparseDocument(info).ast, null);
+        modules.put(name, module);
+        return module;
+    }
+
+    private void touch(String name) {
+        File file = new File(baseDir, name + ".py");
+        file.setLastModified(file.lastModified() - 10000);
+    }
+
+    public void testReexportedName() throws Exception {
+        IModule mod = addModule("mod", "from x import y\n");
+        addModule("x", "from z import y\nimport other\n");
+        addModule("z", "y = 10\n");
+        addModule("other", "a = 10\n");
+
+        String signature = AnalysisResultsCache.getImportsSignature(provider, mod);
+        assertTrue(signature, signature.contains("z|"));
+        //other is imported in x, but it doesn't provide y.
+        assertFalse(signature, signature.contains("other|"));
+
+        touch("z");
+        assertFalse(signature.equals(AnalysisResultsCache.getImportsSignature(provider, mod)));
+
+        touch("other");
+        String current = AnalysisResultsCache.getImportsSignature(provider, mod);
+        touch("other");
+        assertEquals(current, AnalysisResultsCache.getImportsSignature(provider, mod));
+    }
+
+    public void testWildImports() throws Exception {
+        IModule mod = addModule("mod", "from x import *\n");
+        addModule("x", "from z import *\n__all__ = ['y']\n");
+        addModule("z", "from w import y\n");
+        addModule("w", "y = 10\n");
+
+        String signature = AnalysisResultsCache.getImportsSignature(provider, mod);
+        assertTrue(signature, signature.contains("x|"));
+        assertTrue(signature, signature.contains("z|"));
+        assertTrue(signature, signature.contains("w|"));
+
+        touch("w");
+        assertFalse(signature.equals(AnalysisResultsCache.getImportsSignature(provider, mod)));
+    }
+
+    public void testUnresolvedAndRecursive() throws Exception {
+        IModule mod = addModule("mod", "from x import *\nimport notthere\n");
+        addModule("x", "from mod import *\nfrom x import *\n");
+
+        String signature = AnalysisResultsCache.getImportsSignature(provider, mod);
+        assertTrue(signature, signature.contains("notthere|unresolved"));
+        assertEquals(signature, AnalysisResultsCache.getImportsSignature(provider, mod));
+    }
+
+    public void testMarkersRemovedInvalidateKey() throws Exception {
+        String stored = AnalysisResultsCache.getStoredKey("key", 2);
+        assertTrue(AnalysisResultsCache.isUpToDate(stored, "key", 2));
+        //some marker was removed outside of the builder
+        assertFalse(AnalysisResultsCache.isUpToDate(stored, "key", 1));
+        assertFalse(AnalysisResultsCache.isUpToDate(stored, "key2", 2));
+        assertFalse(AnalysisResultsCache.isUpToDate(null, "key", 0));
+        assertFalse(AnalysisResultsCache.isUpToDate(stored, null, 2));
+    }
+
+    public void testIndentPrefsInKey() throws Exception {
+        String signature = AnalysisResultsCache.getIndentPrefsSignature(new TestIndentPrefs(true, 4));
+        assertEquals(signature, AnalysisResultsCache.getIndentPrefsSignature(new TestIndentPrefs(true, 4)));
+        //tabs are reported as errors only when using spaces and the tab width is used by the TabNanny
+        assertFalse(signature.equals(AnalysisResultsCache.getIndentPrefsSignature(new TestIndentPrefs(false, 4))));
+        assertFalse(signature.equals(AnalysisResultsCache.getIndentPrefsSignature(new TestIndentPrefs(true, 8))));
+    }
+}
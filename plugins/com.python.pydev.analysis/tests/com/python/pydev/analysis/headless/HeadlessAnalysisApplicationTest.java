@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.analysis.headless;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+public class HeadlessAnalysisApplicationTest extends TestCase {
+
+    private String source;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        source = new File(System.getProperty("java.io.tmpdir")).getAbsolutePath();
+    }
+
+    public void testParse() throws Exception {
+        HeadlessAnalysisApplication.Arguments arguments = HeadlessAnalysisApplication.Arguments.parse(new String[] {
+                "-interpreter", "python", "-source", source, "-format", "SARIF", "-threads", "3" });
+        assertEquals("python", arguments.interpreter);
+        assertEquals(1, arguments.sourceRoots.size());
+        assertEquals(HeadlessAnalysisReportWriter.FORMAT_SARIF, arguments.format);
+        assertEquals(3, arguments.threads);
+        assertNull(arguments.output);
+    }
+
+    public void testInvalidArguments() throws Exception {
+        checkInvalid("-interpreter", "python", "-source", source, "-format", "xml");
+        checkInvalid("-interpreter", "python", "-source", source, "-threads", "abc");
+        checkInvalid("-interpreter", "python", "-source", source, "-threads", "0");
+        checkInvalid("-interpreter", "python", "-source", source, "-threads");
+        checkInvalid("-interpreter", "-source", source);
+        checkInvalid("-interpreter", "python", "-source", new File(source, "does_not_exist_dir").getPath());
+        checkInvalid("-interpreter", "python", "-source", source, "-unknown", "a");
+        checkInvalid("-interpreter", "python");
+        checkInvalid("-source", source);
+        checkInvalid();
+    }
+
+    private void checkInvalid(String... args) {
+        try {
+            HeadlessAnalysisApplication.Arguments.parse(args);
+            fail("Expected arguments to be invalid.");
+        } catch (IllegalArgumentException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.analysis.headless;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IMarker;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+import com.python.pydev.analysis.IAnalysisPreferences;
+
+public class HeadlessAnalysisReportWriterTest extends TestCase {
+
+    private List<HeadlessAnalysisFinding> findings;
+    private List<HeadlessAnalysisFailure> failures;
+    private LinkedHashMap<String, Long> timings;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        findings = new ArrayList<HeadlessAnalysisFinding>();
+        findings.add(new HeadlessAnalysisFinding("/tmp/mod1.py", "mod1", IAnalysisPreferences.TYPE_UNUSED_IMPORT,
+                IMarker.SEVERITY_WARNING, "Unused import: os", 1, 8, 1, 10));
+        findings.add(new HeadlessAnalysisFinding("/tmp/mod2.py", "mod2",
+                IAnalysisPreferences.TYPE_UNDEFINED_VARIABLE, IMarker.SEVERITY_ERROR, "Undefined variable: \"a\"\n",
+                3, 1, 3, 2));
+        failures = new ArrayList<HeadlessAnalysisFailure>();
+        timings = new LinkedHashMap<String, Long>();
+        timings.put(HeadlessAnalysisRunner.PHASE_INDEX, 10L);
+        timings.put(HeadlessAnalysisRunner.PHASE_ANALYSIS, 20L);
+    }
+
+    public void testJson() throws Exception {
+        String json = new HeadlessAnalysisReportWriter().write(HeadlessAnalysisReportWriter.FORMAT_JSON, findings,
+                failures, timings, 2);
+        assertTrue(json, json.contains("\"modulesAnalyzed\": 2"));
+        assertTrue(json, json.contains("\"timingsMillis\": {\"index\": 10, \"analysis\": 20}"));
+        assertTrue(json, json.contains("\"rule\": \"unused-import\", \"severity\": \"warning\", \"line\": 1"));
+        assertTrue(json, json.contains("\"message\": \"Undefined variable: \\\"a\\\"\\n\""));
+    }
+
+    public void testSarif() throws Exception {
+        String sarif = new HeadlessAnalysisReportWriter().write(HeadlessAnalysisReportWriter.FORMAT_SARIF,
+                findings, failures, timings, 2);
+        assertTrue(sarif, sarif.contains("\"version\": \"2.1.0\""));
+        assertTrue(sarif, sarif.contains("\"rules\": [{\"id\": \"undefined-variable\"}, {\"id\": \"unused-import\"}]"));
+        assertTrue(sarif, sarif.contains("\"ruleId\": \"undefined-variable\", \"level\": \"error\""));
+        assertTrue(sarif, sarif.contains("\"region\": {\"startLine\": 1, \"startColumn\": 8, \"endLine\": 1, \"endColumn\": 10}"));
+    }
+
+    public void testEmpty() throws Exception {
+        String json = new HeadlessAnalysisReportWriter().write(HeadlessAnalysisReportWriter.FORMAT_JSON,
+                new ArrayList<HeadlessAnalysisFinding>(), failures, timings, 0);
+        assertTrue(json, json.contains("\"findings\": []"));
+        assertTrue(json, json.contains("\"modulesFailed\": 0"));
+        assertTrue(json, json.contains("\"failures\": []"));
+
+        String sarif = new HeadlessAnalysisReportWriter().write(HeadlessAnalysisReportWriter.FORMAT_SARIF,
+                new ArrayList<HeadlessAnalysisFinding>(), failures, timings, 0);
+        assertTrue(sarif, sarif.contains("\"executionSuccessful\": true, \"toolExecutionNotifications\": []"));
+    }
+
+    public void testFailures() throws Exception {
+        failures.add(HeadlessAnalysisFailure.create("/tmp/mod3.py", "mod3", new RuntimeException("Broken")));
+
+        String json = new HeadlessAnalysisReportWriter().write(HeadlessAnalysisReportWriter.FORMAT_JSON, findings,
+                failures, timings, 2);
+        assertTrue(json, json.contains("\"modulesFailed\": 1"));
+        assertTrue(json, json.contains(
+                "{\"file\": \"/tmp/mod3.py\", \"module\": \"mod3\", \"error\": \"java.lang.RuntimeException: Broken\"}"));
+
+        String sarif = new HeadlessAnalysisReportWriter().write(HeadlessAnalysisReportWriter.FORMAT_SARIF,
+                findings, failures, timings, 2);
+        assertTrue(sarif, sarif.contains("\"executionSuccessful\": false"));
+        assertTrue(sarif, sarif.contains(
+                "{\"level\": \"error\", \"message\": {\"text\": \"Unable to analyze mod3: java.lang.RuntimeException: Broken\"}"));
+        assertTrue(sarif, sarif.contains("\"modulesFailed\": 1"));
+    }
+
+    public void testEscape() throws Exception {
+        FastStringBuffer buf = new FastStringBuffer();
+        HeadlessAnalysisReportWriter.appendString(buf, "a\\b\t\u0001");
+        assertEquals("\"a\\\\b\\t\\u0001\"", buf.toString());
+    }
+}
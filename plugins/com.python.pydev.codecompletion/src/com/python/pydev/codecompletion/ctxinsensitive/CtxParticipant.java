@@ -13,7 +13,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.jface.text.contentassist.IContextInformation;
@@ -43,6 +45,7 @@ import com.python.pydev.analysis.additionalinfo.AbstractAdditionalTokensInfo;
 import com.python.pydev.analysis.additionalinfo.AdditionalProjectInterpreterInfo;
 import com.python.pydev.analysis.additionalinfo.AdditionalSystemInterpreterInfo;
 import com.python.pydev.analysis.additionalinfo.IInfo;
+import com.python.pydev.analysis.additionalinfo.TokensSignatureIndex;
 import com.python.pydev.analysis.ui.AutoImportsPreferencesPage;
 import com.python.pydev.codecompletion.ui.CodeCompletionPreferencesPage;
 
@@ -53,6 +56,38 @@ import com.python.pydev.codecompletion.ui.CodeCompletionPreferencesPage;
  */
 public class CtxParticipant implements IPyDevCompletionParticipant, IPyDevCompletionParticipant2 {
 
+    /**
+     * Camel-case/subsequence matches may be many more than the prefix ones, so, we only add the best ranked ones.
+     */
+    private static final int MAX_FUZZY_MATCHES = 500;
+
+    /**
+     * @return the number of tokens whose name starts with the passed (lower case) qualifier.
+     */
+    private static int countStartingWith(Collection<IInfo> tokens, String lowerQual) {
+        int count = 0;
+        for (IInfo info : tokens) {
+            if (info.getName().toLowerCase().startsWith(lowerQual)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the fuzzy matches which don't start with the passed (lower case) qualifier (the ones starting with it
+     * are already in the prefix matches), in the order they were ranked.
+     */
+    private static Set<IInfo> getFuzzyMatchesNotStartingWith(List<IInfo> fuzzyMatches, String lowerQual) {
+        Set<IInfo> ret = new LinkedHashSet<IInfo>();
+        for (IInfo info : fuzzyMatches) {
+            if (!info.getName().toLowerCase().startsWith(lowerQual)) {
+                ret.add(info);
+            }
+        }
+        return ret;
+    }
+
     // Console completions ---------------------------------------------------------------------------------------------
 
     /**
@@ -111,6 +146,18 @@ public class CtxParticipant implements IPyDevCompletionParticipant, IPyDevComple
         Collection<IInfo> tokensStartingWith = additionalInfoForProject.getTokensStartingWith(qual,
                 AbstractAdditionalTokensInfo.TOP_LEVEL);
 
+        //When the user types a camel-case pattern or acronym (i.e.: HRSH), the best camel-hump/subsequence matches
+        //(i.e.: HttpRequestServerHandler) are added after the prefix matches.
+        Set<IInfo> fuzzyMatches = new HashSet<IInfo>();
+        if (TokensSignatureIndex.isFuzzyPattern(qual)) {
+            //The prefix matches are ranked first, so, ask for enough results to still get MAX_FUZZY_MATCHES others.
+            fuzzyMatches = getFuzzyMatchesNotStartingWith(additionalInfoForProject.getTokensMatching(qual,
+                    AbstractAdditionalTokensInfo.TOP_LEVEL,
+                    countStartingWith(tokensStartingWith, lowerQual) + MAX_FUZZY_MATCHES), lowerQual);
+            tokensStartingWith = new ArrayList<IInfo>(tokensStartingWith);
+            tokensStartingWith.addAll(fuzzyMatches);
+        }
+
         FastStringBuffer realImportRep = new FastStringBuffer();
         FastStringBuffer displayString = new FastStringBuffer();
         FastStringBuffer tempBuf = new FastStringBuffer();
@@ -126,7 +173,7 @@ public class CtxParticipant implements IPyDevCompletionParticipant, IPyDevComple
 
             String rep = info.getName();
             String lowerRep = rep.toLowerCase();
-            if (!lowerRep.startsWith(lowerQual)) {
+            if (!lowerRep.startsWith(lowerQual) && !fuzzyMatches.contains(info)) {
                 continue;
             }
 
@@ -179,6 +226,17 @@ public class CtxParticipant implements IPyDevCompletionParticipant, IPyDevComple
             List<IInfo> tokensStartingWith = AdditionalProjectInterpreterInfo.getTokensStartingWith(qual,
                     request.nature, AbstractAdditionalTokensInfo.TOP_LEVEL);
 
+            //When the user types a camel-case pattern or acronym (i.e.: HRSH), the best camel-hump/subsequence
+            //matches (i.e.: HttpRequestServerHandler) are added after the prefix matches.
+            Set<IInfo> fuzzyMatches = new HashSet<IInfo>();
+            if (TokensSignatureIndex.isFuzzyPattern(qual)) {
+                fuzzyMatches = getFuzzyMatchesNotStartingWith(AdditionalProjectInterpreterInfo.getTokensMatching(
+                        qual, request.nature, AbstractAdditionalTokensInfo.TOP_LEVEL,
+                        countStartingWith(tokensStartingWith, lowerQual) + MAX_FUZZY_MATCHES), lowerQual);
+                tokensStartingWith = new ArrayList<IInfo>(tokensStartingWith);
+                tokensStartingWith.addAll(fuzzyMatches);
+            }
+
             FastStringBuffer realImportRep = new FastStringBuffer();
             FastStringBuffer displayString = new FastStringBuffer();
             FastStringBuffer tempBuf = new FastStringBuffer();
@@ -201,7 +259,7 @@ public class CtxParticipant implements IPyDevCompletionParticipant, IPyDevComple
 
                 String rep = info.getName();
                 String lowerRep = rep.toLowerCase();
-                if (!lowerRep.startsWith(lowerQual) || importedNames.contains(rep)) {
+                if ((!lowerRep.startsWith(lowerQual) && !fuzzyMatches.contains(info)) || importedNames.contains(rep)) {
                     continue;
                 }
 
@@ -49,6 +49,7 @@ import org.python.pydev.shared_core.parsing.IParserObserver;
 import org.python.pydev.shared_core.structure.Tuple;
 
 import com.python.pydev.refactoring.markoccurrences.MarkOccurrencesJob;
+import com.python.pydev.refactoring.markoccurrences.OccurrencesTable;
 import com.python.pydev.refactoring.wizards.rename.PyRenameEntryPoint;
 
 /**
@@ -170,12 +171,24 @@ public class PyRenameInFileAction extends Action {
             return false;
         }
 
-        PyRenameEntryPoint processor = new PyRenameEntryPoint(req);
-
-        //process it to get what we need
-        processor.checkInitialConditions(monitor);
-        processor.checkFinalConditions(monitor, null);
-        HashSet<ASTEntry> occurrences = processor.getOccurrences();
+        Set<ASTEntry> occurrences;
+        OccurrencesTable table = OccurrencesTable.get(pyEdit, document);
+        OccurrencesTable.Occurrences available = null;
+        if (table != null) {
+            Tuple<String, Integer> currToken = ps.getCurrToken();
+            available = table.getOccurrences(currToken.o2, currToken.o1);
+        }
+        if (available != null) {
+            //already computed by the mark occurrences for this version of the document.
+            occurrences = available.entries;
+        } else {
+            PyRenameEntryPoint processor = new PyRenameEntryPoint(req);
+
+            //process it to get what we need
+            processor.checkInitialConditions(monitor);
+            processor.checkFinalConditions(monitor, null);
+            occurrences = processor.getOccurrences();
+        }
 
         if (monitor.isCanceled()) {
             return false;
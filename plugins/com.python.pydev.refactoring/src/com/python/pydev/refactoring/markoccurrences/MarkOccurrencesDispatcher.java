@@ -9,7 +9,6 @@
  */
 package com.python.pydev.refactoring.markoccurrences;
 
-import java.lang.ref.WeakReference;
 import java.util.ListResourceBundle;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -51,6 +50,6 @@ public class MarkOccurrencesDispatcher implements IPyEditListener, IDocumentList
 
     public void handleCursorPositionChanged(BaseEditor baseEditor, TextSelectionUtils ps) {
         PyEdit edit = (PyEdit) baseEditor;
-        MarkOccurrencesJob.scheduleRequest(new WeakReference<BaseEditor>(edit), ps);
+        MarkOccurrencesJob.scheduleRequest(edit, ps);
     }
 }
@@ -68,23 +68,20 @@ public class MarkOccurrencesJob extends BaseMarkOccurrencesJob {
     }
 
     private final static class PyMarkOccurrencesRequest extends MarkOccurrencesRequest {
-        private final RefactoringRequest refactoringRequest;
-        private final PyReferenceSearcher pyReferenceSearcher;
+        private final OccurrencesTable.Occurrences occurrences;
 
         public PyMarkOccurrencesRequest(boolean proceedWithMarkOccurrences,
-                RefactoringRequest refactoringRequest,
-                PyReferenceSearcher pyReferenceSearcher) {
+                OccurrencesTable.Occurrences occurrences) {
             super(proceedWithMarkOccurrences);
-            this.refactoringRequest = refactoringRequest;
-            this.pyReferenceSearcher = pyReferenceSearcher;
+            this.occurrences = occurrences;
         }
 
         public Set<ASTEntry> getOccurrences() {
-            return pyReferenceSearcher.getLocalReferences(refactoringRequest);
+            return occurrences.entries;
         }
 
         public String getInitialName() {
-            return refactoringRequest.initialName;
+            return occurrences.initialName;
         }
 
     }
@@ -93,6 +90,17 @@ public class MarkOccurrencesJob extends BaseMarkOccurrencesJob {
         super(editor, ps);
     }
 
+    /**
+     * Delay to mark the occurrences when they have to be computed.
+     */
+    private static final int DEFAULT_DELAY = 700;
+
+    /**
+     * Delay to mark the occurrences when they're already available in the occurrences table (still a small
+     * delay so that we don't mark occurrences when the cursor is just passing by).
+     */
+    private static final int DELAY_WHEN_IN_TABLE = 50;
+
     private static final Set<String> LOCAL_TEXT_SEARCHES_ON = new HashSet<String>();
 
     static {
@@ -118,7 +126,7 @@ public class MarkOccurrencesJob extends BaseMarkOccurrencesJob {
             IDocumentProvider documentProvider, IProgressMonitor monitor) throws BadLocationException,
                     OperationCanceledException, CoreException, MisconfigurationException {
         if (!MarkOccurrencesPreferencesPage.useMarkOccurrences()) {
-            return new PyMarkOccurrencesRequest(false, null, null);
+            return new PyMarkOccurrencesRequest(false, null);
         }
         PyEdit pyEdit = (PyEdit) baseEditor;
 
@@ -130,33 +138,53 @@ public class MarkOccurrencesJob extends BaseMarkOccurrencesJob {
             return new TextBasedLocalMarkOccurrencesRequest(currToken);
         }
 
+        //if the occurrences for the current token were already computed for this version of the document, just
+        //use them (no need to find its definition and analyze the scopes again).
+        OccurrencesTable table = OccurrencesTable.get(pyEdit, this.ps.getDoc());
+        if (table != null) {
+            OccurrencesTable.Occurrences occurrences = table.getOccurrences(this.ps.getCurrToken().o2, currToken);
+            if (occurrences != null) {
+                return new PyMarkOccurrencesRequest(true, occurrences);
+            }
+        }
+
         final RefactoringRequest req = getRefactoringRequest(pyEdit, pyRefactorAction,
                 PySelection.fromTextSelection(this.ps));
 
         if (req == null || !req.nature.getRelatedInterpreterManager().isConfigured()) { //we check if it's configured because it may still be a stub...
-            return new PyMarkOccurrencesRequest(false, null, null);
+            return new PyMarkOccurrencesRequest(false, null);
         }
 
         PyReferenceSearcher searcher = new PyReferenceSearcher(req);
         //to see if a new request was not created in the meantime (in which case this one will be cancelled)
         if (monitor.isCanceled()) {
-            return new PyMarkOccurrencesRequest(false, null, null);
+            return new PyMarkOccurrencesRequest(false, null);
         }
 
         try {
             searcher.prepareSearch(req);
             if (monitor.isCanceled()) {
-                return new PyMarkOccurrencesRequest(false, null, null);
+                return new PyMarkOccurrencesRequest(false, null);
             }
             searcher.search(req);
             if (monitor.isCanceled()) {
-                return new PyMarkOccurrencesRequest(false, null, null);
+                return new PyMarkOccurrencesRequest(false, null);
             }
             // Ok, search succeeded.
-            return new PyMarkOccurrencesRequest(true, req, searcher);
+            Set<ASTEntry> localReferences = searcher.getLocalReferences(req);
+            if (localReferences == null) {
+                return new PyMarkOccurrencesRequest(false, null);
+            }
+            OccurrencesTable.Occurrences occurrences;
+            if (table != null) {
+                occurrences = table.addOccurrences(req.initialName, localReferences, this.ps.getDoc());
+            } else {
+                occurrences = new OccurrencesTable.Occurrences(req.initialName, localReferences);
+            }
+            return new PyMarkOccurrencesRequest(true, occurrences);
         } catch (PyReferenceSearcher.SearchException | BadLocationException e) {
             // Suppress search failures.
-            return new PyMarkOccurrencesRequest(false, null, null);
+            return new PyMarkOccurrencesRequest(false, null);
         } catch (Throwable e) {
             throw new RuntimeException("Error in occurrences while analyzing modName:" + req.moduleName
                     + " initialName:" + req.initialName + " line (start at 0):" + req.ps.getCursorLine(), e);
@@ -312,4 +340,24 @@ public class MarkOccurrencesJob extends BaseMarkOccurrencesJob {
         BaseMarkOccurrencesJob.scheduleRequest(new MarkOccurrencesJob(editor2, ps), time);
     }
 
+    /**
+     * Schedules a request with a small delay if the occurrences for the current token are already available in the
+     * occurrences table (and with the default delay otherwise).
+     */
+    public static synchronized void scheduleRequest(PyEdit pyEdit, TextSelectionUtils ps) {
+        int time = DEFAULT_DELAY;
+        try {
+            OccurrencesTable table = OccurrencesTable.get(pyEdit, ps.getDoc());
+            if (table != null) {
+                Tuple<String, Integer> currToken = ps.getCurrToken();
+                if (table.getOccurrences(currToken.o2, currToken.o1) != null) {
+                    time = DELAY_WHEN_IN_TABLE;
+                }
+            }
+        } catch (BadLocationException e) {
+            //ignore (just use the default delay).
+        }
+        scheduleRequest(new WeakReference<BaseEditor>(pyEdit), ps, time);
+    }
+
 }
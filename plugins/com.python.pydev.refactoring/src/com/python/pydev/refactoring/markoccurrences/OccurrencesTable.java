@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.refactoring.markoccurrences;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.python.pydev.editor.PyEdit;
+import org.python.pydev.parser.jython.SimpleNode;
+import org.python.pydev.parser.jython.ast.Name;
+import org.python.pydev.parser.visitors.scope.ASTEntry;
+
+/**
+ * Table with the occurrences of the symbols already analyzed in a given version of a document (the version of the
+ * document which generated the current AST of the editor).
+ *
+ * Each time the occurrences of a symbol are computed, all the positions where that symbol appears are added to the
+ * table pointing to the same occurrences, so, when the cursor goes to any of those positions (while the document
+ * isn't changed), the occurrences are gotten from the table without having to analyze the code again.
+ *
+ * @author Fabio
+ */
+public final class OccurrencesTable {
+
+    /**
+     * The occurrences of some symbol.
+     */
+    public static final class Occurrences {
+
+        public final String initialName;
+        public final Set<ASTEntry> entries;
+
+        /*default*/Occurrences(String initialName, Set<ASTEntry> entries) {
+            this.initialName = initialName;
+            this.entries = Collections.unmodifiableSet(entries);
+        }
+    }
+
+    private static final String OCCURRENCES_TABLE_CACHE_KEY = "OccurrencesTable";
+
+    /**
+     * The modification stamp of the document for which this table is valid.
+     */
+    public final long version;
+
+    /**
+     * Offset of a symbol to its occurrences.
+     */
+    private final Map<Integer, Occurrences> offsetToOccurrences = new HashMap<Integer, Occurrences>();
+
+    public OccurrencesTable(long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the table for the current AST of the editor or null if the AST isn't synchronized with the document
+     * (in which case positions in the AST can't be mapped to offsets in the document).
+     */
+    public static OccurrencesTable get(PyEdit pyEdit, IDocument doc) {
+        Map<String, Object> cache = pyEdit.cache;
+        if (cache == null || !(doc instanceof IDocumentExtension4)) {
+            return null;
+        }
+        long version = ((IDocumentExtension4) doc).getModificationStamp();
+        if (version == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP
+                || pyEdit.getAstModificationTimeStamp() != version) {
+            return null;
+        }
+        synchronized (cache) {
+            OccurrencesTable table = (OccurrencesTable) cache.get(OCCURRENCES_TABLE_CACHE_KEY);
+            if (table == null || table.version != version) {
+                //A new version of the document: the previous table is no longer valid.
+                table = new OccurrencesTable(version);
+                cache.put(OCCURRENCES_TABLE_CACHE_KEY, table);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * @return the occurrences of the symbol with the given name which starts at the given offset or null if
+     * those weren't computed yet.
+     */
+    public synchronized Occurrences getOccurrences(int offset, String name) {
+        Occurrences occurrences = offsetToOccurrences.get(offset);
+        if (occurrences != null && occurrences.initialName.equals(name)) {
+            return occurrences;
+        }
+        return null;
+    }
+
+    /**
+     * Adds the occurrences found for some symbol, so that any of its positions can be used to get them later on.
+     *
+     * Occurrences in strings and comments aren't used as keys (requesting the occurrences in such a place does
+     * not give the same results).
+     *
+     * @param doc the document from where the AST was generated (if it changed, nothing is added).
+     * @return the occurrences added.
+     */
+    public Occurrences addOccurrences(String initialName, Set<ASTEntry> entries, IDocument doc) {
+        Occurrences occurrences = new Occurrences(initialName, new HashSet<ASTEntry>(entries));
+        if (!(doc instanceof IDocumentExtension4) || ((IDocumentExtension4) doc).getModificationStamp() != version) {
+            return occurrences;
+        }
+        Map<Integer, Occurrences> toAdd = new HashMap<Integer, Occurrences>();
+        try {
+            for (ASTEntry entry : entries) {
+                if (entry.node instanceof Name && ((Name) entry.node).ctx == Name.Artificial) {
+                    continue;
+                }
+                SimpleNode node = entry.getNameNode();
+                int offset = doc.getLineOffset(node.beginLine - 1) + node.beginColumn - 1;
+                toAdd.put(offset, occurrences);
+            }
+        } catch (BadLocationException e) {
+            //The document changed while we were computing the offsets (the table is no longer valid anyways).
+            return occurrences;
+        }
+        synchronized (this) {
+            offsetToOccurrences.putAll(toAdd);
+        }
+        return occurrences;
+    }
+
+    public synchronized int size() {
+        return offsetToOccurrences.size();
+    }
+}
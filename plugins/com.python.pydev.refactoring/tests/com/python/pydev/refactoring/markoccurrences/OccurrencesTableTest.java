@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.refactoring.markoccurrences;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jface.text.Document;
+import org.python.pydev.parser.jython.ast.Name;
+import org.python.pydev.parser.visitors.scope.ASTEntry;
+
+public class OccurrencesTableTest extends TestCase {
+
+    private Document doc;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        doc = new Document("aa = 10\n" +
+                "print(aa) #aa\n");
+    }
+
+    private ASTEntry createEntry(int line, int col, int ctx) {
+        Name name = new Name("aa", ctx, false);
+        name.beginLine = line;
+        name.beginColumn = col;
+        return new ASTEntry(null, name);
+    }
+
+    public void testOccurrencesTable() throws Exception {
+        Set<ASTEntry> entries = new HashSet<ASTEntry>();
+        entries.add(createEntry(1, 1, Name.Store));
+        entries.add(createEntry(2, 7, Name.Load));
+        entries.add(createEntry(2, 12, Name.Artificial));
+
+        OccurrencesTable table = new OccurrencesTable(doc.getModificationStamp());
+        OccurrencesTable.Occurrences occurrences = table.addOccurrences("aa", entries, doc);
+        assertEquals(3, occurrences.entries.size());
+
+        //the one in the comment is not a key
+        assertEquals(2, table.size());
+        assertSame(occurrences, table.getOccurrences(0, "aa"));
+        assertSame(occurrences, table.getOccurrences(14, "aa"));
+        assertNull(table.getOccurrences(19, "aa"));
+        assertNull(table.getOccurrences(14, "bb"));
+    }
+
+    public void testNotAddedForOtherVersion() throws Exception {
+        Set<ASTEntry> entries = new HashSet<ASTEntry>();
+        entries.add(createEntry(1, 1, Name.Store));
+
+        OccurrencesTable table = new OccurrencesTable(doc.getModificationStamp());
+        doc.replace(0, 0, " ");
+        OccurrencesTable.Occurrences occurrences = table.addOccurrences("aa", entries, doc);
+        assertEquals(1, occurrences.entries.size());
+        assertEquals(0, table.size());
+    }
+}
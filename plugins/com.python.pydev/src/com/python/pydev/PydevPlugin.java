@@ -10,6 +10,8 @@ import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
+import com.python.pydev.ui.search.index.PySearchIndexManager;
+
 /**
  * The main plugin class to be used in the desktop.
  */
@@ -32,6 +34,10 @@ public class PydevPlugin extends AbstractUIPlugin {
      */
     @Override
     public void stop(BundleContext context) throws Exception {
+        PySearchIndexManager searchIndexManager = PySearchIndexManager.getCreatedInstance();
+        if (searchIndexManager != null) {
+            searchIndexManager.dispose();
+        }
         super.stop(context);
         plugin = null;
     }
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.ui.search;
+
+import java.util.ArrayList;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.search.core.text.TextSearchEngine;
+import org.eclipse.search.core.text.TextSearchMatchAccess;
+import org.eclipse.search.core.text.TextSearchRequestor;
+import org.eclipse.search.internal.ui.text.FileMatch;
+import org.eclipse.search.internal.ui.text.FileSearchQuery;
+import org.eclipse.search.internal.ui.text.LineElement;
+import org.eclipse.search.ui.text.AbstractTextSearchResult;
+import org.eclipse.search.ui.text.FileTextSearchScope;
+import org.eclipse.search.ui.text.Match;
+
+import com.python.pydev.ui.search.index.PySearchIndexScope;
+
+/**
+ * A FileSearchQuery which uses the trigrams index to restrict the files searched to the ones which may have a
+ * match. The restriction is computed in the search job (when the query is run) as it needs to check all the files
+ * in the scope.
+ *
+ * The results are the same ones from the FileSearchQuery (so, the usual file search page and replace actions work
+ * with it).
+ *
+ * @author Fabio
+ */
+public class PyIndexedFileSearchQuery extends FileSearchQuery {
+
+    private final String searchText;
+    private final boolean isRegEx;
+    private final Set<IFile> filesInDirtyEditors;
+
+    /**
+     * @param filesInDirtyEditors files with unsaved changes (which are always searched). Must be gotten in the
+     * UI thread.
+     */
+    public PyIndexedFileSearchQuery(String searchText, boolean isRegEx, boolean isCaseSensitive,
+            boolean isWholeWord, FileTextSearchScope scope, Set<IFile> filesInDirtyEditors) {
+        super(searchText, isRegEx, isCaseSensitive, isWholeWord, scope);
+        this.searchText = searchText;
+        this.isRegEx = isRegEx;
+        this.filesInDirtyEditors = filesInDirtyEditors;
+    }
+
+    @Override
+    public IStatus run(IProgressMonitor monitor) {
+        FileTextSearchScope scope = getSearchScope();
+        FileTextSearchScope narrowed = PySearchIndexScope.narrow(scope, searchText, isRegEx, filesInDirtyEditors,
+                monitor);
+        if (monitor.isCanceled()) {
+            return Status.CANCEL_STATUS;
+        }
+        if (narrowed == scope) {
+            return super.run(monitor);
+        }
+        AbstractTextSearchResult textResult = (AbstractTextSearchResult) getSearchResult();
+        textResult.removeAll();
+        TextSearchResultCollector collector = new TextSearchResultCollector(textResult, isFileNameSearch());
+        return TextSearchEngine.create().search(narrowed, collector, getSearchPattern(), monitor);
+    }
+
+    /**
+     * Same as the collector used in the FileSearchQuery (which is private there).
+     */
+    private final static class TextSearchResultCollector extends TextSearchRequestor {
+
+        private final AbstractTextSearchResult fResult;
+        private final boolean fIsFileSearchOnly;
+        private ArrayList<FileMatch> fCachedMatches;
+
+        private TextSearchResultCollector(AbstractTextSearchResult result, boolean isFileSearchOnly) {
+            fResult = result;
+            fIsFileSearchOnly = isFileSearchOnly;
+        }
+
+        @Override
+        public boolean acceptFile(IFile file) throws CoreException {
+            if (fIsFileSearchOnly) {
+                fResult.addMatch(new FileMatch(file));
+            }
+            flushMatches();
+            return true;
+        }
+
+        @Override
+        public boolean acceptPatternMatch(TextSearchMatchAccess matchRequestor) throws CoreException {
+            int matchOffset = matchRequestor.getMatchOffset();
+            LineElement lineElement = getLineElement(matchOffset, matchRequestor);
+            if (lineElement != null) {
+                fCachedMatches.add(new FileMatch(matchRequestor.getFile(), matchOffset, matchRequestor
+                        .getMatchLength(), lineElement));
+            }
+            return true;
+        }
+
+        private LineElement getLineElement(int offset, TextSearchMatchAccess matchRequestor) {
+            int lineNumber = 1;
+            int lineStart = 0;
+            if (!fCachedMatches.isEmpty()) {
+                //match on same line as last?
+                FileMatch last = fCachedMatches.get(fCachedMatches.size() - 1);
+                LineElement lineElement = last.getLineElement();
+                if (lineElement.contains(offset)) {
+                    return lineElement;
+                }
+                //start with the offset and line information from the last match
+                lineStart = lineElement.getOffset() + lineElement.getLength();
+                lineNumber = lineElement.getLine() + 1;
+            }
+            if (offset < lineStart) {
+                return null; //offset before the last line
+            }
+
+            int i = lineStart;
+            int contentLength = matchRequestor.getFileContentLength();
+            while (i < contentLength) {
+                char ch = matchRequestor.getFileContentChar(i++);
+                if (ch == '\n' || ch == '\r') {
+                    if (ch == '\r' && i < contentLength && matchRequestor.getFileContentChar(i) == '\n') {
+                        i++;
+                    }
+                    if (offset < i) {
+                        //include line delimiter
+                        return new LineElement(matchRequestor.getFile(), lineNumber, lineStart, getContents(
+                                matchRequestor, lineStart, i));
+                    }
+                    lineNumber++;
+                    lineStart = i;
+                }
+            }
+            if (offset < i) {
+                //until end of file
+                return new LineElement(matchRequestor.getFile(), lineNumber, lineStart, getContents(matchRequestor,
+                        lineStart, i));
+            }
+            return null; //offset outside of range
+        }
+
+        private static String getContents(TextSearchMatchAccess matchRequestor, int start, int end) {
+            StringBuffer buf = new StringBuffer();
+            for (int i = start; i < end; i++) {
+                char ch = matchRequestor.getFileContentChar(i);
+                if (Character.isWhitespace(ch) || Character.isISOControl(ch)) {
+                    buf.append(' ');
+                } else {
+                    buf.append(ch);
+                }
+            }
+            return buf.toString();
+        }
+
+        @Override
+        public void beginReporting() {
+            fCachedMatches = new ArrayList<FileMatch>();
+        }
+
+        @Override
+        public void endReporting() {
+            flushMatches();
+            fCachedMatches = null;
+        }
+
+        private void flushMatches() {
+            if (!fCachedMatches.isEmpty()) {
+                fResult.addMatches(fCachedMatches.toArray(new Match[fCachedMatches.size()]));
+                fCachedMatches.clear();
+            }
+        }
+    }
+}
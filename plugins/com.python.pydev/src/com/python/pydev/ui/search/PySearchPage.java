@@ -48,8 +48,6 @@ import org.eclipse.search.ui.ISearchResultPage;
 import org.eclipse.search.ui.ISearchResultViewPart;
 import org.eclipse.search.ui.NewSearchUI;
 import org.eclipse.search.ui.text.FileTextSearchScope;
-import org.eclipse.search.ui.text.TextSearchQueryProvider;
-import org.eclipse.search.ui.text.TextSearchQueryProvider.TextSearchInput;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.CLabel;
 import org.eclipse.swt.events.ModifyEvent;
@@ -73,6 +71,8 @@ import org.eclipse.ui.fieldassist.ContentAssistCommandAdapter;
 import org.eclipse.ui.texteditor.ITextEditorActionDefinitionIds;
 import org.python.pydev.ui.filetypes.FileTypesPreferencesPage;
 
+import com.python.pydev.ui.search.index.PySearchIndexScope;
+
 @SuppressWarnings({ "unchecked", "rawtypes" })
 public class PySearchPage extends DialogPage implements ISearchPage {
 
@@ -179,56 +179,15 @@ public class PySearchPage extends DialogPage implements ISearchPage {
 
     }
 
-    private static class TextSearchPageInput extends TextSearchInput {
-
-        private final String fSearchText;
-        private final boolean fIsCaseSensitive;
-        private final boolean fIsRegEx;
-        private final boolean fIsWholeWord;
-        private final FileTextSearchScope fScope;
-
-        public TextSearchPageInput(String searchText, boolean isCaseSensitive, boolean isRegEx, boolean isWholeWord,
-                FileTextSearchScope scope) {
-            fSearchText = searchText;
-            fIsCaseSensitive = isCaseSensitive;
-            fIsRegEx = isRegEx;
-            fIsWholeWord = isWholeWord;
-            fScope = scope;
-        }
-
-        @Override
-        public String getSearchText() {
-            return fSearchText;
-        }
-
-        @Override
-        public boolean isCaseSensitiveSearch() {
-            return fIsCaseSensitive;
-        }
-
-        @Override
-        public boolean isRegExSearch() {
-            return fIsRegEx;
-        }
-
-        @Override
-        public boolean isWholeWordSearch() {
-            return fIsWholeWord;
-        }
-
-        @Override
-        public FileTextSearchScope getScope() {
-            return fScope;
-        }
-    }
-
     //---- Action Handling ------------------------------------------------
 
     private ISearchQuery newQuery() throws CoreException {
         SearchPatternData data = getPatternData();
-        TextSearchPageInput input = new TextSearchPageInput(data.textPattern, data.isCaseSensitive, data.isRegExSearch,
-                data.isWholeWord && !data.isRegExSearch, createTextSearchScope());
-        return TextSearchQueryProvider.getPreferred().createQuery(input);
+        //Uses the trigrams index to search only in the files which may have a match (the files are only
+        //filtered when the query is run in the search job).
+        return new PyIndexedFileSearchQuery(data.textPattern, data.isRegExSearch, data.isCaseSensitive,
+                data.isWholeWord && !data.isRegExSearch, createTextSearchScope(),
+                PySearchIndexScope.getFilesInDirtyEditors());
     }
 
     public boolean performAction() {
@@ -0,0 +1,45 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.ui.search.index;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.text.IDocument;
+import org.python.pydev.builder.PyDevBuilderVisitor;
+import org.python.pydev.shared_core.callbacks.ICallback0;
+
+/**
+ * Keeps the search index up to date with the python files changed in the workspace.
+ *
+ * @author Fabio
+ */
+public class PySearchIndexBuilderVisitor extends PyDevBuilderVisitor {
+
+    @Override
+    protected int getPriority() {
+        return PRIORITY_MIN;
+    }
+
+    @Override
+    public void visitChangedResource(IResource resource, ICallback0<IDocument> document, IProgressMonitor monitor) {
+        update(resource);
+    }
+
+    @Override
+    public void visitRemovedResource(IResource resource, ICallback0<IDocument> document, IProgressMonitor monitor) {
+        update(resource);
+    }
+
+    private void update(IResource resource) {
+        IPath location = resource.getLocation();
+        if (location != null) {
+            //The index checks the file in the filesystem (so, the document itself is not used).
+            PySearchIndexManager.getInstance().update(location.toFile());
+        }
+    }
+}
@@ -0,0 +1,356 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.ui.search.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.python.pydev.core.log.Log;
+import org.python.pydev.editor.codecompletion.revisited.PythonPathHelper;
+import org.python.pydev.shared_core.io.FileUtils;
+
+import com.python.pydev.PydevPlugin;
+
+/**
+ * Keeps a TrigramIndex with the python sources in the workspace projects.
+ *
+ * The index is persisted in the plugin state location and is kept up to date by the builder
+ * (PySearchIndexBuilderVisitor).
+ *
+ * Note that the folders in the PYTHONPATH of the interpreters are not indexed: the search page only searches
+ * workspace files (so, an index for those would never be used).
+ *
+ * Note that files are only re-read when their modification time or size change, so, a full check is relatively
+ * cheap (it's what's done on startup to sync the index with the filesystem).
+ *
+ * @author Fabio
+ */
+public class PySearchIndexManager {
+
+    private static final String INDEX_FILE_NAME = "search_trigrams.index";
+
+    /**
+     * Files bigger than this are not indexed (they're always candidates in a search).
+     */
+    private static final long MAX_FILE_SIZE_TO_INDEX = 2 * 1024 * 1024;
+
+    /**
+     * Time to wait before saving the index after a change.
+     */
+    private static final long SAVE_DELAY = 30 * 1000;
+
+    private static PySearchIndexManager instance;
+
+    public static synchronized PySearchIndexManager getInstance() {
+        if (instance == null) {
+            instance = new PySearchIndexManager();
+            instance.start();
+        }
+        return instance;
+    }
+
+    /**
+     * @return the instance only if it was already created (i.e.: to save it on shutdown).
+     */
+    public static synchronized PySearchIndexManager getCreatedInstance() {
+        return instance;
+    }
+
+    private volatile TrigramIndex index;
+
+    /**
+     * Becomes true after the initial synchronization of the index with the filesystem.
+     */
+    private volatile boolean ready;
+
+    private volatile boolean changedSinceSave;
+
+    private final Object lock = new Object();
+
+    /**
+     * Files or folders which need to be checked (access synchronized on lock).
+     */
+    private LinkedHashSet<File> pending = new LinkedHashSet<File>();
+
+    private final Job updateJob = new Job("Update python search index") {
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            try {
+                if (index == null) {
+                    load();
+                }
+                if (!ready) {
+                    synchronizeAll(monitor);
+                    ready = !monitor.isCanceled();
+                }
+                processPending(monitor);
+            } catch (Exception e) {
+                Log.log(e);
+            }
+            if (changedSinceSave) {
+                saveJob.schedule(SAVE_DELAY);
+            }
+            return Status.OK_STATUS;
+        }
+    };
+
+    private final Job saveJob = new Job("Save python search index") {
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            save();
+            return Status.OK_STATUS;
+        }
+    };
+
+    private PySearchIndexManager() {
+        updateJob.setPriority(Job.DECORATE);
+        updateJob.setSystem(true);
+        saveJob.setPriority(Job.DECORATE);
+        saveJob.setSystem(true);
+    }
+
+    private void start() {
+        updateJob.schedule(1000);
+    }
+
+    /**
+     * @return the index if it's already synchronized with the filesystem (null otherwise).
+     */
+    public TrigramIndex getIndexIfReady() {
+        if (!ready) {
+            return null;
+        }
+        return index;
+    }
+
+    /**
+     * Schedules a check for the given file (or folder).
+     */
+    public void requestUpdate(File file) {
+        synchronized (lock) {
+            pending.add(file);
+        }
+        updateJob.schedule(200);
+    }
+
+    /**
+     * Indexes the given file right away (if it's not up to date in the index).
+     */
+    public void update(File file) {
+        TrigramIndex idx = index;
+        if (idx == null) {
+            //Not loaded yet: it'll be checked when it's loaded.
+            requestUpdate(file);
+            return;
+        }
+        check(idx, file, null);
+        if (changedSinceSave) {
+            saveJob.schedule(SAVE_DELAY);
+        }
+    }
+
+    /**
+     * Checks all the workspace projects (removing from the index whatever is not found in them).
+     */
+    private void synchronizeAll(final IProgressMonitor monitor) throws CoreException {
+        final TrigramIndex idx = index;
+        final HashSet<String> found = new HashSet<String>();
+
+        for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+            if (monitor.isCanceled()) {
+                return;
+            }
+            if (!project.isAccessible()) {
+                continue;
+            }
+            project.accept(new IResourceProxyVisitor() {
+
+                @Override
+                public boolean visit(IResourceProxy proxy) throws CoreException {
+                    if (monitor.isCanceled()) {
+                        return false;
+                    }
+                    if (proxy.getType() == IResource.FILE) {
+                        if (PythonPathHelper.isValidSourceFile(proxy.getName())) {
+                            IPath location = proxy.requestResource().getLocation();
+                            if (location != null) {
+                                File file = location.toFile();
+                                check(idx, file, null);
+                                found.add(FileUtils.getFileAbsolutePath(file));
+                            }
+                        }
+                        return false;
+                    }
+                    return true;
+                }
+            }, 0);
+        }
+
+        //Remove whatever is no longer there.
+        for (String path : idx.getPaths()) {
+            if (!found.contains(path)) {
+                idx.remove(path);
+                changedSinceSave = true;
+            }
+        }
+    }
+
+    private void processPending(IProgressMonitor monitor) {
+        TrigramIndex idx = index;
+        while (!monitor.isCanceled()) {
+            File file;
+            synchronized (lock) {
+                if (pending.size() == 0) {
+                    return;
+                }
+                file = pending.iterator().next();
+                pending.remove(file);
+            }
+            if (file.isDirectory()) {
+                HashSet<String> found = new HashSet<String>();
+                checkFolder(idx, file, found, monitor);
+                for (String path : idx.getPathsWithPrefix(FileUtils.getFileAbsolutePath(file))) {
+                    if (!found.contains(path)) {
+                        idx.remove(path);
+                        changedSinceSave = true;
+                    }
+                }
+            } else {
+                check(idx, file, null);
+            }
+        }
+    }
+
+    private void checkFolder(TrigramIndex idx, File folder, Set<String> found, IProgressMonitor monitor) {
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (monitor.isCanceled()) {
+                return;
+            }
+            if (file.isDirectory()) {
+                checkFolder(idx, file, found, monitor);
+            } else {
+                check(idx, file, found);
+            }
+        }
+    }
+
+    /**
+     * Updates the index for the given file if it's a python file (or removes it if it doesn't exist anymore).
+     */
+    private void check(TrigramIndex idx, File file, Set<String> found) {
+        String path = FileUtils.getFileAbsolutePath(file);
+        if (!file.exists()) {
+            //May be a file or a folder.
+            idx.removeWithChildren(path);
+            changedSinceSave = true;
+            return;
+        }
+        if (!PythonPathHelper.isValidSourceFile(file.getName())) {
+            return;
+        }
+        if (found != null) {
+            found.add(path);
+        }
+        long modificationTime = file.lastModified();
+        long size = file.length();
+        if (idx.isUpToDate(path, modificationTime, size)) {
+            return;
+        }
+        byte[] contents = null;
+        if (size <= MAX_FILE_SIZE_TO_INDEX) {
+            try {
+                contents = Files.readAllBytes(file.toPath());
+            } catch (IOException e) {
+                //The file may have been removed in the meanwhile.
+                idx.remove(path);
+                changedSinceSave = true;
+                return;
+            }
+        }
+        idx.add(path, modificationTime, size, contents);
+        changedSinceSave = true;
+    }
+
+    private File getIndexFile() {
+        return PydevPlugin.getDefault().getStateLocation().append(INDEX_FILE_NAME).toFile();
+    }
+
+    private void load() {
+        File file = getIndexFile();
+        TrigramIndex loaded = null;
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                loaded = TrigramIndex.load(in);
+            } catch (Exception e) {
+                Log.log("Error loading python search index (it'll be recreated).", e);
+            }
+        }
+        index = loaded != null ? loaded : new TrigramIndex();
+    }
+
+    /**
+     * Saves the index if it changed since the last save.
+     */
+    public void save() {
+        TrigramIndex idx = index;
+        if (idx == null || !changedSinceSave || PydevPlugin.getDefault() == null) {
+            return;
+        }
+        changedSinceSave = false;
+        File file = getIndexFile();
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                idx.save(out);
+            }
+            if (file.exists() && !file.delete()) {
+                Log.log("Unable to remove old python search index: " + file);
+            }
+            if (!tmp.renameTo(file)) {
+                Log.log("Unable to save python search index: " + file);
+            }
+        } catch (IOException e) {
+            Log.log(e);
+        }
+    }
+
+    /**
+     * Stops tracking changes (saving the current index).
+     */
+    public void dispose() {
+        updateJob.cancel();
+        saveJob.cancel();
+        save();
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.ui.search.index;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.search.ui.text.FileTextSearchScope;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+import org.python.pydev.core.log.Log;
+import org.python.pydev.shared_core.io.FileUtils;
+
+/**
+ * Helper to restrict a FileTextSearchScope to the files which the search index says may have a match (the
+ * text search still verifies those files, but it doesn't need to read all the files in the scope).
+ *
+ * Files which are not in the index (or which changed since they were indexed) and files with unsaved changes in
+ * editors are always kept.
+ *
+ * @author Fabio
+ */
+public class PySearchIndexScope {
+
+    /**
+     * If the number of candidates is more than this percentage of the files in the scope, the original scope is
+     * used (there's not much to gain).
+     */
+    private static final double MAX_CANDIDATES_RATIO = 0.8;
+
+    /**
+     * Collects the files in the scope which may match the given pattern (this checks all the files in the scope, so,
+     * it must not be called in the UI thread).
+     *
+     * @param filesInDirtyEditors files which are always kept in the scope (see: {@link #getFilesInDirtyEditors()}).
+     * @return a scope with only the files which may match the given pattern (or the passed scope if the index
+     * can't be used to narrow it).
+     */
+    public static FileTextSearchScope narrow(FileTextSearchScope scope, String pattern, boolean isRegex,
+            Set<IFile> filesInDirtyEditors, IProgressMonitor monitor) {
+        TrigramIndex index = PySearchIndexManager.getInstance().getIndexIfReady();
+        if (index == null) {
+            return scope;
+        }
+        int[] trigrams = TrigramQuery.getTrigrams(pattern, isRegex);
+        if (trigrams.length == 0) {
+            return scope;
+        }
+        try {
+            Set<String> candidates = index.getCandidates(trigrams);
+            List<IResource> files = new ArrayList<IResource>();
+            int total = collectFiles(scope, index, candidates, filesInDirtyEditors, files, monitor);
+            if (total == 0 || files.size() > total * MAX_CANDIDATES_RATIO || monitor.isCanceled()) {
+                return scope;
+            }
+            return FileTextSearchScope.newSearchScope(files.toArray(new IResource[files.size()]),
+                    scope.getFileNamePatterns(), scope.includeDerived());
+        } catch (CoreException e) {
+            Log.log(e);
+            return scope;
+        }
+    }
+
+    /**
+     * Collects the files in the scope which may have a match.
+     *
+     * @return the total number of files in the scope.
+     */
+    private static int collectFiles(final FileTextSearchScope scope, final TrigramIndex index,
+            final Set<String> candidates, final Set<IFile> dirty, final List<IResource> files,
+            final IProgressMonitor monitor) throws CoreException {
+        final int[] total = new int[1];
+        HashSet<IResource> visited = new HashSet<IResource>();
+        for (IResource root : scope.getRoots()) {
+            if (monitor.isCanceled()) {
+                break;
+            }
+            if (!root.isAccessible() || !visited.add(root)) {
+                continue;
+            }
+            root.accept(new IResourceProxyVisitor() {
+
+                @Override
+                public boolean visit(IResourceProxy proxy) throws CoreException {
+                    if (monitor.isCanceled() || !scope.contains(proxy)) {
+                        return false;
+                    }
+                    if (proxy.getType() != IResource.FILE) {
+                        return true;
+                    }
+                    total[0]++;
+                    IFile file = (IFile) proxy.requestResource();
+                    if (dirty.contains(file)) {
+                        files.add(file);
+                        return false;
+                    }
+                    IPath location = file.getLocation();
+                    if (location == null) {
+                        files.add(file);
+                        return false;
+                    }
+                    File f = location.toFile();
+                    String path = FileUtils.getFileAbsolutePath(f);
+                    if (candidates.contains(path) || !index.isUpToDate(path, f.lastModified(), f.length())) {
+                        files.add(file);
+                    }
+                    return false;
+                }
+            }, 0);
+        }
+        return total[0];
+    }
+
+    /**
+     * The search also considers the contents of editors with unsaved changes (which may not be in the index).
+     *
+     * Must be called in the UI thread.
+     */
+    public static Set<IFile> getFilesInDirtyEditors() {
+        HashSet<IFile> ret = new HashSet<IFile>();
+        if (!PlatformUI.isWorkbenchRunning()) {
+            return ret;
+        }
+        for (IWorkbenchWindow window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
+            for (IWorkbenchPage page : window.getPages()) {
+                for (IEditorPart editor : page.getDirtyEditors()) {
+                    IEditorInput input = editor.getEditorInput();
+                    if (input != null) {
+                        IFile file = (IFile) input.getAdapter(IFile.class);
+                        if (file != null) {
+                            ret.add(file);
+                        }
+                    }
+                }
+            }
+        }
+        return ret;
+    }
+}
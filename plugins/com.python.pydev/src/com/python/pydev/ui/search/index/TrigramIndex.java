@@ -0,0 +1,561 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.ui.search.index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An index from trigrams to the files which contain them.
+ *
+ * The contents are indexed as bytes (each byte is a char in the trigram), with only ASCII letters lowercased, so,
+ * any ASCII trigram is found regardless of the (ASCII-compatible) encoding of the file and the same index can be
+ * used for case-sensitive and case-insensitive searches (the index only gives candidates which must still be
+ * verified).
+ *
+ * The postings for each trigram are kept as delta-encoded varints of the document ids (documents always get
+ * increasing ids, so, a posting list is only appended). Removed (or replaced) documents are only marked as deleted
+ * and the index is compacted when more than half of the documents are deleted (and before it's saved).
+ *
+ * Thread-safe.
+ *
+ * @author Fabio
+ */
+public final class TrigramIndex {
+
+    private static final int VERSION = 1;
+
+    private static final int MIN_DELETED_TO_COMPACT = 512;
+
+    // Documents ------------------------------------------------------------------------------------------------------
+
+    private String[] paths = new String[64];
+    private long[] modificationTimes = new long[64];
+    private long[] sizes = new long[64];
+
+    /**
+     * Documents whose contents were not indexed (i.e.: too big): always returned as candidates.
+     */
+    private final BitSet notIndexed = new BitSet();
+    private final BitSet deleted = new BitSet();
+    private int docsCount;
+    private int deletedCount;
+    private final HashMap<String, Integer> pathToDoc = new HashMap<String, Integer>();
+
+    // Postings -------------------------------------------------------------------------------------------------------
+
+    /**
+     * Open addressing table: trigram (+1, so that 0 is an empty slot) -> index in the postings.
+     */
+    private int[] tableKeys = new int[1024];
+    private int[] tableValues = new int[1024];
+    private int trigramsCount;
+
+    private byte[][] postings = new byte[512][];
+    private int[] postingsLen = new int[512];
+    private int[] postingsLastDoc = new int[512];
+
+    /**
+     * Bitset with all the possible trigrams (24 bits) used to remove duplicates when adding a document.
+     */
+    private long[] seen;
+    private int[] touched = new int[1024];
+
+    public static int getTrigram(int c0, int c1, int c2) {
+        return (lower(c0) << 16) | (lower(c1) << 8) | lower(c2);
+    }
+
+    private static int lower(int c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c + ('a' - 'A');
+        }
+        return c;
+    }
+
+    /**
+     * Adds (or replaces) the contents of the given path.
+     *
+     * @param contents the contents of the file or null if the contents should not be indexed (in which case
+     * the path will always be a candidate).
+     */
+    public synchronized void add(String path, long modificationTime, long size, byte[] contents) {
+        if (removeInternal(path)) {
+            //The previous version of the document is only marked as deleted (compact when there are too many).
+            compactIfNeeded();
+        }
+
+        int doc = docsCount;
+        ensureDocsCapacity(doc + 1);
+        paths[doc] = path;
+        modificationTimes[doc] = modificationTime;
+        sizes[doc] = size;
+        docsCount++;
+        pathToDoc.put(path, doc);
+
+        if (contents == null) {
+            notIndexed.set(doc);
+            return;
+        }
+        if (seen == null) {
+            seen = new long[(1 << 24) / 64];
+        }
+        int touchedLen = 0;
+        int len = contents.length;
+        if (len >= 3) {
+            int c0 = lower(contents[0] & 0xFF);
+            int c1 = lower(contents[1] & 0xFF);
+            for (int i = 2; i < len; i++) {
+                int c2 = lower(contents[i] & 0xFF);
+                int trigram = (c0 << 16) | (c1 << 8) | c2;
+                long mask = 1L << (trigram & 63);
+                int pos = trigram >>> 6;
+                if ((seen[pos] & mask) == 0) {
+                    seen[pos] |= mask;
+                    if (touchedLen == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedLen * 2);
+                    }
+                    touched[touchedLen++] = trigram;
+                }
+                c0 = c1;
+                c1 = c2;
+            }
+        }
+        for (int i = 0; i < touchedLen; i++) {
+            int trigram = touched[i];
+            seen[trigram >>> 6] = 0; //Clear for the next document (the whole long as it's faster).
+            appendPosting(getOrCreatePosting(trigram), doc);
+        }
+        if (touched.length > 64 * 1024) {
+            touched = new int[1024]; //Don't keep a big buffer around.
+        }
+    }
+
+    public synchronized boolean remove(String path) {
+        boolean removed = removeInternal(path);
+        if (removed) {
+            compactIfNeeded();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the given path and all the paths below it.
+     */
+    public synchronized void removeWithChildren(String path) {
+        removeInternal(path);
+        String prefix = path.endsWith(File.separator) ? path : path + File.separator;
+        for (int doc = 0; doc < docsCount; doc++) {
+            if (!deleted.get(doc) && paths[doc].startsWith(prefix)) {
+                removeInternal(paths[doc]);
+            }
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * @return whether the given path is indexed with the given modification time and size.
+     */
+    public synchronized boolean isUpToDate(String path, long modificationTime, long size) {
+        Integer doc = pathToDoc.get(path);
+        return doc != null && modificationTimes[doc] == modificationTime && sizes[doc] == size;
+    }
+
+    public synchronized boolean contains(String path) {
+        return pathToDoc.containsKey(path);
+    }
+
+    public synchronized int size() {
+        return pathToDoc.size();
+    }
+
+    /**
+     * @return the number of documents kept (including the ones marked as deleted).
+     */
+    /*default*/synchronized int getDocsCount() {
+        return docsCount;
+    }
+
+    public synchronized List<String> getPaths() {
+        return new ArrayList<String>(pathToDoc.keySet());
+    }
+
+    /**
+     * @return all the paths in the index below the given directory.
+     */
+    public synchronized List<String> getPathsWithPrefix(String dirPath) {
+        String prefix = dirPath.endsWith(File.separator) ? dirPath : dirPath + File.separator;
+        ArrayList<String> ret = new ArrayList<String>();
+        for (int doc = 0; doc < docsCount; doc++) {
+            if (!deleted.get(doc) && paths[doc].startsWith(prefix)) {
+                ret.add(paths[doc]);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @param trigrams the trigrams which must all be present in a file for it to be a candidate.
+     * @return the paths which contain all the given trigrams (or which had their contents not indexed).
+     */
+    public synchronized Set<String> getCandidates(int[] trigrams) {
+        HashSet<String> ret = new HashSet<String>();
+        for (int doc = notIndexed.nextSetBit(0); doc >= 0; doc = notIndexed.nextSetBit(doc + 1)) {
+            if (!deleted.get(doc)) {
+                ret.add(paths[doc]);
+            }
+        }
+        if (trigrams.length == 0) {
+            for (int doc = 0; doc < docsCount; doc++) {
+                if (!deleted.get(doc)) {
+                    ret.add(paths[doc]);
+                }
+            }
+            return ret;
+        }
+
+        //Start with the smallest posting (the intersection can only get smaller).
+        int[] postingIndexes = new int[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+            int posting = getPosting(trigrams[i]);
+            if (posting == -1) {
+                return ret;
+            }
+            postingIndexes[i] = posting;
+        }
+        Integer[] order = new Integer[postingIndexes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = postingIndexes[i];
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Integer.compare(postingsLen[o1], postingsLen[o2]);
+            }
+        });
+
+        int[] current = decode(postings[order[0]], postingsLen[order[0]]);
+        int currentLen = current.length;
+        for (int i = 1; i < order.length && currentLen > 0; i++) {
+            currentLen = intersect(current, currentLen, order[i]);
+        }
+        for (int i = 0; i < currentLen; i++) {
+            int doc = current[i];
+            if (!deleted.get(doc)) {
+                ret.add(paths[doc]);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Keeps in 'docs' only the documents which are also in the given posting.
+     * @return the new length of docs.
+     */
+    private int intersect(int[] docs, int docsLen, int posting) {
+        byte[] data = postings[posting];
+        int len = postingsLen[posting];
+        int pos = 0;
+        int doc = -1;
+        int newLen = 0;
+        int i = 0;
+        while (pos < len && i < docsLen) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += delta;
+
+            while (i < docsLen && docs[i] < doc) {
+                i++;
+            }
+            if (i < docsLen && docs[i] == doc) {
+                docs[newLen++] = doc;
+                i++;
+            }
+        }
+        return newLen;
+    }
+
+    private static int[] decode(byte[] data, int len) {
+        int[] ret = new int[16];
+        int size = 0;
+        int pos = 0;
+        int doc = -1;
+        while (pos < len) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += delta;
+            if (size == ret.length) {
+                ret = Arrays.copyOf(ret, size * 2);
+            }
+            ret[size++] = doc;
+        }
+        return Arrays.copyOf(ret, size);
+    }
+
+    private boolean removeInternal(String path) {
+        Integer doc = pathToDoc.remove(path);
+        if (doc == null) {
+            return false;
+        }
+        deleted.set(doc);
+        deletedCount++;
+        return true;
+    }
+
+    private void compactIfNeeded() {
+        if (deletedCount >= MIN_DELETED_TO_COMPACT && deletedCount > docsCount / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Removes the deleted documents from the postings (the document ids are remapped).
+     */
+    /*default*/synchronized void compact() {
+        int[] newIds = new int[docsCount];
+        int newDocsCount = 0;
+        for (int doc = 0; doc < docsCount; doc++) {
+            if (deleted.get(doc)) {
+                newIds[doc] = -1;
+            } else {
+                int newDoc = newDocsCount++;
+                newIds[doc] = newDoc;
+                paths[newDoc] = paths[doc];
+                modificationTimes[newDoc] = modificationTimes[doc];
+                sizes[newDoc] = sizes[doc];
+                if (notIndexed.get(doc)) {
+                    notIndexed.clear(doc);
+                    notIndexed.set(newDoc);
+                } else {
+                    notIndexed.clear(newDoc);
+                }
+            }
+        }
+        Arrays.fill(paths, newDocsCount, docsCount, null);
+        notIndexed.clear(newDocsCount, Math.max(newDocsCount, docsCount));
+        pathToDoc.clear();
+        for (int doc = 0; doc < newDocsCount; doc++) {
+            pathToDoc.put(paths[doc], doc);
+        }
+
+        int[] oldKeys = tableKeys;
+        int[] oldValues = tableValues;
+        byte[][] oldPostings = postings;
+        int[] oldPostingsLen = postingsLen;
+        int oldTrigramsCount = trigramsCount;
+
+        tableKeys = new int[oldKeys.length];
+        tableValues = new int[oldKeys.length];
+        postings = new byte[Math.max(512, oldTrigramsCount)][];
+        postingsLen = new int[postings.length];
+        postingsLastDoc = new int[postings.length];
+        trigramsCount = 0;
+
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] == 0) {
+                continue;
+            }
+            int[] docs = decode(oldPostings[oldValues[slot]], oldPostingsLen[oldValues[slot]]);
+            int posting = -1;
+            for (int doc : docs) {
+                int newDoc = newIds[doc];
+                if (newDoc != -1) {
+                    if (posting == -1) {
+                        posting = getOrCreatePosting(oldKeys[slot] - 1);
+                    }
+                    appendPosting(posting, newDoc);
+                }
+            }
+        }
+        docsCount = newDocsCount;
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private void ensureDocsCapacity(int capacity) {
+        if (capacity > paths.length) {
+            int newLen = Math.max(capacity, paths.length * 2);
+            paths = Arrays.copyOf(paths, newLen);
+            modificationTimes = Arrays.copyOf(modificationTimes, newLen);
+            sizes = Arrays.copyOf(sizes, newLen);
+        }
+    }
+
+    private static int hash(int key) {
+        return (key * 0x9E3779B1) >>> 8;
+    }
+
+    private int getPosting(int trigram) {
+        int key = trigram + 1;
+        int mask = tableKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            int k = tableKeys[slot];
+            if (k == key) {
+                return tableValues[slot];
+            }
+            if (k == 0) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int getOrCreatePosting(int trigram) {
+        int key = trigram + 1;
+        int mask = tableKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            int k = tableKeys[slot];
+            if (k == key) {
+                return tableValues[slot];
+            }
+            if (k == 0) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int posting = trigramsCount++;
+        if (posting == postings.length) {
+            int newLen = postings.length * 2;
+            postings = Arrays.copyOf(postings, newLen);
+            postingsLen = Arrays.copyOf(postingsLen, newLen);
+            postingsLastDoc = Arrays.copyOf(postingsLastDoc, newLen);
+        }
+        postings[posting] = new byte[4];
+        postingsLastDoc[posting] = -1;
+        tableKeys[slot] = key;
+        tableValues[slot] = posting;
+        if (trigramsCount * 2 > tableKeys.length) {
+            rehash();
+        }
+        return posting;
+    }
+
+    private void rehash() {
+        int[] oldKeys = tableKeys;
+        int[] oldValues = tableValues;
+        tableKeys = new int[oldKeys.length * 2];
+        tableValues = new int[oldKeys.length * 2];
+        int mask = tableKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != 0) {
+                int slot = hash(key) & mask;
+                while (tableKeys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                tableKeys[slot] = key;
+                tableValues[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void appendPosting(int posting, int doc) {
+        int delta = doc - postingsLastDoc[posting];
+        postingsLastDoc[posting] = doc;
+        byte[] data = postings[posting];
+        int len = postingsLen[posting];
+        if (len + 5 > data.length) {
+            data = postings[posting] = Arrays.copyOf(data, Math.max(len + 5, data.length * 2));
+        }
+        while ((delta & ~0x7F) != 0) {
+            data[len++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        data[len++] = (byte) delta;
+        postingsLen[posting] = len;
+    }
+
+    // Persistence ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Saves the index (deleted documents are removed before saving).
+     */
+    public synchronized void save(DataOutputStream out) throws IOException {
+        if (deletedCount > 0) {
+            compact();
+        }
+        out.writeInt(VERSION);
+        out.writeInt(docsCount);
+        for (int doc = 0; doc < docsCount; doc++) {
+            out.writeUTF(paths[doc]);
+            out.writeLong(modificationTimes[doc]);
+            out.writeLong(sizes[doc]);
+            out.writeBoolean(notIndexed.get(doc));
+        }
+        out.writeInt(trigramsCount);
+        for (int slot = 0; slot < tableKeys.length; slot++) {
+            int key = tableKeys[slot];
+            if (key != 0) {
+                int posting = tableValues[slot];
+                out.writeInt(key - 1);
+                out.writeInt(postingsLastDoc[posting]);
+                out.writeInt(postingsLen[posting]);
+                out.write(postings[posting], 0, postingsLen[posting]);
+            }
+        }
+    }
+
+    /**
+     * @return the loaded index or null if it was saved with a different version.
+     */
+    public static TrigramIndex load(DataInputStream in) throws IOException {
+        if (in.readInt() != VERSION) {
+            return null;
+        }
+        TrigramIndex index = new TrigramIndex();
+        int docsCount = in.readInt();
+        index.ensureDocsCapacity(docsCount);
+        for (int doc = 0; doc < docsCount; doc++) {
+            String path = in.readUTF();
+            index.paths[doc] = path;
+            index.modificationTimes[doc] = in.readLong();
+            index.sizes[doc] = in.readLong();
+            if (in.readBoolean()) {
+                index.notIndexed.set(doc);
+            }
+            index.pathToDoc.put(path, doc);
+        }
+        index.docsCount = docsCount;
+
+        int trigramsCount = in.readInt();
+        for (int i = 0; i < trigramsCount; i++) {
+            int trigram = in.readInt();
+            int posting = index.getOrCreatePosting(trigram);
+            index.postingsLastDoc[posting] = in.readInt();
+            int len = in.readInt();
+            byte[] data = new byte[len];
+            in.readFully(data);
+            index.postings[posting] = data;
+            index.postingsLen[posting] = len;
+        }
+        return index;
+    }
+}
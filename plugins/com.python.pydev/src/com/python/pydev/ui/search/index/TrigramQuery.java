@@ -0,0 +1,357 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.ui.search.index;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+/**
+ * Computes the trigrams which must be present in a file for a search pattern to match it.
+ *
+ * The analysis is conservative: only literal sequences which must appear in any match are considered (i.e.:
+ * anything inside groups or alternatives, optional chars, classes, etc. just break the current literal).
+ * Only ASCII chars are used (as that's what the TrigramIndex can reliably find).
+ *
+ * @author Fabio
+ */
+public class TrigramQuery {
+
+    /**
+     * @param pattern the pattern as entered in the search page.
+     * @param isRegex whether it's a regular expression. If it's not, '*' and '?' are wildcards (as in the
+     * eclipse text search) -- which may be escaped with '\'.
+     *
+     * @return the trigrams which must be present in matching files (empty if the pattern can't be used to
+     * filter the files).
+     */
+    public static int[] getTrigrams(String pattern, boolean isRegex) {
+        List<String> literals = isRegex ? getRegexLiterals(pattern) : getWildcardLiterals(pattern);
+        LinkedHashSet<Integer> trigrams = new LinkedHashSet<Integer>();
+        for (String literal : literals) {
+            int len = literal.length();
+            for (int i = 2; i < len; i++) {
+                trigrams.add(TrigramIndex.getTrigram(literal.charAt(i - 2), literal.charAt(i - 1),
+                        literal.charAt(i)));
+            }
+        }
+        int[] ret = new int[trigrams.size()];
+        int i = 0;
+        for (Integer trigram : trigrams) {
+            ret[i++] = trigram;
+        }
+        return ret;
+    }
+
+    /**
+     * @return the literals which must be present in a match of a pattern with '*' and '?' wildcards.
+     */
+    public static List<String> getWildcardLiterals(String pattern) {
+        Literals literals = new Literals();
+        int len = pattern.length();
+        for (int i = 0; i < len; i++) {
+            char c = pattern.charAt(i);
+            if (c == '\\' && i + 1 < len) {
+                char next = pattern.charAt(i + 1);
+                if (next == '*' || next == '?' || next == '\\') {
+                    literals.add(next);
+                    i++;
+                    continue;
+                }
+                literals.add(c);
+
+            } else if (c == '*' || c == '?') {
+                literals.breakLiteral();
+
+            } else {
+                literals.add(c);
+            }
+        }
+        return literals.finish();
+    }
+
+    /**
+     * @return the literals which must be present in a match of the given regular expression.
+     */
+    public static List<String> getRegexLiterals(String regex) {
+        Literals literals = new Literals();
+        if (hasCommentsFlag(regex)) {
+            //Whitespaces and comments are ignored in the pattern: don't try to get literals from it.
+            return literals.finish();
+        }
+        int len = regex.length();
+        int i = 0;
+        while (i < len) {
+            char c = regex.charAt(i);
+            switch (c) {
+                case '|':
+                    //Top-level alternative: nothing is really required.
+                    return new ArrayList<String>();
+
+                case '(':
+                    literals.breakLiteral();
+                    i = skipGroup(regex, i);
+                    if (i == -1) {
+                        return new ArrayList<String>();
+                    }
+                    i = skipQuantifier(regex, i);
+                    continue;
+
+                case '[':
+                    literals.breakLiteral();
+                    i = skipClass(regex, i);
+                    if (i == -1) {
+                        return new ArrayList<String>();
+                    }
+                    i = skipQuantifier(regex, i);
+                    continue;
+
+                case '.':
+                case '^':
+                case '$':
+                    literals.breakLiteral();
+                    i = skipQuantifier(regex, i + 1);
+                    continue;
+
+                case '\\':
+                    if (i + 1 >= len) {
+                        return new ArrayList<String>();
+                    }
+                    char next = regex.charAt(i + 1);
+                    if (next == 'Q') {
+                        int end = regex.indexOf("\\E", i + 2);
+                        String quoted = end == -1 ? regex.substring(i + 2) : regex.substring(i + 2, end);
+                        for (int j = 0; j < quoted.length(); j++) {
+                            literals.add(quoted.charAt(j));
+                        }
+                        if (end == -1) {
+                            return literals.finish();
+                        }
+                        i = end + 2;
+                        continue;
+                    }
+                    char literal;
+                    if (next == 't') {
+                        literal = '\t';
+                    } else if (next == 'n') {
+                        literal = '\n';
+                    } else if (next == 'r') {
+                        literal = '\r';
+                    } else if (!Character.isLetterOrDigit(next) && next < 128) {
+                        literal = next;
+                    } else {
+                        //\w, \d, \b, \p{...}, \x41, back references, etc.
+                        literals.breakLiteral();
+                        i = skipQuantifier(regex, skipEscape(regex, i));
+                        continue;
+                    }
+                    i = addWithQuantifier(regex, i + 2, literal, literals);
+                    continue;
+
+                default:
+                    i = addWithQuantifier(regex, i + 1, c, literals);
+                    continue;
+            }
+        }
+        return literals.finish();
+    }
+
+    private static boolean hasCommentsFlag(String regex) {
+        int i = regex.indexOf("(?");
+        while (i != -1) {
+            for (int j = i + 2; j < regex.length(); j++) {
+                char c = regex.charAt(j);
+                if (c == 'x') {
+                    return true;
+                }
+                if (c == ')' || c == ':' || c == '-') {
+                    break;
+                }
+            }
+            i = regex.indexOf("(?", i + 2);
+        }
+        return false;
+    }
+
+    /**
+     * Adds the given char considering the quantifier (if any) which follows it.
+     *
+     * @return the position after the quantifier.
+     */
+    private static int addWithQuantifier(String regex, int i, char c, Literals literals) {
+        int len = regex.length();
+        if (i < len) {
+            char q = regex.charAt(i);
+            if (q == '?' || q == '*') {
+                //The char is optional.
+                literals.breakLiteral();
+                return skipQuantifier(regex, i);
+            }
+            if (q == '+') {
+                literals.add(c);
+                literals.breakLiteral();
+                return skipQuantifier(regex, i);
+            }
+            if (q == '{') {
+                int end = regex.indexOf('}', i);
+                int min = -1;
+                if (end != -1) {
+                    String contents = regex.substring(i + 1, end);
+                    int comma = contents.indexOf(',');
+                    try {
+                        min = Integer.parseInt(comma == -1 ? contents.trim() : contents.substring(0, comma).trim());
+                    } catch (NumberFormatException e) {
+                        //Invalid: handled below.
+                    }
+                }
+                if (min > 0) {
+                    literals.add(c);
+                }
+                literals.breakLiteral();
+                return skipQuantifier(regex, i);
+            }
+        }
+        literals.add(c);
+        return i;
+    }
+
+    /**
+     * @return the position after the quantifier (and its lazy/possessive modifier) at the given position (or the
+     * same position if there's no quantifier there).
+     */
+    private static int skipQuantifier(String regex, int i) {
+        int len = regex.length();
+        if (i >= len) {
+            return i;
+        }
+        char c = regex.charAt(i);
+        if (c == '?' || c == '*' || c == '+') {
+            i++;
+        } else if (c == '{') {
+            int end = regex.indexOf('}', i);
+            if (end == -1) {
+                return len;
+            }
+            i = end + 1;
+        } else {
+            return i;
+        }
+        if (i < len && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipEscape(String regex, int i) {
+        //regex[i] == '\\'
+        int len = regex.length();
+        i += 2;
+        if (i < len && regex.charAt(i) == '{' && (regex.charAt(i - 1) == 'p' || regex.charAt(i - 1) == 'P')) {
+            int end = regex.indexOf('}', i);
+            return end == -1 ? len : end + 1;
+        }
+        return i;
+    }
+
+    /**
+     * @return the position after the ')' which closes the group at the given position or -1 if it's not closed.
+     */
+    private static int skipGroup(String regex, int i) {
+        int len = regex.length();
+        int level = 0;
+        while (i < len) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                i = skipClass(regex, i);
+                if (i == -1) {
+                    return -1;
+                }
+                continue;
+            }
+            if (c == '(') {
+                level++;
+            } else if (c == ')') {
+                level--;
+                if (level == 0) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the position after the ']' which closes the class at the given position or -1 if it's not closed.
+     */
+    private static int skipClass(String regex, int i) {
+        int len = regex.length();
+        int level = 0;
+        i++;
+        level++;
+        //A ']' right at the start (or after '^') is a literal.
+        if (i < len && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < len && regex.charAt(i) == ']') {
+            i++;
+        }
+        while (i < len) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                level++;
+            } else if (c == ']') {
+                level--;
+                if (level == 0) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * Helper to collect the literals (only ASCII chars are added to a literal and only literals with 3 or more chars
+     * are kept).
+     */
+    private static class Literals {
+
+        private final List<String> found = new ArrayList<String>();
+        private final FastStringBuffer current = new FastStringBuffer();
+
+        public void add(char c) {
+            if (c >= 128) {
+                breakLiteral();
+            } else {
+                current.append(c);
+            }
+        }
+
+        public void breakLiteral() {
+            if (current.length() >= 3) {
+                found.add(current.toString());
+            }
+            current.clear();
+        }
+
+        public List<String> finish() {
+            breakLiteral();
+            return found;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.ui.search.index;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class TrigramIndexTest extends TestCase {
+
+    private TrigramIndex index;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        index = new TrigramIndex();
+        index.add("/a/mod1.py", 1, 10, "class MyClass(object):\n    pass".getBytes());
+        index.add("/a/mod2.py", 1, 10, "def my_function():\n    return MyClass()".getBytes());
+        index.add("/b/mod3.py", 1, 10, "import os".getBytes());
+        index.add("/b/big.py", 1, 10, null);
+    }
+
+    private Set<String> search(String pattern, boolean isRegex) {
+        return index.getCandidates(TrigramQuery.getTrigrams(pattern, isRegex));
+    }
+
+    private Set<String> set(String... paths) {
+        return new HashSet<String>(Arrays.asList(paths));
+    }
+
+    public void testCandidates() throws Exception {
+        assertEquals(set("/a/mod1.py", "/a/mod2.py", "/b/big.py"), search("MyClass", false));
+        //Case is not considered in the index.
+        assertEquals(set("/a/mod1.py", "/a/mod2.py", "/b/big.py"), search("myclass", false));
+        assertEquals(set("/a/mod2.py", "/b/big.py"), search("my_function", false));
+        assertEquals(set("/b/mod3.py", "/b/big.py"), search("import\\s+os", true));
+        assertEquals(set("/b/big.py"), search("not_there", false));
+    }
+
+    public void testReplaceAndRemove() throws Exception {
+        index.add("/b/mod3.py", 2, 20, "import MyClass".getBytes());
+        assertEquals(set("/a/mod1.py", "/a/mod2.py", "/b/mod3.py", "/b/big.py"), search("MyClass", false));
+        assertTrue(index.isUpToDate("/b/mod3.py", 2, 20));
+        assertFalse(index.isUpToDate("/b/mod3.py", 1, 10));
+
+        index.remove("/a/mod1.py");
+        assertEquals(set("/a/mod2.py", "/b/mod3.py", "/b/big.py"), search("MyClass", false));
+
+        index.removeWithChildren(File.separatorChar == '/' ? "/b" : "\\b");
+        index.compact();
+        assertEquals(set("/a/mod2.py"), search("MyClass", false));
+        assertEquals(1, index.size());
+    }
+
+    public void testSaveAndLoad() throws Exception {
+        index.remove("/a/mod2.py");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.save(new DataOutputStream(out));
+
+        TrigramIndex loaded = TrigramIndex.load(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+        assertEquals(3, loaded.size());
+        assertEquals(set("/a/mod1.py", "/b/big.py"), loaded.getCandidates(TrigramQuery.getTrigrams("MyClass", false)));
+        assertTrue(loaded.isUpToDate("/b/mod3.py", 1, 10));
+
+        loaded.add("/c/mod4.py", 1, 10, "MyClass".getBytes());
+        assertEquals(set("/a/mod1.py", "/b/big.py", "/c/mod4.py"),
+                loaded.getCandidates(TrigramQuery.getTrigrams("MyClass", false)));
+    }
+
+    public void testManyDocuments() throws Exception {
+        index = new TrigramIndex();
+        for (int i = 0; i < 3000; i++) {
+            index.add("/m/mod" + i + ".py", 1, 10, ("def func_" + i + "(): pass").getBytes());
+        }
+        for (int i = 0; i < 2000; i++) {
+            index.remove("/m/mod" + i + ".py"); //Compacts in the middle.
+        }
+        assertEquals(1000, index.size());
+        assertEquals(set("/m/mod2500.py"), search("func_2500(", false));
+        assertEquals(0, search("func_1500(", false).size());
+        assertEquals(1000, search("func_", false).size());
+    }
+
+    public void testReplaceCompacts() throws Exception {
+        for (int i = 0; i < 5000; i++) {
+            index.add("/a/mod1.py", i, 10, ("class MyClass" + i + "(object):\n    pass").getBytes());
+        }
+        //The replaced versions are removed from the postings as the file changes (not only when saving).
+        assertTrue(String.valueOf(index.getDocsCount()), index.getDocsCount() < 5000);
+        assertEquals(4, index.size());
+        assertEquals(set("/a/mod1.py", "/b/big.py"), search("MyClass4999(", false));
+        assertEquals(set("/b/big.py"), search("MyClass4998(", false));
+        assertTrue(index.isUpToDate("/a/mod1.py", 4999, 10));
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package com.python.pydev.ui.search.index;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class TrigramQueryTest extends TestCase {
+
+    public void testWildcardLiterals() throws Exception {
+        assertEquals(Arrays.asList("foo", "bar"), TrigramQuery.getWildcardLiterals("foo*bar"));
+        assertEquals(Arrays.asList("foo", "barr"), TrigramQuery.getWildcardLiterals("foo?barr"));
+        assertEquals(Arrays.asList("foo*bar"), TrigramQuery.getWildcardLiterals("foo\\*bar"));
+        assertEquals(Arrays.asList(), TrigramQuery.getWildcardLiterals("ab*cd"));
+    }
+
+    public void testRegexLiterals() throws Exception {
+        assertEquals(Arrays.asList("def", "foo"), TrigramQuery.getRegexLiterals("def\\s+foo"));
+        assertEquals(Arrays.asList("foo", "bar"), TrigramQuery.getRegexLiterals("foo(a|b)bar"));
+        assertEquals(Arrays.asList("bar"), TrigramQuery.getRegexLiterals("foo?bar"));
+        assertEquals(Arrays.asList("foo", "bar"), TrigramQuery.getRegexLiterals("foo+bar"));
+        assertEquals(Arrays.asList("a.b"), TrigramQuery.getRegexLiterals("a\\.b"));
+        assertEquals(Arrays.asList("class ", "Foo"), TrigramQuery.getRegexLiterals("^class [A-Z]Foo$"));
+        assertEquals(Arrays.asList("(a|b)"), TrigramQuery.getRegexLiterals("\\Q(a|b)\\E"));
+        assertEquals(Arrays.asList("abc"), TrigramQuery.getRegexLiterals("abc{3}"));
+        assertEquals(Arrays.asList("abc"), TrigramQuery.getRegexLiterals("abcd{0,2}"));
+    }
+
+    public void testRegexWithoutRequiredLiterals() throws Exception {
+        assertEquals(0, TrigramQuery.getRegexLiterals("foo|bar").size());
+        assertEquals(0, TrigramQuery.getRegexLiterals("(?x) foo bar").size());
+        assertEquals(0, TrigramQuery.getRegexLiterals("[abc]+\\w*").size());
+        assertEquals(0, TrigramQuery.getTrigrams("a.b.c", true).length);
+    }
+}
@@ -12,7 +12,6 @@
 package org.python.pydev.core;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -25,10 +24,11 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
-import org.python.pydev.core.log.Log;
 import org.python.pydev.shared_core.callbacks.ICallback0;
 import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.io.PySourceLoader;
 import org.python.pydev.shared_core.string.FastStringBuffer;
 
 /**
@@ -156,23 +156,44 @@ public class FileUtilsFileBuffer {
         }
 
         if (doc == null && loadIfNotInWorkspace) {
-            FileInputStream stream = new FileInputStream(f);
-            try {
-                String encoding = FileUtils.getPythonFileEncoding(f);
-                return FileUtils.getStreamContents(stream, encoding, null, returnType);
-            } finally {
-                try {
-                    if (stream != null) {
-                        stream.close();
-                    }
-                } catch (Exception e) {
-                    Log.log(e);
-                }
+            FastStringBuffer buffer = PySourceLoader.load(f);
+            if (returnType == null || returnType == FastStringBuffer.class) {
+                return buffer;
+
+            } else if (returnType == IDocument.class) {
+                return new Document(buffer.toString());
+
+            } else if (returnType == String.class) {
+                return buffer.toString();
+
+            } else {
+                throw new RuntimeException("Don't know how to treat requested return type: " + returnType);
             }
         }
         return doc;
     }
 
+    /**
+     * Fills the passed buffer with the contents of the passed file (gotten from the file buffer if the file is
+     * opened or from the filesystem otherwise), reusing its internal array if it's big enough.
+     *
+     * Usually used with PySourceLoader.acquireBuffer() when the contents are just needed for parsing.
+     *
+     * @return the passed buffer.
+     */
+    public static FastStringBuffer fillBufferWithFileContents(java.io.File f, FastStringBuffer buffer)
+            throws IOException {
+        IPath path = Path.fromOSString(FileUtils.getFileAbsolutePath(f));
+        IDocument doc = getDocFromPath(path);
+        if (doc != null) {
+            String contents = doc.get();
+            //+1: room for the new line the parser may add.
+            buffer.clear().ensureCapacity(contents.length() + 1);
+            return buffer.append(contents);
+        }
+        return PySourceLoader.load(f, buffer);
+    }
+
     /**
      * @param path the path we're interested in
      * @return a file buffer to be used.
@@ -15,6 +15,9 @@ import org.python.pydev.shared_core.partitioner.CustomRuleBasedPartitionScanner;
 
 /**
  * This class should partition Python files in major partitions (code, strings, unicode, comments, backquotes)
+ *
+ * Note: the editor uses the hand-written {@link PyPartitionScanner} (which should give the same results). This
+ * rule-based version is kept as a reference for it.
  */
 public class AbstractPyPartitionScanner extends CustomRuleBasedPartitionScanner implements IPythonPartitions {
 
@@ -11,15 +11,19 @@
 
 package org.python.pydev.core.partition;
 
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IDocumentExtension3;
 import org.eclipse.jface.text.IDocumentPartitioner;
+import org.eclipse.jface.text.rules.IPartitionTokenScanner;
+import org.eclipse.jface.text.rules.IToken;
+import org.eclipse.jface.text.rules.Token;
 import org.python.pydev.core.IGrammarVersionProvider;
 import org.python.pydev.core.IPythonPartitions;
 import org.python.pydev.core.log.Log;
 
 /**
- * Rule-based partition scanner
+ * Hand-written partition scanner
  *
  * Simple, fast parsing of the document into partitions.<p>
  * This is like a rough 1st pass at parsing. We only parse
@@ -29,8 +33,76 @@ import org.python.pydev.core.log.Log;
  *
  * "An IPartitionTokenScanner can also start in the middle of a partition,
  * if it knows the type of the partition."
+ *
+ * The partitions found are the same ones found by the rule-based {@link AbstractPyPartitionScanner}, but the
+ * document is scanned in a single pass (without trying each rule at each char).
+ *
+ * The state of the scanner at the start of a line is the partition which contains that line start (as strings are
+ * the only partitions that may span lines), so, when the partitioner asks to resume inside a string (or in the
+ * default partition) at the start of a damaged line, the scanning is restarted at that line -- and not at the start
+ * of the partition, which for a big triple-quoted string would mean scanning the whole string on each keystroke.
+ * The partitioner stops asking for tokens as soon as the partitions found match the previous ones again.
  */
-public class PyPartitionScanner extends AbstractPyPartitionScanner {
+public class PyPartitionScanner implements IPartitionTokenScanner, IPythonPartitions {
+
+    private static final IToken DEFAULT_TOKEN = new Token(null);
+    private static final IToken COMMENT_TOKEN = new Token(PY_COMMENT);
+    private static final IToken BACKQUOTES_TOKEN = new Token(PY_BACKQUOTES);
+
+    private static final int KIND_BYTES = 0;
+    private static final int KIND_UNICODE = 1;
+    private static final int KIND_BYTES_OR_UNICODE = 2;
+
+    /**
+     * Tokens for single line strings indexed by [kind][quote] (where quote is 0 for ' and 1 for ")
+     */
+    private static final IToken[][] SINGLE_LINE_TOKENS = new IToken[][] {
+            { new Token(PY_SINGLELINE_BYTES1), new Token(PY_SINGLELINE_BYTES2) },
+            { new Token(PY_SINGLELINE_UNICODE1), new Token(PY_SINGLELINE_UNICODE2) },
+            { new Token(PY_SINGLELINE_BYTES_OR_UNICODE1), new Token(PY_SINGLELINE_BYTES_OR_UNICODE2) },
+    };
+
+    /**
+     * Tokens for multi line strings indexed by [kind][quote] (where quote is 0 for ' and 1 for ")
+     */
+    private static final IToken[][] MULTI_LINE_TOKENS = new IToken[][] {
+            { new Token(PY_MULTILINE_BYTES1), new Token(PY_MULTILINE_BYTES2) },
+            { new Token(PY_MULTILINE_UNICODE1), new Token(PY_MULTILINE_UNICODE2) },
+            { new Token(PY_MULTILINE_BYTES_OR_UNICODE1), new Token(PY_MULTILINE_BYTES_OR_UNICODE2) },
+    };
+
+    private static final int EOF = -1;
+
+    private static final int BUFFER_SIZE = 2048;
+
+    private IDocument document;
+
+    /**
+     * Buffer with the contents of the document from bufferStart to bufferEnd.
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int bufferStart;
+    private int bufferEnd;
+
+    /**
+     * The current offset of the scanner.
+     */
+    private int offset;
+
+    /**
+     * The end of the range being scanned (chars at/after it are considered EOF).
+     */
+    private int rangeEnd;
+
+    private int tokenOffset;
+    private int tokenEnd;
+
+    /**
+     * If not null, the next token is the string with this token (which starts at resumeTokenOffset)
+     * and should be scanned from the current offset.
+     */
+    private IToken resumeToken;
+    private int resumeTokenOffset;
 
     public PyPartitionScanner() {
         super();
@@ -100,4 +172,309 @@ public class PyPartitionScanner extends AbstractPyPartitionScanner {
         return new PyPartitioner(new PyPartitionScanner(), getTypes());
     }
 
+    /*
+     * @see ITokenScanner#setRange(IDocument, int, int)
+     */
+    public void setRange(IDocument document, int offset, int length) {
+        setPartialRange(document, offset, length, null, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * If the offset is at the start of a line inside a string or inside the default partition, the scanning
+     * starts at that line (otherwise, it starts at the partition offset).
+     */
+    public void setPartialRange(IDocument document, int offset, int length, String contentType,
+            int partitionOffset) {
+        this.document = document;
+        this.rangeEnd = offset + length;
+        this.bufferStart = 0;
+        this.bufferEnd = 0;
+        this.resumeToken = null;
+        this.tokenOffset = offset;
+        this.tokenEnd = offset;
+        this.offset = offset;
+
+        if (contentType == null || partitionOffset < 0 || partitionOffset >= offset) {
+            return;
+        }
+        if (isLineStart(document, offset)) {
+            if (PY_DEFAULT.equals(contentType)) {
+                //A string can't start in a previous line and end in this one without being a partition,
+                //so, we can just start at the line.
+                return;
+            }
+            IToken token = getStringToken(contentType);
+            if (token != null) {
+                resumeToken = token;
+                resumeTokenOffset = partitionOffset;
+                return;
+            }
+        }
+        //Comments, backquotes or not at a line start: scan the whole partition again.
+        this.offset = partitionOffset;
+    }
+
+    private static boolean isLineStart(IDocument document, int offset) {
+        try {
+            char c = document.getChar(offset - 1);
+            if (c == '\n') {
+                return true;
+            }
+            if (c == '\r') {
+                //Not in the middle of \r\n
+                return offset >= document.getLength() || document.getChar(offset) != '\n';
+            }
+        } catch (BadLocationException e) {
+            Log.log(e);
+        }
+        return false;
+    }
+
+    private static IToken getStringToken(String contentType) {
+        for (int kind = 0; kind < 3; kind++) {
+            for (int quote = 0; quote < 2; quote++) {
+                if (MULTI_LINE_TOKENS[kind][quote].getData().equals(contentType)) {
+                    return MULTI_LINE_TOKENS[kind][quote];
+                }
+                if (SINGLE_LINE_TOKENS[kind][quote].getData().equals(contentType)) {
+                    return SINGLE_LINE_TOKENS[kind][quote];
+                }
+            }
+        }
+        return null;
+    }
+
+    /*
+     * @see ITokenScanner#getTokenOffset()
+     */
+    public int getTokenOffset() {
+        return tokenOffset;
+    }
+
+    /*
+     * @see ITokenScanner#getTokenLength()
+     */
+    public int getTokenLength() {
+        return Math.min(tokenEnd, rangeEnd) - tokenOffset;
+    }
+
+    /*
+     * @see ITokenScanner#nextToken()
+     */
+    public IToken nextToken() {
+        if (resumeToken != null) {
+            IToken token = resumeToken;
+            resumeToken = null;
+            tokenOffset = resumeTokenOffset;
+            char quote = getQuote(token);
+            if (isMultiLine(token)) {
+                offset = findMultiLineStringEnd(offset, quote);
+            } else {
+                offset = findSingleLineStringEnd(offset, quote);
+            }
+            tokenEnd = offset;
+            return token;
+        }
+
+        tokenOffset = offset;
+        int c = read(offset);
+        if (c == EOF) {
+            tokenEnd = offset;
+            return Token.EOF;
+        }
+
+        IToken token = null;
+        switch (c) {
+            case '`':
+                int end = findBackquotesEnd(offset + 1);
+                if (end != -1) {
+                    offset = end;
+                    token = BACKQUOTES_TOKEN;
+                }
+                break;
+
+            case '#':
+                offset = findCommentEnd(offset + 1);
+                token = COMMENT_TOKEN;
+                break;
+
+            case '\'':
+            case '"':
+                token = matchString(KIND_BYTES_OR_UNICODE, offset);
+                break;
+
+            case 'r':
+                token = matchString(KIND_BYTES_OR_UNICODE, offset + 1);
+                break;
+
+            case 'b':
+                token = matchString(KIND_BYTES, read(offset + 1) == 'r' ? offset + 2 : offset + 1);
+                break;
+
+            case 'u':
+                token = matchString(KIND_UNICODE, read(offset + 1) == 'r' ? offset + 2 : offset + 1);
+                break;
+        }
+        if (token == null) {
+            offset++;
+            token = DEFAULT_TOKEN;
+        }
+        tokenEnd = offset;
+        return token;
+    }
+
+    /**
+     * Checks if there's a string starting at the given position (after its prefix). If there is, the offset is
+     * updated to its end and its token is returned (otherwise null is returned).
+     */
+    private IToken matchString(int kind, int quotePos) {
+        int q = read(quotePos);
+        if (q != '\'' && q != '"') {
+            return null;
+        }
+        char quote = (char) q;
+        int quoteIndex = quote == '\'' ? 0 : 1;
+        if (read(quotePos + 1) == quote && read(quotePos + 2) == quote) {
+            offset = findMultiLineStringEnd(quotePos + 3, quote);
+            return MULTI_LINE_TOKENS[kind][quoteIndex];
+        }
+        offset = findSingleLineStringEnd(quotePos + 1, quote);
+        return SINGLE_LINE_TOKENS[kind][quoteIndex];
+    }
+
+    private static char getQuote(IToken token) {
+        String data = (String) token.getData();
+        for (int kind = 0; kind < 3; kind++) {
+            if (data.equals(SINGLE_LINE_TOKENS[kind][1].getData())
+                    || data.equals(MULTI_LINE_TOKENS[kind][1].getData())) {
+                return '"';
+            }
+        }
+        return '\'';
+    }
+
+    private static boolean isMultiLine(IToken token) {
+        for (int kind = 0; kind < 3; kind++) {
+            if (token == MULTI_LINE_TOKENS[kind][0] || token == MULTI_LINE_TOKENS[kind][1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the end of a multi line string (which ends at the closing triple quotes or at EOF).
+     */
+    private int findMultiLineStringEnd(int pos, char quote) {
+        while (true) {
+            int c = read(pos);
+            if (c == EOF) {
+                return rangeEnd;
+            }
+            pos++;
+            if (c == '\\') {
+                //skip the escaped char
+                if (read(pos) == EOF) {
+                    return rangeEnd;
+                }
+                pos++;
+
+            } else if (c == quote && read(pos) == quote && read(pos + 1) == quote) {
+                return pos + 2;
+            }
+        }
+    }
+
+    /**
+     * @return the end of a single line string (which ends at the closing quote, at a new line -- which is
+     * included, unless it's escaped, in which case the string continues in the next line -- or at EOF).
+     */
+    private int findSingleLineStringEnd(int pos, char quote) {
+        while (true) {
+            int c = read(pos);
+            if (c == EOF) {
+                return rangeEnd;
+            }
+            pos++;
+            if (c == '\\') {
+                //Consume the escaped char (a new line continues the string).
+                c = read(pos);
+                pos++;
+                if (c == '\r' && read(pos) == '\n') {
+                    pos++;
+                }
+
+            } else if (c == '\r' || c == '\n' || c == quote) {
+                return pos;
+            }
+        }
+    }
+
+    /**
+     * @return the end of a comment (which includes the new line).
+     */
+    private int findCommentEnd(int pos) {
+        while (true) {
+            int c = read(pos);
+            if (c == EOF) {
+                return rangeEnd;
+            }
+            pos++;
+            if (c == '\r') {
+                if (read(pos) == '\n') {
+                    pos++;
+                }
+                return pos;
+            }
+            if (c == '\n') {
+                return pos;
+            }
+        }
+    }
+
+    /**
+     * @return the end of the backquotes (which also end at a new line -- which is included) or -1 if it's not
+     * closed until the EOF.
+     */
+    private int findBackquotesEnd(int pos) {
+        while (true) {
+            int c = read(pos);
+            if (c == EOF) {
+                return -1;
+            }
+            pos++;
+            if (c == '\r') {
+                if (read(pos) == '\n') {
+                    pos++;
+                }
+                return pos;
+            }
+            if (c == '\n' || c == '`') {
+                return pos;
+            }
+        }
+    }
+
+    /**
+     * @return the char at the given position or EOF if it's not in the range being scanned.
+     */
+    private int read(int pos) {
+        if (pos >= rangeEnd) {
+            return EOF;
+        }
+        if (pos < bufferStart || pos >= bufferEnd) {
+            bufferStart = pos;
+            bufferEnd = Math.min(rangeEnd, pos + BUFFER_SIZE);
+            try {
+                document.get(bufferStart, bufferEnd - bufferStart).getChars(0, bufferEnd - bufferStart, buffer, 0);
+            } catch (BadLocationException e) {
+                Log.log(e);
+                bufferEnd = bufferStart;
+                return EOF;
+            }
+        }
+        return buffer[pos - bufferStart];
+    }
 }
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.core.partition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.rules.IPartitionTokenScanner;
+import org.eclipse.jface.text.rules.IToken;
+import org.python.pydev.core.IPythonPartitions;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+import org.python.pydev.shared_core.testutils.TestUtils;
+
+/**
+ * Checks that the hand-written partition scanner gives the same results as the rule-based one and that resuming
+ * at a line start gives the same results of a full scan.
+ */
+public class PyPartitionScannerConsistencyTest extends TestCase {
+
+    private static final String[] PARTS = new String[] { "'", "\"", "'''", "\"\"\"", "b", "r", "u", "br", "ur",
+            "\\", "\n", "\r", "\r\n", "#", "`", " ", "x", "a = 10", "def f():", "''", "\"\"" };
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(PyPartitionScannerConsistencyTest.class);
+    }
+
+    private String createRandomContents(Random random) {
+        FastStringBuffer buf = new FastStringBuffer();
+        int len = random.nextInt(40);
+        for (int i = 0; i < len; i++) {
+            buf.append(PARTS[random.nextInt(PARTS.length)]);
+        }
+        return buf.toString();
+    }
+
+    public void testSameAsRuleBased() throws Exception {
+        Random random = new Random(0);
+        for (int i = 0; i < 3000; i++) {
+            IDocument doc = new Document(createRandomContents(random));
+            assertEquals("Different results for: " + doc.get(),
+                    TestUtils.scan(new AbstractPyPartitionScanner(), doc),
+                    TestUtils.scan(new PyPartitionScanner(), doc));
+        }
+    }
+
+    public void testSameAsRuleBased2() throws Exception {
+        IDocument doc = new Document(""
+                + "class F:\n"
+                + "    '''test'''\n"
+                + "    b'x' br\"y\" u'''z\n"
+                + "    ''' ur\"\"\"w\"\"\" r'\\\n"
+                + "' `a` #comment\r\n"
+                + "    rb'x' 'unclosed\n"
+                + "`unclosed");
+        assertEquals(TestUtils.scan(new AbstractPyPartitionScanner(), doc),
+                TestUtils.scan(new PyPartitionScanner(), doc));
+    }
+
+    public void testResumeAtLineStart() throws Exception {
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            IDocument doc = new Document(createRandomContents(random));
+            List<int[]> fullScan = scan(new PyPartitionScanner(), doc, 0, null, -1);
+            List<String> types = new ArrayList<String>();
+            collectTypes(new PyPartitionScanner(), doc, types);
+
+            for (int line = 1; line < doc.getNumberOfLines(); line++) {
+                IRegion lineInfo = doc.getLineInformation(line);
+                int lineStart = lineInfo.getOffset();
+                int partitionIndex = -1;
+                for (int j = 0; j < fullScan.size(); j++) {
+                    int[] token = fullScan.get(j);
+                    if (token[0] <= lineStart && lineStart < token[0] + token[1]) {
+                        partitionIndex = j;
+                        break;
+                    }
+                }
+                if (partitionIndex == -1) {
+                    continue; //at the end of the doc
+                }
+                String type = types.get(partitionIndex);
+                int partitionOffset;
+                if (type == null) {
+                    //The default partition starts after the previous partition.
+                    type = IPythonPartitions.PY_DEFAULT;
+                    partitionOffset = 0;
+                    for (int j = partitionIndex - 1; j >= 0; j--) {
+                        if (types.get(j) != null) {
+                            partitionOffset = fullScan.get(j)[0] + fullScan.get(j)[1];
+                            break;
+                        }
+                    }
+                } else {
+                    partitionOffset = fullScan.get(partitionIndex)[0];
+                }
+
+                List<int[]> resumed = scan(new PyPartitionScanner(), doc, lineStart, type, partitionOffset);
+                List<int[]> expected = fullScan.subList(partitionIndex, fullScan.size());
+                assertEquals("Different results for: " + doc.get() + " resuming at line: " + line,
+                        toStr(expected), toStr(resumed));
+            }
+        }
+    }
+
+    private void collectTypes(IPartitionTokenScanner scanner, IDocument doc, List<String> types) {
+        scanner.setRange(doc, 0, doc.getLength());
+        IToken token = scanner.nextToken();
+        while (!token.isEOF()) {
+            types.add((String) token.getData());
+            token = scanner.nextToken();
+        }
+    }
+
+    private List<int[]> scan(IPartitionTokenScanner scanner, IDocument doc, int offset, String contentType,
+            int partitionOffset) {
+        scanner.setPartialRange(doc, offset, doc.getLength() - offset, contentType, partitionOffset);
+        List<int[]> ret = new ArrayList<int[]>();
+        IToken token = scanner.nextToken();
+        while (!token.isEOF()) {
+            ret.add(new int[] { scanner.getTokenOffset(), scanner.getTokenLength() });
+            token = scanner.nextToken();
+        }
+        return ret;
+    }
+
+    private String toStr(List<int[]> tokens) {
+        FastStringBuffer buf = new FastStringBuffer();
+        for (int[] token : tokens) {
+            buf.append(token[0]).append(':').append(token[1]).append('\n');
+        }
+        return buf.toString();
+    }
+}
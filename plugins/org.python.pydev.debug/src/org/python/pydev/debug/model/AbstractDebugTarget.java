@@ -56,6 +56,7 @@ import org.python.pydev.debug.model.remote.RemoveBreakpointCommand;
 import org.python.pydev.debug.model.remote.RunCommand;
 import org.python.pydev.debug.model.remote.SendPyExceptionCommand;
 import org.python.pydev.debug.model.remote.SetBreakpointCommand;
+import org.python.pydev.debug.model.remote.SetBreakpointsCommand;
 import org.python.pydev.debug.model.remote.SetDjangoExceptionBreakpointCommand;
 import org.python.pydev.debug.model.remote.SetDontTraceEnabledCommand;
 import org.python.pydev.debug.model.remote.SetPropertyTraceCommand;
@@ -113,6 +114,12 @@ public abstract class AbstractDebugTarget extends AbstractDebugTargetWithTransmi
 
     private PyRunToLineTarget runToLineTarget;
 
+    /**
+     * Whether the debugger accepts CMD_GET_VARIABLE_PAGE (negotiated with the version command: older debuggers
+     * don't support it and get all the contents with CMD_GET_VARIABLE).
+     */
+    private volatile boolean supportsVariablePages = false;
+
     public AbstractDebugTarget() {
         modificationChecker = new ValueModificationChecker();
     }
@@ -121,6 +128,14 @@ public abstract class AbstractDebugTarget extends AbstractDebugTargetWithTransmi
         return modificationChecker;
     }
 
+    public boolean getSupportsVariablePages() {
+        return supportsVariablePages;
+    }
+
+    public void setSupportsVariablePages(boolean supportsVariablePages) {
+        this.supportsVariablePages = supportsVariablePages;
+    }
+
     public abstract boolean canTerminate();
 
     public abstract boolean isTerminated();
@@ -313,10 +328,23 @@ public abstract class AbstractDebugTarget extends AbstractDebugTargetWithTransmi
      * Adds a breakpoint if it's enabled.
      */
     public void breakpointAdded(IBreakpoint breakpoint) {
+        if (shouldSkipBreakpoints()) {
+            return;
+        }
+        SetBreakpointCommand cmd = createSetBreakpointCommand(breakpoint);
+        if (cmd != null) {
+            this.postCommand(cmd);
+        }
+    }
+
+    /**
+     * @return the command to set the given breakpoint or null if it shouldn't be set (i.e.: not enabled).
+     */
+    private SetBreakpointCommand createSetBreakpointCommand(IBreakpoint breakpoint) {
         try {
             if (breakpoint instanceof PyBreakpoint) {
                 PyBreakpoint b = (PyBreakpoint) breakpoint;
-                if (b.isEnabled() && !shouldSkipBreakpoints()) {
+                if (b.isEnabled()) {
                     String condition = null;
                     if (b.isConditionEnabled()) {
                         condition = b.getCondition();
@@ -332,15 +360,15 @@ public abstract class AbstractDebugTarget extends AbstractDebugTargetWithTransmi
                     if (file2 == null || line == null) {
                         Log.log("Trying to add breakpoint with invalid file: " + file2 + " or line: " + line);
                     } else {
-                        SetBreakpointCommand cmd = new SetBreakpointCommand(this, b.breakpointId, file2, line,
+                        return new SetBreakpointCommand(this, b.breakpointId, file2, line,
                                 condition, b.getFunctionName(), b.getType());
-                        this.postCommand(cmd);
                     }
                 }
             }
         } catch (CoreException e) {
             Log.log(e);
         }
+        return null;
     }
 
     /**
@@ -810,20 +838,24 @@ public abstract class AbstractDebugTarget extends AbstractDebugTargetWithTransmi
             IMarker[] djangoMarkers = container.findMarkers(PyBreakpoint.DJANGO_BREAK_MARKER, true,
                     IResource.DEPTH_INFINITE);
             IBreakpointManager breakpointManager = DebugPlugin.getDefault().getBreakpointManager();
-
-            for (IMarker marker : markers) {
-                PyBreakpoint brk = (PyBreakpoint) breakpointManager.getBreakpoint(marker);
-                breakpointAdded(brk);
+            if (shouldSkipBreakpoints()) {
+                return;
             }
 
-            for (IMarker marker : condMarkers) {
-                PyBreakpoint brk = (PyBreakpoint) breakpointManager.getBreakpoint(marker);
-                breakpointAdded(brk);
+            //All the breakpoints are sent in a single command.
+            List<SetBreakpointCommand> cmds = new ArrayList<SetBreakpointCommand>(markers.length
+                    + condMarkers.length + djangoMarkers.length);
+            for (IMarker[] markersOfType : new IMarker[][] { markers, condMarkers, djangoMarkers }) {
+                for (IMarker marker : markersOfType) {
+                    PyBreakpoint brk = (PyBreakpoint) breakpointManager.getBreakpoint(marker);
+                    SetBreakpointCommand cmd = createSetBreakpointCommand(brk);
+                    if (cmd != null) {
+                        cmds.add(cmd);
+                    }
+                }
             }
-
-            for (IMarker marker : djangoMarkers) {
-                PyBreakpoint brk = (PyBreakpoint) breakpointManager.getBreakpoint(marker);
-                breakpointAdded(brk);
+            if (cmds.size() > 0) {
+                this.postCommand(new SetBreakpointsCommand(this, cmds));
             }
         } catch (Throwable t) {
             PydevDebugPlugin.errorDialog("Error setting breakpoints", t);
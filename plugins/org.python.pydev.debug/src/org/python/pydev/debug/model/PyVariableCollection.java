@@ -19,6 +19,7 @@ import org.python.pydev.core.log.Log;
 import org.python.pydev.debug.core.PydevDebugPlugin;
 import org.python.pydev.debug.model.remote.AbstractDebuggerCommand;
 import org.python.pydev.debug.model.remote.GetVariableCommand;
+import org.python.pydev.debug.model.remote.GetVariablePageCommand;
 import org.python.pydev.debug.model.remote.ICommandResponseListener;
 
 
@@ -143,8 +144,15 @@ public class PyVariableCollection extends PyVariable implements ICommandResponse
         }
     }
 
+    /**
+     * If the debugger supports it, only the first page of items is requested (if there are more items, a
+     * PyVariablesPage is added as the last child to get the next ones).
+     */
     public GetVariableCommand getVariableCommand(AbstractDebugTarget dbg) {
-        return new GetVariableCommand(dbg, getPyDBLocation());
+        if (!dbg.getSupportsVariablePages()) {
+            return new GetVariableCommand(dbg, getPyDBLocation());
+        }
+        return new GetVariablePageCommand(dbg, getPyDBLocation(), 0, PyVariablesPage.PAGE_SIZE);
     }
 
     public boolean hasVariables() throws DebugException {
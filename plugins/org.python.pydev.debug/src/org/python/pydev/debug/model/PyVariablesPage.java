@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.debug.model;
+
+import org.python.pydev.debug.model.remote.GetVariableCommand;
+import org.python.pydev.debug.model.remote.GetVariablePageCommand;
+
+/**
+ * Placeholder shown as the last child of a container which has more items than the ones gotten in a page.
+ *
+ * Its children are the next items of the container (which are only requested when it's expanded), so, a huge
+ * container is only transferred as the user navigates through it.
+ *
+ * @author Fabio
+ */
+public class PyVariablesPage extends PyVariableCollection {
+
+    /**
+     * The number of items requested for each page.
+     */
+    public static final int PAGE_SIZE = 300;
+
+    private final int offset;
+
+    /**
+     * @param container the variable (or the previous page) which has the items.
+     * @param offset the index of the first item of this page.
+     * @param len the number of items in the container.
+     */
+    public PyVariablesPage(AbstractDebugTarget target, IVariableLocator container, int offset, int len) {
+        super(target, "[" + offset + ":" + Math.min(len, offset + PAGE_SIZE) + "]", "",
+                "Show next " + Math.min(PAGE_SIZE, len - offset) + " items (of " + len + ")", container);
+        this.offset = offset;
+    }
+
+    /**
+     * The page is not a real variable: its items are gotten from the container itself.
+     */
+    @Override
+    public String getPyDBLocation() {
+        return locator.getPyDBLocation();
+    }
+
+    @Override
+    public GetVariableCommand getVariableCommand(AbstractDebugTarget dbg) {
+        return new GetVariablePageCommand(dbg, getPyDBLocation(), offset, PAGE_SIZE);
+    }
+
+    @Override
+    public boolean supportsValueModification() {
+        return false;
+    }
+}
@@ -328,7 +328,7 @@ public class XMLUtils {
     }
 
     /**
-     * Processes CMD_GET_VARIABLE return
+     * Processes CMD_GET_VARIABLE and CMD_GET_VARIABLE_PAGE return
      *
      */
     static class XMLToVariableInfo extends DefaultHandler {
@@ -348,6 +348,16 @@ public class XMLUtils {
             // create a local variable, and add it to locals
             if (qName.equals("var")) {
                 vars.add(createVariable(target, locator, attributes));
+
+            } else if (qName.equals("more")) {
+                // <more offset="300" len="100000"/> (when only a page of the items was gotten)
+                try {
+                    int offset = Integer.parseInt(attributes.getValue("offset"));
+                    int len = Integer.parseInt(attributes.getValue("len"));
+                    vars.add(new PyVariablesPage(target, locator, offset, len));
+                } catch (NumberFormatException e) {
+                    Log.log(e);
+                }
             }
         }
     }
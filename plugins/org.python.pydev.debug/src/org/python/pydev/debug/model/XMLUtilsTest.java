@@ -60,4 +60,57 @@ public class XMLUtilsTest extends TestCase {
         };
         XMLUtils.XMLToStack(target, payload);
     }
+
+    public void testXmlToVariablesPage() throws Exception {
+        AbstractDebugTarget target = new AbstractDebugTarget() {
+
+            @Override
+            public void launchRemoved(ILaunch launch) {
+                throw new RuntimeException("not implemented");
+            }
+
+            @Override
+            public IProcess getProcess() {
+                throw new RuntimeException("not implemented");
+            }
+
+            @Override
+            public boolean isTerminated() {
+                throw new RuntimeException("not implemented");
+            }
+
+            @Override
+            public boolean canTerminate() {
+                throw new RuntimeException("not implemented");
+            }
+        };
+        IVariableLocator locator = new IVariableLocator() {
+
+            public String getThreadId() {
+                return "thread1";
+            }
+
+            public String getPyDBLocation() {
+                return "thread1\tframe1\tFRAME\tlst";
+            }
+        };
+        String payload = "<xml><var name=\"000299\" type=\"int\" value=\"int%253A 299\" />"
+                + "<more offset=\"300\" len=\"100000\"/></xml>";
+        PyVariable[] vars = XMLUtils.XMLToVariables(target, locator, payload);
+        assertEquals(2, vars.length);
+        assertEquals("000299", vars[0].getName());
+        assertEquals("thread1\tframe1\tFRAME\tlst\t000299", vars[0].getPyDBLocation());
+
+        PyVariablesPage page = (PyVariablesPage) vars[1];
+        assertEquals("[300:600]", page.getName());
+        assertTrue(page.hasVariables());
+        //The items of the page are gotten from the container itself.
+        assertEquals("thread1\tframe1\tFRAME\tlst", page.getPyDBLocation());
+        PyVariable item = new PyVariable(target, "000300", "int", "300", page);
+        assertEquals("thread1\tframe1\tFRAME\tlst\t000300", item.getPyDBLocation());
+
+        vars = XMLUtils.XMLToVariables(target, page, "<xml><more offset=\"99900\" len=\"100000\"/></xml>");
+        assertEquals("[99900:100000]", vars[0].getName());
+        assertEquals("Show next 100 items (of 100000)", vars[0].getValueString());
+    }
 }
@@ -82,6 +82,7 @@ public abstract class AbstractDebuggerCommand {
     static public final int CMD_SEND_CURR_EXCEPTION_TRACE_PROCEEDED = 139;
     static public final int CMD_IGNORE_THROWN_EXCEPTION_AT = 140;
     static public final int CMD_ENABLE_DONT_TRACE = 141;
+    static public final int CMD_GET_VARIABLE_PAGE = 144;
 
     static public final int CMD_ERROR = 901;
     static public final int CMD_VERSION = 501;
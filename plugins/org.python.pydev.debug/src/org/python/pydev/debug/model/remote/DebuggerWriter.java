@@ -6,17 +6,24 @@
  */
 package org.python.pydev.debug.model.remote;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import org.python.pydev.core.log.Log;
 
 /**
  * Writer writes debugger commands to the network. Use postCommand to put new
  * ones in queue.
+ *
+ * The writer thread blocks until a command is available and then writes all the commands pending at that
+ * point with a single flush.
  */
 public class DebuggerWriter implements Runnable {
 
@@ -26,11 +33,11 @@ public class DebuggerWriter implements Runnable {
     private Socket socket;
 
     /**
-     * a list of RemoteDebuggerCommands
+     * a queue of RemoteDebuggerCommands
      */
-    private List<AbstractDebuggerCommand> cmdQueue = new ArrayList<AbstractDebuggerCommand>();
+    private final BlockingQueue<AbstractDebuggerCommand> cmdQueue = new LinkedBlockingQueue<AbstractDebuggerCommand>();
 
-    private OutputStreamWriter out;
+    private Writer out;
 
     /**
      * Volatile, as multiple threads may ask it to be 'done'
@@ -38,68 +45,82 @@ public class DebuggerWriter implements Runnable {
     private volatile boolean done = false;
 
     /**
-     * Lock object for sleeping.
+     * The thread running the writer (interrupted when done so that it stops waiting for commands).
      */
-    private Object lock = new Object();
+    private volatile Thread writerThread;
 
     public DebuggerWriter(Socket s) throws IOException {
         socket = s;
-        out = new OutputStreamWriter(s.getOutputStream(), "utf-8");
+        out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), "utf-8"));
     }
 
     /**
      * Add command for processing
      */
     public void postCommand(AbstractDebuggerCommand cmd) {
-        synchronized (cmdQueue) {
-            cmdQueue.add(cmd);
-        }
+        cmdQueue.add(cmd);
     }
 
     public void done() {
         this.done = true;
+        Thread t = writerThread;
+        if (t != null && t != Thread.currentThread()) {
+            t.interrupt();
+        }
     }
 
     /**
      * Loops and writes commands to the output
      */
     public void run() {
-        while (!done) {
-            AbstractDebuggerCommand cmd = null;
-            synchronized (cmdQueue) {
-                if (cmdQueue.size() > 0) {
-                    cmd = cmdQueue.remove(0);
+        writerThread = Thread.currentThread();
+        List<AbstractDebuggerCommand> cmds = new ArrayList<AbstractDebuggerCommand>();
+        try {
+            while (!done) {
+                try {
+                    cmds.add(cmdQueue.take());
+                    cmdQueue.drainTo(cmds);
+                    write(cmds);
+                } catch (InterruptedException | IOException e) {
+                    done = true;
+                } catch (Throwable e1) {
+                    Log.log(e1); //Unexpected error (but not done).
+                } finally {
+                    cmds.clear();
+                }
+                if ((socket == null) || !socket.isConnected()) {
+                    done = true;
                 }
             }
-            try {
-                if (cmd != null) {
-                    String outgoing;
-                    try {
-                        outgoing = cmd.getOutgoing();
-                        if (outgoing == null) {
-                            continue;
-                        }
-                    } catch (Throwable e) {
-                        Log.log(e);
-                        continue;
-                    }
+        } finally {
+            writerThread = null;
+        }
+    }
 
-                    cmd.aboutToSend();
-                    out.write(outgoing);
-                    out.write("\n");
-                    out.flush();
-                }
-                synchronized (lock) {
-                    Thread.sleep(100);
+    /**
+     * Writes the given commands and flushes the output once at the end.
+     */
+    private void write(List<AbstractDebuggerCommand> cmds) throws IOException {
+        boolean wrote = false;
+        for (AbstractDebuggerCommand cmd : cmds) {
+            String outgoing;
+            try {
+                outgoing = cmd.getOutgoing();
+                if (outgoing == null) {
+                    continue;
                 }
-            } catch (InterruptedException | IOException e) {
-                done = true;
-            } catch (Throwable e1) {
-                Log.log(e1); //Unexpected error (but not done).
-            }
-            if ((socket == null) || !socket.isConnected()) {
-                done = true;
+            } catch (Throwable e) {
+                Log.log(e);
+                continue;
             }
+
+            cmd.aboutToSend();
+            out.write(outgoing);
+            out.write("\n");
+            wrote = true;
+        }
+        if (wrote) {
+            out.flush();
         }
     }
 }
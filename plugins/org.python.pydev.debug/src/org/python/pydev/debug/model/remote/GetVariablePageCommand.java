@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.debug.model.remote;
+
+import org.python.pydev.debug.model.AbstractDebugTarget;
+
+/**
+ * Gets only the items in the range [offset, offset+limit) of a variable (so that huge containers don't have to
+ * be transferred and parsed at once).
+ *
+ * The response is the same xml as the one for CMD_GET_VARIABLE, but if there are items after the ones returned
+ * it'll also have a <more offset="next offset" len="total"/> element (note that the debugger may return less
+ * items than requested if the payload would become too big).
+ */
+public class GetVariablePageCommand extends GetVariableCommand {
+
+    private final int offset;
+    private final int limit;
+
+    public GetVariablePageCommand(AbstractDebugTarget debugger, String locator, int offset, int limit) {
+        super(debugger, locator);
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    @Override
+    public String getOutgoing() {
+        return makeCommand(getCommandId(), sequence, offset + "\t" + limit + "\t" + locator);
+    }
+
+    @Override
+    protected int getCommandId() {
+        return CMD_GET_VARIABLE_PAGE;
+    }
+
+    /**
+     * If the debugger doesn't know about this command, all the contents are requested with CMD_GET_VARIABLE (and
+     * the listener is notified when that command completes).
+     */
+    @Override
+    public void processErrorResponse(int cmdCode, String payload) {
+        super.processErrorResponse(cmdCode, payload);
+        if (payload != null && payload.indexOf("unexpected command " + CMD_GET_VARIABLE_PAGE) != -1) {
+            target.setSupportsVariablePages(false);
+            GetVariableCommand fallback = new GetVariableCommand(target, locator);
+            fallback.setCompletionListener(responseListener);
+            responseListener = null;
+            target.postCommand(fallback);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.debug.model.remote;
+
+import java.util.List;
+
+import org.python.pydev.debug.model.AbstractDebugTarget;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+/**
+ * Sets many breakpoints at once (used to send all the breakpoints when the debug session starts).
+ *
+ * Each breakpoint is still sent as a CMD_SET_BREAK line (so, nothing changes in the debugger side), but they're
+ * all written at once instead of as separate commands.
+ */
+public class SetBreakpointsCommand extends AbstractDebuggerCommand {
+
+    private final List<SetBreakpointCommand> commands;
+
+    public SetBreakpointsCommand(AbstractDebugTarget debugger, List<SetBreakpointCommand> commands) {
+        super(debugger);
+        this.commands = commands;
+    }
+
+    @Override
+    public String getOutgoing() {
+        FastStringBuffer buf = new FastStringBuffer(commands.size() * 100);
+        for (SetBreakpointCommand cmd : commands) {
+            String outgoing = cmd.getOutgoing();
+            if (outgoing == null) {
+                continue;
+            }
+            if (buf.length() > 0) {
+                buf.append('\n');
+            }
+            buf.append(outgoing);
+        }
+        if (buf.length() == 0) {
+            return null;
+        }
+        return buf.toString();
+    }
+
+}
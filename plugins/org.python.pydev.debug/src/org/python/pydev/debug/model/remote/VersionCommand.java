@@ -11,6 +11,7 @@
 package org.python.pydev.debug.model.remote;
 
 import org.python.pydev.debug.model.AbstractDebugTarget;
+import org.python.pydev.shared_core.string.StringUtils;
 import org.python.pydev.shared_core.utils.PlatformUtils;
 
 /**
@@ -22,6 +23,11 @@ public class VersionCommand extends AbstractDebuggerCommand {
 
     static final String VERSION = "1.1";
 
+    /**
+     * Capability sent by debuggers which accept CMD_GET_VARIABLE_PAGE.
+     */
+    public static final String CAPABILITY_VARIABLE_PAGE = "VARIABLE_PAGE";
+
     /**
      * @param debugger
      */
@@ -46,6 +52,23 @@ public class VersionCommand extends AbstractDebuggerCommand {
     public void processOKResponse(int cmdCode, String payload) {
         //        System.err.println("The version is " + payload);
         // not checking for versioning in 1.0, might come in useful later
+        target.setSupportsVariablePages(hasCapability(payload, CAPABILITY_VARIABLE_PAGE));
+    }
+
+    /**
+     * @param payload the response to the version command: version[\tcapability]* (older versions of the debugger
+     * only send the version).
+     */
+    public static boolean hasCapability(String payload, String capability) {
+        if (payload == null) {
+            return false;
+        }
+        for (String part : StringUtils.split(payload.trim(), '\t')) {
+            if (part.equals(capability)) {
+                return true;
+            }
+        }
+        return false;
     }
 
 }
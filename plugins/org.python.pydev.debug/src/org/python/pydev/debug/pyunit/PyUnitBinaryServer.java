@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.debug.pyunit;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.python.pydev.core.log.Log;
+
+/**
+ * Server which receives the notifications of the test runner through a socket with a framed binary protocol
+ * (which is much cheaper than doing an xml-rpc call for each batch of notifications).
+ *
+ * The python side (pydev_runfiles_xml_rpc.py) connects to it (possibly with many connections, i.e.: pytest-xdist
+ * workers) and sends frames with the format below (all ints are big-endian and strings are utf-8):
+ *
+ * [int frame len][int number of events]([string method][int number of args]([string arg])*)*
+ *
+ * where a string is: [int len in bytes][bytes]
+ *
+ * Nothing is ever sent back to the client.
+ *
+ * @author Fabio
+ */
+public class PyUnitBinaryServer {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Any frame bigger than this is considered corrupt (and the connection is closed).
+     */
+    private static final int MAX_FRAME_LEN = 256 * 1024 * 1024;
+
+    /**
+     * An event received from the runner (the method is the same one used in the xml-rpc protocol).
+     */
+    public static final class Event {
+
+        public final String method;
+        public final String[] args;
+
+        public Event(String method, String[] args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+
+    /**
+     * Receives the events in each frame (always called in the thread that reads the connection, but a lock
+     * is held so that frames from different connections are never handled concurrently).
+     */
+    public static interface IFrameHandler {
+
+        void handleFrame(List<Event> events);
+    }
+
+    private final ServerSocket serverSocket;
+    private final IFrameHandler handler;
+    private final Object lockHandler = new Object();
+    private final List<Socket> connections = new ArrayList<Socket>();
+    private volatile boolean disposed;
+
+    public PyUnitBinaryServer(IFrameHandler handler) throws IOException {
+        this.handler = handler;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        Thread acceptThread = new Thread("PyUnitBinaryServer: accept") {
+            @Override
+            public void run() {
+                acceptConnections();
+            }
+        };
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptConnections() {
+        while (!disposed) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!disposed) {
+                    Log.log(e);
+                }
+                return;
+            }
+            synchronized (connections) {
+                if (disposed) {
+                    closeSocket(socket);
+                    return;
+                }
+                connections.add(socket);
+            }
+            Thread readThread = new Thread("PyUnitBinaryServer: read") {
+                @Override
+                public void run() {
+                    readConnection(socket);
+                }
+            };
+            readThread.setDaemon(true);
+            readThread.start();
+        }
+    }
+
+    private void readConnection(Socket socket) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+            while (true) {
+                //Note: even if disposed, keep on reading until the client closes the connection.
+                List<Event> events = readFrame(in);
+                if (events == null) {
+                    return; //Connection closed by the client.
+                }
+                synchronized (lockHandler) {
+                    try {
+                        handler.handleFrame(events);
+                    } catch (Throwable e) {
+                        //Never stop reading because of some error handling the events.
+                        Log.log(e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (!disposed) {
+                Log.log(e);
+            }
+        } finally {
+            synchronized (connections) {
+                connections.remove(socket);
+                connections.notifyAll();
+            }
+            closeSocket(socket);
+        }
+    }
+
+    /**
+     * @return the events in the next frame or null if the stream was closed before a new frame started.
+     */
+    public static List<Event> readFrame(DataInputStream in) throws IOException {
+        int frameLen;
+        try {
+            frameLen = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (frameLen < 4 || frameLen > MAX_FRAME_LEN) {
+            throw new IOException("Invalid frame length: " + frameLen);
+        }
+        byte[] frame = new byte[frameLen];
+        in.readFully(frame);
+
+        FrameDecoder decoder = new FrameDecoder(frame);
+        int eventsLen = decoder.readInt();
+        if (eventsLen < 0) {
+            throw new IOException("Invalid number of events: " + eventsLen);
+        }
+        List<Event> events = new ArrayList<Event>(Math.min(eventsLen, 4096));
+        for (int i = 0; i < eventsLen; i++) {
+            String method = decoder.readString();
+            int argsLen = decoder.readInt();
+            if (argsLen < 0 || argsLen > 64) {
+                throw new IOException("Invalid number of arguments: " + argsLen);
+            }
+            String[] args = new String[argsLen];
+            for (int j = 0; j < argsLen; j++) {
+                args[j] = decoder.readString();
+            }
+            events.add(new Event(method, args));
+        }
+        return events;
+    }
+
+    /**
+     * Helper to decode the contents of a frame (checking that nothing is read beyond the frame).
+     */
+    private static final class FrameDecoder {
+
+        private final byte[] frame;
+        private int pos;
+
+        private FrameDecoder(byte[] frame) {
+            this.frame = frame;
+        }
+
+        private int readInt() throws IOException {
+            if (pos + 4 > frame.length) {
+                throw new IOException("Unexpected end of frame.");
+            }
+            int ret = ((frame[pos] & 0xFF) << 24) | ((frame[pos + 1] & 0xFF) << 16) | ((frame[pos + 2] & 0xFF) << 8)
+                    | (frame[pos + 3] & 0xFF);
+            pos += 4;
+            return ret;
+        }
+
+        private String readString() throws IOException {
+            int len = readInt();
+            if (len < 0 || pos + len > frame.length) {
+                throw new IOException("Invalid string length: " + len);
+            }
+            String ret = new String(frame, pos, len, UTF8);
+            pos += len;
+            return ret;
+        }
+    }
+
+    /**
+     * Stops accepting connections and waits (for at most the given timeout) until the clients close the
+     * connections that are still open (as the client may still have notifications to be read in the socket even
+     * after the process finished).
+     */
+    public void dispose(long timeoutMillis) {
+        if (disposed) {
+            return;
+        }
+        disposed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            //Ignore
+        }
+        ArrayList<Socket> toClose;
+        synchronized (connections) {
+            long end = System.currentTimeMillis() + timeoutMillis;
+            long wait;
+            while (connections.size() > 0 && (wait = end - System.currentTimeMillis()) > 0) {
+                try {
+                    connections.wait(wait);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            toClose = new ArrayList<Socket>(connections);
+            connections.clear();
+        }
+        for (Socket socket : toClose) {
+            closeSocket(socket);
+        }
+    }
+
+    private static void closeSocket(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            //Ignore
+        }
+    }
+}
@@ -35,6 +35,24 @@ public class PyUnitServer implements IPyUnitServer {
      */
     protected WebServer webServer;
 
+    /**
+     * Server used to get information on the tests running through the binary protocol (null if it couldn't be
+     * created, in which case only xml-rpc is used).
+     */
+    protected PyUnitBinaryServer binaryServer;
+
+    /**
+     * Environment variable with the port for the binary protocol (if the python side is unable to connect to
+     * it, xml-rpc is used).
+     */
+    public static final String BINARY_PORT_ENV = "PYDEV_PYUNIT_BINARY_PORT";
+
+    /**
+     * Time to wait for the runner to close the binary connections when disposing (as the socket may still have
+     * notifications which were not read).
+     */
+    private static final long BINARY_SERVER_DISPOSE_TIMEOUT = 2000;
+
     /**
      * The port to be used to communicate with the python server.
      */
@@ -122,25 +140,54 @@ public class PyUnitServer implements IPyUnitServer {
         }
 
         public Object execute(IRequest request) throws XmlRpcException {
-            try {
-                String method = request.getMethodName();
+            dispatchRequest(request);
+            return "OK";
+        }
 
-                Dispatch actual = dispatch.get(method);
-                if (actual != null) {
-                    actual.handle(request);
-                } else {
-                    Log.log("Unhandled notification: " + method);
-                }
+    };
+
+    /**
+     * Handles the frames received through the binary protocol (each event is dispatched just as an xml-rpc request).
+     */
+    private final PyUnitBinaryServer.IFrameHandler frameHandler = new PyUnitBinaryServer.IFrameHandler() {
+
+        public void handleFrame(List<PyUnitBinaryServer.Event> events) {
+            for (final PyUnitBinaryServer.Event event : events) {
+                dispatchRequest(new IRequest() {
 
-            } catch (Throwable e) {
-                //Never return any error here (we don't want to stop running the tests because of some error here).
-                Log.log(e);
+                    public int getParameterCount() {
+                        return event.args.length;
+                    }
+
+                    public Object getParameter(int i) {
+                        return event.args[i];
+                    }
+
+                    public String getMethodName() {
+                        return event.method;
+                    }
+                });
             }
-            return "OK";
         }
-
     };
 
+    private void dispatchRequest(IRequest request) {
+        try {
+            String method = request.getMethodName();
+
+            Dispatch actual = dispatch.get(method);
+            if (actual != null) {
+                actual.handle(request);
+            } else {
+                Log.log("Unhandled notification: " + method);
+            }
+
+        } catch (Throwable e) {
+            //Never return any error here (we don't want to stop running the tests because of some error here).
+            Log.log(e);
+        }
+    }
+
     private final HashMap<String, Dispatch> dispatch = new HashMap<String, Dispatch>();
 
     private void initializeDispatches() {
@@ -318,6 +365,13 @@ public class PyUnitServer implements IPyUnitServer {
 
         this.webServer.start();
 
+        try {
+            this.binaryServer = new PyUnitBinaryServer(frameHandler);
+        } catch (IOException e) {
+            //Ok, just go on with xml-rpc.
+            Log.log(e);
+        }
+
         ILaunchManager launchManager = DebugPlugin.getDefault().getLaunchManager();
         launchManager.addLaunchListener(this.launchListener);
         this.launch = launch;
@@ -340,6 +394,14 @@ public class PyUnitServer implements IPyUnitServer {
         return port;
     }
 
+    /**
+     * @return the port for the binary protocol or -1 if it's not available.
+     */
+    public int getBinaryPort() {
+        PyUnitBinaryServer s = this.binaryServer;
+        return s != null ? s.getPort() : -1;
+    }
+
     /**
      * Disposes of the pyunit server. When the launch is terminated or removed from the launch manager, it's
      * automatically disposed.
@@ -354,6 +416,11 @@ public class PyUnitServer implements IPyUnitServer {
                 Log.log(e1);
             }
 
+            if (this.binaryServer != null) {
+                this.binaryServer.dispose(BINARY_SERVER_DISPOSE_TIMEOUT);
+                this.binaryServer = null;
+            }
+
             if (this.webServer != null) {
                 try {
                     this.webServer.shutdown();
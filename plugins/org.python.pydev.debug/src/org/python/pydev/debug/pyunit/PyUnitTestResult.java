@@ -29,15 +29,20 @@ import org.python.pydev.parser.visitors.NodeUtils;
 import org.python.pydev.plugin.nature.PythonNature;
 import org.python.pydev.shared_core.io.FileUtils;
 import org.python.pydev.shared_core.string.FastStringBuffer;
+import org.python.pydev.shared_core.structure.Tuple;
 
 public class PyUnitTestResult {
 
     public final String status;
     public final String location;
     public final String test;
-    public final String capturedOutput;
-    public final String errorContents;
     public final String time;
+
+    /**
+     * The captured output and error contents are kept in the storage of the test run (and are only loaded
+     * on demand).
+     */
+    private final long outputPointer;
     private WeakReference<PyUnitTestRun> testRun;
 
     public final String STATUS_OK = "ok";
@@ -50,13 +55,52 @@ public class PyUnitTestResult {
             String errorContents, String time) {
         //note that the parent has a strong reference to the children.
         this.testRun = new WeakReference<PyUnitTestRun>(testRun);
-        this.status = status;
-        this.location = location;
+        this.status = internStatus(status);
+        this.location = testRun.internLocation(location);
         this.test = test;
-        this.capturedOutput = capturedOutput;
-        this.errorContents = errorContents;
         this.time = time;
         this.index = testRun.getNextTestIndex();
+        this.outputPointer = testRun.getStorage().append(capturedOutput, errorContents);
+    }
+
+    /**
+     * Many results are kept in memory, so, share the status instead of keeping a copy for each result.
+     */
+    private String internStatus(String status) {
+        if (STATUS_OK.equals(status)) {
+            return STATUS_OK;
+        }
+        if (STATUS_SKIP.equals(status)) {
+            return STATUS_SKIP;
+        }
+        if (STATUS_FAIL.equals(status)) {
+            return STATUS_FAIL;
+        }
+        if (STATUS_ERROR.equals(status)) {
+            return STATUS_ERROR;
+        }
+        return status;
+    }
+
+    /**
+     * @return a tuple with the captured output and the error contents (loaded from the test run storage with a
+     * single read, so, use it instead of getCapturedOutput() and getErrorContents() when both are needed).
+     */
+    public Tuple<String, String> loadOutput() {
+        PyUnitTestRun run = this.testRun.get();
+        if (run == null || outputPointer == PyUnitTestRunStorage.NO_OUTPUT) {
+            return new Tuple<String, String>("", "");
+        }
+        String[] output = run.getStorage().read(outputPointer);
+        return new Tuple<String, String>(output[0], output[1]);
+    }
+
+    public String getCapturedOutput() {
+        return loadOutput().o1;
+    }
+
+    public String getErrorContents() {
+        return loadOutput().o2;
     }
 
     public PyUnitTestRun getTestRun() {
@@ -78,13 +122,16 @@ public class PyUnitTestResult {
     @Override
     public String toString() {
         int fixedContentsLen = 50;
+        Tuple<String, String> output = loadOutput();
+        String capturedOutput = output.o1;
+        String errorContents = output.o2;
         FastStringBuffer buf = new FastStringBuffer(this.test.length() + this.status.length() + this.time.length()
-                + this.location.length() + this.errorContents.length() + this.capturedOutput.length()
+                + this.location.length() + errorContents.length() + capturedOutput.length()
                 + fixedContentsLen);
 
         return buf.append(this.test).append(" Status: ").append(this.status).append(" Time: ").append(this.time)
-                .append("\n\n").append("File: ").append(this.location).append("\n\n").append(this.errorContents)
-                .append("\n\n").append(this.capturedOutput).append("\n\n").toString();
+                .append("\n\n").append("File: ").append(this.location).append("\n\n").append(errorContents)
+                .append("\n\n").append(capturedOutput).append("\n\n").toString();
     }
 
     public void open() {
@@ -8,6 +8,7 @@ package org.python.pydev.debug.pyunit;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,14 +33,50 @@ public class PyUnitTestRun {
     private int nextIndex = 0;
     private String totalTime; //null while not set.
 
+    /**
+     * Keeps the captured output/error contents of the results (only a summary is kept in memory).
+     */
+    private final PyUnitTestRunStorage storage;
+
+    /**
+     * Results from the same file share the same location string.
+     */
+    private final Map<String, String> locations = new HashMap<String, String>();
+
     public PyUnitTestRun(IPyUnitLaunch server) {
+        int run;
         synchronized (lock) {
+            run = currentRun;
             this.name = "Test Run:" + currentRun;
             currentRun += 1;
         }
         this.pyUnitLaunch = server;
         this.results = new ArrayList<PyUnitTestResult>();
         this.testsRunning = new LinkedHashMap<Tuple<String, String>, PyUnitTestStarted>();
+        this.storage = PyUnitTestRunStorage.create("run" + run + "_");
+    }
+
+    /*default*/PyUnitTestRunStorage getStorage() {
+        return storage;
+    }
+
+    /*default*/synchronized String internLocation(String location) {
+        if (location == null) {
+            return null;
+        }
+        String existing = locations.get(location);
+        if (existing == null) {
+            locations.put(location, location);
+            existing = location;
+        }
+        return existing;
+    }
+
+    /**
+     * Should be called when the run is no longer needed (removes the stored output of the results).
+     */
+    public void dispose() {
+        storage.dispose();
     }
 
     public Collection<PyUnitTestStarted> getTestsRunning() {
@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.debug.pyunit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.python.pydev.core.log.Log;
+import org.python.pydev.debug.core.PydevDebugPlugin;
+
+/**
+ * Keeps the captured output and error contents of the tests in a test run in an append-only file (so that
+ * only the summary of the results is kept in memory -- the output is loaded on demand when needed).
+ *
+ * Each record has the format: [int len][utf-8 bytes of captured output][int len][utf-8 bytes of error contents]
+ * and is identified by its offset in the file.
+ *
+ * If it's not possible to create (or write to) the file (i.e.: when running without the plugin), the contents are
+ * kept in memory. Those records are identified by negative pointers (-2 for the first one, -3 for the second...),
+ * so, records already written to the file can still be read after a write failure.
+ *
+ * @author Fabio
+ */
+public final class PyUnitTestRunStorage {
+
+    /**
+     * Pointer for results without any output.
+     */
+    public static final long NO_OUTPUT = -1;
+
+    private static final String EMPTY = "";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final String RUNS_DIR = "pyunit_runs";
+
+    private static final Object lockDir = new Object();
+    private static boolean cleanedDir = false;
+
+    private final File file;
+    private RandomAccessFile randomAccessFile;
+    private long end;
+
+    /**
+     * Only used when there's no file to store contents (or after a failure writing to it).
+     */
+    private List<String[]> inMemory;
+
+    private boolean disposed;
+
+    /**
+     * @param file the file where contents should be kept or null to keep the contents in memory.
+     */
+    public PyUnitTestRunStorage(File file) {
+        this.file = file;
+        if (file == null) {
+            inMemory = new ArrayList<String[]>();
+        }
+    }
+
+    /**
+     * Creates the storage for a test run in the plugin state location (the files from previous sessions are removed
+     * when the first storage is created).
+     */
+    public static PyUnitTestRunStorage create(String prefix) {
+        PydevDebugPlugin plugin = PydevDebugPlugin.getDefault();
+        if (plugin == null) {
+            return new PyUnitTestRunStorage(null);
+        }
+        try {
+            File dir = plugin.getStateLocation().append(RUNS_DIR).toFile();
+            synchronized (lockDir) {
+                if (!cleanedDir) {
+                    cleanedDir = true;
+                    File[] files = dir.listFiles();
+                    if (files != null) {
+                        for (File f : files) {
+                            f.delete();
+                        }
+                    }
+                }
+                if (!dir.exists()) {
+                    dir.mkdirs();
+                }
+            }
+            return new PyUnitTestRunStorage(File.createTempFile(prefix, ".log", dir));
+        } catch (Exception e) {
+            Log.log(e);
+            return new PyUnitTestRunStorage(null);
+        }
+    }
+
+    /**
+     * @return a pointer which may be used to read the contents later on.
+     */
+    public synchronized long append(String capturedOutput, String errorContents) {
+        if (capturedOutput == null) {
+            capturedOutput = EMPTY;
+        }
+        if (errorContents == null) {
+            errorContents = EMPTY;
+        }
+        if (capturedOutput.length() == 0 && errorContents.length() == 0) {
+            return NO_OUTPUT;
+        }
+        if (disposed) {
+            return NO_OUTPUT;
+        }
+        if (inMemory != null) {
+            inMemory.add(new String[] { capturedOutput, errorContents });
+            return getInMemoryPointer(inMemory.size() - 1);
+        }
+        byte[] output = capturedOutput.getBytes(UTF8);
+        byte[] error = errorContents.getBytes(UTF8);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + output.length + error.length);
+        buffer.putInt(output.length).put(output).putInt(error.length).put(error);
+        try {
+            if (randomAccessFile == null) {
+                randomAccessFile = new RandomAccessFile(file, "rw");
+            }
+            long pointer = end;
+            randomAccessFile.seek(pointer);
+            randomAccessFile.write(buffer.array());
+            end += buffer.capacity();
+            return pointer;
+        } catch (IOException e) {
+            Log.log(e);
+            //Keep it in memory from now on (the file is kept open to read what was already written).
+            inMemory = new ArrayList<String[]>();
+            return append(capturedOutput, errorContents);
+        }
+    }
+
+    private static long getInMemoryPointer(int index) {
+        return -(index + 2L);
+    }
+
+    private static int getInMemoryIndex(long pointer) {
+        return (int) (-pointer - 2);
+    }
+
+    /**
+     * @return a tuple with the captured output and the error contents for the given pointer.
+     */
+    public synchronized String[] read(long pointer) {
+        if (pointer == NO_OUTPUT || disposed) {
+            return new String[] { EMPTY, EMPTY };
+        }
+        if (pointer < 0) {
+            int index = getInMemoryIndex(pointer);
+            if (inMemory != null && index < inMemory.size()) {
+                return inMemory.get(index);
+            }
+            return new String[] { EMPTY, EMPTY };
+        }
+        if (randomAccessFile == null) {
+            return new String[] { EMPTY, EMPTY };
+        }
+        try {
+            randomAccessFile.seek(pointer);
+            byte[] output = new byte[randomAccessFile.readInt()];
+            randomAccessFile.readFully(output);
+            byte[] error = new byte[randomAccessFile.readInt()];
+            randomAccessFile.readFully(error);
+            return new String[] { new String(output, UTF8), new String(error, UTF8) };
+        } catch (Exception e) {
+            Log.log(e);
+            return new String[] { EMPTY, EMPTY };
+        }
+    }
+
+    /**
+     * Removes the file with the contents (no contents may be read afterwards).
+     */
+    public synchronized void dispose() {
+        disposed = true;
+        inMemory = null;
+        closeFile();
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    private void closeFile() {
+        if (randomAccessFile != null) {
+            try {
+                randomAccessFile.close();
+            } catch (IOException e) {
+                Log.log(e);
+            }
+            randomAccessFile = null;
+        }
+    }
+}
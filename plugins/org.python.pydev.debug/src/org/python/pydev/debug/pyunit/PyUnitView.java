@@ -62,6 +62,7 @@ import org.python.pydev.plugin.preferences.PydevPrefs;
 import org.python.pydev.shared_core.SharedCorePlugin;
 import org.python.pydev.shared_core.callbacks.ICallbackWithListeners;
 import org.python.pydev.shared_core.string.FastStringBuffer;
+import org.python.pydev.shared_core.structure.Tuple;
 import org.python.pydev.shared_ui.tooltips.presenter.StyleRangeWithCustomData;
 import org.python.pydev.shared_ui.tooltips.presenter.ToolTipPresenterHandler;
 import org.python.pydev.shared_ui.utils.IViewWithControls;
@@ -466,6 +467,9 @@ public class PyUnitView extends ViewPartWithOrientation implements IViewWithCont
             PydevPrefs.getChainedPrefStore().removePropertyChangeListener(prefListener);
             this.prefListener = null;
         }
+        //Note: the test runs are kept in the history (so that they're shown if the view is opened again): their
+        //stored output is only disposed when they're removed from the history (evicted or cleared by the user).
+        this.currentRun = null;
         super.dispose();
     }
 
@@ -538,7 +542,7 @@ public class PyUnitView extends ViewPartWithOrientation implements IViewWithCont
         synchronized (lockServerListeners) {
 
             if (serverListeners.size() + 1 > MAX_RUNS_TO_KEEP) {
-                serverListeners.remove(0);
+                serverListeners.remove(0).getTestRun().dispose();
             }
             serverListeners.add(serverListener);
         }
@@ -569,6 +573,29 @@ public class PyUnitView extends ViewPartWithOrientation implements IViewWithCont
         notifyTest(result, true);
     }
 
+    /**
+     * Notifies that many test results have been added (the tree is redrawn and the counters are updated only once).
+     */
+    /*default*/void notifyTests(List<PyUnitTestResult> results) {
+        if (this.disposed) {
+            return;
+        }
+        if (results.size() == 1) {
+            notifyTest(results.get(0), true);
+            return;
+        }
+
+        tree.setRedraw(false);
+        try {
+            for (PyUnitTestResult result : results) {
+                notifyTest(result, false);
+            }
+            updateCountersAndBar();
+        } finally {
+            tree.setRedraw(true);
+        }
+    }
+
     /*default*/void notifyTestStarted(PyUnitTestStarted result) {
         if (this.disposed) {
             return;
@@ -786,19 +813,24 @@ public class PyUnitView extends ViewPartWithOrientation implements IViewWithCont
         tempOnSelectResult.clear();
 
         boolean addedErrors = false;
+        String errorContents = null;
         if (result != null) {
-            if (result.errorContents != null && result.errorContents.length() > 0) {
+            //Loaded on demand from the test run storage.
+            Tuple<String, String> output = result.loadOutput();
+            errorContents = output.o2;
+            String capturedOutput = output.o1;
+            if (errorContents != null && errorContents.length() > 0) {
                 addedErrors = true;
                 tempOnSelectResult.append(ERRORS_HEADER);
-                tempOnSelectResult.append(result.errorContents);
+                tempOnSelectResult.append(errorContents);
             }
 
-            if (result.capturedOutput != null && result.capturedOutput.length() > 0) {
+            if (capturedOutput != null && capturedOutput.length() > 0) {
                 if (tempOnSelectResult.length() > 0) {
                     tempOnSelectResult.append("\n");
                 }
                 tempOnSelectResult.append(CAPTURED_OUTPUT_HEADER);
-                tempOnSelectResult.append(result.capturedOutput);
+                tempOnSelectResult.append(capturedOutput);
             }
         }
         String string = tempOnSelectResult.toString();
@@ -815,7 +847,7 @@ public class PyUnitView extends ViewPartWithOrientation implements IViewWithCont
                 range.foreground = errorTextAttribute.getForeground();
             }
             range.start = ERRORS_HEADER.length();
-            range.length = result.errorContents.length();
+            range.length = errorContents.length();
             testOutputText.setStyleRange(range);
         }
 
@@ -964,6 +996,7 @@ public class PyUnitView extends ViewPartWithOrientation implements IViewWithCont
     public void clearAllTerminated() {
         synchronized (lockServerListeners) {
             boolean removedCurrent = false;
+            List<PyUnitTestRun> removed = new ArrayList<PyUnitTestRun>();
 
             for (Iterator<PyUnitViewServerListener> it = serverListeners.iterator(); it.hasNext();) {
                 PyUnitTestRun next = it.next().getTestRun();
@@ -972,6 +1005,7 @@ public class PyUnitView extends ViewPartWithOrientation implements IViewWithCont
                         removedCurrent = true;
                     }
                     it.remove();
+                    removed.add(next);
                 }
             }
             if (removedCurrent) {
@@ -981,6 +1015,9 @@ public class PyUnitView extends ViewPartWithOrientation implements IViewWithCont
                     this.setCurrentRun(null);
                 }
             }
+            for (PyUnitTestRun run : removed) {
+                run.dispose();
+            }
         }
     }
 
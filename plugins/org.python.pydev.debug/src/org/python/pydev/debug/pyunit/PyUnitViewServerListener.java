@@ -39,17 +39,71 @@ final class PyUnitViewServerListener implements IPyUnitServerListener {
                 arrayList = new ArrayList<ICallback0<Object>>(notifications);
                 notifications.clear();
             }
+            //The results are added to the view in batches (so that the tree and counters are updated once per batch
+            //and not once per result).
+            ArrayList<PyUnitTestResult> results = new ArrayList<PyUnitTestResult>();
             for (ICallback0<Object> iCallback0 : arrayList) {
                 try {
-                    iCallback0.call();
+                    if (iCallback0 instanceof NotifyTestCallback) {
+                        results.add(((NotifyTestCallback) iCallback0).call());
+                    } else {
+                        notifyTestsToView(results);
+                        iCallback0.call();
+                    }
                 } catch (Exception e) {
                     Log.log(e);
                 }
             }
+            notifyTestsToView(results);
             return Status.OK_STATUS;
         }
     };
 
+    /**
+     * Creates the result and adds it to the test run (the view is notified later on, in batch).
+     */
+    private final class NotifyTestCallback implements ICallback0<Object> {
+
+        private final String status;
+        private final String location;
+        private final String test;
+        private final String capturedOutput;
+        private final String errorContents;
+        private final String time;
+
+        private NotifyTestCallback(String status, String location, String test, String capturedOutput,
+                String errorContents, String time) {
+            this.status = status;
+            this.location = location;
+            this.test = test;
+            this.capturedOutput = capturedOutput;
+            this.errorContents = errorContents;
+            this.time = time;
+        }
+
+        public PyUnitTestResult call() {
+            PyUnitTestResult result = new PyUnitTestResult(testRun, status, location, test, capturedOutput,
+                    errorContents, time);
+            testRun.addResult(result);
+            return result;
+        }
+    }
+
+    private void notifyTestsToView(ArrayList<PyUnitTestResult> results) {
+        if (results.size() == 0) {
+            return;
+        }
+        try {
+            synchronized (lockView) {
+                if (view != null) {
+                    view.notifyTests(results);
+                }
+            }
+        } finally {
+            results.clear();
+        }
+    }
+
     private final PyUnitTestRun testRun;
 
     public PyUnitViewServerListener(IPyUnitServer pyUnitServer, IPyUnitLaunch pyUnitLaunch) {
@@ -66,20 +120,7 @@ final class PyUnitViewServerListener implements IPyUnitServerListener {
     public void notifyTest(final String status, final String location, final String test, final String capturedOutput,
             final String errorContents, final String time) {
         synchronized (notifications) {
-            notifications.add(new ICallback0<Object>() {
-
-                public Object call() {
-                    PyUnitTestResult result = new PyUnitTestResult(testRun, status, location, test, capturedOutput,
-                            errorContents, time);
-                    testRun.addResult(result);
-                    synchronized (lockView) {
-                        if (view != null) {
-                            view.notifyTest(result);
-                        }
-                    }
-                    return null;
-                }
-            });
+            notifications.add(new NotifyTestCallback(status, location, test, capturedOutput, errorContents, time));
         }
         updateJob.schedule(TIMEOUT);
     }
@@ -1006,6 +1006,11 @@ public class PythonRunnerConfig {
             throw new AssertionError("PyUnitServer already created!");
         }
         this.pyUnitServer = new PyUnitServer(config, launch);
+        int binaryPort = this.pyUnitServer.getBinaryPort();
+        if (binaryPort > 0 && envp != null) {
+            //Let the python side know where it can connect to use the binary protocol.
+            envp = StringUtils.addString(envp, PyUnitServer.BINARY_PORT_ENV + "=" + binaryPort);
+        }
         return this.pyUnitServer;
     }
 
@@ -9,6 +9,7 @@ package org.python.pydev.debug.model;
 import junit.framework.TestCase;
 
 import org.eclipse.core.runtime.CoreException;
+import org.python.pydev.debug.model.remote.VersionCommand;
 import org.python.pydev.shared_core.structure.Tuple;
 
 public class AbstractDebugTargetTest extends TestCase {
@@ -31,4 +32,15 @@ public class AbstractDebugTargetTest extends TestCase {
             assertEquals("Unexpected threadRun payload pid333_seq23\n108(unable to match)", e.getMessage());
         }
     }
+
+    public void testVersionCapabilities() throws Exception {
+        assertTrue(VersionCommand.hasCapability("@@BUILD_NUMBER@@\tVARIABLE_PAGE",
+                VersionCommand.CAPABILITY_VARIABLE_PAGE));
+        assertTrue(VersionCommand.hasCapability("1.1\tOTHER\tVARIABLE_PAGE\n", VersionCommand.CAPABILITY_VARIABLE_PAGE));
+
+        //older debuggers only send the version
+        assertFalse(VersionCommand.hasCapability("@@BUILD_NUMBER@@", VersionCommand.CAPABILITY_VARIABLE_PAGE));
+        assertFalse(VersionCommand.hasCapability("1.1\tVARIABLE_PAGES", VersionCommand.CAPABILITY_VARIABLE_PAGE));
+        assertFalse(VersionCommand.hasCapability(null, VersionCommand.CAPABILITY_VARIABLE_PAGE));
+    }
 }
@@ -0,0 +1,228 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.debug.pyunit;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class PyUnitBinaryServerTest extends TestCase {
+
+    /**
+     * Does what the python side does (pydev_runfiles_xml_rpc.BinaryServer) to send the notifications.
+     */
+    private static class FakeRunner {
+
+        private final DataOutputStream out;
+        private final Socket socket;
+        private final List<PyUnitBinaryServer.Event> pending = new ArrayList<PyUnitBinaryServer.Event>();
+
+        public FakeRunner(OutputStream out) {
+            this.socket = null;
+            this.out = new DataOutputStream(out);
+        }
+
+        public FakeRunner(int port) throws IOException {
+            this.socket = new Socket("127.0.0.1", port);
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        public void notify(String method, String... args) {
+            pending.add(new PyUnitBinaryServer.Event(method, args));
+        }
+
+        public void flush() throws IOException {
+            ByteArrayOutputStream frame = new ByteArrayOutputStream();
+            DataOutputStream frameOut = new DataOutputStream(frame);
+            frameOut.writeInt(pending.size());
+            for (PyUnitBinaryServer.Event event : pending) {
+                writeString(frameOut, event.method);
+                frameOut.writeInt(event.args.length);
+                for (String arg : event.args) {
+                    writeString(frameOut, arg);
+                }
+            }
+            pending.clear();
+            out.writeInt(frame.size());
+            frame.writeTo(out);
+            out.flush();
+        }
+
+        private void writeString(DataOutputStream frameOut, String s) throws IOException {
+            byte[] bytes = s.getBytes("UTF-8");
+            frameOut.writeInt(bytes.length);
+            frameOut.write(bytes);
+        }
+
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    private static class CountingHandler implements PyUnitBinaryServer.IFrameHandler {
+
+        private int frames;
+        private int tests;
+        private int failures;
+        private PyUnitBinaryServer.Event last;
+
+        public synchronized void handleFrame(List<PyUnitBinaryServer.Event> events) {
+            frames++;
+            for (PyUnitBinaryServer.Event event : events) {
+                if ("notifyTest".equals(event.method)) {
+                    tests++;
+                    if ("fail".equals(event.args[0])) {
+                        failures++;
+                    }
+                }
+                last = event;
+            }
+            this.notifyAll();
+        }
+
+        public synchronized void waitForTests(int expected, long timeout) throws InterruptedException {
+            long end = System.currentTimeMillis() + timeout;
+            while (tests < expected && System.currentTimeMillis() < end) {
+                this.wait(100);
+            }
+        }
+    }
+
+    public void testReadFrame() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FakeRunner runner = new FakeRunner(out);
+        runner.notify("notifyTestsCollected", "2");
+        runner.notify("notifyTest", "fail", "output \u00e1\u00e9", "Traceback", "/tmp/a.py", "Test.test1", "0.1");
+        runner.flush();
+        runner.notify("notifyTestRunFinished", "1.0");
+        runner.flush();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        List<PyUnitBinaryServer.Event> events = PyUnitBinaryServer.readFrame(in);
+        assertEquals(2, events.size());
+        assertEquals("notifyTestsCollected", events.get(0).method);
+        assertEquals("2", events.get(0).args[0]);
+        assertEquals("notifyTest", events.get(1).method);
+        assertEquals(6, events.get(1).args.length);
+        assertEquals("output \u00e1\u00e9", events.get(1).args[1]);
+
+        events = PyUnitBinaryServer.readFrame(in);
+        assertEquals(1, events.size());
+        assertEquals("1.0", events.get(0).args[0]);
+
+        assertNull(PyUnitBinaryServer.readFrame(in));
+    }
+
+    public void testInvalidFrame() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(8);
+        dataOut.writeInt(1);
+        dataOut.writeInt(1000); //string len beyond the frame
+        try {
+            PyUnitBinaryServer.readFrame(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+            fail("Expected IOException");
+        } catch (IOException e) {
+            //expected
+        }
+    }
+
+    /**
+     * Load test: many fast tests reported from multiple connections (as with pytest-xdist workers).
+     */
+    public void testLoad() throws Exception {
+        final int connections = 4;
+        final int testsPerConnection = 25000;
+        final int batchSize = 200;
+
+        CountingHandler handler = new CountingHandler();
+        final PyUnitBinaryServer server = new PyUnitBinaryServer(handler);
+        try {
+            long initial = System.currentTimeMillis();
+            List<Thread> threads = new ArrayList<Thread>();
+            final List<Throwable> errors = new ArrayList<Throwable>();
+            for (int c = 0; c < connections; c++) {
+                final int connection = c;
+                Thread t = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            FakeRunner runner = new FakeRunner(server.getPort());
+                            for (int i = 0; i < testsPerConnection; i++) {
+                                String test = "TestCase" + connection + ".test" + i;
+                                runner.notify("notifyStartTest", "/tmp/test_mod.py", test);
+                                runner.notify("notifyTest", i % 100 == 0 ? "fail" : "ok", "", "", "/tmp/test_mod.py",
+                                        test, "0.0");
+                                if (i % batchSize == batchSize - 1) {
+                                    runner.flush();
+                                }
+                            }
+                            runner.flush();
+                            runner.close();
+                        } catch (Throwable e) {
+                            synchronized (errors) {
+                                errors.add(e);
+                            }
+                        }
+                    }
+                };
+                t.start();
+                threads.add(t);
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+            assertEquals(0, errors.size());
+
+            int expected = connections * testsPerConnection;
+            handler.waitForTests(expected, 10000);
+            long elapsed = System.currentTimeMillis() - initial;
+
+            synchronized (handler) {
+                assertEquals(expected, handler.tests);
+                assertEquals(expected / 100, handler.failures);
+                assertTrue(handler.frames <= connections * (testsPerConnection / batchSize + 1));
+            }
+            assertTrue("Took: " + elapsed + " millis to receive " + expected + " results.", elapsed < 10000);
+        } finally {
+            server.dispose(0);
+        }
+    }
+
+    public void testDisposeWaitsPendingNotifications() throws Exception {
+        CountingHandler handler = new CountingHandler();
+        PyUnitBinaryServer server = new PyUnitBinaryServer(handler);
+        FakeRunner runner = new FakeRunner(server.getPort());
+        for (int i = 0; i < 1000; i++) {
+            runner.notify("notifyTest", "ok", "", "", "/tmp/test_mod.py", "Test.test" + i, "0.0");
+        }
+        runner.flush();
+        handler.waitForTests(1000, 5000); //i.e.: connection accepted
+
+        for (int i = 0; i < 1000; i++) {
+            runner.notify("notifyTest", "ok", "", "", "/tmp/test_mod.py", "Test.test" + i, "0.0");
+        }
+        runner.notify("notifyTestRunFinished", "1.0");
+        runner.flush();
+        runner.close();
+
+        server.dispose(5000);
+        synchronized (handler) {
+            assertEquals(2000, handler.tests);
+            assertEquals("notifyTestRunFinished", handler.last.method);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.debug.pyunit;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+
+import junit.framework.TestCase;
+
+public class PyUnitTestRunStorageTest extends TestCase {
+
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        file = File.createTempFile("pyunit_storage", ".log");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testStorage() throws Exception {
+        checkStorage(new PyUnitTestRunStorage(file));
+        assertFalse(file.exists());
+    }
+
+    public void testStorageInMemory() throws Exception {
+        checkStorage(new PyUnitTestRunStorage(null));
+    }
+
+    public void testWriteFailure() throws Exception {
+        PyUnitTestRunStorage storage = new PyUnitTestRunStorage(file);
+        long p0 = storage.append("output 0", "error 0");
+
+        //Simulate a failure when writing to the file (i.e.: disk full) which still allows reading it.
+        Field field = PyUnitTestRunStorage.class.getDeclaredField("randomAccessFile");
+        field.setAccessible(true);
+        ((RandomAccessFile) field.get(storage)).close();
+        field.set(storage, new RandomAccessFile(file, "r"));
+
+        long p1 = storage.append("output 1", "error 1");
+        long p2 = storage.append("output 2", "");
+        assertTrue(p1 < PyUnitTestRunStorage.NO_OUTPUT);
+        assertTrue(p2 < PyUnitTestRunStorage.NO_OUTPUT);
+        assertEquals("output 0", storage.read(p0)[0]);
+        assertEquals("error 0", storage.read(p0)[1]);
+        assertEquals("output 1", storage.read(p1)[0]);
+        assertEquals("error 1", storage.read(p1)[1]);
+        assertEquals("output 2", storage.read(p2)[0]);
+        storage.dispose();
+    }
+
+    private void checkStorage(PyUnitTestRunStorage storage) {
+        assertEquals(PyUnitTestRunStorage.NO_OUTPUT, storage.append("", null));
+
+        long p0 = storage.append("output 0", "");
+        long p1 = storage.append("", "Traceback: \u00e1\u00e9");
+        long p2 = storage.append("output 2", "error 2");
+        assertEquals("output 2", storage.read(p2)[0]);
+        assertEquals("error 2", storage.read(p2)[1]);
+
+        assertEquals("output 0", storage.read(p0)[0]);
+        assertEquals("", storage.read(p0)[1]);
+
+        assertEquals("", storage.read(p1)[0]);
+        assertEquals("Traceback: \u00e1\u00e9", storage.read(p1)[1]);
+
+        assertEquals("", storage.read(PyUnitTestRunStorage.NO_OUTPUT)[0]);
+
+        storage.dispose();
+        assertEquals("", storage.read(p2)[0]);
+        assertEquals(PyUnitTestRunStorage.NO_OUTPUT, storage.append("output 3", ""));
+    }
+}
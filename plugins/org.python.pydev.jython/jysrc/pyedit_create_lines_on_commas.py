@@ -9,6 +9,7 @@ if False:
 
 
 
+#@DeferActionsCreation
 if cmd == 'onCreateActions':
     # interface: PyEdit object: this is the actual editor that we will act upon
     assert editor is not None
@@ -24,6 +24,9 @@ assert cmd is not None
 #interface: PyEdit object: this is the actual editor that we will act upon
 assert editor is not None
 
+#As this script only binds an action, the marker below makes it run only when the editor actions are
+#first requested (Ctrl+2) and not when the editor is opened.
+#@DeferActionsCreation
 if cmd == 'onCreateActions':
     
     #Optimization so that we don't create a class for a command more than once (otherwise we'd create a different class
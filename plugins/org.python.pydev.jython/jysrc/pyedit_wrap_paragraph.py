@@ -68,6 +68,7 @@ assert cmd is not None
 # interface: PyEdit object: this is the actual editor that we will act upon
 assert editor is not None
 
+#@DeferActionsCreation
 if cmd == 'onCreateActions':
 #----------------------------------Paragrapher----------------------------------
     Paragrapher = systemGlobals.get('Paragrapher')
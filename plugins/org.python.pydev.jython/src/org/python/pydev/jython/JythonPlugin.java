@@ -15,6 +15,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IStatus;
@@ -34,8 +35,10 @@ import org.python.core.PySystemState;
 import org.python.pydev.core.NullOutputStream;
 import org.python.pydev.core.log.Log;
 import org.python.pydev.jython.ui.JyScriptingPreferencesPage;
+import org.python.pydev.shared_core.callbacks.ICallback;
 import org.python.pydev.shared_core.callbacks.ICallback0;
 import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.string.FastStringBuffer;
 import org.python.pydev.shared_core.string.StringUtils;
 import org.python.pydev.shared_core.structure.Tuple;
 import org.python.pydev.shared_ui.ConsoleColorCache;
@@ -345,11 +348,21 @@ public class JythonPlugin extends AbstractUIPlugin {
 
     public static List<Throwable> execAll(HashMap<String, Object> locals, final String startingWith,
             IPythonInterpreter interpreter) {
+        return execAll(locals, startingWith, interpreter, (ICallback<Boolean, File>) null);
+    }
+
+    /**
+     * Same as execAll(locals, startingWith, interpreter), but only the scripts accepted by the filter are executed
+     * (if the filter is null, all are executed).
+     */
+    public static List<Throwable> execAll(HashMap<String, Object> locals, final String startingWith,
+            IPythonInterpreter interpreter, ICallback<Boolean, File> filter) {
         //exec files beneath jysrc in org.python.pydev.jython
         File jySrc = JythonPlugin.getJySrcDirFile();
         File additionalScriptingLocation = JyScriptingPreferencesPage.getAdditionalScriptingLocation();
 
-        return execAll(locals, startingWith, interpreter, new File[] { jySrc, additionalScriptingLocation }, null);
+        return execAll(locals, startingWith, interpreter, new File[] { jySrc, additionalScriptingLocation }, null,
+                filter);
 
     }
 
@@ -360,6 +373,17 @@ public class JythonPlugin extends AbstractUIPlugin {
      */
     public static List<Throwable> execAll(HashMap<String, Object> locals, final String startingWith,
             IPythonInterpreter interpreter, File[] beneathFolders, File[] additionalPythonpathFolders) {
+        return execAll(locals, startingWith, interpreter, beneathFolders, additionalPythonpathFolders, null);
+    }
+
+    /**
+     * Executes the scripts beneath some folders which are accepted by the filter (or all if the filter is null).
+     * @param beneathFolders the folders we want to get the scripts from
+     * @return the errors that occured while executing the scripts
+     */
+    public static List<Throwable> execAll(HashMap<String, Object> locals, final String startingWith,
+            IPythonInterpreter interpreter, File[] beneathFolders, File[] additionalPythonpathFolders,
+            ICallback<Boolean, File> filter) {
         List<Throwable> errors = new ArrayList<Throwable>();
 
         ArrayList<File> pythonpath = new ArrayList<File>();
@@ -380,6 +404,9 @@ public class JythonPlugin extends AbstractUIPlugin {
                 }
                 File[] files = getFilesBeneathFolder(startingWith, file);
                 for (File f : files) {
+                    if (filter != null && !filter.call(f)) {
+                        continue;
+                    }
                     Throwable throwable = exec(locals, interpreter, f, pythonpathFolders);
                     if (throwable != null) {
                         errors.add(throwable);
@@ -390,10 +417,29 @@ public class JythonPlugin extends AbstractUIPlugin {
         return errors;
     }
 
+    /**
+     * Cache with the scripts found beneath a folder: (folder, startingWith) -> (folder timestamp, files). As the
+     * scripts are listed for each command in each editor, the folder is only listed again when its timestamp changes
+     * (i.e.: a file is added or removed).
+     */
+    private static final Map<Tuple<File, String>, Tuple<Long, File[]>> filesBeneathFolderCache = new ConcurrentHashMap<Tuple<File, String>, Tuple<Long, File[]>>();
+
     /**
      * List all the 'target' scripts available beneath some folder. A non-null array is always returned.
      */
     public static File[] getFilesBeneathFolder(final String startingWith, File jySrc) {
+        Tuple<File, String> key = new Tuple<File, String>(jySrc, startingWith);
+        long lastModified = jySrc.lastModified();
+        Tuple<Long, File[]> cached = filesBeneathFolderCache.get(key);
+        if (cached != null && cached.o1 == lastModified && lastModified != 0) {
+            return cached.o2;
+        }
+        File[] files = listFilesBeneathFolder(startingWith, jySrc);
+        filesBeneathFolderCache.put(key, new Tuple<Long, File[]>(lastModified, files));
+        return files;
+    }
+
+    private static File[] listFilesBeneathFolder(final String startingWith, File jySrc) {
         File[] files = jySrc.listFiles(new FileFilter() {
 
             public boolean accept(File pathname) {
@@ -415,7 +461,60 @@ public class JythonPlugin extends AbstractUIPlugin {
      * Holds a cache with the name of the created code to a tuple with the file timestamp and the Code Object
      * that was generated with the contents of that timestamp.
      */
-    private static Map<File, Tuple<Long, Object>> codeCache = new HashMap<File, Tuple<Long, Object>>();
+    private static final Map<File, Tuple<Long, Object>> codeCache = new ConcurrentHashMap<File, Tuple<Long, Object>>();
+
+    /**
+     * Locks to compile a given file (so that different files -- or the same file in different interpreters when
+     * it's already compiled -- don't have to wait on each other).
+     */
+    private static final ConcurrentHashMap<File, Object> codeLocks = new ConcurrentHashMap<File, Object>();
+
+    private static Object getCodeLock(File file) {
+        Object lock = codeLocks.get(file);
+        if (lock == null) {
+            lock = new Object();
+            Object existing = codeLocks.putIfAbsent(file, lock);
+            if (existing != null) {
+                lock = existing;
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * Lock for changing the shared 'sys' (sys.path, sys.argv and sys.PYDEV_PYTHONPATH_SET), which is the same for
+     * all the interpreters which share the system state. It's also held while running a script which receives argv
+     * in a shared sys (as it must see its own sys.argv).
+     */
+    private static final Object sysLock = new Object();
+
+    /**
+     * Cache with the information gotten from the contents of the scripts.
+     */
+    private static final Map<File, JythonScriptInfo> scriptInfoCache = new ConcurrentHashMap<File, JythonScriptInfo>();
+
+    /**
+     * @return information on the given script (which may be used to decide if the script needs to be executed
+     * at a given time).
+     */
+    public static JythonScriptInfo getScriptInfo(File script) {
+        long lastModified = script.lastModified();
+        JythonScriptInfo info = scriptInfoCache.get(script);
+        if (info == null || info.lastModified != lastModified) {
+            String contents = FileUtils.getFileContents(script);
+            info = JythonScriptInfo.create(contents != null ? contents : "", lastModified, isBundledScript(script));
+            scriptInfoCache.put(script, info);
+        }
+        return info;
+    }
+
+    /**
+     * @return whether the given script is one of the scripts in the jysrc directory of this plugin.
+     */
+    private static boolean isBundledScript(File script) {
+        File parent = script.getAbsoluteFile().getParentFile();
+        return parent != null && parent.equals(getJySrcDirFile().getAbsoluteFile());
+    }
 
     /**
      * @param pythonpathFolders folders that should be in the pythonpath when executing the script
@@ -432,21 +531,24 @@ public class JythonPlugin extends AbstractUIPlugin {
         }
         locals.put("__file__", fileToExec.toString());
         try {
-            String codeObjName;
-            synchronized (codeCache) { //hold on there... one at a time... please?
-                String fileName = fileToExec.getName();
-                if (!fileName.endsWith(".py")) {
-                    throw new RuntimeException("The script to be executed must be a python file. Name:" + fileName);
-                }
-                codeObjName = "code" + fileName.substring(0, fileName.indexOf('.'));
-                final String codeObjTimestampName = codeObjName + "Timestamp";
+            String fileName = fileToExec.getName();
+            if (!fileName.endsWith(".py")) {
+                throw new RuntimeException("The script to be executed must be a python file. Name:" + fileName);
+            }
+            String codeObjName = "code" + fileName.substring(0, fileName.indexOf('.'));
+            final String codeObjTimestampName = codeObjName + "Timestamp";
 
-                for (Map.Entry<String, Object> entry : locals.entrySet()) {
-                    interpreter.set(entry.getKey(), entry.getValue());
-                }
+            //The interpreter is not shared among threads, so, there's no need to lock to set the locals.
+            for (Map.Entry<String, Object> entry : locals.entrySet()) {
+                interpreter.set(entry.getKey(), entry.getValue());
+            }
+
+            //Interpreters which don't share the system state have their own sys (so, changing it needs no lock).
+            boolean sharesSys = !(interpreter instanceof PythonInterpreterWrapperNotShared);
 
+            synchronized (getCodeLock(fileToExec)) { //only one thread compiling a given file at a time.
                 boolean regenerate = false;
-                if (interpreter instanceof PythonInterpreterWrapperNotShared) {
+                if (!sharesSys) {
                     //Always regenerate if the state is not shared! (otherwise the pythonpath might be wrong as the sys is not the same)
                     regenerate = true;
                 }
@@ -503,20 +605,16 @@ public class JythonPlugin extends AbstractUIPlugin {
                     addToSysPath.append(strPythonPathFolders);
                     addToSysPath.append("\n");
 
-                    if (argv.length > 0) {
-                        addToSysPath.append("sys.argv = [");
-                        for (String s : argv) {
-                            addToSysPath.append(s);
-                            addToSysPath.append(",");
-                        }
-                        addToSysPath.append("];");
-                        addToSysPath.append("\n");
-                    }
-
                     String toExec = StringUtils.format(LOAD_FILE_SCRIPT, path,
                             path,
                             addToSysPath.toString());
-                    interpreter.exec(toExec);
+                    if (sharesSys) {
+                        synchronized (sysLock) {
+                            interpreter.exec(toExec);
+                        }
+                    } else {
+                        interpreter.exec(toExec);
+                    }
                     String exec = StringUtils.format(
                             "%s = compile(toExec, r'%s', 'exec')", codeObjName, path);
                     interpreter.exec(exec);
@@ -528,7 +626,26 @@ public class JythonPlugin extends AbstractUIPlugin {
                 }
             }
 
-            interpreter.exec(StringUtils.format("exec(%s)", codeObjName));
+            String execCode = StringUtils.format("exec(%s)", codeObjName);
+            if (argv.length > 0) {
+                FastStringBuffer setArgv = new FastStringBuffer("import sys\nsys.argv = [", 40);
+                for (String s : argv) {
+                    setArgv.append(s).append(',');
+                }
+                setArgv.append("]\n");
+                if (sharesSys) {
+                    //sys.argv must be the one set for this script while it runs.
+                    synchronized (sysLock) {
+                        interpreter.exec(setArgv.toString());
+                        interpreter.exec(execCode);
+                    }
+                } else {
+                    interpreter.exec(setArgv.toString());
+                    interpreter.exec(execCode);
+                }
+            } else {
+                interpreter.exec(execCode);
+            }
         } catch (Throwable e) {
             if (!IN_TESTS && JythonPlugin.getDefault() == null) {
                 //it is already disposed
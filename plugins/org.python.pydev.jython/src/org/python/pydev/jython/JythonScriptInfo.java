@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.jython;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.python.pydev.shared_core.string.StringUtils;
+
+/**
+ * Information gotten from the source of a script which is used to decide when it needs to be executed.
+ *
+ * - The commands it handles: gotten from the 'cmd == "xxx"' comparisons (if the script uses 'cmd' in any
+ * other way or doesn't check it at all, it's considered to handle all the commands). This is only done for the
+ * scripts bundled with PyDev (in org.python.pydev.jython/jysrc) and for the scripts marked with
+ * #@OnlyRunForCheckedCommands (other scripts may rely on being executed for all the commands, so, they're
+ * considered to handle all the commands).
+ *
+ * - Whether the creation of its actions may be deferred: scripts which only bind actions to the editor
+ * (with addOfflineActionListener) can be marked with #@DeferActionsCreation so that they're only executed
+ * for onCreateActions when the actions of the editor are first requested (Ctrl+2).
+ *
+ * @author Fabio
+ */
+public final class JythonScriptInfo {
+
+    public static final String DEFER_ACTIONS_CREATION_MARKER = "#@DeferActionsCreation";
+    public static final String ONLY_RUN_FOR_CHECKED_COMMANDS_MARKER = "#@OnlyRunForCheckedCommands";
+
+    private static final Pattern CMD_PATTERN = Pattern.compile("\\bcmd\\b");
+    private static final Pattern CMD_COMPARISON_PATTERN = Pattern.compile("cmd\\s*==\\s*['\"](\\w+)['\"]");
+    private static final Pattern CMD_ASSIGN_PATTERN = Pattern.compile("cmd\\s*=[^=]");
+    private static final Pattern CMD_ASSERT_PATTERN = Pattern.compile("cmd\\s+is\\s+not\\s+None");
+
+    public final long lastModified;
+
+    /**
+     * null means that all the commands are handled.
+     */
+    private final Set<String> handledCommands;
+
+    private final boolean deferActionsCreation;
+
+    private JythonScriptInfo(long lastModified, Set<String> handledCommands, boolean deferActionsCreation) {
+        this.lastModified = lastModified;
+        this.handledCommands = handledCommands;
+        this.deferActionsCreation = deferActionsCreation;
+    }
+
+    /**
+     * @param bundled whether the script is one of the scripts bundled with PyDev (in which case the commands
+     * are always gotten from the 'cmd == "xxx"' comparisons).
+     */
+    public static JythonScriptInfo create(String contents, long lastModified, boolean bundled) {
+        Set<String> handledCommands = new HashSet<String>();
+        boolean deferActionsCreation = false;
+        boolean onlyRunForCheckedCommands = bundled;
+        boolean handlesAll = false;
+
+        for (String line : StringUtils.splitInLines(contents, false)) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("#")) {
+                if (trimmed.startsWith(DEFER_ACTIONS_CREATION_MARKER)) {
+                    deferActionsCreation = true;
+                } else if (trimmed.startsWith(ONLY_RUN_FOR_CHECKED_COMMANDS_MARKER)) {
+                    onlyRunForCheckedCommands = true;
+                }
+                continue;
+            }
+            if (handlesAll) {
+                continue;
+            }
+            Matcher matcher = CMD_PATTERN.matcher(line);
+            while (matcher.find()) {
+                int start = matcher.start();
+                Matcher comparison = CMD_COMPARISON_PATTERN.matcher(line).region(start, line.length());
+                if (comparison.lookingAt()) {
+                    handledCommands.add(comparison.group(1));
+                    continue;
+                }
+                if (CMD_ASSIGN_PATTERN.matcher(line).region(start, line.length()).lookingAt()
+                        || CMD_ASSERT_PATTERN.matcher(line).region(start, line.length()).lookingAt()) {
+                    continue;
+                }
+                //Some other usage: we can't know what it does with it.
+                handlesAll = true;
+                break;
+            }
+        }
+        if (!onlyRunForCheckedCommands || handlesAll || handledCommands.size() == 0) {
+            handledCommands = null;
+        }
+        return new JythonScriptInfo(lastModified, handledCommands, deferActionsCreation);
+    }
+
+    /**
+     * @return whether the script has to be executed for the given command.
+     */
+    public boolean handles(String cmd) {
+        return handledCommands == null || handledCommands.contains(cmd);
+    }
+
+    public boolean getDeferActionsCreation() {
+        return deferActionsCreation;
+    }
+}
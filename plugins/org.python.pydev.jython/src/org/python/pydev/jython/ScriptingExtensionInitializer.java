@@ -22,6 +22,8 @@ public class ScriptingExtensionInitializer extends AbstractPreferenceInitializer
                 JyScriptingPreferencesPage.DEFAULT_SHOW_SCRIPTING_OUTPUT);
         node.putBoolean(JyScriptingPreferencesPage.LOG_SCRIPTING_ERRORS,
                 JyScriptingPreferencesPage.DEFAULT_LOG_SCRIPTING_ERRORS);
+        node.putBoolean(JyScriptingPreferencesPage.DEFER_ACTIONS_CREATION,
+                JyScriptingPreferencesPage.DEFAULT_DEFER_ACTIONS_CREATION);
     }
 
 }
@@ -27,6 +27,9 @@ public class JyScriptingPreferencesPage extends FieldEditorPreferencePage implem
 
     public static final String ADDITIONAL_SCRIPTING_LOCATION = "ADDITIONAL_SCRIPTING_LOCATION";
 
+    public static final String DEFER_ACTIONS_CREATION = "DEFER_ACTIONS_CREATION";
+    public static final boolean DEFAULT_DEFER_ACTIONS_CREATION = false;
+
     public JyScriptingPreferencesPage() {
         super(GRID);
         //Set the preference store for the preference page.
@@ -42,6 +45,8 @@ public class JyScriptingPreferencesPage extends FieldEditorPreferencePage implem
         addField(new BooleanFieldEditor(SHOW_SCRIPTING_OUTPUT,
                 "Show the output given from the scripting to some console?", p));
         addField(new BooleanFieldEditor(LOG_SCRIPTING_ERRORS, "Show errors from scripting in the Error Log?", p));
+        addField(new BooleanFieldEditor(DEFER_ACTIONS_CREATION,
+                "Only create the actions of scripts marked with #@DeferActionsCreation on the first Ctrl+2?", p));
         DirectoryFieldEditor fileField = new DirectoryFieldEditor(ADDITIONAL_SCRIPTING_LOCATION,
                 "Location of additional jython scripts:", p);
         addField(fileField);
@@ -65,6 +70,18 @@ public class JyScriptingPreferencesPage extends FieldEditorPreferencePage implem
         return JythonPlugin.getDefault().getPreferenceStore().getBoolean(LOG_SCRIPTING_ERRORS);
     }
 
+    /**
+     * @return if the scripts marked with #@DeferActionsCreation should only create their actions when the editor
+     * actions are first requested (otherwise they're executed when the editor is created as any other script).
+     */
+    public static boolean getDeferActionsCreation() {
+        JythonPlugin plugin = JythonPlugin.getDefault();
+        if (plugin == null) {
+            return DEFAULT_DEFER_ACTIONS_CREATION;
+        }
+        return plugin.getPreferenceStore().getBoolean(DEFER_ACTIONS_CREATION);
+    }
+
     /**
      * @return a directory that has additional scripts for pydev (besides the jysrc in org.python.pydev.jython). May
      * return null if none is specified or if one that is not a directory is specified.
@@ -26,6 +26,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.jface.preference.PreferenceStore;
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.IRegion;
@@ -53,6 +54,9 @@ import org.python.pydev.parser.jython.ast.Module;
 import org.python.pydev.parser.jython.ast.stmtType;
 import org.python.pydev.shared_core.callbacks.ICallback;
 import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.metrics.Counter;
+import org.python.pydev.shared_core.metrics.Histogram;
+import org.python.pydev.shared_core.metrics.Metrics;
 import org.python.pydev.shared_core.model.ErrorDescription;
 import org.python.pydev.shared_core.model.ISimpleNode;
 import org.python.pydev.shared_core.out_of_memory.OnExpectedOutOfMemory;
@@ -62,6 +66,7 @@ import org.python.pydev.shared_core.parsing.ErrorParserInfoForObservers;
 import org.python.pydev.shared_core.parsing.IParserObserver;
 import org.python.pydev.shared_core.parsing.IParserObserver2;
 import org.python.pydev.shared_core.parsing.IParserObserver3;
+import org.python.pydev.shared_core.string.FastStringBuffer;
 import org.python.pydev.shared_core.string.StringUtils;
 import org.python.pydev.shared_core.structure.LowMemoryArrayList;
 import org.python.pydev.shared_core.structure.Tuple;
@@ -85,6 +90,9 @@ public class PyParser extends BaseParser implements IPyParser {
      */
     public static boolean DEBUG_SHOW_PARSE_ERRORS = false;
 
+    private static final Histogram REPARSE_TIME = Metrics.histogram("parser.reparse");
+    private static final Counter REPARSE_ERRORS = Metrics.counter("parser.reparse.errors");
+
     /**
      * Defines whether we should use the fast stream or not
      */
@@ -348,6 +356,12 @@ public class PyParser extends BaseParser implements IPyParser {
     public final static class ParserInfo {
         public IDocument document;
 
+        /**
+         * The contents to be parsed when they're not given as a document (may be null -- in which case the document
+         * is used).
+         */
+        public final FastStringBuffer contents;
+
         /**
          * A set with the lines that were changed when trying to make the document parseable
          */
@@ -391,7 +405,22 @@ public class PyParser extends BaseParser implements IPyParser {
         }
 
         public ParserInfo(IDocument document, int grammarVersion, String name, File f, boolean generateTree) {
+            this(document, null, grammarVersion, name, f, generateTree);
+        }
+
+        /**
+         * Used to parse contents which are not in a document (i.e.: loaded with PySourceLoader). The internal array of
+         * the passed buffer is given directly to the parser (without any copy) and its contents may be changed in the
+         * process (a new line is added at the end if needed).
+         */
+        public ParserInfo(FastStringBuffer contents, int grammarVersion, String name, File f) {
+            this(null, contents, grammarVersion, name, f, true);
+        }
+
+        private ParserInfo(IDocument document, FastStringBuffer contents, int grammarVersion, String name, File f,
+                boolean generateTree) {
             this.document = document;
+            this.contents = contents;
             this.grammarVersion = grammarVersion;
             this.moduleName = name;
             this.file = f;
@@ -453,13 +482,59 @@ public class PyParser extends BaseParser implements IPyParser {
         return charArray;
     }
 
+    /**
+     * Prepares the passed contents in-place for our parser limitations (same as createCharArrayToParse, but without
+     * copying the contents to a new array).
+     *
+     * @return the number of chars to be skipped at the start of the contents (the BOM is skipped instead of being
+     * removed so that the contents don't have to be shifted).
+     */
+    private static int prepareContentsToParse(FastStringBuffer contents) {
+        int skipAtStart = 0;
+        if (contents.startsWith(FileUtils.BOM_UTF8)) {
+            skipAtStart = FileUtils.BOM_UTF8.length();
+        } else if (contents.startsWith(FileUtils.BOM_UNICODE)) {
+            skipAtStart = FileUtils.BOM_UNICODE.length();
+        }
+
+        if (!contents.endsWith("\n") && !contents.endsWith("\r")) {
+            contents.append('\n');
+        }
+        return skipAtStart;
+    }
+
+    /**
+     * @return whether the passed contents only have whitespaces (as String.trim() would consider it).
+     */
+    private static boolean isEmptyToParse(FastStringBuffer contents) {
+        char[] chars = contents.getInternalCharsArray();
+        int len = contents.length();
+        for (int i = 0; i < len; i++) {
+            if (chars[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Actually creates the grammar.
      * @param generateTree whether we should generate the AST or not.
      */
     private static IGrammar createGrammar(boolean generateTree, int grammarVersion, char[] charArray) {
+        return createGrammar(generateTree, grammarVersion, charArray, 0, charArray.length);
+    }
+
+    /**
+     * Actually creates the grammar.
+     * @param generateTree whether we should generate the AST or not.
+     * @param start the chars of the charArray before this position are not parsed.
+     * @param len only the first len chars of the charArray are parsed.
+     */
+    private static IGrammar createGrammar(boolean generateTree, int grammarVersion, char[] charArray, int start,
+            int len) {
         IGrammar grammar;
-        FastCharStream in = new FastCharStream(charArray);
+        FastCharStream in = new FastCharStream(charArray, start, len);
         switch (grammarVersion) {
             case IPythonNature.GRAMMAR_PYTHON_VERSION_2_4:
                 grammar = new PythonGrammar24(generateTree, in);
@@ -505,6 +580,9 @@ public class PyParser extends BaseParser implements IPyParser {
      *         if we are able to recover from a reparse, we have both, the root and the error.
      */
     public static ParseOutput reparseDocument(ParserInfo info) {
+        if (info.document == null) {
+            return reparseContents(info);
+        }
         if (info.grammarVersion == IPythonNature.GRAMMAR_PYTHON_VERSION_CYTHON) {
             IDocument doc = info.document;
             return new ParseOutput(createCythonAst(doc), ((IDocumentExtension4) info.document).getModificationStamp());
@@ -531,11 +609,32 @@ public class PyParser extends BaseParser implements IPyParser {
         }
 
         startDoc = null; //it can be garbage-collected now.
+        return parse(info, charArray, 0, charArray.length, modifiedTime);
+    }
 
+    /**
+     * Parses the info.contents (which are not in a document).
+     */
+    private static ParseOutput reparseContents(ParserInfo info) {
+        long modifiedTime = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+        if (info.grammarVersion == IPythonNature.GRAMMAR_PYTHON_VERSION_CYTHON) {
+            return new ParseOutput(createCythonAst(new Document(info.contents.toString())), modifiedTime);
+        }
+        if (isEmptyToParse(info.contents)) {
+            //If empty, don't bother to parse!
+            return new ParseOutput(new Module(new stmtType[0]), null, modifiedTime);
+        }
+        int start = prepareContentsToParse(info.contents);
+        return parse(info, info.contents.getInternalCharsArray(), start, info.contents.length(), modifiedTime);
+    }
+
+    private static ParseOutput parse(ParserInfo info, char[] charArray, int start, int len, long modifiedTime) {
+
+        long startTime = Metrics.startTime();
         Tuple<ISimpleNode, Throwable> returnVar = new Tuple<ISimpleNode, Throwable>(null, null);
         IGrammar grammar = null;
         try {
-            grammar = createGrammar(info.generateTree, info.grammarVersion, charArray);
+            grammar = createGrammar(info.generateTree, info.grammarVersion, charArray, start, len);
             SimpleNode newRoot;
             try {
                 newRoot = grammar.file_input();
@@ -591,6 +690,11 @@ public class PyParser extends BaseParser implements IPyParser {
 
         }
 
+        REPARSE_TIME.recordSince(startTime);
+        if (returnVar.o2 != null) {
+            REPARSE_ERRORS.inc();
+        }
+
         if (DEBUG_SHOW_PARSE_ERRORS) {
             if (returnVar.o1 == null) {
                 System.out.println("Unable to parse " + info);
@@ -0,0 +1,761 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.parser.jython;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.python.pydev.parser.jython.ast.commentType;
+
+/**
+ * Writes/reads an AST (as generated by the parser) to/from a compact binary format, so that it can be restored
+ * without having to parse the contents again (i.e.: for caching the ASTs of the modules in the disk).
+ *
+ * The whole graph is written: fields of the node, lines/columns, the parent and the specials (comments and
+ * SpecialStr). Nodes that appear more than once (i.e.: the parent) are written only once and referenced later on.
+ *
+ * The fields of each class are gotten by reflection (only classes from org.python.pydev.parser.jython.ast are
+ * accepted) and the names of the fields are written the first time a class is found, so, if the AST classes change,
+ * reading a previously written AST fails with an IOException (instead of restoring an invalid AST).
+ *
+ * @author Fabio
+ */
+public final class AstBinarySerializer {
+
+    private static final int MAGIC = 0x50794153; //PyAS
+
+    /**
+     * Should be raised if the format changes in a way that's not detected by the class/fields check.
+     */
+    private static final int VERSION = 1;
+
+    private static final String AST_PACKAGE = "org.python.pydev.parser.jython.ast.";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    //Tags for nodes
+    private static final byte NODE_NULL = 0;
+    private static final byte NODE_NEW = 1;
+    private static final byte NODE_REF = 2;
+
+    //Tags for specials and values in Object fields
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_NODE = 1;
+    private static final byte VALUE_SPECIAL_STR = 2;
+    private static final byte VALUE_STRING = 3;
+    private static final byte VALUE_INTEGER = 4;
+    private static final byte VALUE_LONG = 5;
+    private static final byte VALUE_BIG_INTEGER = 6;
+    private static final byte VALUE_FLOAT = 7;
+    private static final byte VALUE_DOUBLE = 8;
+
+    //Kinds of fields
+    private static final int KIND_INT = 0;
+    private static final int KIND_BOOLEAN = 1;
+    private static final int KIND_STRING = 2;
+    private static final int KIND_INT_ARRAY = 3;
+    private static final int KIND_NODE = 4;
+    private static final int KIND_NODE_ARRAY = 5;
+    private static final int KIND_OBJECT = 6;
+
+    /**
+     * How to create and fill the nodes of a given class.
+     */
+    private static final class ClassInfo {
+
+        private final Constructor<?> constructor;
+        private final Object[] constructorArgs;
+        private final Field[] fields;
+        private final int[] kinds;
+        private final String[] fieldNames;
+
+        private ClassInfo(Class<?> clazz) throws IOException {
+            Constructor<?>[] constructors = clazz.getConstructors();
+            if (constructors.length == 0) {
+                throw new IOException("No public constructor available in: " + clazz);
+            }
+            this.constructor = constructors[0];
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            this.constructorArgs = new Object[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                constructorArgs[i] = getDefaultValue(parameterTypes[i]);
+            }
+
+            //The fields in SimpleNode (lines, parent, specials) are handled separately.
+            List<Field> lst = new ArrayList<Field>();
+            for (Field f : clazz.getFields()) {
+                if (!Modifier.isStatic(f.getModifiers()) && f.getDeclaringClass() != SimpleNode.class) {
+                    lst.add(f);
+                }
+            }
+            this.fields = lst.toArray(new Field[lst.size()]);
+            Arrays.sort(this.fields, new Comparator<Field>() {
+
+                public int compare(Field o1, Field o2) {
+                    return o1.getName().compareTo(o2.getName());
+                }
+            });
+
+            this.kinds = new int[fields.length];
+            this.fieldNames = new String[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                kinds[i] = getKind(fields[i]);
+                fieldNames[i] = fields[i].getName();
+            }
+        }
+
+        private SimpleNode newInstance() throws IOException {
+            try {
+                return (SimpleNode) constructor.newInstance(constructorArgs);
+            } catch (Exception e) {
+                throw new IOException("Unable to create: " + constructor.getDeclaringClass(), e);
+            }
+        }
+
+        private static Object getDefaultValue(Class<?> type) {
+            if (!type.isPrimitive()) {
+                return null;
+            }
+            if (type == boolean.class) {
+                return false;
+            }
+            if (type == char.class) {
+                return '\0';
+            }
+            if (type == long.class) {
+                return 0L;
+            }
+            if (type == float.class) {
+                return 0f;
+            }
+            if (type == double.class) {
+                return 0d;
+            }
+            if (type == byte.class) {
+                return (byte) 0;
+            }
+            if (type == short.class) {
+                return (short) 0;
+            }
+            return 0;
+        }
+
+        private static int getKind(Field f) throws IOException {
+            Class<?> type = f.getType();
+            if (type == int.class) {
+                return KIND_INT;
+            }
+            if (type == boolean.class) {
+                return KIND_BOOLEAN;
+            }
+            if (type == String.class) {
+                return KIND_STRING;
+            }
+            if (type == int[].class) {
+                return KIND_INT_ARRAY;
+            }
+            if (SimpleNode.class.isAssignableFrom(type)) {
+                return KIND_NODE;
+            }
+            if (type.isArray() && SimpleNode.class.isAssignableFrom(type.getComponentType())) {
+                return KIND_NODE_ARRAY;
+            }
+            if (type == Object.class) {
+                return KIND_OBJECT;
+            }
+            throw new IOException("Unable to handle field: " + f);
+        }
+    }
+
+    private static final Map<Class<?>, ClassInfo> classInfos = new ConcurrentHashMap<Class<?>, ClassInfo>();
+
+    private static ClassInfo getClassInfo(Class<?> clazz) throws IOException {
+        ClassInfo info = classInfos.get(clazz);
+        if (info == null) {
+            if (!clazz.getName().startsWith(AST_PACKAGE) || Modifier.isAbstract(clazz.getModifiers())) {
+                throw new IOException("Unable to handle class: " + clazz);
+            }
+            info = new ClassInfo(clazz);
+            classInfos.put(clazz, info);
+        }
+        return info;
+    }
+
+    private AstBinarySerializer() {
+    }
+
+    /**
+     * @return the bytes representing the passed AST.
+     *
+     * @throws IOException if the AST has something that can't be handled.
+     */
+    public static byte[] write(SimpleNode ast) throws IOException {
+        ByteOutput out = new ByteOutput();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        new Writer(out).writeNode(ast);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the AST read from the given bytes (gotten from write()).
+     *
+     * @throws IOException if the contents are not valid (or were written for AST classes which are different from
+     * the current ones).
+     */
+    public static SimpleNode read(byte[] bytes, int offset, int len) throws IOException {
+        ByteInput in = new ByteInput(bytes, offset, len);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Invalid contents (magic number does not match).");
+        }
+        if (in.readInt() != VERSION) {
+            throw new IOException("Invalid contents (version does not match).");
+        }
+        SimpleNode ast = new Reader(in).readNode();
+        if (!in.isAtEnd()) {
+            throw new IOException("Invalid contents (not all the contents were read).");
+        }
+        return ast;
+    }
+
+    /**
+     * Growable byte array where ints are written as variable-length (zig-zag) ints (most ints are small: lines,
+     * columns, ids, etc).
+     */
+    private static final class ByteOutput {
+
+        private byte[] bytes = new byte[8 * 1024];
+        private int count;
+
+        private void ensureCapacity(int additional) {
+            if (count + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + additional));
+            }
+        }
+
+        private void writeByte(int b) {
+            ensureCapacity(1);
+            bytes[count++] = (byte) b;
+        }
+
+        private void writeBoolean(boolean b) {
+            writeByte(b ? 1 : 0);
+        }
+
+        private void writeInt(int i) {
+            ensureCapacity(5);
+            int v = (i << 1) ^ (i >> 31);
+            while ((v & ~0x7F) != 0) {
+                bytes[count++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[count++] = (byte) v;
+        }
+
+        private void writeLong(long l) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[count++] = (byte) (l >>> shift);
+            }
+        }
+
+        private void writeFloat(float f) {
+            writeLong(Float.floatToIntBits(f));
+        }
+
+        private void writeDouble(double d) {
+            writeLong(Double.doubleToLongBits(d));
+        }
+
+        private void write(byte[] b) {
+            writeInt(b.length);
+            ensureCapacity(b.length);
+            System.arraycopy(b, 0, bytes, count, b.length);
+            count += b.length;
+        }
+
+        private void writeUTF(String s) {
+            write(s.getBytes(UTF8));
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, count);
+        }
+    }
+
+    private static final class ByteInput {
+
+        private final byte[] bytes;
+        private final int end;
+        private int pos;
+
+        private ByteInput(byte[] bytes, int offset, int len) {
+            this.bytes = bytes;
+            this.pos = offset;
+            this.end = offset + len;
+        }
+
+        private boolean isAtEnd() {
+            return pos == end;
+        }
+
+        private byte readByte() throws IOException {
+            if (pos >= end) {
+                throw new IOException("Invalid contents (unexpected end).");
+            }
+            return bytes[pos++];
+        }
+
+        private boolean readBoolean() throws IOException {
+            return readByte() != 0;
+        }
+
+        private int readInt() throws IOException {
+            int v = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                v |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return (v >>> 1) ^ -(v & 1);
+                }
+            }
+            throw new IOException("Invalid contents (malformed int).");
+        }
+
+        private long readLong() throws IOException {
+            long l = 0;
+            for (int i = 0; i < 8; i++) {
+                l = (l << 8) | (readByte() & 0xFF);
+            }
+            return l;
+        }
+
+        private float readFloat() throws IOException {
+            return Float.intBitsToFloat((int) readLong());
+        }
+
+        private double readDouble() throws IOException {
+            return Double.longBitsToDouble(readLong());
+        }
+
+        private byte[] readBytes() throws IOException {
+            int len = readInt();
+            if (len < 0 || len > end - pos) {
+                throw new IOException("Invalid contents (invalid length: " + len + ").");
+            }
+            byte[] b = Arrays.copyOfRange(bytes, pos, pos + len);
+            pos += len;
+            return b;
+        }
+
+        private String readUTF() throws IOException {
+            int len = readInt();
+            if (len < 0 || len > end - pos) {
+                throw new IOException("Invalid contents (invalid length: " + len + ").");
+            }
+            String s = new String(bytes, pos, len, UTF8);
+            pos += len;
+            return s;
+        }
+    }
+
+    private static final class Writer {
+
+        private final ByteOutput out;
+        private final Map<SimpleNode, Integer> nodeIds = new IdentityHashMap<SimpleNode, Integer>();
+        private final Map<Class<?>, Integer> classIds = new HashMap<Class<?>, Integer>();
+        private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+
+        private Writer(ByteOutput out) {
+            this.out = out;
+        }
+
+        private void writeNode(SimpleNode node) throws IOException {
+            if (node == null) {
+                out.writeByte(NODE_NULL);
+                return;
+            }
+            Integer id = nodeIds.get(node);
+            if (id != null) {
+                out.writeByte(NODE_REF);
+                out.writeInt(id);
+                return;
+            }
+            nodeIds.put(node, nodeIds.size());
+            out.writeByte(NODE_NEW);
+            ClassInfo info = writeClass(node.getClass());
+            out.writeInt(node.beginLine);
+            out.writeInt(node.beginColumn);
+
+            try {
+                for (int i = 0; i < info.fields.length; i++) {
+                    Field f = info.fields[i];
+                    switch (info.kinds[i]) {
+                        case KIND_INT:
+                            out.writeInt(f.getInt(node));
+                            break;
+
+                        case KIND_BOOLEAN:
+                            out.writeBoolean(f.getBoolean(node));
+                            break;
+
+                        case KIND_STRING:
+                            writeString((String) f.get(node));
+                            break;
+
+                        case KIND_INT_ARRAY:
+                            int[] ints = (int[]) f.get(node);
+                            if (ints == null) {
+                                out.writeInt(-1);
+                            } else {
+                                out.writeInt(ints.length);
+                                for (int j : ints) {
+                                    out.writeInt(j);
+                                }
+                            }
+                            break;
+
+                        case KIND_NODE:
+                            writeNode((SimpleNode) f.get(node));
+                            break;
+
+                        case KIND_NODE_ARRAY:
+                            SimpleNode[] nodes = (SimpleNode[]) f.get(node);
+                            if (nodes == null) {
+                                out.writeInt(-1);
+                            } else {
+                                out.writeInt(nodes.length);
+                                for (SimpleNode n : nodes) {
+                                    writeNode(n);
+                                }
+                            }
+                            break;
+
+                        default:
+                            writeValue(f.get(node));
+                            break;
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IOException(e);
+            }
+
+            writeNode(node.parent);
+            writeSpecials(node.specialsBefore);
+            writeSpecials(node.specialsAfter);
+        }
+
+        private ClassInfo writeClass(Class<?> clazz) throws IOException {
+            ClassInfo info = getClassInfo(clazz);
+            Integer id = classIds.get(clazz);
+            if (id != null) {
+                out.writeInt(id);
+                return info;
+            }
+            //New class: its id is the current size and its description follows.
+            id = classIds.size();
+            classIds.put(clazz, id);
+            out.writeInt(id);
+            out.writeUTF(clazz.getName());
+            out.writeInt(info.fieldNames.length);
+            for (String name : info.fieldNames) {
+                out.writeUTF(name);
+            }
+            return info;
+        }
+
+        private void writeSpecials(List<Object> specials) throws IOException {
+            if (specials == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(specials.size());
+            for (Object o : specials) {
+                if (!(o instanceof commentType) && !(o instanceof SpecialStr)) {
+                    throw new IOException("Unable to handle special: " + o);
+                }
+                writeValue(o);
+            }
+        }
+
+        private void writeValue(Object o) throws IOException {
+            if (o == null) {
+                out.writeByte(VALUE_NULL);
+
+            } else if (o instanceof SimpleNode) {
+                out.writeByte(VALUE_NODE);
+                writeNode((SimpleNode) o);
+
+            } else if (o instanceof SpecialStr) {
+                SpecialStr s = (SpecialStr) o;
+                out.writeByte(VALUE_SPECIAL_STR);
+                writeString(s.str);
+                out.writeInt(s.beginLine);
+                out.writeInt(s.beginCol);
+
+            } else if (o instanceof String) {
+                out.writeByte(VALUE_STRING);
+                writeString((String) o);
+
+            } else if (o instanceof Integer) {
+                out.writeByte(VALUE_INTEGER);
+                out.writeInt((Integer) o);
+
+            } else if (o instanceof Long) {
+                out.writeByte(VALUE_LONG);
+                out.writeLong((Long) o);
+
+            } else if (o instanceof BigInteger) {
+                out.writeByte(VALUE_BIG_INTEGER);
+                out.write(((BigInteger) o).toByteArray());
+
+            } else if (o instanceof Float) {
+                out.writeByte(VALUE_FLOAT);
+                out.writeFloat((Float) o);
+
+            } else if (o instanceof Double) {
+                out.writeByte(VALUE_DOUBLE);
+                out.writeDouble((Double) o);
+
+            } else {
+                throw new IOException("Unable to handle value: " + o + " (" + o.getClass() + ")");
+            }
+        }
+
+        /**
+         * Strings are written only once (and referenced by the id later on).
+         */
+        private void writeString(String s) throws IOException {
+            if (s == null) {
+                out.writeInt(-1);
+                return;
+            }
+            Integer id = stringIds.get(s);
+            if (id != null) {
+                out.writeInt(id);
+                return;
+            }
+            id = stringIds.size();
+            stringIds.put(s, id);
+            out.writeInt(id);
+            out.writeUTF(s);
+        }
+    }
+
+    private static final class Reader {
+
+        private final ByteInput in;
+        private final List<SimpleNode> nodes = new ArrayList<SimpleNode>();
+        private final List<ClassInfo> classes = new ArrayList<ClassInfo>();
+        private final List<String> strings = new ArrayList<String>();
+
+        private Reader(ByteInput in) {
+            this.in = in;
+        }
+
+        private SimpleNode readNode() throws IOException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case NODE_NULL:
+                    return null;
+
+                case NODE_REF:
+                    int id = in.readInt();
+                    if (id < 0 || id >= nodes.size()) {
+                        throw new IOException("Invalid node reference: " + id);
+                    }
+                    return nodes.get(id);
+
+                case NODE_NEW:
+                    break;
+
+                default:
+                    throw new IOException("Invalid node tag: " + tag);
+            }
+
+            ClassInfo info = readClass();
+            SimpleNode node = info.newInstance();
+            //Registered before reading the fields (as they may reference it).
+            nodes.add(node);
+            node.beginLine = in.readInt();
+            node.beginColumn = in.readInt();
+
+            try {
+                for (int i = 0; i < info.fields.length; i++) {
+                    Field f = info.fields[i];
+                    switch (info.kinds[i]) {
+                        case KIND_INT:
+                            f.setInt(node, in.readInt());
+                            break;
+
+                        case KIND_BOOLEAN:
+                            f.setBoolean(node, in.readBoolean());
+                            break;
+
+                        case KIND_STRING:
+                            f.set(node, readString());
+                            break;
+
+                        case KIND_INT_ARRAY:
+                            int len = in.readInt();
+                            if (len < 0) {
+                                f.set(node, null);
+                            } else {
+                                int[] ints = new int[len];
+                                for (int j = 0; j < len; j++) {
+                                    ints[j] = in.readInt();
+                                }
+                                f.set(node, ints);
+                            }
+                            break;
+
+                        case KIND_NODE:
+                            f.set(node, readNode());
+                            break;
+
+                        case KIND_NODE_ARRAY:
+                            len = in.readInt();
+                            if (len < 0) {
+                                f.set(node, null);
+                            } else {
+                                Object arr = Array.newInstance(f.getType().getComponentType(), len);
+                                for (int j = 0; j < len; j++) {
+                                    Array.set(arr, j, readNode());
+                                }
+                                f.set(node, arr);
+                            }
+                            break;
+
+                        default:
+                            f.set(node, readValue());
+                            break;
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IOException(e);
+            } catch (IllegalArgumentException e) {
+                //i.e.: a node of an unexpected type for the field.
+                throw new IOException(e);
+            }
+
+            node.parent = readNode();
+            //Note: empty lists are kept as empty lists (and null as null).
+            int len = in.readInt();
+            if (len >= 0) {
+                List<Object> specials = node.getSpecialsBefore();
+                for (int i = 0; i < len; i++) {
+                    specials.add(readValue());
+                }
+            }
+            len = in.readInt();
+            if (len >= 0) {
+                List<Object> specials = node.getSpecialsAfter();
+                for (int i = 0; i < len; i++) {
+                    specials.add(readValue());
+                }
+            }
+            return node;
+        }
+
+        private ClassInfo readClass() throws IOException {
+            int id = in.readInt();
+            if (id >= 0 && id < classes.size()) {
+                return classes.get(id);
+            }
+            if (id != classes.size()) {
+                throw new IOException("Invalid class reference: " + id);
+            }
+            String className = in.readUTF();
+            if (!className.startsWith(AST_PACKAGE)) {
+                throw new IOException("Unable to handle class: " + className);
+            }
+            ClassInfo info;
+            try {
+                info = getClassInfo(Class.forName(className));
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+            int fieldsLen = in.readInt();
+            if (fieldsLen != info.fieldNames.length) {
+                throw new IOException("Fields of class: " + className + " changed.");
+            }
+            for (String name : info.fieldNames) {
+                if (!name.equals(in.readUTF())) {
+                    throw new IOException("Fields of class: " + className + " changed.");
+                }
+            }
+            classes.add(info);
+            return info;
+        }
+
+        private Object readValue() throws IOException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case VALUE_NULL:
+                    return null;
+
+                case VALUE_NODE:
+                    return readNode();
+
+                case VALUE_SPECIAL_STR:
+                    String str = readString();
+                    int beginLine = in.readInt();
+                    return new SpecialStr(str, beginLine, in.readInt());
+
+                case VALUE_STRING:
+                    return readString();
+
+                case VALUE_INTEGER:
+                    return in.readInt();
+
+                case VALUE_LONG:
+                    return in.readLong();
+
+                case VALUE_BIG_INTEGER:
+                        return new BigInteger(in.readBytes());
+
+                case VALUE_FLOAT:
+                    return in.readFloat();
+
+                case VALUE_DOUBLE:
+                    return in.readDouble();
+
+                default:
+                    throw new IOException("Invalid value tag: " + tag);
+            }
+        }
+
+        private String readString() throws IOException {
+            int id = in.readInt();
+            if (id < 0) {
+                return null;
+            }
+            if (id < strings.size()) {
+                return strings.get(id);
+            }
+            if (id != strings.size()) {
+                throw new IOException("Invalid string reference: " + id);
+            }
+            String s = in.readUTF();
+            strings.add(s);
+            return s;
+        }
+    }
+}
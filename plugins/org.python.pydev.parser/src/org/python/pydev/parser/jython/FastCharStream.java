@@ -26,6 +26,16 @@ public final class FastCharStream {
 
     public final char[] buffer;
 
+    /**
+     * Only the chars up to this length in the buffer are considered.
+     */
+    private final int len;
+
+    /**
+     * The chars before this position in the buffer are not considered.
+     */
+    private final int start;
+
     public final int bufline[];
 
     public final int bufcolumn[];
@@ -49,9 +59,31 @@ public final class FastCharStream {
     private static final boolean DEBUG = false;
 
     public FastCharStream(char cs[]) {
+        this(cs, cs.length);
+    }
+
+    /**
+     * @param len only the first len chars of the passed array are considered (so, a bigger array -- such as the
+     * internal array of a FastStringBuffer -- may be passed without having to copy it).
+     */
+    public FastCharStream(char cs[], int len) {
+        this(cs, 0, len);
+    }
+
+    /**
+     * @param start the chars before this position are skipped (i.e.: a BOM), but the positions are still indexes
+     * in the passed array.
+     * @param len only the first len chars of the passed array are considered.
+     */
+    public FastCharStream(char cs[], int start, int len) {
         this.buffer = cs;
-        this.bufline = new int[cs.length];
-        this.bufcolumn = new int[cs.length];
+        this.start = start;
+        this.len = len;
+        this.bufline = new int[len];
+        this.bufcolumn = new int[len];
+        this.bufpos = start - 1;
+        this.updatePos = start;
+        this.tokenBegin = start;
     }
 
     public int getCurrentPos() {
@@ -81,11 +113,11 @@ public final class FastCharStream {
             return;
         }
 
-        while ((getEndLine() != endLine || getEndColumn() != endColumn) && bufpos >= 0) {
+        while ((getEndLine() != endLine || getEndColumn() != endColumn) && bufpos >= start) {
             bufpos--;
         }
 
-        if (bufpos < 0 || getEndLine() != endLine) {
+        if (bufpos < start || getEndLine() != endLine) {
             //we couldn't find it. Let's restore the position when we started it.
             bufpos = initialBufPos;
             Log.log("Couldn't backtrack to position: line" + endLine + " -- col:" + endColumn);
@@ -95,6 +127,13 @@ public final class FastCharStream {
     public final char readChar() throws IOException {
         try {
             bufpos++;
+            if (bufpos >= len) {
+                bufpos--;
+                if (ioException == null) {
+                    ioException = new IOException();
+                }
+                throw ioException;
+            }
             char r = this.buffer[bufpos];
 
             if (bufpos >= updatePos) {
@@ -179,7 +218,7 @@ public final class FastCharStream {
         if (bufpos >= tokenBegin) {
             string = new String(buffer, tokenBegin, bufpos - tokenBegin + 1);
         } else {
-            string = new String(buffer, tokenBegin, buffer.length - tokenBegin + 1);
+            string = new String(buffer, tokenBegin, len - tokenBegin + 1);
         }
 
         String existing = interned.get(string);
@@ -194,10 +233,10 @@ public final class FastCharStream {
         if (len > 0) {
             try {
                 int initial = bufpos - len + 1;
-                if (initial < 0) {
-                    int initial0 = initial;
-                    len += initial;
-                    initial = 0;
+                if (initial < start) {
+                    int initial0 = initial - start;
+                    len += initial0;
+                    initial = start;
                     buf.appendN('\u0000', -initial0);
                     buf.append(buffer, initial, len);
                 } else {
@@ -219,10 +258,10 @@ public final class FastCharStream {
         if (len > 0) {
             try {
                 int initial = bufpos - len + 1;
-                if (initial < 0) {
-                    int initial0 = initial;
-                    len += initial;
-                    initial = 0;
+                if (initial < start) {
+                    int initial0 = initial - start;
+                    len += initial0;
+                    initial = start;
                     System.arraycopy(buffer, initial, ret, -initial0, len);
                 } else {
                     System.arraycopy(buffer, initial, ret, 0, len);
@@ -8,6 +8,7 @@ package org.python.pydev.parser.prettyprinterv2;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Set;
@@ -20,6 +21,7 @@ import org.python.pydev.core.log.Log;
 import org.python.pydev.parser.jython.SimpleNode;
 import org.python.pydev.parser.jython.ast.argumentsType;
 import org.python.pydev.parser.jython.ast.commentType;
+import org.python.pydev.shared_core.string.FastStringBuffer;
 import org.python.pydev.shared_core.structure.Tuple;
 
 /**
@@ -109,6 +111,25 @@ public class PrettyPrinterV2 {
      * This is the method that manages to call everything else correctly to print the ast.
      */
     public String print(SimpleNode ast) throws IOException {
+        FastStringBuffer sink = new FastStringBuffer();
+        if (!print(ast, sink)) {
+            return "";
+        }
+        return sink.toString();
+    }
+
+    /**
+     * Prints the ast directly into the passed sink (which is cleared before printing), so, callers printing many
+     * asts may reuse the same buffer instead of getting a new String for each ast.
+     * 
+     * An instance keeps state while printing, so, it may be reused to print many asts sequentially, but not by
+     * many threads at the same time (different instances -- even if sharing the same prefs -- may be used in
+     * parallel).
+     * 
+     * @return false if the ast could not be printed (in which case the sink is left empty).
+     */
+    public synchronized boolean print(SimpleNode ast, FastStringBuffer sink) throws IOException {
+        sink.clear();
         PrettyPrinterDocV2 doc = new PrettyPrinterDocV2();
         PrettyPrinterVisitorV2 visitor = new PrettyPrinterVisitorV2(prefs, doc);
         if (ast instanceof argumentsType) {
@@ -118,10 +139,13 @@ public class PrettyPrinterV2 {
             visitor.visitNode(ast);
         } catch (Exception e) {
             Log.log(e);
-            return "";
+            return false;
         }
 
-        writerEraserV2 = new WriterEraserV2();
+        //Restart the state kept across lines (the instance may have been used in a previous print).
+        Arrays.fill(LEVELS, 0);
+        statementLevel = 0;
+        writerEraserV2 = new WriterEraserV2(sink);
         writeStateV2 = new WriteStateV2(writerEraserV2, prefs);
 
         //Now that the doc is filled, let's make a string from it.
@@ -137,19 +161,19 @@ public class PrettyPrinterV2 {
             List<ILinePart> sortedParts = line.getSortedParts();
             indentDiff = line.getIndentDiff();
             savedLineIndent = false;
-            List<ILinePart2> sortedPartsWithILinePart2 = getLineParts2(sortedParts);
+            ILinePart2 singleLinePart2 = getSingleLinePart2(sortedParts);
 
             lastWasComment = false;
             writtenComment = false;
             if (sortedParts.size() == 0) {
                 continue;
             }
-            if (sortedPartsWithILinePart2.size() == 1) {
+            if (singleLinePart2 != null) {
                 //Ok, we need a special treatment for lines that only contain comments.
                 //As it doesn't belong in the actual AST (it's just spit out in the middle of the parsing),
                 //it can happen that it doesn't belong in the current indentation (and rather to the last indentation
                 //found), so, we have to go on and check how we should indent it based on the previous line(s)
-                ILinePart linePart = sortedPartsWithILinePart2.get(0);
+                ILinePart linePart = singleLinePart2;
 
                 if (linePart.getToken() instanceof commentType && linePart instanceof ILinePart2) {
                     String indentWritten = handleSingleLineComment((ILinePart2) linePart, line, commentsSkipped);
@@ -181,7 +205,12 @@ public class PrettyPrinterV2 {
             }
         }
 
-        return writerEraserV2.getBuffer().toString();
+        //Don't keep references to the sink (nor to the doc structures) after printing.
+        writerEraserV2 = null;
+        writeStateV2 = null;
+        entrySet = null;
+        previousLines = null;
+        return true;
     }
 
     private void saveLineIndent(PrettyPrinterDocLineEntry line) {
@@ -303,16 +332,19 @@ public class PrettyPrinterV2 {
     }
 
     /**
-     * @return all the line parts that implement ILinePart2
+     * @return the line part that implements ILinePart2 if it's the only one in the line (null otherwise)
      */
-    private List<ILinePart2> getLineParts2(List<ILinePart> sortedParts) {
-        List<ILinePart2> sortedPartsWithILinePart2 = new ArrayList<ILinePart2>();
+    private ILinePart2 getSingleLinePart2(List<ILinePart> sortedParts) {
+        ILinePart2 found = null;
         for (ILinePart p : sortedParts) {
             if (p instanceof ILinePart2) {
-                sortedPartsWithILinePart2.add((ILinePart2) p);
+                if (found != null) {
+                    return null;
+                }
+                found = (ILinePart2) p;
             }
         }
-        return sortedPartsWithILinePart2;
+        return found;
     }
 
     /**
@@ -78,7 +78,10 @@ public class WriteStateV2 implements IWriterEraser {
 
     public void writeIndent() throws IOException {
         lastState = LAST_STATE_INDENT;
-        writer.write(indentation.toString());
+        if (indentation.length() > 0) {
+            //Append it directly (without creating an intermediary string).
+            writer.getBuffer().append(indentation);
+        }
         lastWrite++;
     }
 
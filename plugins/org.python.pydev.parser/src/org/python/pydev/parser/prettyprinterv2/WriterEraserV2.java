@@ -17,13 +17,20 @@ public class WriterEraserV2 implements IWriterEraser {
         pushTempBuffer(); //this is the initial buffer (should never be removed)
     }
 
+    /**
+     * @param sink the initial buffer (where the final contents are written -- it's not cleared).
+     */
+    public WriterEraserV2(FastStringBuffer sink) {
+        buf.push(sink);
+    }
+
     public void write(String o) {
         buf.peek().append(o);
     }
 
     public void erase(String o) {
         FastStringBuffer buffer = buf.peek();
-        if (buffer.toString().endsWith(o)) {
+        if (buffer.endsWith(o)) {
             //only delete if it ends with what was passed
             int len = o.length();
             int bufLen = buffer.length();
@@ -24,6 +24,7 @@ import org.python.pydev.parser.jython.ast.Set;
 import org.python.pydev.parser.jython.ast.SetComp;
 import org.python.pydev.parser.visitors.NodeUtils;
 import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.parsing.BaseParser.ParseOutput;
 import org.python.pydev.shared_core.string.FastStringBuffer;
 
 /**
@@ -225,6 +226,40 @@ public class PyParser27Test extends PyParserTestBase {
 
     }
 
+    public void testParseContentsInPlace() throws Throwable {
+        //The internal array is bigger than the contents and the parser must only consider the contents.
+        FastStringBuffer contents = new FastStringBuffer(100);
+        contents.append(FileUtils.BOM_UNICODE).append("#comment\nclass A:\n    pass");
+        contents.getInternalCharsArray()[contents.length()] = '@';
+
+        ParseOutput output = PyParser.reparseDocument(new PyParser.ParserInfo(contents,
+                IPythonNature.GRAMMAR_PYTHON_VERSION_2_7, null, null));
+        assertNull(output.error);
+        Module m = (Module) output.ast;
+        assertEquals("A", NodeUtils.getRepresentationString(m.body[0]));
+        assertEquals(2, m.body[0].beginLine);
+        assertEquals(1, m.body[0].beginColumn);
+
+        //BOM skipped (not removed) and new line added in-place.
+        assertEquals(FileUtils.BOM_UNICODE + "#comment\nclass A:\n    pass\n", contents.toString());
+        assertEquals(100, contents.getInternalCharsArray().length);
+
+        contents = new FastStringBuffer(100);
+        contents.append(FileUtils.BOM_UTF8).append("class B:\n    pass\n");
+        output = PyParser.reparseDocument(new PyParser.ParserInfo(contents,
+                IPythonNature.GRAMMAR_PYTHON_VERSION_2_7, null, null));
+        assertNull(output.error);
+        m = (Module) output.ast;
+        assertEquals("B", NodeUtils.getRepresentationString(m.body[0]));
+        assertEquals(1, m.body[0].beginLine);
+        assertEquals(1, m.body[0].beginColumn);
+
+        output = PyParser.reparseDocument(new PyParser.ParserInfo(new FastStringBuffer("  \n ", 10),
+                IPythonNature.GRAMMAR_PYTHON_VERSION_2_7, null, null));
+        assertNull(output.error);
+        assertEquals(0, ((Module) output.ast).body.length);
+    }
+
     @Override
     public void testEmpty() throws Throwable {
         String s = "";
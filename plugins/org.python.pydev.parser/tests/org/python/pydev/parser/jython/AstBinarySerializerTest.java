@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.parser.jython;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.python.pydev.parser.PyParserTestBase;
+import org.python.pydev.parser.jython.ast.Assign;
+import org.python.pydev.parser.jython.ast.ClassDef;
+import org.python.pydev.parser.jython.ast.Module;
+import org.python.pydev.parser.jython.ast.Name;
+import org.python.pydev.parser.jython.ast.Num;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+public class AstBinarySerializerTest extends PyParserTestBase {
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(AstBinarySerializerTest.class);
+    }
+
+    private static byte[] write(SimpleNode ast) throws IOException {
+        return AstBinarySerializer.write(ast);
+    }
+
+    private static SimpleNode read(byte[] bytes) throws IOException {
+        return AstBinarySerializer.read(bytes, 0, bytes.length);
+    }
+
+    private SimpleNode checkRoundTrip(String s) throws Exception {
+        SimpleNode ast = parseLegalDocStr(s);
+        SimpleNode restored = read(write(ast));
+        assertNotSame(ast, restored);
+        assertEquals(dump(ast), dump(restored));
+        return restored;
+    }
+
+    /**
+     * @return a representation of the whole node graph (fields, lines/cols, specials and parents).
+     */
+    private static String dump(SimpleNode node) throws Exception {
+        FastStringBuffer buf = new FastStringBuffer();
+        dump(node, buf, new IdentityHashMap<Object, Integer>());
+        return buf.toString();
+    }
+
+    private static void dump(Object o, FastStringBuffer buf, Map<Object, Integer> visited) throws Exception {
+        if (o == null) {
+            buf.append("null");
+            return;
+        }
+        if (!(o instanceof SimpleNode)) {
+            if (o instanceof int[]) {
+                buf.append(Arrays.toString((int[]) o));
+            } else {
+                buf.append(o.getClass().getName()).append(':').append(o.toString());
+            }
+            return;
+        }
+        Integer id = visited.get(o);
+        if (id != null) {
+            buf.append("ref:").append(id);
+            return;
+        }
+        visited.put(o, visited.size());
+
+        SimpleNode node = (SimpleNode) o;
+        buf.append(node.getClass().getName()).append('(').append(node.beginLine).append(',')
+                .append(node.beginColumn).append(")[");
+        for (Field f : node.getClass().getFields()) {
+            if (Modifier.isStatic(f.getModifiers())) {
+                continue;
+            }
+            buf.append(f.getName()).append('=');
+            Object value = f.get(node);
+            if (value instanceof Object[]) {
+                buf.append('[');
+                for (Object v : (Object[]) value) {
+                    dump(v, buf, visited);
+                    buf.append(',');
+                }
+                buf.append(']');
+            } else if (value instanceof List) {
+                buf.append('[');
+                for (Object v : (List<?>) value) {
+                    dump(v, buf, visited);
+                    buf.append(',');
+                }
+                buf.append(']');
+            } else {
+                dump(value, buf, visited);
+            }
+            buf.append(';');
+        }
+        buf.append(']');
+    }
+
+    public void testRoundTrip() throws Exception {
+        checkRoundTrip("" +
+                "#comment\n" +
+                "'''doc'''\n" +
+                "import os, sys as s\n" +
+                "from a.b import (c, d as e)\n" +
+                "\n" +
+                "@decorator(1, b=2)\n" +
+                "class A(object): #comment for A\n" +
+                "    attr = [1, 2L, 0xFFFFFFFFFF, 3.5, 4j, 'str', u'uni', r'raw', b'bytes']\n" +
+                "\n" +
+                "    def method(self, a, b=(1,), *args, **kwargs):\n" +
+                "        '''method doc'''\n" +
+                "        for i in range(10):\n" +
+                "            if i % 2 and not a:\n" +
+                "                yield [x for x in args if x]\n" +
+                "            elif i:\n" +
+                "                print({k: v for k, v in kwargs.items()})\n" +
+                "            else:\n" +
+                "                continue\n" +
+                "        try:\n" +
+                "            with open(a) as f, open(b) as g:\n" +
+                "                return f.read()[1:2, ...]\n" +
+                "        except (IOError, OSError) as e:\n" +
+                "            raise\n" +
+                "        finally:\n" +
+                "            del a\n" +
+                "\n" +
+                "lambda x, y=10: x + y\n" +
+                "");
+    }
+
+    public void testParentsAndSpecialsRestored() throws Exception {
+        SimpleNode restored = checkRoundTrip("" +
+                "class A:\n" +
+                "    def m(self): #comment\n" +
+                "        pass\n" +
+                "");
+        Module m = (Module) restored;
+        SimpleNode classDef = m.body[0];
+        SimpleNode funcDef = ((ClassDef) classDef).body[0];
+        assertSame(classDef, funcDef.parent);
+        assertEquals(2, funcDef.beginLine);
+    }
+
+    public void testNumbers() throws Exception {
+        Module m = (Module) checkRoundTrip("a = 99999999999999999999999\n");
+        Object n = ((Num) ((Assign) m.body[0]).value).n;
+        assertEquals(new BigInteger("99999999999999999999999"), n);
+    }
+
+    public void testStringsAreShared() throws Exception {
+        Module m = (Module) checkRoundTrip("a = b\nb = a\n");
+        Name a1 = (Name) ((Assign) m.body[0]).targets[0];
+        Name a2 = (Name) ((Assign) m.body[1]).value;
+        assertSame(a1.id, a2.id);
+    }
+
+    public void testInvalidContents() throws Exception {
+        byte[] bytes = write(parseLegalDocStr("a = 10\n"));
+        bytes[0]++;
+        try {
+            read(bytes);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            //expected
+        }
+
+        bytes = write(parseLegalDocStr("a = 10\n"));
+        try {
+            read(Arrays.copyOf(bytes, bytes.length / 2));
+            fail("Expected IOException");
+        } catch (IOException e) {
+            //expected
+        }
+    }
+
+    public void testOnlyAstClassesAccepted() throws Exception {
+        Module m = (Module) parseLegalDocStr("a = 10\n");
+        m.body[0].specialsAfter = new ArrayList<Object>();
+        m.body[0].specialsAfter.add(new Object());
+        try {
+            write(m);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            //expected
+        }
+    }
+}
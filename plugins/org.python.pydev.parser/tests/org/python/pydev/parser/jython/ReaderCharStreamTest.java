@@ -84,6 +84,18 @@ public class ReaderCharStreamTest extends TestCase {
         doTests2(in);
     }
 
+    public void testSkipAtStart() throws Exception {
+        //The BOM is skipped: positions and suffixes must be the same ones gotten without it.
+        char[] chars = ("\ufeff" + "a\n" + "bc\n").toCharArray();
+        FastCharStream in;
+
+        in = new FastCharStream(chars, 1, chars.length);
+        doTests(in);
+
+        in = new FastCharStream(chars, 1, chars.length);
+        doTests2(in);
+    }
+
     private void doTests2(FastCharStream in) throws IOException {
         assertEquals('a', in.readChar());
         assertEquals("a", in.GetImage());
@@ -9,6 +9,9 @@
  */
 package org.python.pydev.parser.prettyprinter;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.python.pydev.core.IGrammarVersionProvider;
 import org.python.pydev.core.IPythonNature;
 import org.python.pydev.core.MisconfigurationException;
@@ -17,6 +20,7 @@ import org.python.pydev.parser.jython.ast.FunctionDef;
 import org.python.pydev.parser.jython.ast.Module;
 import org.python.pydev.parser.prettyprinterv2.PrettyPrinterV2;
 import org.python.pydev.shared_core.callbacks.ICallback;
+import org.python.pydev.shared_core.string.FastStringBuffer;
 
 public class PrettyPrinterTest extends AbstractPrettyPrinterTestBase {
 
@@ -3169,4 +3173,79 @@ public class PrettyPrinterTest extends AbstractPrettyPrinterTestBase {
             }
         });
     }
+
+    public void testPrintIntoReusedSink() throws Throwable {
+        String s1 = "" +
+                "class A(object):\n" +
+                "\n" +
+                "    def m(self, a=(1, 2)):\n" +
+                "        return [a,\n" +
+                "            {1: 2}]\n" +
+                "";
+        String s2 = "" +
+                "#comment\n" +
+                "call(a, b)\n" +
+                "";
+        SimpleNode node1 = parseLegalDocStr(s1);
+        SimpleNode node2 = parseLegalDocStr(s2);
+        String expected1 = makePrint(prefs, node1);
+        String expected2 = makePrint(prefs, node2);
+
+        //The same printer and sink are reused (the sink is cleared before printing).
+        PrettyPrinterV2 printer = new PrettyPrinterV2(prefs);
+        FastStringBuffer sink = new FastStringBuffer("previous contents\n", 0);
+        assertTrue(printer.print(node1, sink));
+        assertEquals(expected1, sink.toString());
+        assertTrue(printer.print(node2, sink));
+        assertEquals(expected2, sink.toString());
+        assertTrue(printer.print(node1, sink));
+        assertEquals(expected1, sink.toString());
+    }
+
+    public void testPrintInParallel() throws Throwable {
+        final String s = "" +
+                "class A(object):\n" +
+                "\n" +
+                "    def m(self, a):\n" +
+                "        #comment\n" +
+                "        if a:\n" +
+                "            return (a,\n" +
+                "                1)\n" +
+                "";
+        final String expected = makePrint(prefs, parseLegalDocStr(s));
+        final List<String> errors = new ArrayList<String>();
+
+        //Each thread prints its own ast with its own printer (but the prefs are shared).
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        SimpleNode node = parseLegalDocStr(s);
+                        PrettyPrinterV2 printer = new PrettyPrinterV2(prefs);
+                        FastStringBuffer sink = new FastStringBuffer();
+                        for (int j = 0; j < 50; j++) {
+                            printer.print(node, sink);
+                            if (!expected.equals(sink.toString())) {
+                                synchronized (errors) {
+                                    errors.add(sink.toString());
+                                }
+                            }
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e.toString());
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(new ArrayList<String>(), errors);
+    }
 }
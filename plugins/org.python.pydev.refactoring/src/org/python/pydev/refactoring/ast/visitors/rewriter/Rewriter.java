@@ -19,6 +19,7 @@ import org.python.pydev.parser.jython.ast.factory.AdapterPrefs;
 import org.python.pydev.parser.prettyprinterv2.PrettyPrinterPrefsV2;
 import org.python.pydev.parser.prettyprinterv2.PrettyPrinterV2;
 import org.python.pydev.refactoring.ast.visitors.VisitorFactory;
+import org.python.pydev.shared_core.string.FastStringBuffer;
 
 /**
  * This class just provides an interface for using the rewriter.
@@ -44,20 +45,37 @@ public final class Rewriter {
     }
 
     public static String createSourceFromAST(SimpleNode root, boolean ignoreComments, AdapterPrefs adapterPrefs) {
-        IGrammarVersionProvider versionProvider = adapterPrefs.versionProvider;
-        IIndentPrefs indentPrefs = DefaultIndentPrefs.get(adapterPrefs.projectAdaptable);
-        String endLineDelim = adapterPrefs.endLineDelim;
+        PrettyPrinterV2 printer = createPrinter(adapterPrefs);
+        try {
+            return printer.print(root);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
 
-        PrettyPrinterPrefsV2 prettyPrinterPrefs = PrettyPrinterV2.createDefaultPrefs(versionProvider, indentPrefs,
-                endLineDelim);
+    }
 
-        PrettyPrinterV2 printer = new PrettyPrinterV2(prettyPrinterPrefs);
+    /**
+     * Same as createSourceFromAST, but writes the source directly into the passed sink (which is cleared before
+     * writing) instead of creating a new String.
+     */
+    public static void createSourceFromAST(SimpleNode root, AdapterPrefs adapterPrefs, FastStringBuffer sink) {
+        PrettyPrinterV2 printer = createPrinter(adapterPrefs);
         try {
-            return printer.print(root);
+            printer.print(root, sink);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+    }
+
+    private static PrettyPrinterV2 createPrinter(AdapterPrefs adapterPrefs) {
+        IGrammarVersionProvider versionProvider = adapterPrefs.versionProvider;
+        IIndentPrefs indentPrefs = DefaultIndentPrefs.get(adapterPrefs.projectAdaptable);
+        String endLineDelim = adapterPrefs.endLineDelim;
+
+        PrettyPrinterPrefsV2 prettyPrinterPrefs = PrettyPrinterV2.createDefaultPrefs(versionProvider, indentPrefs,
+                endLineDelim);
 
+        return new PrettyPrinterV2(prettyPrinterPrefs);
     }
 
 }
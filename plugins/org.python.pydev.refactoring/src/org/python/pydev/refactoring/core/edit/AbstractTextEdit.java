@@ -37,11 +37,11 @@ import org.python.pydev.refactoring.ast.adapters.ModuleAdapter;
 import org.python.pydev.refactoring.ast.visitors.rewriter.Rewriter;
 import org.python.pydev.refactoring.core.request.IExtractMethodRefactoringRequest;
 import org.python.pydev.refactoring.core.request.IRefactoringRequest;
+import org.python.pydev.shared_core.string.FastStringBuffer;
 
 public abstract class AbstractTextEdit {
 
     private static final String WHITESPACE = " ";
-    private static final String REPLACE_PATTERN = "\\r\\n|\\n|\\r";
 
     protected ModuleAdapter moduleAdapter;
 
@@ -76,25 +76,48 @@ public abstract class AbstractTextEdit {
             throw new RuntimeException(e);
         }
 
-        String source = Rewriter.createSourceFromAST(node, this.adapterPrefs);
+        FastStringBuffer source = new FastStringBuffer();
+        Rewriter.createSourceFromAST(node, this.adapterPrefs, source);
         return getIndentedSource(node, source, getIndent());
     }
 
-    private String getIndentedSource(SimpleNode node, String source, String indentation) {
-        StringBuilder indented = new StringBuilder();
+    /**
+     * Trims the source and indents each of its lines (converting the new lines to the end line delimiter) in a
+     * single pass over the printed source.
+     */
+    private String getIndentedSource(SimpleNode node, FastStringBuffer source, String indentation) {
+        String endLineDelim = this.adapterPrefs.endLineDelim;
+        int start = 0;
+        int end = source.length();
+        while (start < end && source.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && source.charAt(end - 1) <= ' ') {
+            end--;
+        }
 
-        if (nodeHelper.isFunctionDef(node)) {
-            indented.append(this.adapterPrefs.endLineDelim);
+        boolean isFunctionDef = nodeHelper.isFunctionDef(node);
+        FastStringBuffer indented = new FastStringBuffer(end - start + 64);
+        if (isFunctionDef) {
+            indented.append(endLineDelim);
         }
 
         indented.append(indentation);
-        source = source.replaceAll(REPLACE_PATTERN, this.adapterPrefs.endLineDelim + indentation);
-        source = source.trim();
-        indented.append(source);
-        indented.append(this.adapterPrefs.endLineDelim);
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c == '\r' || c == '\n') {
+                if (c == '\r' && i + 1 < end && source.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                indented.append(endLineDelim).append(indentation);
+            } else {
+                indented.append(c);
+            }
+        }
+        indented.append(endLineDelim);
 
-        if (nodeHelper.isFunctionDef(node)) {
-            indented.append(this.adapterPrefs.endLineDelim);
+        if (isFunctionDef) {
+            indented.append(endLineDelim);
         }
 
         return indented.toString();
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.shared_core.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import org.python.pydev.shared_core.log.Log;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+/**
+ * Loads the contents of python files reading each file only once: the bytes are read through a FileChannel (into
+ * a buffer pooled per thread or into a new buffer for big files), the encoding is gotten from the BOM/coding
+ * declaration in the first bytes (see: http://www.python.org/doc/peps/pep-0263/) and the bytes are decoded
+ * directly into the internal array of a FastStringBuffer (so, clients can use getInternalCharsArray() and length()
+ * as a view of the contents without any additional copy).
+ *
+ * The contents gotten are the same ones gotten from FileUtils.getPythonFileEncoding(File) and
+ * FileUtils.getStreamContents() (the BOM is kept and malformed input is replaced).
+ *
+ * @author Fabio
+ */
+public final class PySourceLoader {
+
+    /**
+     * Files with this size or bigger are read into a new buffer instead of the pooled one (so that loading a big
+     * file doesn't keep its memory alive). Note that files are not memory-mapped as the mapping is only released
+     * when it's garbage-collected (and the file can't be changed or removed in Windows while it's mapped).
+     */
+    public static final int MAX_POOLED_BYTES = 1024 * 1024;
+
+    /**
+     * The coding declaration must be in the first 2 lines (which are considered to have up to 1024 chars each --
+     * see: FileUtils.readLines).
+     */
+    private static final int HEADER_BYTES = 2 * 1024;
+
+    /**
+     * Buffers bigger than this are not kept in the pool (so that loading a big file doesn't keep its memory alive).
+     */
+    private static final int MAX_POOLED_CHARS = 512 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> readBuffers = new ThreadLocal<ByteBuffer>();
+
+    private static final ThreadLocal<FastStringBuffer> pooledBuffers = new ThreadLocal<FastStringBuffer>();
+
+    private PySourceLoader() {
+    }
+
+    /**
+     * @return a new buffer with the contents of the passed file. Note that the internal array has room for at least
+     * one additional char (so, the parser may add a new line at the end without having to resize it).
+     */
+    public static FastStringBuffer load(File f) throws IOException {
+        return load(f, new FastStringBuffer(0));
+    }
+
+    /**
+     * Fills the passed buffer with the contents of the passed file (the previous contents of the buffer are
+     * discarded and its internal array is reused if it's big enough).
+     *
+     * @return the passed buffer.
+     */
+    public static FastStringBuffer load(File f, FastStringBuffer buffer) throws IOException {
+        //Note: a FileInputStream is used to get the channel so that a FileNotFoundException is still thrown as before.
+        FileInputStream stream = new FileInputStream(f);
+        try {
+            FileChannel channel = stream.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Unable to load: " + f + " (file too big).");
+            }
+            ByteBuffer bytes = size >= MAX_POOLED_BYTES ? ByteBuffer.allocate((int) size) : getReadBuffer((int) size);
+            while (bytes.hasRemaining() && channel.read(bytes) != -1) {
+                //keep on reading until the buffer is filled
+            }
+            bytes.flip();
+            return decode(bytes, f.getAbsolutePath(), buffer);
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                Log.log(e);
+            }
+        }
+    }
+
+    /**
+     * @return a buffer from the pool of the current thread (or a new one if it's not available). It should be
+     * given back with releaseBuffer() when the contents are no longer needed.
+     */
+    public static FastStringBuffer acquireBuffer() {
+        FastStringBuffer buffer = pooledBuffers.get();
+        if (buffer != null) {
+            pooledBuffers.set(null);
+            return buffer.clear();
+        }
+        return new FastStringBuffer(0);
+    }
+
+    /**
+     * Gives back a buffer gotten from acquireBuffer() (which must not be used anymore by the caller).
+     */
+    public static void releaseBuffer(FastStringBuffer buffer) {
+        if (buffer.getInternalCharsArray().length <= MAX_POOLED_CHARS && pooledBuffers.get() == null) {
+            pooledBuffers.set(buffer.clear());
+        }
+    }
+
+    /**
+     * @return a buffer (pooled per thread) ready to receive the given number of bytes.
+     */
+    private static ByteBuffer getReadBuffer(int size) {
+        ByteBuffer bytes = readBuffers.get();
+        if (bytes == null || bytes.capacity() < size) {
+            bytes = ByteBuffer.allocate(Math.max(size, 16 * 1024));
+            readBuffers.set(bytes);
+        }
+        bytes.clear();
+        bytes.limit(size);
+        return bytes;
+    }
+
+    private static FastStringBuffer decode(ByteBuffer bytes, String fileLocation, FastStringBuffer buffer) {
+        Charset charset = getCharset(getPythonFileEncoding(bytes, fileLocation));
+        CharsetDecoder decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        buffer.clear();
+        //+1: room for the new line the parser may add.
+        buffer.ensureCapacity((int) (bytes.remaining() * (double) decoder.maxCharsPerByte()) + 1);
+        CharBuffer out = CharBuffer.wrap(buffer.getInternalCharsArray());
+
+        boolean flushing = false;
+        while (true) {
+            CoderResult result = flushing ? decoder.flush(out) : decoder.decode(bytes, out, true);
+            if (result.isOverflow()) {
+                //Should not really happen as we reserved the max chars per byte, but let's play safe.
+                buffer.setCount(out.position());
+                buffer.ensureCapacity(buffer.getInternalCharsArray().length * 2);
+                out = CharBuffer.wrap(buffer.getInternalCharsArray());
+                out.position(buffer.length());
+                continue;
+            }
+            if (flushing) {
+                break;
+            }
+            flushing = true;
+        }
+        buffer.setCount(out.position());
+        return buffer;
+    }
+
+    /**
+     * @return the encoding declared in the first bytes (or null if not declared). Works the same way as
+     * FileUtils.getPythonFileEncoding(File), but checks the UTF-8 BOM on the bytes (so, it's detected regardless
+     * of the platform default encoding).
+     */
+    private static String getPythonFileEncoding(ByteBuffer bytes, String fileLocation) {
+        int start = bytes.position();
+        if (bytes.remaining() >= 3 && bytes.get(start) == (byte) 0xEF && bytes.get(start + 1) == (byte) 0xBB
+                && bytes.get(start + 2) == (byte) 0xBF) {
+            return "utf-8";
+        }
+        byte[] header = new byte[Math.min(bytes.remaining(), HEADER_BYTES)];
+        bytes.duplicate().get(header);
+
+        //As in FileUtils.getPythonFileEncoding(File), the header is read with the default charset.
+        return FileUtils.getPythonFileEncoding(new StringReader(new String(header, Charset.defaultCharset())),
+                fileLocation);
+    }
+
+    private static Charset getCharset(String encoding) {
+        if (encoding != null) {
+            try {
+                return Charset.forName(encoding);
+            } catch (IllegalArgumentException e) {
+                Log.log(e);
+                //keep going without the encoding
+            }
+        }
+        return Charset.defaultCharset();
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.shared_core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A counter which is only incremented while the metrics are enabled (see: Metrics.isEnabled()).
+ *
+ * @author Fabio
+ */
+public final class Counter {
+
+    public final String name;
+    private final AtomicLong count = new AtomicLong();
+
+    /*default*/Counter(String name) {
+        this.name = name;
+    }
+
+    public void inc() {
+        if (Metrics.enabled) {
+            count.incrementAndGet();
+        }
+    }
+
+    public void add(long delta) {
+        if (Metrics.enabled) {
+            count.addAndGet(delta);
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /*default*/void reset() {
+        count.set(0);
+    }
+}
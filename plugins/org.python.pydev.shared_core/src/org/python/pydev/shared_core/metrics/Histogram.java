@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.shared_core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies (in microseconds).
+ *
+ * The values are kept in log-linear buckets (each power of 2 is split in 8 buckets), so, recording is just an
+ * increment in an array and the percentiles have an error of at most 12.5%.
+ *
+ * Usage:
+ *
+ * long start = Metrics.startTime();
+ * ...
+ * histogram.recordSince(start);
+ *
+ * @author Fabio
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Enough for values up to 2^40 micros (~12 days).
+     */
+    private static final int BUCKETS = (40 - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    public final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /*default*/Histogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param startTime the time gotten from Metrics.startTime() (0 if the metrics were disabled at that point,
+     * in which case nothing is recorded).
+     */
+    public void recordSince(long startTime) {
+        if (startTime != 0) {
+            recordMicros((System.nanoTime() - startTime) / 1000);
+        }
+    }
+
+    public void recordMicros(long micros) {
+        if (!Metrics.enabled) {
+            return;
+        }
+        if (micros < 0) {
+            micros = 0;
+        }
+        buckets.incrementAndGet(getBucket(micros));
+        count.incrementAndGet();
+        sum.addAndGet(micros);
+
+        long currMax = max.get();
+        while (micros > currMax && !max.compareAndSet(currMax, micros)) {
+            currMax = max.get();
+        }
+    }
+
+    /*default*/static int getBucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) ((micros >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        int bucket = (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+        return bucket < BUCKETS ? bucket : BUCKETS - 1;
+    }
+
+    /**
+     * @return the lowest value (in micros) which is kept in the given bucket.
+     */
+    /*default*/static long getBucketLowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exp = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub)) << (exp - SUB_BUCKET_BITS);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSumMicros() {
+        return sum.get();
+    }
+
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile a value from 0 to 100.
+     * @return the value (in micros) below which the given percentile of the recorded values are (the middle of
+     * the bucket where it is found).
+     */
+    public long getPercentileMicros(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * (percentile / 100.0));
+        if (target < 1) {
+            target = 1;
+        }
+        long acc = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            acc += counts[i];
+            if (acc >= target) {
+                long lower = getBucketLowerBound(i);
+                long upper = i + 1 < BUCKETS ? getBucketLowerBound(i + 1) : lower;
+                return Math.min(lower + (upper - lower) / 2, getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    /*default*/void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+}
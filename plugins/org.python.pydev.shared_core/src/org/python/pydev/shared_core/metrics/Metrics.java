@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.shared_core.metrics;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.python.pydev.shared_core.callbacks.ICallback0;
+import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.log.Log;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+/**
+ * Registry for the counters, histograms and gauges recorded in the hot spots of PyDev (parsing, code analysis,
+ * shell round-trips, modules cache and index I/O).
+ *
+ * The metrics are only recorded when enabled (from the PyDev Performance view or with -Dpydev.metrics=true).
+ * When disabled, recording is just a check on a volatile boolean (no timing or allocations are done).
+ *
+ * Metrics should be gotten once and kept in a static field, i.e.:
+ *
+ * private static final Histogram PARSE_TIME = Metrics.histogram("parser.reparse");
+ *
+ * @author Fabio
+ */
+public final class Metrics {
+
+    public static final String ENABLED_PROPERTY = "pydev.metrics";
+
+    /*default*/static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+    private static final Map<String, ICallback0<Long>> gauges = new ConcurrentHashMap<String, ICallback0<Long>>();
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * @return the current time (to be passed to Histogram.recordSince) or 0 if the metrics are disabled.
+     */
+    public static long startTime() {
+        if (enabled) {
+            long t = System.nanoTime();
+            return t != 0 ? t : 1;
+        }
+        return 0;
+    }
+
+    public static Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            synchronized (counters) {
+                counter = counters.get(name);
+                if (counter == null) {
+                    counter = new Counter(name);
+                    counters.put(name, counter);
+                }
+            }
+        }
+        return counter;
+    }
+
+    public static Histogram histogram(String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            synchronized (histograms) {
+                histogram = histograms.get(name);
+                if (histogram == null) {
+                    histogram = new Histogram(name);
+                    histograms.put(name, histogram);
+                }
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Registers a gauge (a value which is only computed when the metrics are shown/exported, so, it has no
+     * cost for the code where it's registered).
+     */
+    public static void registerGauge(String name, ICallback0<Long> gauge) {
+        gauges.put(name, gauge);
+    }
+
+    public static List<Counter> getCounters() {
+        List<Counter> ret = new ArrayList<Counter>(counters.values());
+        Collections.sort(ret, new Comparator<Counter>() {
+
+            @Override
+            public int compare(Counter o1, Counter o2) {
+                return o1.name.compareTo(o2.name);
+            }
+        });
+        return ret;
+    }
+
+    public static List<Histogram> getHistograms() {
+        List<Histogram> ret = new ArrayList<Histogram>(histograms.values());
+        Collections.sort(ret, new Comparator<Histogram>() {
+
+            @Override
+            public int compare(Histogram o1, Histogram o2) {
+                return o1.name.compareTo(o2.name);
+            }
+        });
+        return ret;
+    }
+
+    public static List<String> getGaugeNames() {
+        List<String> ret = new ArrayList<String>(gauges.keySet());
+        Collections.sort(ret);
+        return ret;
+    }
+
+    /**
+     * @return the current value of the gauge (or -1 if it's not available).
+     */
+    public static long getGaugeValue(String name) {
+        ICallback0<Long> gauge = gauges.get(name);
+        if (gauge != null) {
+            try {
+                Long value = gauge.call();
+                if (value != null) {
+                    return value;
+                }
+            } catch (Throwable e) {
+                Log.log(e);
+            }
+        }
+        return -1;
+    }
+
+    public static void reset() {
+        for (Counter counter : counters.values()) {
+            counter.reset();
+        }
+        for (Histogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Dumps the current values (tab-separated) to the given buffer.
+     */
+    public static void dump(FastStringBuffer buf) {
+        buf.append("# PyDev metrics (enabled: ").append(enabled).append(")\n");
+        buf.append("# Counters: name\tcount\n");
+        for (Counter counter : getCounters()) {
+            buf.append(counter.name).append('\t').append(counter.getCount()).append('\n');
+        }
+        buf.append("# Histograms (micros): name\tcount\tmean\tp50\tp99\tmax\n");
+        for (Histogram histogram : getHistograms()) {
+            long count = histogram.getCount();
+            buf.append(histogram.name).append('\t').append(count)
+                    .append('\t').append(count > 0 ? histogram.getSumMicros() / count : 0)
+                    .append('\t').append(histogram.getPercentileMicros(50))
+                    .append('\t').append(histogram.getPercentileMicros(99))
+                    .append('\t').append(histogram.getMaxMicros()).append('\n');
+        }
+        buf.append("# Gauges: name\tvalue\n");
+        for (String name : getGaugeNames()) {
+            buf.append(name).append('\t').append(getGaugeValue(name)).append('\n');
+        }
+    }
+
+    public static void exportTo(File file) {
+        FastStringBuffer buf = new FastStringBuffer(1024);
+        dump(buf);
+        FileUtils.writeStrToFile(buf.toString(), file);
+    }
+}
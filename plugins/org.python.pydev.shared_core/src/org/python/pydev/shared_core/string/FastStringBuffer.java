@@ -799,15 +799,14 @@ public final class FastStringBuffer implements CharSequence {
     public boolean startsWith(String prefix, int offset) {
         char ta[] = value;
         int to = offset;
-        char pa[] = prefix.toCharArray();
         int po = 0;
-        int pc = pa.length;
+        int pc = prefix.length();
         // Note: toffset might be near -1>>>1.
         if ((offset < 0) || (offset > count - pc)) {
             return false;
         }
         while (--pc >= 0) {
-            if (ta[to++] != pa[po++]) {
+            if (ta[to++] != prefix.charAt(po++)) {
                 return false;
             }
         }
@@ -916,6 +915,19 @@ public final class FastStringBuffer implements CharSequence {
         return this.value;
     }
 
+    /**
+     * Makes sure that the internal array has room for at least minimumCapacity chars (keeping the current contents).
+     * Useful when the internal array is to be filled directly (i.e.: decoding into it).
+     */
+    public FastStringBuffer ensureCapacity(int minimumCapacity) {
+        if (minimumCapacity > value.length) {
+            char newValue[] = new char[minimumCapacity];
+            System.arraycopy(value, 0, newValue, 0, count);
+            value = newValue;
+        }
+        return this;
+    }
+
     /**
      * Provide a subsequence as a view of the buffer we're dealing with.
      *
@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.shared_core.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+
+import junit.framework.TestCase;
+
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+public class PySourceLoaderTest extends TestCase {
+
+    private File baseDir;
+
+    @Override
+    protected void setUp() throws Exception {
+        baseDir = new File(FileUtils.getFileAbsolutePath(new File("PySourceLoaderTest.temporary_dir")));
+        try {
+            FileUtils.deleteDirectoryTree(baseDir);
+        } catch (Exception e) {
+            //ignore
+        }
+        baseDir.mkdir();
+        FileUtils.LOG_ENCODING_ERROR = false;
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtils.LOG_ENCODING_ERROR = true;
+        try {
+            FileUtils.deleteDirectoryTree(baseDir);
+        } catch (Exception e) {
+            //ignore
+        }
+    }
+
+    private File createFile(String name, byte[] bytes) {
+        File f = new File(baseDir, name);
+        FileUtils.writeBytesToFile(bytes, f);
+        return f;
+    }
+
+    /**
+     * @return the contents as they were gotten before the PySourceLoader (encoding and contents read separately).
+     */
+    private String getContentsWithStreams(File f) throws Exception {
+        String encoding = FileUtils.getPythonFileEncoding(f);
+        try (FileInputStream stream = new FileInputStream(f)) {
+            return (String) FileUtils.getStreamContents(stream, encoding, null, String.class);
+        }
+    }
+
+    private void checkSameAsStreams(File f) throws Exception {
+        String expected = getContentsWithStreams(f);
+        FastStringBuffer buf = PySourceLoader.load(f);
+        assertEquals(expected, buf.toString());
+        assertTrue(buf.getInternalCharsArray().length > buf.length());
+    }
+
+    public void testCodingInFirstLine() throws Exception {
+        File f = createFile("latin.py", "# -*- coding: latin-1 -*-\nn\u00e3o = '\u00e1'\n".getBytes("latin1"));
+        checkSameAsStreams(f);
+        assertEquals("# -*- coding: latin-1 -*-\nn\u00e3o = '\u00e1'\n", PySourceLoader.load(f).toString());
+    }
+
+    public void testCodingInSecondLine() throws Exception {
+        File f = createFile("latin2.py", "#!/usr/bin/python\r\n# coding=latin1\r\na = '\u00e1'".getBytes("latin1"));
+        checkSameAsStreams(f);
+        assertEquals("#!/usr/bin/python\r\n# coding=latin1\r\na = '\u00e1'", PySourceLoader.load(f).toString());
+    }
+
+    public void testCodingNotInComment() throws Exception {
+        File f = createFile("no_comment.py", "coding = 'latin1'\na = 10\n".getBytes("utf-8"));
+        checkSameAsStreams(f);
+    }
+
+    public void testUtf8() throws Exception {
+        File f = createFile("utf8.py", "# coding: utf-8\na = '\u00e1\u4e2d\u6587'\n".getBytes("utf-8"));
+        checkSameAsStreams(f);
+        assertEquals("# coding: utf-8\na = '\u00e1\u4e2d\u6587'\n", PySourceLoader.load(f).toString());
+    }
+
+    public void testBom() throws Exception {
+        byte[] contents = "a = '\u00e1'\n".getBytes("utf-8");
+        byte[] bytes = new byte[contents.length + 3];
+        bytes[0] = (byte) 0xEF;
+        bytes[1] = (byte) 0xBB;
+        bytes[2] = (byte) 0xBF;
+        System.arraycopy(contents, 0, bytes, 3, contents.length);
+        File f = createFile("bom.py", bytes);
+
+        //The BOM is kept (as it was when reading with the streams).
+        assertEquals(FileUtils.BOM_UNICODE + "a = '\u00e1'\n", PySourceLoader.load(f).toString());
+    }
+
+    public void testInvalidEncoding() throws Exception {
+        File f = createFile("invalid.py", "# coding: foo-bar-invalid\na = 10\n".getBytes("utf-8"));
+        checkSameAsStreams(f);
+        assertEquals("# coding: foo-bar-invalid\na = 10\n", PySourceLoader.load(f).toString());
+    }
+
+    public void testMalformedInput() throws Exception {
+        File f = createFile("malformed.py", new byte[] { '#', ' ', 'c', 'o', 'd', 'i', 'n', 'g', ':', 'u', 't', 'f',
+                '-', '8', '\n', 'a', (byte) 0xC3, (byte) 0x28, '\n' });
+        checkSameAsStreams(f);
+    }
+
+    public void testEmpty() throws Exception {
+        File f = createFile("empty.py", new byte[0]);
+        assertEquals("", PySourceLoader.load(f).toString());
+    }
+
+    public void testBigFile() throws Exception {
+        FastStringBuffer buf = new FastStringBuffer(PySourceLoader.MAX_POOLED_BYTES + 1024);
+        buf.append("# coding: latin1\n");
+        while (buf.length() < PySourceLoader.MAX_POOLED_BYTES + 10) {
+            buf.append("a = '\u00e1\u00e9'\n");
+        }
+        File f = createFile("big.py", buf.toString().getBytes("latin1"));
+        checkSameAsStreams(f);
+        assertEquals(buf.toString(), PySourceLoader.load(f).toString());
+
+        //The file is not kept mapped (so, it can be removed right away).
+        assertTrue(f.delete());
+    }
+
+    public void testReuseBuffer() throws Exception {
+        File f1 = createFile("f1.py", "a = 10\nb = 20\nc = 30\n".getBytes("utf-8"));
+        File f2 = createFile("f2.py", "d = 40\n".getBytes("utf-8"));
+
+        FastStringBuffer buf = PySourceLoader.acquireBuffer();
+        assertSame(buf, PySourceLoader.load(f1, buf));
+        assertEquals("a = 10\nb = 20\nc = 30\n", buf.toString());
+        char[] internal = buf.getInternalCharsArray();
+
+        PySourceLoader.load(f2, buf);
+        assertEquals("d = 40\n", buf.toString());
+        assertSame(internal, buf.getInternalCharsArray());
+        PySourceLoader.releaseBuffer(buf);
+
+        //Nested usage gets a different buffer.
+        FastStringBuffer buf1 = PySourceLoader.acquireBuffer();
+        FastStringBuffer buf2 = PySourceLoader.acquireBuffer();
+        assertSame(buf, buf1);
+        assertNotSame(buf1, buf2);
+        assertEquals(0, buf1.length());
+        PySourceLoader.releaseBuffer(buf2);
+        PySourceLoader.releaseBuffer(buf1);
+    }
+
+    public void testFileNotFound() throws Exception {
+        try {
+            PySourceLoader.load(new File(baseDir, "does_not_exist.py"));
+            fail("Expected FileNotFoundException");
+        } catch (FileNotFoundException e) {
+            //expected
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.shared_core.metrics;
+
+import junit.framework.TestCase;
+
+import org.python.pydev.shared_core.callbacks.ICallback0;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+public class MetricsTest extends TestCase {
+
+    private boolean initialEnabled;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        initialEnabled = Metrics.isEnabled();
+        Metrics.reset();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Metrics.setEnabled(initialEnabled);
+        Metrics.reset();
+        super.tearDown();
+    }
+
+    public void testBuckets() throws Exception {
+        for (long v = 0; v < 100000; v++) {
+            int bucket = Histogram.getBucket(v);
+            long lower = Histogram.getBucketLowerBound(bucket);
+            long upper = Histogram.getBucketLowerBound(bucket + 1);
+            assertTrue("Failed for: " + v, lower <= v && v < upper);
+        }
+        assertEquals(8, Histogram.getBucket(8));
+        assertEquals(Histogram.getBucket(16), Histogram.getBucket(17));
+    }
+
+    public void testDisabledRecordsNothing() throws Exception {
+        Metrics.setEnabled(false);
+        Counter counter = Metrics.counter("test.counter");
+        Histogram histogram = Metrics.histogram("test.histogram");
+        assertSame(counter, Metrics.counter("test.counter"));
+
+        long start = Metrics.startTime();
+        assertEquals(0, start);
+        counter.inc();
+        histogram.recordSince(start);
+        histogram.recordMicros(10);
+        assertEquals(0, counter.getCount());
+        assertEquals(0, histogram.getCount());
+    }
+
+    public void testPercentiles() throws Exception {
+        Metrics.setEnabled(true);
+        Histogram histogram = Metrics.histogram("test.histogram");
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordMicros(i);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMaxMicros());
+        assertEquals(500500, histogram.getSumMicros());
+
+        long p50 = histogram.getPercentileMicros(50);
+        long p99 = histogram.getPercentileMicros(99);
+        assertTrue("p50: " + p50, p50 >= 500 * 0.875 && p50 <= 500 * 1.125);
+        assertTrue("p99: " + p99, p99 >= 990 * 0.875 && p99 <= 1000);
+    }
+
+    public void testDump() throws Exception {
+        Metrics.setEnabled(true);
+        Metrics.counter("test.counter").add(3);
+        Metrics.registerGauge("test.gauge", new ICallback0<Long>() {
+
+            @Override
+            public Long call() {
+                return 7L;
+            }
+        });
+        FastStringBuffer buf = new FastStringBuffer();
+        Metrics.dump(buf);
+        String dumped = buf.toString();
+        assertTrue(dumped, dumped.contains("test.counter\t3\n"));
+        assertTrue(dumped, dumped.contains("test.gauge\t7\n"));
+
+        Metrics.reset();
+        assertEquals(0, Metrics.counter("test.counter").getCount());
+    }
+}
@@ -28,6 +28,11 @@ public class DefaultContentAssist extends ContentAssistant {
      */
     public int lastActivationCount;
 
+    /**
+     * Whether the auto insert is enabled (kept because it must be disabled when refreshing the proposals).
+     */
+    private boolean autoInsert;
+
     public DefaultContentAssist() {
         this.enableAutoInsert(true);
         this.lastAutoActivated = true;
@@ -62,6 +67,39 @@ public class DefaultContentAssist extends ContentAssistant {
         return super.showPossibleCompletions();
     }
 
+    @Override
+    public void enableAutoInsert(boolean enabled) {
+        this.autoInsert = enabled;
+        super.enableAutoInsert(enabled);
+    }
+
+    /**
+     * If the proposals popup is active, computes the proposals again and updates it (used when some proposals
+     * are only available after the popup is shown). Note that it doesn't count as a new activation.
+     * 
+     * Must be called in the UI thread.
+     * 
+     * @return true if the proposals were computed again and false if the popup is not active.
+     */
+    public boolean refreshProposals() {
+        if (!isProposalPopupActive()) {
+            return false;
+        }
+        boolean restoreAutoInsert = autoInsert;
+        if (restoreAutoInsert) {
+            //Don't apply a proposal just because it's the only one available after the refresh.
+            super.enableAutoInsert(false);
+        }
+        try {
+            super.showPossibleCompletions();
+        } finally {
+            if (restoreAutoInsert) {
+                super.enableAutoInsert(true);
+            }
+        }
+        return true;
+    }
+
     /**
      * @return true if the last time was an auto activation (and updates
      * the internal flag regarding it).
@@ -10,19 +10,26 @@
 package org.python.pydev.shared_ui.utils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceRuleFactory;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
@@ -32,10 +39,10 @@ import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.texteditor.AbstractMarkerAnnotationModel;
 import org.eclipse.ui.texteditor.ITextEditor;
 import org.eclipse.ui.texteditor.MarkerUtilities;
-import org.python.pydev.shared_core.callbacks.ICallback;
+import org.python.pydev.shared_core.callbacks.ICallback0;
 import org.python.pydev.shared_core.log.Log;
 import org.python.pydev.shared_core.string.FastStringBuffer;
-import org.python.pydev.shared_core.utils.ArrayUtils;
+import org.python.pydev.shared_core.structure.Tuple;
 
 /**
  * Helper class to deal with markers.
@@ -214,9 +221,19 @@ public class PyMarkerUtils {
      * @param removeUserEditable if true, will remove the user-editable markers too (otherwise, will leave the user-editable markers)
      * @param monitor used to check whether this process should be canceled.
      */
-    @SuppressWarnings("unchecked")
     public static void replaceMarkers(final List<MarkerInfo> lst, final IResource resource, final String markerType,
             final boolean removeUserEditable, IProgressMonitor monitor) {
+        replaceMarkers(lst, resource, markerType, removeUserEditable, monitor, null);
+    }
+
+    /**
+     * Same as replaceMarkers, but the onApplied callback is called after the markers are actually set in the
+     * resource (which may be only when the current batch is flushed). It's not called if setting the markers
+     * fails or if the replace is overridden by a later replace for the same resource/marker type in the batch.
+     */
+    @SuppressWarnings("unchecked")
+    public static void replaceMarkers(final List<MarkerInfo> lst, final IResource resource, final String markerType,
+            final boolean removeUserEditable, IProgressMonitor monitor, ICallback0<Object> onApplied) {
         List<Map<String, Object>> lMap = new ArrayList<Map<String, Object>>(lst.size());
         for (MarkerInfo markerInfo : lst) {
             try {
@@ -229,12 +246,19 @@ public class PyMarkerUtils {
             }
         }
         replaceMarkers(lMap.toArray(new Map[lMap.size()]), resource, markerType,
-                removeUserEditable, monitor);
+                removeUserEditable, monitor, onApplied);
     }
 
     /**
      * This method allows clients to replace the existing markers of some type in a given resource for other markers.
      *
+     * The markers are reconciled: an existing marker with the same type, line, message and severity of a new marker
+     * is kept (and only has its attributes updated if some other attribute changed), so, only the markers which
+     * actually changed generate marker deltas.
+     *
+     * If called while a batch is active in the current thread (see startBatch()), the replace is delayed to be
+     * applied along with the replaces of other resources.
+     *
      * @param lst the new markers to be set in the resource
      * @param resource the resource were the markers should be replaced
      * @param markerType the type of the marker that'll be replaced
@@ -244,50 +268,306 @@ public class PyMarkerUtils {
     public static void replaceMarkers(final Map<String, Object>[] lst, final IResource resource,
             final String markerType,
             final boolean removeUserEditable, IProgressMonitor monitor) {
+        replaceMarkers(lst, resource, markerType, removeUserEditable, monitor, null);
+    }
+
+    /**
+     * Same as replaceMarkers, but the onApplied callback is called after the markers are actually set in the
+     * resource (see: replaceMarkers(List, IResource, String, boolean, IProgressMonitor, ICallback0)).
+     */
+    public static void replaceMarkers(final Map<String, Object>[] lst, final IResource resource,
+            final String markerType, final boolean removeUserEditable, IProgressMonitor monitor,
+            ICallback0<Object> onApplied) {
+        PendingMarkers pendingMarkers = new PendingMarkers(lst, resource, markerType, removeUserEditable, onApplied);
+
+        Batch b = batch.get();
+        if (b != null) {
+            //A later replace for the same resource/marker type overrides the previous one.
+            b.pending.remove(pendingMarkers.key);
+            b.pending.put(pendingMarkers.key, pendingMarkers);
+            if (b.pending.size() >= MAX_RESOURCES_IN_BATCH) {
+                b.flush();
+            }
+            return;
+        }
+        applyMarkers(Collections.singletonList(pendingMarkers), monitor);
+    }
+
+    /**
+     * Maximum number of resources whose markers are applied in a single workspace operation in a batch.
+     */
+    public static final int MAX_RESOURCES_IN_BATCH = 200;
+
+    /**
+     * The markers to be set in a resource.
+     */
+    private static final class PendingMarkers {
+
+        private final Map<String, Object>[] markers;
+        private final IResource resource;
+        private final String markerType;
+        private final boolean removeUserEditable;
+        private final ICallback0<Object> onApplied;
+        private final Tuple<IResource, String> key;
+
+        private PendingMarkers(Map<String, Object>[] markers, IResource resource, String markerType,
+                boolean removeUserEditable, ICallback0<Object> onApplied) {
+            this.markers = markers;
+            this.resource = resource;
+            this.markerType = markerType;
+            this.removeUserEditable = removeUserEditable;
+            this.onApplied = onApplied;
+            this.key = new Tuple<IResource, String>(resource, markerType);
+        }
+    }
+
+    /**
+     * The marker replaces delayed while a batch is active.
+     */
+    private static final class Batch {
+
+        private int level;
+        private final Map<Tuple<IResource, String>, PendingMarkers> pending = new LinkedHashMap<Tuple<IResource, String>, PendingMarkers>();
+
+        private void flush() {
+            if (pending.size() > 0) {
+                List<PendingMarkers> lst = new ArrayList<PendingMarkers>(pending.values());
+                pending.clear();
+                //Not cancelable: the markers were already computed (and the analysis may be considered up to date).
+                applyMarkers(lst, new NullProgressMonitor());
+            }
+        }
+    }
+
+    private static final ThreadLocal<Batch> batch = new ThreadLocal<Batch>();
+
+    /**
+     * Starts a batch in the current thread: until the matching endBatch() is called, the markers replaced in
+     * this thread are grouped and applied for many resources in a single workspace operation (i.e.: used during a
+     * full build so that the marker listeners don't have to react to the changes of each resource separately).
+     *
+     * Batches may be nested (the markers are only applied when the outermost batch ends -- or when
+     * MAX_RESOURCES_IN_BATCH resources have pending markers).
+     */
+    public static void startBatch() {
+        Batch b = batch.get();
+        if (b == null) {
+            b = new Batch();
+            batch.set(b);
+        }
+        b.level++;
+    }
+
+    /**
+     * Ends a batch started with startBatch() (must be called in a finally block).
+     */
+    public static void endBatch() {
+        Batch b = batch.get();
+        if (b == null) {
+            Log.log("endBatch() called without a matching startBatch().");
+            return;
+        }
+        b.level--;
+        if (b.level <= 0) {
+            batch.remove();
+            b.flush();
+        }
+    }
+
+    /**
+     * Applies the markers of the given resources in a single workspace operation.
+     */
+    private static void applyMarkers(final List<PendingMarkers> lst, IProgressMonitor monitor) {
+        final List<PendingMarkers> applied = new ArrayList<PendingMarkers>(lst.size());
         IWorkspaceRunnable r = new IWorkspaceRunnable() {
 
             public void run(IProgressMonitor monitor) throws CoreException {
-                if (!resource.exists()) {
-                    return;
+                for (PendingMarkers pendingMarkers : lst) {
+                    try {
+                        if (reconcileMarkers(pendingMarkers.markers, pendingMarkers.resource,
+                                pendingMarkers.markerType, pendingMarkers.removeUserEditable)) {
+                            applied.add(pendingMarkers);
+                        }
+                    } catch (Exception e) {
+                        Log.log(e);
+                    }
                 }
+            }
+        };
+        IWorkspace workspace = ResourcesPlugin.getWorkspace();
+        IResourceRuleFactory ruleFactory = workspace.getRuleFactory();
+        ISchedulingRule[] rules = new ISchedulingRule[lst.size()];
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = ruleFactory.markerRule(lst.get(i).resource);
+        }
+        try {
+            workspace.run(r, MultiRule.combine(rules), IWorkspace.AVOID_UPDATE, monitor);
+        } catch (Exception e) {
+            Log.log(e);
+            return;
+        }
+        for (PendingMarkers pendingMarkers : applied) {
+            if (pendingMarkers.onApplied != null) {
                 try {
-                    if (removeUserEditable) {
-                        resource.deleteMarkers(markerType, true, IResource.DEPTH_ZERO);
+                    pendingMarkers.onApplied.call();
+                } catch (Exception e) {
+                    Log.log(e);
+                }
+            }
+        }
+    }
 
-                    } else {
-                        IMarker[] existingMarkers;
-                        existingMarkers = resource.findMarkers(markerType, false, IResource.DEPTH_ZERO);
-                        //we don't want to remove the user-editable markers, so, let's filter them out!
-                        existingMarkers = ArrayUtils.filter(existingMarkers, new ICallback<Boolean, IMarker>() {
-
-                            public Boolean call(IMarker marker) {
-                                //if it's user-editable, it should not be included in the list
-                                return !marker.getAttribute(IMarker.USER_EDITABLE, true); //default for user-editable is true.
-                            }
-                        }).toArray(new IMarker[0]);
-                        ResourcesPlugin.getWorkspace().deleteMarkers(existingMarkers);
+    /**
+     * Key used to match an existing marker with a new marker (markers with the same key are considered the same
+     * marker -- even if some other attribute such as the char start/end changed).
+     */
+    private static final class MarkerKey {
+
+        private final String type;
+        private final Object line;
+        private final Object message;
+        private final Object severity;
+
+        private MarkerKey(String type, Map<String, Object> attributes) {
+            this.type = type;
+            this.line = attributes.get(IMarker.LINE_NUMBER);
+            this.message = attributes.get(IMarker.MESSAGE);
+            this.severity = attributes.get(IMarker.SEVERITY);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = type.hashCode();
+            result = 31 * result + (line == null ? 0 : line.hashCode());
+            result = 31 * result + (message == null ? 0 : message.hashCode());
+            result = 31 * result + (severity == null ? 0 : severity.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof MarkerKey)) {
+                return false;
+            }
+            MarkerKey other = (MarkerKey) obj;
+            return type.equals(other.type) && equal(line, other.line) && equal(message, other.message)
+                    && equal(severity, other.severity);
+        }
+
+        private static boolean equal(Object o1, Object o2) {
+            return o1 == null ? o2 == null : o1.equals(o2);
+        }
+    }
+
+    /**
+     * An existing marker along with its attributes.
+     */
+    private static final class ExistingMarker {
+
+        private final IMarker marker;
+        private final Map<String, Object> attributes;
+
+        private ExistingMarker(IMarker marker, Map<String, Object> attributes) {
+            this.marker = marker;
+            this.attributes = attributes;
+        }
+    }
+
+    /**
+     * Makes the markers in the resource match the new markers, touching only the markers which changed
+     * (see: replaceMarkers).
+     *
+     * @return true if all the markers were set (false if the resource doesn't exist or some marker failed).
+     */
+    private static boolean reconcileMarkers(Map<String, Object>[] newMarkers, IResource resource, String markerType,
+            boolean removeUserEditable) throws CoreException {
+        if (!resource.exists()) {
+            return false;
+        }
+        boolean ok = true;
+
+        //When removing the user-editable markers, the subtypes are also removed.
+        IMarker[] found = resource.findMarkers(markerType, removeUserEditable, IResource.DEPTH_ZERO);
+        Map<MarkerKey, List<ExistingMarker>> existing = new HashMap<MarkerKey, List<ExistingMarker>>();
+        for (IMarker marker : found) {
+            if (!removeUserEditable && marker.getAttribute(IMarker.USER_EDITABLE, true)) {
+                continue; //we don't want to remove the user-editable markers (default for user-editable is true).
+            }
+            Map<String, Object> attributes = marker.getAttributes();
+            if (attributes == null) {
+                attributes = new HashMap<String, Object>();
+            }
+            MarkerKey key = new MarkerKey(marker.getType(), attributes);
+            List<ExistingMarker> markers = existing.get(key);
+            if (markers == null) {
+                markers = new ArrayList<ExistingMarker>(1);
+                existing.put(key, markers);
+            }
+            markers.add(new ExistingMarker(marker, attributes));
+        }
+
+        //1st: keep the markers which are exactly the same.
+        List<Map<String, Object>> notMatched = new ArrayList<Map<String, Object>>();
+        for (Map<String, Object> asMap : newMarkers) {
+            List<ExistingMarker> markers = existing.get(new MarkerKey(markerType, asMap));
+            boolean matched = false;
+            if (markers != null) {
+                for (Iterator<ExistingMarker> it = markers.iterator(); it.hasNext();) {
+                    if (it.next().attributes.equals(asMap)) {
+                        it.remove();
+                        matched = true;
+                        break;
                     }
-                } catch (Exception e1) {
-                    Log.log(e1);
                 }
+            }
+            if (!matched) {
+                notMatched.add(asMap);
+            }
+        }
 
+        //2nd: update the markers with the same key (and create the ones which are new).
+        List<Map<String, Object>> toCreate = new ArrayList<Map<String, Object>>();
+        for (Map<String, Object> asMap : notMatched) {
+            List<ExistingMarker> markers = existing.get(new MarkerKey(markerType, asMap));
+            if (markers != null && markers.size() > 0) {
+                ExistingMarker existingMarker = markers.remove(markers.size() - 1);
                 try {
-                    for (Map<String, Object> asMap : lst) {
-                        IMarker marker = resource.createMarker(markerType);
-                        marker.setAttributes(asMap);
-                    }
+                    existingMarker.marker.setAttributes(asMap);
                 } catch (Exception e) {
                     Log.log(e);
+                    ok = false;
                 }
+            } else {
+                toCreate.add(asMap);
+            }
+        }
 
+        //3rd: remove the markers which are no longer there.
+        List<IMarker> toDelete = new ArrayList<IMarker>();
+        for (List<ExistingMarker> markers : existing.values()) {
+            for (ExistingMarker existingMarker : markers) {
+                toDelete.add(existingMarker.marker);
             }
-        };
+        }
         try {
-            resource.getWorkspace().run(r, ResourcesPlugin.getWorkspace().getRuleFactory().markerRule(resource),
-                    IWorkspace.AVOID_UPDATE, monitor);
+            if (toDelete.size() > 0) {
+                ResourcesPlugin.getWorkspace().deleteMarkers(toDelete.toArray(new IMarker[toDelete.size()]));
+            }
+        } catch (Exception e) {
+            Log.log(e);
+            ok = false;
+        }
+
+        try {
+            for (Map<String, Object> asMap : toCreate) {
+                IMarker marker = resource.createMarker(markerType);
+                marker.setAttributes(asMap);
+            }
         } catch (Exception e) {
             Log.log(e);
+            ok = false;
         }
+        return ok;
     }
 
     /**
@@ -0,0 +1,92 @@
+#@PydevCodeAnalysisIgnore
+'''
+Long-lived process which formats code with autopep8 (so that the interpreter startup and the autopep8 import are
+only paid once and not on each format request).
+
+The requests are read from stdin and the responses written to stdout (both binary):
+
+    request:  "<len(args)> <len(directory)> <len(contents)>\n" + args (utf-8) + directory (utf-8) + contents (utf-8)
+    response: "<len(formatted)>\n" + formatted (utf-8) -- or "-1\n" if some error happened (details go to stderr).
+
+The directory is the one of the file being formatted (empty if unknown): it's where autopep8 starts searching for
+the project configuration (setup.cfg, tox.ini, .pep8).
+
+@author Fabio Zadrozny
+'''
+import os
+import sys
+import traceback
+
+sys.path.insert(0, os.path.join(os.path.dirname(os.path.abspath(__file__)), 'third_party', 'pep8'))
+
+import autopep8
+
+
+def _get_binary_streams():
+    if sys.platform == 'win32':
+        import msvcrt
+        msvcrt.setmode(sys.stdin.fileno(), os.O_BINARY)
+        msvcrt.setmode(sys.stdout.fileno(), os.O_BINARY)
+    stdin = getattr(sys.stdin, 'buffer', sys.stdin)
+    stdout = getattr(sys.stdout, 'buffer', sys.stdout)
+    return stdin, stdout
+
+
+def _read_exactly(stream, size):
+    chunks = []
+    while size > 0:
+        chunk = stream.read(size)
+        if not chunk:
+            raise EOFError()
+        chunks.append(chunk)
+        size -= len(chunk)
+    return b''.join(chunks)
+
+
+# Parsed options are cached per (args, directory) -- the cache is cleared when it gets bigger than this.
+MAX_CACHED_OPTIONS = 50
+
+
+def _parse_options(args, directory):
+    # As the contents are passed as '-', autopep8 searches the configuration starting at the current directory.
+    cwd = os.getcwd()
+    if directory:
+        os.chdir(directory)
+    try:
+        return autopep8.parse_args([x for x in args.split('\n') if x] + ['-'], apply_config=True)
+    finally:
+        os.chdir(cwd)
+
+
+def main():
+    stdin, stdout = _get_binary_streams()
+    args_to_options = {}
+
+    while True:
+        header = stdin.readline()
+        if not header:
+            return  # stdin closed: the IDE asked us to exit.
+        args_len, directory_len, contents_len = [int(x) for x in header.split()]
+        args = _read_exactly(stdin, args_len).decode('utf-8')
+        directory = _read_exactly(stdin, directory_len).decode('utf-8')
+        contents = _read_exactly(stdin, contents_len).decode('utf-8')
+
+        try:
+            options = args_to_options.get((args, directory))
+            if options is None:
+                options = _parse_options(args, directory)
+                if len(args_to_options) >= MAX_CACHED_OPTIONS:
+                    args_to_options.clear()
+                args_to_options[(args, directory)] = options
+            formatted = autopep8.fix_code(contents, options).encode('utf-8')
+            stdout.write(('%s\n' % (len(formatted),)).encode('ascii'))
+            stdout.write(formatted)
+        except:
+            traceback.print_exc()
+            sys.stderr.flush()
+            stdout.write(b'-1\n')
+        stdout.flush()
+
+
+if __name__ == '__main__':
+    main()
@@ -1,3 +1,5 @@
+import os
+import struct
 import threading
 import traceback
 import warnings
@@ -24,6 +26,10 @@ class _ServerHolder:
     '''
     SERVER = None
 
+    # Whether the notifications are passed through the binary protocol (in which case the strings don't need
+    # to be encoded for xml-rpc).
+    USE_BINARY = False
+
 
 #=======================================================================================================================
 # SetServer
@@ -90,6 +96,76 @@ class ServerFacade(object):
 
 
 
+#=======================================================================================================================
+# _as_utf8
+#=======================================================================================================================
+def _as_utf8(obj):
+    if isinstance(obj, xmlrpclib.Binary):
+        obj = obj.data.decode('ISO-8859-1')
+
+    if not IS_PY3K:
+        if isinstance(obj, unicode):
+            return obj.encode('utf-8')
+        if isinstance(obj, str):
+            try:
+                return obj.decode(sys.stdin.encoding).encode('utf-8')
+            except:
+                return obj.decode('utf-8', 'replace').encode('utf-8')
+        return str(obj)
+
+    else:
+        if isinstance(obj, bytes):
+            try:
+                return obj.decode(sys.stdin.encoding).encode('utf-8')
+            except:
+                return obj.decode('utf-8', 'replace').encode('utf-8')
+        return str(obj).encode('utf-8')
+
+
+#=======================================================================================================================
+# BinaryServer
+#=======================================================================================================================
+class BinaryServer(object):
+    '''
+    Sends the notifications to the java side with a framed binary protocol (see: 
+    org.python.pydev.debug.pyunit.PyUnitBinaryServer), which is much cheaper than xml-rpc.
+    
+    A frame is: [int frame len][int number of events]([str method][int number of args]([str arg])*)*
+    where a str is [int len][utf-8 bytes] and all ints are big-endian.
+    '''
+
+    def __init__(self, port):
+        from _pydev_imps import _pydev_socket as socket
+        self.sock = socket.socket(socket.AF_INET, socket.SOCK_STREAM)
+        self.sock.connect(('127.0.0.1', port))
+
+
+    def notifyCommands(self, commands):
+        pack = struct.pack
+        parts = [pack('>i', len(commands))]
+        append = parts.append
+        for method, args in commands:
+            method = _as_utf8(method)
+            append(pack('>i', len(method)))
+            append(method)
+            append(pack('>i', len(args)))
+            for arg in args:
+                arg = _as_utf8(arg)
+                append(pack('>i', len(arg)))
+                append(arg)
+
+        payload = ''.encode('ascii').join(parts)
+        self.sock.sendall(pack('>i', len(payload)) + payload)
+
+
+    def close(self):
+        try:
+            self.sock.close()
+        except:
+            pass
+
+
+
 #=======================================================================================================================
 # ServerComm
 #=======================================================================================================================
@@ -121,8 +197,18 @@ class ServerComm(threading.Thread):
             # ISO-8859-1 is good enough.
             encoding = "ISO-8859-1"
 
-        self.server = xmlrpclib.Server('http://%s:%s' % (pydev_localhost.get_localhost(), port),
-                                       encoding=encoding)
+        self.server = None
+        binary_port = os.environ.get('PYDEV_PYUNIT_BINARY_PORT')
+        if binary_port:
+            try:
+                self.server = BinaryServer(int(binary_port))
+                _ServerHolder.USE_BINARY = True
+            except:
+                self.server = None  # Fallback to xml-rpc.
+
+        if self.server is None:
+            self.server = xmlrpclib.Server('http://%s:%s' % (pydev_localhost.get_localhost(), port),
+                                           encoding=encoding)
 
 
     def run(self):
@@ -156,6 +242,8 @@ class ServerComm(threading.Thread):
 
             if kill_found:
                 self.finished = True
+                if _ServerHolder.USE_BINARY:
+                    self.server.close()
                 return
 
 
@@ -212,6 +300,9 @@ def notifyStartTest(file, test):
 
 
 def _encode_if_needed(obj):
+    if _ServerHolder.USE_BINARY:
+        return obj  # Converted to utf-8 when sending.
+
     # In the java side we expect strings to be ISO-8859-1 (org.python.pydev.debug.pyunit.PyUnitServer.initializeDispatches().new Dispatch() {...}.getAsStr(Object))
     if not IS_PY3K:
         if isinstance(obj, str):
@@ -134,6 +134,7 @@ CMD_ENABLE_DONT_TRACE = 141
 CMD_SHOW_CONSOLE = 142
 
 CMD_GET_ARRAY = 143
+CMD_GET_VARIABLE_PAGE = 144
 
 CMD_VERSION = 501
 CMD_RETURN = 502
@@ -188,13 +189,20 @@ ID_TO_MEANING = {
     '901':'CMD_ERROR',
 
     '143':'CMD_GET_ARRAY',
+    '144':'CMD_GET_VARIABLE_PAGE',
     }
 
 MAX_IO_MSG_SIZE = 1000  #if the io is too big, we'll not send all (could make the debugger too non-responsive)
 #this number can be changed if there's need to do so
 
+MAX_VARIABLE_PAGE_PAYLOAD = 256 * 1024  #if the xml for a page of variables is bigger than that, the page is cut
+#(the remaining items are gotten in a later page)
+
 VERSION_STRING = "@@BUILD_NUMBER@@"
 
+#Sent along with the version (so that the IDE only uses the commands which the debugger supports)
+CAPABILITIES = ['VARIABLE_PAGE']
+
 from _pydev_filesystem_encoding import getfilesystemencoding
 file_system_encoding = getfilesystemencoding()
 
@@ -596,7 +604,7 @@ class NetCommandFactory:
 
     def makeVersionMessage(self, seq):
         try:
-            return NetCommand(CMD_VERSION, seq, VERSION_STRING)
+            return NetCommand(CMD_VERSION, seq, VERSION_STRING + '\t' + '\t'.join(CAPABILITIES))
         except:
             return self.makeErrorMessage(seq, GetExceptionTracebackStr())
 
@@ -685,6 +693,12 @@ class NetCommandFactory:
             return self.makeErrorMessage(seq, GetExceptionTracebackStr())
 
 
+    def makeGetVariablePageMessage(self, seq, payload):
+        try:
+            return NetCommand(CMD_GET_VARIABLE_PAGE, seq, payload)
+        except Exception:
+            return self.makeErrorMessage(seq, GetExceptionTracebackStr())
+
     def makeGetArrayMessage(self, seq, payload):
         try:
             return NetCommand(CMD_GET_ARRAY, seq, payload)
@@ -933,16 +947,7 @@ class InternalGetVariable(InternalThreadCommand):
             if valDict is None:
                 valDict = {}
 
-            keys = valDict.keys()
-            if hasattr(keys, 'sort'):
-                keys.sort(compare_object_attrs) #Python 3.0 does not have it
-            else:
-                if IS_PY3K:
-                    keys = sorted(keys, key=cmp_to_key(compare_object_attrs)) #Jython 2.1 does not have it (and all must be compared as strings).
-                else:
-                    keys = sorted(keys, cmp=compare_object_attrs) #Jython 2.1 does not have it (and all must be compared as strings).
-
-            for k in keys:
+            for k in sortVariableKeys(valDict.keys()):
                 xml += pydevd_vars.varToXML(valDict[k], to_string(k))
 
             xml += "</xml>"
@@ -953,6 +958,85 @@ class InternalGetVariable(InternalThreadCommand):
             dbg.writer.addCommand(cmd)
 
 
+#=======================================================================================================================
+# InternalGetVariablePage
+#=======================================================================================================================
+class InternalGetVariablePage(InternalThreadCommand):
+    """ gets the items of a variable in the range [offset, offset+limit) (used for huge containers) """
+    def __init__(self, seq, thread_id, frame_id, scope, attrs, offset, limit):
+        self.sequence = seq
+        self.thread_id = thread_id
+        self.frame_id = frame_id
+        self.scope = scope
+        self.attributes = attrs
+        self.offset = offset
+        self.limit = limit
+
+    def doIt(self, dbg):
+        """ Converts request into python variables (the xml has a 'more' element if there are items after the page) """
+        try:
+            #The cursor is kept between pages, so, getting the next page doesn't go through the previous items.
+            cursor = pydevd_vars.getVariablePageCursor(
+                self.thread_id, self.frame_id, self.scope, self.attributes, self.offset)
+            if cursor is None:
+                #It can't be gotten in pages: send all its contents.
+                valDict = pydevd_vars.resolveCompoundVariable(self.thread_id, self.frame_id, self.scope, self.attributes)
+                if valDict is None:
+                    valDict = {}
+                items = DictItems(valDict)
+                total = None
+            else:
+                items = cursor.read(self.limit)
+                total = cursor.total
+
+            xmlByKey = {}
+            if self.offset == 0 and total is not None:
+                xmlByKey['__len__'] = pydevd_vars.varToXML(total, '__len__')
+
+            #The items are cut in iteration order (so that the offset of the next page is still valid).
+            size = 0
+            sent = 0
+            for k, v in items:
+                k = to_string(k)
+                varXml = pydevd_vars.varToXML(v, k)
+                size += len(varXml)
+                if sent > 0 and total is not None and size > MAX_VARIABLE_PAGE_PAYLOAD:
+                    break
+                xmlByKey[k] = varXml
+                sent += 1
+
+            if cursor is not None:
+                cursor.consumed(items, sent)
+                pydevd_vars.keepVariablePageCursor(self.thread_id, self.frame_id, self.scope, self.attributes, cursor)
+
+            xml = ["<xml>"]
+            for k in sortVariableKeys(xmlByKey.keys()):
+                xml.append(xmlByKey[k])
+
+            if total is not None and self.offset + sent < total:
+                xml.append('<more offset="%s" len="%s"/>' % (self.offset + sent, total))
+            xml.append("</xml>")
+            cmd = dbg.cmdFactory.makeGetVariablePageMessage(self.sequence, ''.join(xml))
+            dbg.writer.addCommand(cmd)
+        except Exception:
+            cmd = dbg.cmdFactory.makeErrorMessage(self.sequence, "Error resolving variables " + GetExceptionTracebackStr())
+            dbg.writer.addCommand(cmd)
+
+
+#=======================================================================================================================
+# sortVariableKeys
+#=======================================================================================================================
+def sortVariableKeys(keys):
+    if hasattr(keys, 'sort'):
+        keys.sort(compare_object_attrs) #Python 3.0 does not have it
+    else:
+        if IS_PY3K:
+            keys = sorted(keys, key=cmp_to_key(compare_object_attrs)) #Jython 2.1 does not have it (and all must be compared as strings).
+        else:
+            keys = sorted(keys, cmp=compare_object_attrs) #Jython 2.1 does not have it (and all must be compared as strings).
+    return keys
+
+
 #=======================================================================================================================
 # InternalGetArray
 #=======================================================================================================================
@@ -23,6 +23,55 @@ MAX_ITEMS_TO_HANDLE = 300
 TOO_LARGE_MSG = 'Too large to show contents. Max items to show: ' + str(MAX_ITEMS_TO_HANDLE)
 TOO_LARGE_ATTR = 'Unable to handle:'
 
+#=======================================================================================================================
+# Iterators for the pages of containers
+#=======================================================================================================================
+def getNext(iterator):
+    '''
+        @return: the next entry of the iterator (raises StopIteration when there are no more entries).
+    '''
+    try:
+        return iterator.next()
+    except AttributeError:
+        return iterator.__next__() #Python 3.0
+
+
+def skipEntries(iterator, offset):
+    '''
+        Skips the first entries of an iterator (only done when a page is requested without the iterator of the
+        previous page, i.e.: if the container changed).
+    '''
+    try:
+        for _i in xrange(offset):
+            getNext(iterator)
+    except StopIteration:
+        pass
+    return iterator
+
+
+class IndexIterator:
+    '''
+        Iterates a sequence from a given index (without having to go through the items before it).
+    '''
+
+    def __init__(self, var, index):
+        self.var = var
+        self.index = index
+
+    def __iter__(self):
+        return self
+
+    def next(self):
+        if self.index >= len(self.var):
+            raise StopIteration
+        ret = self.var[self.index]
+        self.index += 1
+        return ret
+
+    __next__ = next
+
+
+
 #=======================================================================================================================
 # UnableToResolveVariableException
 #=======================================================================================================================
@@ -88,6 +137,28 @@ class AbstractResolver:
         '''
         raise NotImplementedError
 
+    def iterPage(self, var, offset):
+        '''
+            Optional: resolvers for containers which may be huge (lists, dicts, sets) should implement it (along with
+            pageItem) so that the contents can be gotten in pages.
+
+            @param var: this is the variable that should have its children gotten.
+            @param offset: the index of the first entry to be returned by the iterator.
+
+            @return: an iterator over the entries of the container starting at the given offset (the debugger keeps
+            it to get the next page, so, consecutive pages don't have to go through the entries before them again).
+        '''
+        raise NotImplementedError
+
+    def pageItem(self, var, entry, index):
+        '''
+            @param entry: an entry returned by the iterator from iterPage.
+            @param index: the index of the entry in the container.
+
+            @return: a tuple(name, value) where the name is the same one that getDictionary would return.
+        '''
+        raise NotImplementedError
+
 
 #=======================================================================================================================
 # DefaultResolver
@@ -258,6 +329,13 @@ class DictResolver:
         ret['__len__'] = len(dict)
         return ret
 
+    def iterPage(self, dict, offset):
+        return skipEntries(iter(DictIterItems(dict)), offset)
+
+    def pageItem(self, dict, entry, index):
+        key, val = entry
+        return ('%s (%s)' % (self.keyStr(key), id(key)), val)
+
 
 
 #=======================================================================================================================
@@ -292,6 +370,17 @@ class TupleResolver: #to enumerate tuples and lists
         d['__len__'] = len(var)
         return d
 
+    def iterPage(self, var, offset):
+        try:
+            var[0:0]
+        except:
+            #not sliceable: go through the items
+            return skipEntries(iter(var), offset)
+        return IndexIterator(var, offset)
+
+    def pageItem(self, var, entry, index):
+        return ('%0*d' % (len(str(len(var))), index), entry)
+
 
 
 #=======================================================================================================================
@@ -328,6 +417,12 @@ class SetResolver:
         d['__len__'] = len(var)
         return d
 
+    def iterPage(self, var, offset):
+        return skipEntries(iter(var), offset)
+
+    def pageItem(self, var, entry, index):
+        return (id(entry), entry)
+
 
 #=======================================================================================================================
 # InstanceResolver
@@ -480,6 +575,12 @@ class MultiValueDictResolver(DictResolver):
         ret['__len__'] = len(dict)
         return ret
 
+    def iterPage(self, dict, offset):
+        return skipEntries(iter(DictKeys(dict)), offset)
+
+    def pageItem(self, dict, entry, index):
+        return ('%s (%s)' % (self.keyStr(entry), id(entry)), dict.getlist(entry))
+
 
 #=======================================================================================================================
 # FrameResolver
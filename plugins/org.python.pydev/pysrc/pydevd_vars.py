@@ -18,6 +18,7 @@ import sys #@Reimport
 import _pydev_threading as threading
 import traceback
 import pydevd_save_locals
+import pydevd_resolver
 from pydev_imports import Exec, quote, execfile
 from pydevd_utils import to_string
 
@@ -239,6 +240,95 @@ def resolveCompoundVariable(thread_id, frame_id, scope, attrs):
         traceback.print_exc()
 
 
+#=======================================================================================================================
+# VariablePageCursor
+#=======================================================================================================================
+class VariablePageCursor:
+    """ keeps the position in a container which is being gotten in pages (so that the next page is gotten
+    without going through the entries of the previous pages again). """
+
+    def __init__(self, var, resolver, offset):
+        self.var = var
+        self.resolver = resolver
+        self.total = len(var)
+        self.offset = offset #the index of the next item to be sent
+        self._iterator = resolver.iterPage(var, offset)
+        self._unsent = []
+
+    def read(self, limit):
+        """ returns a list((name, value)) with up to 'limit' items starting at the current offset """
+        ret = self._unsent[:limit]
+        self._unsent = self._unsent[limit:]
+        index = self.offset + len(ret)
+        restarted = False
+        while len(ret) < limit:
+            try:
+                entry = pydevd_resolver.getNext(self._iterator)
+            except StopIteration:
+                break
+            except RuntimeError:
+                #i.e.: dict changed size during iteration: start again from the current index (only once).
+                if restarted:
+                    raise
+                restarted = True
+                self._iterator = self.resolver.iterPage(self.var, index)
+                continue
+            ret.append(self.resolver.pageItem(self.var, entry, index))
+            index += 1
+        return ret
+
+    def consumed(self, items, sent):
+        """ marks that only the first 'sent' items of the last read were sent (the others are read again later) """
+        self._unsent = items[sent:] + self._unsent
+        self.offset += sent
+
+
+MAX_PAGE_CURSORS = 10
+_page_cursors = {} #(thread_id, frame_id, scope, attrs) -> VariablePageCursor
+_page_cursors_order = [] #keys in _page_cursors (the oldest first)
+_page_cursors_lock = _pydev_thread.allocate_lock()
+
+def getVariablePageCursor(thread_id, frame_id, scope, attrs, offset):
+    """ returns a VariablePageCursor at the given offset of the compound variable (reusing the one kept for the
+    previous page if it's still valid) or None if the variable can't be gotten in pages. """
+
+    var = getVariable(thread_id, frame_id, scope, attrs)
+    _type, _typeName, resolver = getType(var)
+    if not hasattr(resolver, 'iterPage'):
+        return None
+
+    key = (thread_id, frame_id, scope, attrs)
+    _page_cursors_lock.acquire()
+    try:
+        cursor = _page_cursors.pop(key, None)
+        if cursor is not None:
+            _page_cursors_order.remove(key)
+    finally:
+        _page_cursors_lock.release()
+
+    if cursor is None or cursor.var is not var or cursor.offset != offset or cursor.total != len(var):
+        cursor = VariablePageCursor(var, resolver, offset)
+    return cursor
+
+
+def keepVariablePageCursor(thread_id, frame_id, scope, attrs, cursor):
+    """ keeps the cursor to get the next page of the variable (only a few are kept) """
+    if cursor.offset >= cursor.total:
+        return
+
+    key = (thread_id, frame_id, scope, attrs)
+    _page_cursors_lock.acquire()
+    try:
+        if key in _page_cursors:
+            _page_cursors_order.remove(key)
+        _page_cursors[key] = cursor
+        _page_cursors_order.append(key)
+        while len(_page_cursors_order) > MAX_PAGE_CURSORS:
+            del _page_cursors[_page_cursors_order.pop(0)]
+    finally:
+        _page_cursors_lock.release()
+
+
 def resolveVar(var, attrs):
     attrList = attrs.split('\t')
 
@@ -41,6 +41,7 @@ import org.python.pydev.editor.codecompletion.revisited.PythonPathHelper;
 import org.python.pydev.plugin.nature.PythonNature;
 import org.python.pydev.shared_core.callbacks.ICallback0;
 import org.python.pydev.shared_core.string.FastStringBuffer;
+import org.python.pydev.shared_ui.utils.PyMarkerUtils;
 import org.python.pydev.utils.PyFileListing;
 
 /**
@@ -205,7 +206,13 @@ public class PyDevBuilder extends IncrementalProjectBuilder {
                                 }
                             }
                             monitor.worked(30);
-                            buildResources(resourcesToParse, monitor, visitors);
+                            //The markers set in a full build are applied for many resources at once.
+                            PyMarkerUtils.startBatch();
+                            try {
+                                buildResources(resourcesToParse, monitor, visitors);
+                            } finally {
+                                PyMarkerUtils.endBatch();
+                            }
                         }
                     } catch (Exception e1) {
                         Log.log(e1);
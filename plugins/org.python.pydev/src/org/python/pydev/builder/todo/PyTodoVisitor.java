@@ -21,10 +21,11 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.rules.IToken;
 import org.python.pydev.builder.PyDevBuilderVisitor;
-import org.python.pydev.core.docutils.ParsingUtils;
-import org.python.pydev.core.docutils.SyntaxErrorException;
+import org.python.pydev.core.IPythonPartitions;
 import org.python.pydev.core.log.Log;
+import org.python.pydev.core.partition.PyPartitionScanner;
 import org.python.pydev.logging.DebugSettings;
 import org.python.pydev.shared_core.callbacks.ICallback0;
 import org.python.pydev.shared_ui.utils.PyMarkerUtils;
@@ -67,7 +68,8 @@ public class PyTodoVisitor extends PyDevBuilderVisitor {
 
     /**
      * Computes the TODO markers available for this document.
-     * Considers only TODO flags in strings and comments.
+     * Considers only TODO flags in strings and comments (which are gotten in a single pass of the same scanner
+     * used to partition the document in the editor).
      */
     /*default*/List<MarkerInfo> computeTodoMarkers(IDocument document, List<String> todoTags)
             throws BadLocationException {
@@ -75,30 +77,23 @@ public class PyTodoVisitor extends PyDevBuilderVisitor {
         if (todoTags.size() > 0 && document != null) {
 
             String str = document.get();
-            ParsingUtils utils = ParsingUtils.create(str);
-            int len = utils.len();
+            PyPartitionScanner scanner = new PyPartitionScanner();
+            scanner.setRange(document, 0, str.length());
             try {
-                for (int i = 0; i < len; i++) {
-                    char c = str.charAt(i);
-                    switch (c) {
-                        case '\'':
-                        case '\"':
-                            int j = utils.eatLiterals(null, i);
-                            check(i, j, document, lst, todoTags);
-                            i = j;
-                            break;
-
-                        case '#':
-                            j = utils.eatComments(null, i);
-                            check(i, j, document, lst, todoTags);
-                            i = j;
-                            break;
+                for (IToken token = scanner.nextToken(); !token.isEOF(); token = scanner.nextToken()) {
+                    Object type = token.getData();
+                    if (type == null || IPythonPartitions.PY_BACKQUOTES.equals(type)) {
+                        continue; //only comments and strings
                     }
+                    int i = scanner.getTokenOffset();
+                    int j = i + scanner.getTokenLength();
+                    if (!IPythonPartitions.PY_COMMENT.equals(type)) {
+                        j = getStringContentsEnd(str, i, j);
+                    }
+                    check(i, j, str, document, lst, todoTags);
                 }
             } catch (BadLocationException e) {
                 //ignore (if document changed in the iteration).
-            } catch (SyntaxErrorException e) {
-                Log.log(e); //Should not happen!
             }
 
             if (DebugSettings.DEBUG_ANALYSIS_REQUESTS) {
@@ -108,12 +103,40 @@ public class PyTodoVisitor extends PyDevBuilderVisitor {
         return lst;
     }
 
+    /**
+     * @return the end of the contents of the string in the range [start, end) (i.e.: the position of the closing
+     * quotes or end if it's not closed).
+     */
+    private static int getStringContentsEnd(String str, int start, int end) {
+        int quotePos = start;
+        while (quotePos < end && str.charAt(quotePos) != '\'' && str.charAt(quotePos) != '"') {
+            quotePos++; //skip the prefix (b, r, u)
+        }
+        if (quotePos == end) {
+            return end;
+        }
+        char quote = str.charAt(quotePos);
+        int delimiterLen = 1;
+        if (quotePos + 2 < end && str.charAt(quotePos + 1) == quote && str.charAt(quotePos + 2) == quote) {
+            delimiterLen = 3;
+        }
+        if (end - quotePos >= 2 * delimiterLen) {
+            for (int k = end - delimiterLen; k < end; k++) {
+                if (str.charAt(k) != quote) {
+                    return end;
+                }
+            }
+            return end - delimiterLen;
+        }
+        return end;
+    }
+
     /**
      * Checks a partition of a document for todo tags (filling lst with the markers to be created).
      */
-    private void check(int i, int j, IDocument document, List<MarkerInfo> lst, List<String> todoTags)
+    private void check(int i, int j, String str, IDocument document, List<MarkerInfo> lst, List<String> todoTags)
             throws BadLocationException {
-        String tok = document.get(i, j - i);
+        String tok = str.substring(i, j);
         int index;
         HashSet<Integer> lines = new HashSet<Integer>();
         for (String element : todoTags) {
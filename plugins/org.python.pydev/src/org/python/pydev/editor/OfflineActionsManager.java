@@ -24,7 +24,36 @@ public class OfflineActionsManager {
 
     Map<String, ActionInfo> onOfflineActionListeners = new HashMap<String, ActionInfo>();
 
+    /**
+     * Initializers which will add actions (called when the actions are first requested).
+     */
+    private List<Runnable> pendingInitializers = new ArrayList<Runnable>();
+
+    /**
+     * Adds an initializer which will be called to add actions only when the actions are first requested
+     * (so that the creation of actions which may never be used doesn't slow down the editor creation).
+     */
+    public void addOfflineActionsInitializer(Runnable initializer) {
+        pendingInitializers.add(initializer);
+    }
+
+    private void runPendingInitializers() {
+        if (pendingInitializers.size() == 0) {
+            return;
+        }
+        List<Runnable> initializers = pendingInitializers;
+        pendingInitializers = new ArrayList<Runnable>();
+        for (Runnable initializer : initializers) {
+            try {
+                initializer.run();
+            } catch (Throwable e) {
+                Log.log(e);
+            }
+        }
+    }
+
     public Collection<ActionInfo> getOfflineActionDescriptions() {
+        runPendingInitializers();
         return onOfflineActionListeners.values();
     }
 
@@ -39,6 +68,7 @@ public class OfflineActionsManager {
     }
 
     public boolean activatesAutomaticallyOn(String key) {
+        runPendingInitializers();
         ActionInfo info = onOfflineActionListeners.get(key.toLowerCase());
         if (info != null) {
             if (!info.needsEnter) {
@@ -52,6 +82,7 @@ public class OfflineActionsManager {
      * @return if an action was binded and was successfully executed
      */
     public boolean onOfflineAction(String requestedStr, OfflineActionTarget target) {
+        runPendingInitializers();
 
         ActionInfo actionInfo = onOfflineActionListeners.get(requestedStr.toLowerCase());
         List<String> parameters = null;
@@ -95,6 +126,7 @@ public class OfflineActionsManager {
     }
 
     public boolean hasOfflineAction(String key) {
+        runPendingInitializers();
         return onOfflineActionListeners.get(key.toLowerCase()) != null;
     }
 
@@ -1540,6 +1540,13 @@ public class PyEdit extends PyEditProjection implements IPyEdit, IGrammarVersion
         offlineActionsManager.addOfflineActionListener(key, action, description, needsEnter);
     }
 
+    /**
+     * Adds an initializer which will only be called to add actions when the actions are first requested.
+     */
+    public void addOfflineActionsInitializer(Runnable initializer) {
+        offlineActionsManager.addOfflineActionsInitializer(initializer);
+    }
+
     public boolean activatesAutomaticallyOn(String key) {
         return offlineActionsManager.activatesAutomaticallyOn(key);
     }
@@ -0,0 +1,352 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.editor.actions;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.python.pydev.core.IInterpreterInfo;
+import org.python.pydev.core.IInterpreterManager;
+import org.python.pydev.core.MisconfigurationException;
+import org.python.pydev.core.log.Log;
+import org.python.pydev.plugin.PydevPlugin;
+import org.python.pydev.plugin.nature.SystemPythonNature;
+import org.python.pydev.runners.SimplePythonRunner;
+import org.python.pydev.shared_core.callbacks.ICallback0;
+import org.python.pydev.shared_core.io.ThreadStreamReader;
+import org.python.pydev.shared_core.process.ProcessUtils;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+import org.python.pydev.shared_core.structure.Tuple;
+
+/**
+ * A long-lived python process (pysrc/pydev_autopep8_worker.py) which formats code with autopep8, so that the
+ * interpreter startup and the autopep8 import aren't paid on each format request.
+ *
+ * Workers are kept in a pool per interpreter executable: a worker handles one request at a time, so, when
+ * formatting in parallel, a new worker is started for each concurrent request (and up to MAX_IDLE_WORKERS are kept
+ * alive afterwards).
+ *
+ * If a worker doesn't answer in REQUEST_TIMEOUT_MILLIS it's killed (and a new one is started for the next request).
+ *
+ * @author Fabio
+ */
+public final class Autopep8Worker {
+
+    public static final String WORKER_SCRIPT = "pydev_autopep8_worker.py";
+
+    /**
+     * Maximum number of idle workers kept alive for each interpreter.
+     */
+    public static final int MAX_IDLE_WORKERS = 3;
+
+    /**
+     * Time to wait for the response of a worker (after that, the worker is killed and the contents are kept
+     * unformatted).
+     */
+    public static final long REQUEST_TIMEOUT_MILLIS = 30000;
+
+    private static final Object lock = new Object();
+
+    /**
+     * Used to kill workers which didn't answer in time (created on demand).
+     */
+    private static Timer timeoutTimer;
+
+    /**
+     * Interpreter executable to the workers that are available to handle requests.
+     */
+    private static final Map<String, List<Autopep8Worker>> idleWorkers = new HashMap<String, List<Autopep8Worker>>();
+
+    /**
+     * All the workers alive (idle or handling some request).
+     */
+    private static final Set<Autopep8Worker> allWorkers = new HashSet<Autopep8Worker>();
+
+    private static boolean shutdown = false;
+
+    private final String executable;
+    private final Process process;
+    private final OutputStream out;
+    private final InputStream in;
+    private final ThreadStreamReader err;
+    private volatile boolean timedOut = false;
+
+    /*default*/Autopep8Worker(String executable, Process process) {
+        this.executable = executable;
+        this.process = process;
+        this.out = new BufferedOutputStream(process.getOutputStream());
+        this.in = new BufferedInputStream(process.getInputStream());
+        this.err = new ThreadStreamReader(process.getErrorStream());
+        this.err.start();
+    }
+
+    /**
+     * Formats the given contents with autopep8 using a worker for the default interpreter.
+     *
+     * @param parameters the parameters to be passed to autopep8.
+     * @param fileDir the directory of the file being formatted (where autopep8 starts searching for the project
+     * configuration). May be null.
+     * @return the formatted contents or null if it wasn't possible to format with a worker (in which case the
+     * caller should fallback to running autopep8 in a new process).
+     */
+    public static String format(String contents, String parameters, File fileDir) {
+        final IInterpreterManager manager = PydevPlugin.getPythonInterpreterManager();
+        final IInterpreterInfo info;
+        try {
+            info = manager.getDefaultInterpreterInfo(false);
+        } catch (MisconfigurationException e) {
+            return null;
+        }
+        ICallback0<Autopep8Worker> starter = new ICallback0<Autopep8Worker>() {
+
+            public Autopep8Worker call() {
+                return start(manager, info);
+            }
+        };
+        return format(info.getExecutableOrJar(), starter, contents, ProcessUtils.parseArguments(parameters),
+                fileDir, REQUEST_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * If the worker dies while handling the request, the request is retried once in a new worker.
+     *
+     * @param starter used to start a new worker when there's no idle one for the executable.
+     * @return the formatted contents, the passed contents if the worker didn't answer in time or null if it wasn't
+     * possible to format with a worker.
+     */
+    /*default*/static String format(String executable, ICallback0<Autopep8Worker> starter, String contents,
+            String[] args, File fileDir, long timeout) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Autopep8Worker worker = acquire(executable, starter);
+            if (worker == null) {
+                return null;
+            }
+            String formatted;
+            try {
+                formatted = worker.request(contents, args, fileDir, timeout);
+            } catch (IOException e) {
+                worker.dispose();
+                if (worker.timedOut) {
+                    Log.log("autopep8 worker did not answer in " + timeout + " millis (it was killed).");
+                    return contents;
+                }
+                Log.log("Error communicating with the autopep8 worker (it'll be restarted).", e);
+                continue;
+            }
+            release(worker);
+            return formatted;
+        }
+        return null;
+    }
+
+    /**
+     * Stops all the workers (no new workers will be created afterwards).
+     */
+    public static void shutdownAll() {
+        List<Autopep8Worker> toDispose;
+        synchronized (lock) {
+            shutdown = true;
+            toDispose = new ArrayList<Autopep8Worker>(allWorkers);
+            allWorkers.clear();
+            idleWorkers.clear();
+            if (timeoutTimer != null) {
+                timeoutTimer.cancel();
+                timeoutTimer = null;
+            }
+        }
+        for (Autopep8Worker worker : toDispose) {
+            worker.dispose();
+        }
+    }
+
+    private static Autopep8Worker acquire(String executable, ICallback0<Autopep8Worker> starter) {
+        synchronized (lock) {
+            if (shutdown) {
+                return null;
+            }
+            List<Autopep8Worker> idle = idleWorkers.get(executable);
+            if (idle != null && idle.size() > 0) {
+                return idle.remove(idle.size() - 1);
+            }
+        }
+        Autopep8Worker worker = starter.call();
+        if (worker != null) {
+            synchronized (lock) {
+                if (shutdown) {
+                    worker.dispose();
+                    return null;
+                }
+                allWorkers.add(worker);
+            }
+        }
+        return worker;
+    }
+
+    private static void release(Autopep8Worker worker) {
+        synchronized (lock) {
+            if (!shutdown && allWorkers.contains(worker)) {
+                List<Autopep8Worker> idle = idleWorkers.get(worker.executable);
+                if (idle == null) {
+                    idle = new ArrayList<Autopep8Worker>(MAX_IDLE_WORKERS);
+                    idleWorkers.put(worker.executable, idle);
+                }
+                if (idle.size() < MAX_IDLE_WORKERS) {
+                    idle.add(worker);
+                    return;
+                }
+            }
+        }
+        worker.dispose();
+    }
+
+    private static Autopep8Worker start(IInterpreterManager manager, IInterpreterInfo info) {
+        File script;
+        try {
+            script = PydevPlugin.getScriptWithinPySrc(WORKER_SCRIPT);
+        } catch (CoreException e) {
+            Log.log("Unable to get " + WORKER_SCRIPT + " location.");
+            return null;
+        }
+        if (!script.exists()) {
+            Log.log("Specified location for " + WORKER_SCRIPT + " does not exist (" + script + ").");
+            return null;
+        }
+        try {
+            String[] cmdarray = SimplePythonRunner.preparePythonCallParameters(info.getExecutableOrJar(),
+                    script.toString(), new String[0]);
+            Tuple<Process, String> r = new SimplePythonRunner().run(cmdarray, script.getParentFile(),
+                    new SystemPythonNature(manager, info), new NullProgressMonitor());
+            if (r.o1 == null) {
+                return null;
+            }
+            return new Autopep8Worker(info.getExecutableOrJar(), r.o1);
+        } catch (Exception e) {
+            Log.log(e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the formatted contents or null if autopep8 wasn't able to format the contents (i.e.: invalid
+     * parameters).
+     * @throws IOException if the worker died or didn't answer in the given timeout (in which case it's killed).
+     */
+    /*default*/String request(String contents, String[] args, File fileDir, long timeout) throws IOException {
+        FastStringBuffer argsBuf = new FastStringBuffer();
+        for (String arg : args) {
+            argsBuf.append(arg).append('\n');
+        }
+        byte[] argsBytes = argsBuf.toString().getBytes("utf-8");
+        byte[] dirBytes = (fileDir != null && fileDir.isDirectory() ? fileDir.getAbsolutePath() : "")
+                .getBytes("utf-8");
+        byte[] contentsBytes = contents.getBytes("utf-8");
+
+        TimerTask killOnTimeout = new TimerTask() {
+
+            @Override
+            public void run() {
+                timedOut = true;
+                process.destroy();
+            }
+        };
+        synchronized (lock) {
+            if (timeoutTimer == null) {
+                timeoutTimer = new Timer("autopep8 worker timeout", true);
+            }
+            timeoutTimer.schedule(killOnTimeout, timeout);
+        }
+        try {
+            out.write((argsBytes.length + " " + dirBytes.length + " " + contentsBytes.length + "\n")
+                    .getBytes("ascii"));
+            out.write(argsBytes);
+            out.write(dirBytes);
+            out.write(contentsBytes);
+            out.flush();
+
+            int len = readLength();
+            logErrors();
+            if (len < 0) {
+                return null;
+            }
+            byte[] formatted = new byte[len];
+            int read = 0;
+            while (read < len) {
+                int n = in.read(formatted, read, len - read);
+                if (n == -1) {
+                    throw new IOException("autopep8 worker finished while sending response.");
+                }
+                read += n;
+            }
+            return new String(formatted, "utf-8");
+        } finally {
+            killOnTimeout.cancel();
+        }
+    }
+
+    private int readLength() throws IOException {
+        FastStringBuffer buf = new FastStringBuffer(10);
+        while (true) {
+            int c = in.read();
+            if (c == -1) {
+                //Give some time for the error to be read.
+                synchronized (this) {
+                    try {
+                        wait(100);
+                    } catch (InterruptedException e) {
+                        //ignore
+                    }
+                }
+                logErrors();
+                throw new IOException("autopep8 worker finished unexpectedly.");
+            }
+            if (c == '\n') {
+                break;
+            }
+            buf.append((char) c);
+        }
+        try {
+            return Integer.parseInt(buf.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Unexpected response from autopep8 worker: " + buf);
+        }
+    }
+
+    private void logErrors() {
+        String errors = err.getAndClearContents();
+        if (errors.length() > 0) {
+            Log.log(errors);
+        }
+    }
+
+    private void dispose() {
+        synchronized (lock) {
+            allWorkers.remove(this);
+        }
+        try {
+            //Closing the stdin makes the worker exit.
+            out.close();
+        } catch (IOException e) {
+            //ignore
+        }
+        err.stopGettingOutput();
+        process.destroy();
+    }
+}
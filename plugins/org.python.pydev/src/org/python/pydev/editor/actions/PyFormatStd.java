@@ -24,6 +24,7 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.jface.action.IAction;
@@ -82,6 +83,12 @@ public class PyFormatStd extends PyAction implements IFormatter {
          */
         public String autopep8Parameters;
 
+        /**
+         * Directory of the file being formatted (autopep8 searches the project configuration -- setup.cfg,
+         * tox.ini, .pep8 -- starting at it). May be null.
+         */
+        public File fileDir;
+
         /**
          * Defines whether spaces should be added after a comma
          */
@@ -386,6 +393,17 @@ public class PyFormatStd extends PyAction implements IFormatter {
         formatStd.formatWithAutopep8 = PyCodeFormatterPage.getFormatWithAutopep8(projectAdaptable);
         formatStd.autopep8Parameters = PyCodeFormatterPage.getAutopep8Parameters(projectAdaptable);
         formatStd.updateAutopep8();
+        if (projectAdaptable instanceof IFile) {
+            IPath location = ((IFile) projectAdaptable).getLocation();
+            if (location != null) {
+                formatStd.fileDir = location.toFile().getParentFile();
+            }
+        } else if (projectAdaptable instanceof PyEdit) {
+            File editorFile = ((PyEdit) projectAdaptable).getEditorFile();
+            if (editorFile != null) {
+                formatStd.fileDir = editorFile.getParentFile();
+            }
+        }
         return formatStd;
     }
 
@@ -401,7 +419,7 @@ public class PyFormatStd extends PyAction implements IFormatter {
             throws SyntaxErrorException {
         if (std.formatWithAutopep8) {
             String parameters = std.autopep8Parameters;
-            String formatted = runWithPep8BaseScript(str, parameters, "autopep8.py", str);
+            String formatted = runWithPep8BaseScript(str, parameters, "autopep8.py", str, std.fileDir);
 
             formatted = StringUtils.replaceNewLines(formatted, delimiter);
 
@@ -414,11 +432,27 @@ public class PyFormatStd extends PyAction implements IFormatter {
     /**
      * @param fileContents the contents to be passed in the stdin.
      * @param parameters the parameters to pass. Note that a '-' is always added to the parameters to signal we'll pass the file as the input in stdin.
-     * @param script i.e.: pep8.py, autopep8.py
+     * @param script i.e.: pep8.py, autopep8.py (autopep8.py requests are handled by an {@link Autopep8Worker}
+     * and a new process is only created if the worker is not able to handle it).
      * @return
      */
     public static String runWithPep8BaseScript(String fileContents, String parameters, String script,
             String defaultReturn) {
+        return runWithPep8BaseScript(fileContents, parameters, script, defaultReturn, null);
+    }
+
+    /**
+     * @param fileDir the directory of the file whose contents are passed (used as the working directory so that the
+     * project configuration is found). May be null.
+     */
+    public static String runWithPep8BaseScript(String fileContents, String parameters, String script,
+            String defaultReturn, File fileDir) {
+        if ("autopep8.py".equals(script)) {
+            String formatted = Autopep8Worker.format(fileContents, parameters, fileDir);
+            if (formatted != null) {
+                return formatted.length() > 0 ? formatted : defaultReturn;
+            }
+        }
         File autopep8File;
         try {
             autopep8File = PydevPlugin.getScriptWithinPySrc(new Path("third_party").append("pep8")
@@ -470,7 +504,8 @@ public class PyFormatStd extends PyAction implements IFormatter {
             }
         };
 
-        Tuple<Process, String> r = simplePythonRunner.run(cmdarray, autopep8File.getParentFile(), nature,
+        File workingDir = fileDir != null && fileDir.isDirectory() ? fileDir : autopep8File.getParentFile();
+        Tuple<Process, String> r = simplePythonRunner.run(cmdarray, workingDir, nature,
                 new NullProgressMonitor(), updateEnv);
         try {
             r.o1.getOutputStream().write(fileContents.getBytes(pythonFileEncoding));
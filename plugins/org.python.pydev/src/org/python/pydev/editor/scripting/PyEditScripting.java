@@ -9,13 +9,20 @@
  */
 package org.python.pydev.editor.scripting;
 
+import java.io.File;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.ListResourceBundle;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.text.IDocument;
+import org.python.pydev.editor.PyEdit;
 import org.python.pydev.jython.IPythonInterpreter;
 import org.python.pydev.jython.JythonPlugin;
+import org.python.pydev.jython.JythonScriptInfo;
+import org.python.pydev.jython.ui.JyScriptingPreferencesPage;
+import org.python.pydev.shared_core.callbacks.ICallback;
 import org.python.pydev.shared_ui.editor.BaseEditor;
 import org.python.pydev.shared_ui.editor.IPyEditListener;
 
@@ -25,6 +32,10 @@ import org.python.pydev.shared_ui.editor.IPyEditListener;
  * 
  * A new PyEditScripting is created for each editor. Therefore, we have one interpreter for each editor.
  * 
+ * Scripts are only executed for the commands they handle (see: JythonScriptInfo) and, if enabled in the
+ * preferences, the scripts marked with #@DeferActionsCreation only create their actions when the editor actions are
+ * first requested.
+ * 
  * @author Fabio
  */
 public class PyEditScripting implements IPyEditListener {
@@ -48,10 +59,26 @@ public class PyEditScripting implements IPyEditListener {
     }
 
     private void doExec(HashMap<String, Object> locals) {
+        doExec(locals, getCommandFilter((String) locals.get("cmd")));
+    }
+
+    private void doExec(HashMap<String, Object> locals, ICallback<Boolean, File> filter) {
         createInterpreter();
         locals.put("systemGlobals", systemGlobals);
-        JythonPlugin.execAll(locals, "pyedit", interpreter); //execute all the files that start with 'pyedit' that are located beneath
-                                                             //the org.python.pydev.jython/jysrc directory and some user specified dir (if any).
+        JythonPlugin.execAll(locals, "pyedit", interpreter, filter); //execute all the files that start with 'pyedit' that are located beneath
+                                                                     //the org.python.pydev.jython/jysrc directory and some user specified dir (if any).
+    }
+
+    /**
+     * @return a filter which only accepts the scripts which handle the given command.
+     */
+    private static ICallback<Boolean, File> getCommandFilter(final String cmd) {
+        return new ICallback<Boolean, File>() {
+
+            public Boolean call(File script) {
+                return JythonPlugin.getScriptInfo(script).handles(cmd);
+            }
+        };
     }
 
     public void onSave(BaseEditor edit, IProgressMonitor monitor) {
@@ -61,11 +88,52 @@ public class PyEditScripting implements IPyEditListener {
         doExec(locals);
     }
 
-    public void onCreateActions(ListResourceBundle resources, BaseEditor edit, IProgressMonitor monitor) {
+    public void onCreateActions(ListResourceBundle resources, final BaseEditor edit, IProgressMonitor monitor) {
         HashMap<String, Object> locals = new HashMap<String, Object>();
         locals.put("cmd", "onCreateActions");
         locals.put("editor", edit);
-        doExec(locals);
+        if (!(edit instanceof PyEdit) || !JyScriptingPreferencesPage.getDeferActionsCreation()) {
+            doExec(locals);
+            return;
+        }
+
+        //The scripts which only bind actions are just executed when the editor actions are first requested (only
+        //done for the scripts which are marked for that if the user enabled it in the preferences).
+        final Set<File> deferred = new HashSet<File>();
+        doExec(locals, new ICallback<Boolean, File>() {
+
+            public Boolean call(File script) {
+                JythonScriptInfo info = JythonPlugin.getScriptInfo(script);
+                if (!info.handles("onCreateActions")) {
+                    return false;
+                }
+                if (info.getDeferActionsCreation()) {
+                    deferred.add(script);
+                    return false;
+                }
+                return true;
+            }
+        });
+
+        if (deferred.size() > 0) {
+            ((PyEdit) edit).addOfflineActionsInitializer(new Runnable() {
+
+                public void run() {
+                    if (interpreter == null) {
+                        return; //already disposed
+                    }
+                    HashMap<String, Object> locals = new HashMap<String, Object>();
+                    locals.put("cmd", "onCreateActions");
+                    locals.put("editor", edit);
+                    doExec(locals, new ICallback<Boolean, File>() {
+
+                        public Boolean call(File script) {
+                            return deferred.contains(script);
+                        }
+                    });
+                }
+            });
+        }
     }
 
     public void onDispose(BaseEditor edit, IProgressMonitor monitor) {
@@ -42,6 +42,8 @@ import org.python.pydev.core.IInterpreterManager;
 import org.python.pydev.core.IPythonNature;
 import org.python.pydev.core.MisconfigurationException;
 import org.python.pydev.core.log.Log;
+import org.python.pydev.editor.actions.Autopep8Worker;
+import org.python.pydev.editor.codecompletion.revisited.ForcedBuiltinsPrefetcher;
 import org.python.pydev.editor.codecompletion.revisited.SyncSystemModulesManagerScheduler;
 import org.python.pydev.editor.codecompletion.shell.AbstractShell;
 import org.python.pydev.plugin.nature.PythonNature;
@@ -189,6 +191,8 @@ public class PydevPlugin extends AbstractUIPlugin {
 
     public final SyncSystemModulesManagerScheduler syncScheduler = new SyncSystemModulesManagerScheduler();
 
+    public final ForcedBuiltinsPrefetcher forcedBuiltinsPrefetcher = new ForcedBuiltinsPrefetcher();
+
     public static final String DEFAULT_PYDEV_SCOPE = "org.python.pydev";
 
     private boolean isAlive;
@@ -206,6 +210,7 @@ public class PydevPlugin extends AbstractUIPlugin {
         @Override
         protected IStatus run(IProgressMonitor monitor) {
             syncScheduler.start();
+            forcedBuiltinsPrefetcher.start();
             return Status.OK_STATUS;
         }
 
@@ -281,6 +286,7 @@ public class PydevPlugin extends AbstractUIPlugin {
     @Override
     public void stop(BundleContext context) throws Exception {
         syncScheduler.stop();
+        forcedBuiltinsPrefetcher.stop();
         IPath stateLocation = getStateLocation();
         File file = stateLocation.toFile();
         for (String prefix : erasePrefixes) {
@@ -290,6 +296,7 @@ public class PydevPlugin extends AbstractUIPlugin {
         try {
             //stop the running shells
             AbstractShell.shutdownAllShells();
+            Autopep8Worker.shutdownAll();
 
             //save the natures (code completion stuff) -- and only the ones initialized
             //(no point in getting the ones not initialized)
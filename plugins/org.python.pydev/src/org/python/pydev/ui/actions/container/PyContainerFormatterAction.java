@@ -8,7 +8,13 @@
 package org.python.pydev.ui.actions.container;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
@@ -25,6 +31,7 @@ import org.python.pydev.editor.actions.PyAction;
 import org.python.pydev.editor.codecompletion.revisited.PythonPathHelper;
 import org.python.pydev.parser.prettyprinterv2.IFormatter;
 import org.python.pydev.shared_core.string.StringUtils;
+import org.python.pydev.shared_core.structure.Tuple;
 import org.python.pydev.shared_ui.utils.RunInUiThread;
 
 /**
@@ -34,6 +41,11 @@ import org.python.pydev.shared_ui.utils.RunInUiThread;
  */
 abstract class PyContainerFormatterAction extends PyContainerAction {
 
+    /**
+     * Maximum number of files formatted at the same time (when the formatter supports it).
+     */
+    private static final int MAX_PARALLEL_FORMATS = 3;
+
     private final String verbPassed;
     private final String verbPresent;
     private final String verbPresentMsg;
@@ -95,6 +107,14 @@ abstract class PyContainerFormatterAction extends PyContainerAction {
                                 + "\n" + "This action cannot be undone.");
     }
 
+    /**
+     * Subclasses may override to signal that the formatter created may be used from multiple threads at once
+     * (in which case the files which aren't opened are formatted in parallel).
+     */
+    protected boolean canFormatInParallel() {
+        return false;
+    }
+
     /**
      * Applies source code formatting to the files... 
      * Recursively pass the folders and delete the files (and sum them so that we know how many
@@ -104,64 +124,122 @@ abstract class PyContainerFormatterAction extends PyContainerAction {
      * @return the number of files formatted
      */
     @Override
-    protected int doActionOnContainer(IContainer container, IProgressMonitor monitor) {
-        int formatted = 0;
+    protected int doActionOnContainer(IContainer container, final IProgressMonitor monitor) {
+        List<IFile> files = new ArrayList<IFile>();
         try {
-            IResource[] members = container.members();
+            collectFiles(container, files, monitor);
+        } catch (CoreException e) {
+            Log.log(e);
+        }
 
-            for (final IResource c : members) {
+        ExecutorService executor = null;
+        if (canFormatInParallel()) {
+            int threads = Math.min(MAX_PARALLEL_FORMATS, Runtime.getRuntime().availableProcessors());
+            if (threads > 1 && files.size() > 1) {
+                executor = Executors.newFixedThreadPool(threads);
+            }
+        }
+
+        int formatted = 0;
+        try {
+            //The formatting of the files which aren't opened may be done in parallel (but they're written in order
+            //in this thread, which is also the one which reports the progress).
+            List<Tuple<IFile, Future<IDocument>>> pending = new ArrayList<Tuple<IFile, Future<IDocument>>>();
+            for (final IFile file : files) {
                 if (monitor.isCanceled()) {
                     break;
                 }
-                monitor.worked(1);
-                if (c instanceof IContainer) {
-                    formatted += this.doActionOnContainer((IContainer) c, monitor);
-
-                } else if (c instanceof IFile) {
-                    final String name = c.getName();
-                    if (name != null) {
-                        monitor.setTaskName("Formatting: " + name);
-                        if (PythonPathHelper.isValidSourceFile(name)) {
-                            IFile file = (IFile) c;
-                            final IDocument doc = FileUtilsFileBuffer.getDocFromResource(c);
-
-                            final boolean isOpenedFile = openFiles.contains(file);
-                            try {
-                                if (isOpenedFile) {
-                                    RunInUiThread.async(new Runnable() {
-
-                                        public void run() {
-                                            try {
-                                                formatter.formatAll(doc, null, (IFile) c, isOpenedFile, true);
-                                            } catch (SyntaxErrorException e) {
-                                                Log.log(IStatus.ERROR, "Could not " + verbPresentMsg + " file: " + name
-                                                        + " (invalid syntax).", e);
-                                            }
-                                        }
-                                    });
-                                } else {
-                                    formatter.formatAll(doc, null, (IFile) c, isOpenedFile, true);
-                                }
-                            } catch (SyntaxErrorException e) {
-                                Log.log(IStatus.ERROR, "Could not " + verbPresentMsg + " file: " + name
-                                        + " (invalid syntax).",
-                                        e);
-                            }
-                            formatted += 1;
-                            if (isOpenedFile) {
-                                //This means that it's an open buffer (let the user save it when he wants).
-                                continue;
-                            }
-                            file.setContents(new ByteArrayInputStream(doc.get().getBytes()), true, true, monitor);
+                if (openFiles.contains(file)) {
+                    monitor.setTaskName("Formatting: " + file.getName());
+                    monitor.worked(1);
+                    final IDocument doc = FileUtilsFileBuffer.getDocFromResource(file);
+                    RunInUiThread.async(new Runnable() {
+
+                        public void run() {
+                            formatFile(file, doc, true);
+                        }
+                    });
+                    //This means that it's an open buffer (let the user save it when he wants).
+                    formatted += 1;
+                    continue;
+                }
+
+                Callable<IDocument> format = new Callable<IDocument>() {
+
+                    public IDocument call() throws Exception {
+                        IDocument doc = FileUtilsFileBuffer.getDocFromResource(file);
+                        if (!monitor.isCanceled()) {
+                            formatFile(file, doc, false);
                         }
+                        return doc;
+                    }
+                };
+                if (executor != null) {
+                    pending.add(new Tuple<IFile, Future<IDocument>>(file, executor.submit(format)));
+
+                } else {
+                    monitor.setTaskName("Formatting: " + file.getName());
+                    monitor.worked(1);
+                    try {
+                        IDocument doc = format.call();
+                        formatted += 1;
+                        file.setContents(new ByteArrayInputStream(doc.get().getBytes()), true, true, monitor);
+                    } catch (Exception e) {
+                        Log.log(e);
                     }
                 }
             }
-        } catch (CoreException e) {
-            Log.log(e);
+
+            for (Tuple<IFile, Future<IDocument>> tup : pending) {
+                IFile file = tup.o1;
+                monitor.setTaskName("Formatting: " + file.getName());
+                monitor.worked(1);
+                try {
+                    IDocument doc = tup.o2.get();
+                    if (monitor.isCanceled()) {
+                        break;
+                    }
+                    formatted += 1;
+                    file.setContents(new ByteArrayInputStream(doc.get().getBytes()), true, true, monitor);
+                } catch (Exception e) {
+                    Log.log(e);
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
 
         return formatted;
     }
 
+    private void collectFiles(IContainer container, List<IFile> files, IProgressMonitor monitor)
+            throws CoreException {
+        IResource[] members = container.members();
+        for (IResource c : members) {
+            if (monitor.isCanceled()) {
+                break;
+            }
+            if (c instanceof IContainer) {
+                collectFiles((IContainer) c, files, monitor);
+
+            } else if (c instanceof IFile) {
+                String name = c.getName();
+                if (name != null && PythonPathHelper.isValidSourceFile(name)) {
+                    files.add((IFile) c);
+                }
+            }
+        }
+    }
+
+    private void formatFile(IFile file, IDocument doc, boolean isOpenedFile) {
+        try {
+            formatter.formatAll(doc, null, file, isOpenedFile, true);
+        } catch (SyntaxErrorException e) {
+            Log.log(IStatus.ERROR, "Could not " + verbPresentMsg + " file: " + file.getName()
+                    + " (invalid syntax).", e);
+        }
+    }
+
 }
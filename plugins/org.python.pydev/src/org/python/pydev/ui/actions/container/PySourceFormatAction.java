@@ -25,4 +25,13 @@ public class PySourceFormatAction extends PyContainerFormatterAction {
         return new PyFormatStd().getFormatter();
     }
 
+    /**
+     * Our own formatter keeps no state (so, it may be used in parallel), but a formatter contributed through the
+     * extension point may not be thread-safe.
+     */
+    @Override
+    protected boolean canFormatInParallel() {
+        return formatter instanceof PyFormatStd;
+    }
+
 }
@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.ui.metrics;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.ui.progress.UIJob;
+import org.eclipse.ui.part.ViewPart;
+import org.python.pydev.shared_core.metrics.Counter;
+import org.python.pydev.shared_core.metrics.Histogram;
+import org.python.pydev.shared_core.metrics.Metrics;
+
+/**
+ * Shows the metrics recorded by PyDev (see: Metrics) with the rate (per second, computed from the last refresh)
+ * and the p50/p99/max latencies. Allows enabling/disabling the recording, resetting and exporting the values
+ * to a file (to be attached in bug reports).
+ *
+ * @author Fabio
+ */
+public class PyMetricsView extends ViewPart {
+
+    public static final String ID = "org.python.pydev.ui.metrics.PyMetricsView";
+
+    private static final int REFRESH_MILLIS = 1000;
+
+    private static final String[] COLUMNS = new String[] { "Metric", "Count", "Rate (/s)", "p50 (ms)", "p99 (ms)",
+            "Max (ms)" };
+
+    private static final int[] COLUMN_WIDTHS = new int[] { 220, 80, 80, 80, 80, 80 };
+
+    private TableViewer viewer;
+
+    /**
+     * Count of each metric in the last refresh (used to compute the rates).
+     */
+    private final Map<String, Long> lastCounts = new HashMap<String, Long>();
+    private long lastRefreshTime;
+
+    private static final class Row {
+
+        private final String[] columns;
+
+        private Row(String... columns) {
+            this.columns = columns;
+        }
+    }
+
+    private static final class RowLabelProvider extends LabelProvider implements ITableLabelProvider {
+
+        @Override
+        public Image getColumnImage(Object element, int columnIndex) {
+            return null;
+        }
+
+        @Override
+        public String getColumnText(Object element, int columnIndex) {
+            return ((Row) element).columns[columnIndex];
+        }
+    }
+
+    private final UIJob refreshJob = new UIJob("Update PyDev Performance view") {
+
+        @Override
+        public IStatus runInUIThread(IProgressMonitor monitor) {
+            if (viewer == null || viewer.getTable().isDisposed()) {
+                return Status.OK_STATUS;
+            }
+            viewer.setInput(createRows());
+            if (Metrics.isEnabled()) {
+                this.schedule(REFRESH_MILLIS);
+            }
+            return Status.OK_STATUS;
+        }
+    };
+
+    @Override
+    public void createPartControl(Composite parent) {
+        Table table = new Table(parent, SWT.FULL_SELECTION | SWT.MULTI);
+        table.setHeaderVisible(true);
+        table.setLinesVisible(true);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            TableColumn column = new TableColumn(table, i == 0 ? SWT.LEFT : SWT.RIGHT);
+            column.setText(COLUMNS[i]);
+            column.setWidth(COLUMN_WIDTHS[i]);
+        }
+        viewer = new TableViewer(table);
+        viewer.setContentProvider(ArrayContentProvider.getInstance());
+        viewer.setLabelProvider(new RowLabelProvider());
+
+        configureToolBar();
+        refreshJob.setSystem(true);
+        refreshJob.schedule();
+    }
+
+    private void configureToolBar() {
+        IToolBarManager toolBar = getViewSite().getActionBars().getToolBarManager();
+
+        Action enable = new Action("Record metrics", IAction.AS_CHECK_BOX) {
+            @Override
+            public void run() {
+                Metrics.setEnabled(this.isChecked());
+                refreshJob.schedule();
+            }
+        };
+        enable.setChecked(Metrics.isEnabled());
+        enable.setToolTipText("Enables/disables recording the metrics (no overhead when disabled).");
+
+        Action reset = new Action("Reset") {
+            @Override
+            public void run() {
+                Metrics.reset();
+                lastCounts.clear();
+                refreshJob.schedule();
+            }
+        };
+        reset.setToolTipText("Resets the recorded metrics.");
+
+        Action export = new Action("Export...") {
+            @Override
+            public void run() {
+                FileDialog dialog = new FileDialog(getSite().getShell(), SWT.SAVE);
+                dialog.setFileName("pydev_metrics.txt");
+                String path = dialog.open();
+                if (path != null) {
+                    Metrics.exportTo(new File(path));
+                }
+            }
+        };
+        export.setToolTipText("Exports the current metrics to a file.");
+
+        toolBar.add(enable);
+        toolBar.add(reset);
+        toolBar.add(export);
+    }
+
+    private List<Row> createRows() {
+        long now = System.currentTimeMillis();
+        double elapsedSecs = lastRefreshTime > 0 ? (now - lastRefreshTime) / 1000.0 : 0;
+        lastRefreshTime = now;
+
+        List<Row> rows = new ArrayList<Row>();
+        for (Histogram histogram : Metrics.getHistograms()) {
+            long count = histogram.getCount();
+            rows.add(new Row(histogram.name, Long.toString(count), rate(histogram.name, count, elapsedSecs),
+                    millis(histogram.getPercentileMicros(50)), millis(histogram.getPercentileMicros(99)),
+                    millis(histogram.getMaxMicros())));
+        }
+        for (Counter counter : Metrics.getCounters()) {
+            long count = counter.getCount();
+            rows.add(new Row(counter.name, Long.toString(count), rate(counter.name, count, elapsedSecs), "", "",
+                    ""));
+        }
+        for (String name : Metrics.getGaugeNames()) {
+            rows.add(new Row(name, Long.toString(Metrics.getGaugeValue(name)), "", "", "", ""));
+        }
+        return rows;
+    }
+
+    private String rate(String name, long count, double elapsedSecs) {
+        Long last = lastCounts.put(name, count);
+        if (last == null || elapsedSecs <= 0 || count < last) {
+            return "";
+        }
+        return String.format("%.1f", (count - last) / elapsedSecs);
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+
+    @Override
+    public void setFocus() {
+        viewer.getTable().setFocus();
+    }
+
+    @Override
+    public void dispose() {
+        refreshJob.cancel();
+        super.dispose();
+    }
+}
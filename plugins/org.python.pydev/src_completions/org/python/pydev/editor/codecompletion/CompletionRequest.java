@@ -21,6 +21,7 @@ import org.python.pydev.core.MisconfigurationException;
 import org.python.pydev.core.docutils.PySelection;
 import org.python.pydev.core.docutils.PySelection.ActivationTokenAndQual;
 import org.python.pydev.editor.codecompletion.revisited.AbstractASTManager;
+import org.python.pydev.shared_core.callbacks.ICallback0;
 import org.python.pydev.shared_core.string.FastStringBuffer;
 
 /**
@@ -192,6 +193,14 @@ public final class CompletionRequest implements ICompletionRequest {
      */
     public boolean showTemplates = true;
 
+    /**
+     * If set, the completion sources that don't finish in their time budget are not waited for and this callback is
+     * called when their results become available (so, the completions may be requested again to get them).
+     *
+     * @see CompletionSources
+     */
+    public ICallback0<Object> onLateResults;
+
     @Override
     public String toString() {
         FastStringBuffer buffer = new FastStringBuffer();
@@ -0,0 +1,322 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.editor.codecompletion;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.python.pydev.core.log.Log;
+import org.python.pydev.shared_core.callbacks.ICallback0;
+import org.python.pydev.shared_core.metrics.Counter;
+import org.python.pydev.shared_core.metrics.Metrics;
+
+/**
+ * Computes the completions from many sources in parallel (i.e.: the module and each participant).
+ *
+ * Each source has its own time budget: the sources that don't finish in their budget are kept running and the
+ * results they provide are made available later on (the caller is notified so that it can request the completions
+ * again and get the results of the same session without recomputing them).
+ *
+ * The results are always returned in the order of the sources (so, the final order doesn't depend on which source
+ * finished first).
+ *
+ * When a new session starts, the sources of the previous session are cancelled: the ones not started yet are
+ * removed from the queue and the others are marked as cancelled (the threads running them are not interrupted, as an
+ * interrupt closes any FileChannel being read by the thread -- i.e.: while loading a module -- so, the sources must
+ * check isCancelled() to stop early).
+ *
+ * @author Fabio
+ */
+public final class CompletionSources {
+
+    /**
+     * A source of completions (its results are only requested once for a given session).
+     */
+    public static abstract class Source {
+
+        /**
+         * Identifies the source in a session.
+         */
+        public final String name;
+
+        /**
+         * The time (in millis) that the caller waits for this source to provide its results.
+         */
+        public final long timeBudgetMillis;
+
+        public Source(String name, long timeBudgetMillis) {
+            this.name = name;
+            this.timeBudgetMillis = timeBudgetMillis;
+        }
+
+        /**
+         * Called in a thread from the pool to compute the completions.
+         *
+         * If the session is superseded, the source is marked as cancelled, so, long computations should stop when
+         * CompletionSources.isCancelled() (note that ICompletionState.checkMaxTimeForCompletion() already does
+         * that check).
+         */
+        public abstract Collection<Object> compute() throws Exception;
+    }
+
+    private static final Counter LATE_SOURCES = Metrics.counter("completion.sources.late");
+
+    /*default*/static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Maximum number of sources waiting for a thread (when the queue is full, the source is computed in the thread
+     * requesting it).
+     */
+    private static final int MAX_QUEUED_SOURCES = 64;
+
+    private static final ThreadPoolExecutor executor;
+
+    static {
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(MAX_QUEUED_SOURCES), new ThreadFactory() {
+
+                    private int count;
+
+                    public synchronized Thread newThread(Runnable r) {
+                        count++;
+                        Thread t = new Thread(r, "PyDev completion source " + count);
+                        t.setDaemon(true);
+                        return t;
+                    }
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private static final Object lock = new Object();
+
+    /**
+     * The key of the current session (the tasks are reused while the same key is requested).
+     */
+    private static Object currentKey;
+
+    private static Session currentSession = new Session();
+
+    private static final Map<String, SourceTask> currentTasks = new HashMap<String, SourceTask>();
+
+    /**
+     * The tasks of a session (or of a request without a session key), which are all cancelled together.
+     */
+    private static final class Session {
+
+        private volatile boolean cancelled;
+    }
+
+    /**
+     * The session of the task running in the current thread.
+     */
+    private static final ThreadLocal<Session> runningSession = new ThreadLocal<Session>();
+
+    /**
+     * @return true if the source being computed in the current thread was cancelled (i.e.: its session was
+     * superseded).
+     */
+    public static boolean isCancelled() {
+        Session session = runningSession.get();
+        return session != null && session.cancelled;
+    }
+
+    private static final class SourceTask extends FutureTask<Collection<Object>> {
+
+        private final Source source;
+        private final Session session;
+        private boolean late;
+        private ICallback0<Object> onLateResults;
+
+        private SourceTask(final Source source, Session session) {
+            super(new Callable<Collection<Object>>() {
+
+                public Collection<Object> call() throws Exception {
+                    return source.compute();
+                }
+            });
+            this.source = source;
+            this.session = session;
+        }
+
+        @Override
+        public void run() {
+            //Note: a task may be run in a thread which is already running some other task (if the queue is full).
+            Session previous = runningSession.get();
+            runningSession.set(session);
+            try {
+                super.run();
+            } finally {
+                if (previous == null) {
+                    runningSession.remove();
+                } else {
+                    runningSession.set(previous);
+                }
+            }
+        }
+
+        /**
+         * Cancels the task (without interrupting the thread running it) and removes it from the queue if it wasn't
+         * started.
+         */
+        private void cancelAndRemove() {
+            session.cancelled = true;
+            cancel(false);
+            executor.remove(this);
+        }
+
+        /**
+         * Marks this task as late (i.e.: the callback will be called when it finishes).
+         *
+         * @return false if it already finished (in which case the results must be gotten right away).
+         */
+        private synchronized boolean markLate(ICallback0<Object> onLateResults) {
+            if (isDone()) {
+                return false;
+            }
+            this.late = true;
+            this.onLateResults = onLateResults;
+            return true;
+        }
+
+        @Override
+        protected void done() {
+            ICallback0<Object> callback;
+            synchronized (this) {
+                callback = late ? onLateResults : null;
+            }
+            if (callback != null && !isCancelled()) {
+                try {
+                    callback.call();
+                } catch (Exception e) {
+                    Log.log(e);
+                }
+            }
+        }
+    }
+
+    private CompletionSources() {
+    }
+
+    /**
+     * @return the tasks for the passed sources (reusing the tasks of the current session if the key is the same).
+     */
+    private static List<SourceTask> getTasks(Object sessionKey, List<Source> sources) {
+        List<SourceTask> tasks = new ArrayList<SourceTask>(sources.size());
+        List<SourceTask> superseded = null;
+        List<SourceTask> toStart = new ArrayList<SourceTask>(sources.size());
+        synchronized (lock) {
+            if (sessionKey != null && !sessionKey.equals(currentKey)) {
+                superseded = new ArrayList<SourceTask>(currentTasks.values());
+                currentTasks.clear();
+                currentKey = sessionKey;
+                currentSession = new Session();
+            }
+            Session session = sessionKey != null ? currentSession : new Session();
+            for (Source source : sources) {
+                SourceTask task = sessionKey != null ? currentTasks.get(source.name) : null;
+                if (task == null) {
+                    task = new SourceTask(source, session);
+                    if (sessionKey != null) {
+                        currentTasks.put(source.name, task);
+                    }
+                    toStart.add(task);
+                }
+                tasks.add(task);
+            }
+        }
+        //Outside of the lock as a source may be computed in this thread if the queue is full.
+        if (superseded != null) {
+            for (SourceTask task : superseded) {
+                task.cancelAndRemove();
+            }
+        }
+        for (SourceTask task : toStart) {
+            executor.execute(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Computes the completions of the passed sources in parallel.
+     *
+     * @param sessionKey identifies the request: while the same key is passed, the sources already started are reused
+     * (may be null, in which case all the sources are computed again).
+     * @param onLateResults if null, waits for all the sources to finish. Otherwise, only waits for each source up to
+     * its time budget and this callback is called (in some thread from the pool) when a source which didn't finish
+     * in its budget provides its results.
+     *
+     * @return the results of the sources that finished (in the same order of the sources). The sources that failed
+     * are logged and don't contribute to the results.
+     * @throws InterruptedException if the calling thread is interrupted while waiting (in which case the sources
+     * which are not in a session are cancelled).
+     */
+    public static List<Object> compute(Object sessionKey, List<Source> sources, ICallback0<Object> onLateResults)
+            throws InterruptedException {
+        if (onLateResults == null) {
+            sessionKey = null;
+        }
+        List<SourceTask> tasks = getTasks(sessionKey, sources);
+        long initial = System.currentTimeMillis();
+
+        List<Object> ret = new ArrayList<Object>();
+        try {
+            getResults(sources, tasks, onLateResults, initial, ret);
+        } catch (InterruptedException e) {
+            if (sessionKey == null) {
+                for (SourceTask task : tasks) {
+                    task.cancelAndRemove();
+                }
+            }
+            throw e;
+        }
+        return ret;
+    }
+
+    private static void getResults(List<Source> sources, List<SourceTask> tasks, ICallback0<Object> onLateResults,
+            long initial, List<Object> ret) throws InterruptedException {
+        for (int i = 0; i < tasks.size(); i++) {
+            SourceTask task = tasks.get(i);
+            Collection<Object> results;
+            try {
+                if (onLateResults == null) {
+                    results = task.get();
+                } else {
+                    long timeout = sources.get(i).timeBudgetMillis - (System.currentTimeMillis() - initial);
+                    try {
+                        results = task.get(Math.max(0, timeout), TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        if (task.markLate(onLateResults)) {
+                            LATE_SOURCES.inc();
+                            continue;
+                        }
+                        results = task.get();
+                    }
+                }
+            } catch (CancellationException e) {
+                continue;
+            } catch (ExecutionException e) {
+                Log.log("Error computing completions from: " + task.source.name, e.getCause());
+                continue;
+            }
+            if (results != null) {
+                ret.addAll(results);
+            }
+        }
+    }
+}
@@ -13,6 +13,7 @@ package org.python.pydev.editor.codecompletion;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -24,6 +25,7 @@ import java.util.StringTokenizer;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
@@ -75,6 +77,7 @@ import org.python.pydev.shared_core.structure.ImmutableTuple;
 import org.python.pydev.shared_core.structure.LinkedListWarningOnSlowOperations;
 import org.python.pydev.shared_core.structure.OrderedMap;
 import org.python.pydev.shared_core.structure.Tuple;
+import org.python.pydev.shared_core.structure.Tuple4;
 import org.python.pydev.shared_ui.UIConstants;
 
 /**
@@ -456,11 +459,24 @@ public class PyCodeCompletion extends AbstractPyCodeCompletion {
         }
     }
 
+    /**
+     * Time (in millis) that the globals completion waits for the completions of the module (when the completion
+     * results may be streamed -- i.e.: CompletionRequest.onLateResults is set).
+     */
+    private static final long MODULE_SOURCE_BUDGET_MILLIS = 1000;
+
+    /**
+     * Time (in millis) that the globals completion waits for the completions of each participant.
+     */
+    private static final long PARTICIPANT_SOURCE_BUDGET_MILLIS = 300;
+
     /**
      * Does a code-completion that will retrieve the globals in the module
+     * 
+     * The module and each participant are computed as a separate source in parallel (each with its own state).
      * @throws MisconfigurationException 
      */
-    private void doGlobalsCompletion(CompletionRequest request, ICodeCompletionASTManager astManager,
+    private void doGlobalsCompletion(final CompletionRequest request, final ICodeCompletionASTManager astManager,
             List<Object> tokensList, ICompletionState state) throws CompletionRecursionException,
                     MisconfigurationException {
         state.setActivationToken(request.activationToken);
@@ -469,22 +485,120 @@ public class PyCodeCompletion extends AbstractPyCodeCompletion {
             Log.addLogLevel();
         }
 
-        IModule module = request.getModule();
+        //Computed here as the request is not thread-safe (and the sources only access what's cached).
+        final IModule module = request.getModule();
         if (module == null) {
             Log.remLogLevel();
             Log.toLogFile(this, "END astManager.getCompletionsForToken: null module");
             return;
         }
-        IToken[] comps = astManager.getCompletionsForModule(module, state, true, true);
+        request.resolveModule();
+        request.getPySelection();
+
+        List<CompletionSources.Source> sources = new ArrayList<CompletionSources.Source>();
+        final ICompletionState moduleState = createSourceState(state);
+        sources.add(new CompletionSources.Source("module", MODULE_SOURCE_BUDGET_MILLIS) {
+
+            @Override
+            public Collection<Object> compute() throws Exception {
+                //Keeps the caches alive while computing (this may finish after the request ended).
+                boolean started = request.nature.startRequests();
+                try {
+                    IToken[] comps = astManager.getCompletionsForModule(module, moduleState, true, true);
+                    return new ArrayList<Object>(Arrays.asList(comps));
+                } catch (CompletionRecursionException e) {
+                    //Expected when the analysis is stopped (too much time or cancelled): not an error.
+                    if (onCompletionRecursionException != null) {
+                        onCompletionRecursionException.call(e);
+                    }
+                    if (DebugSettings.DEBUG_CODE_COMPLETION) {
+                        Log.toLogFile(e);
+                    }
+                    return null;
+                } finally {
+                    if (started) {
+                        request.nature.endRequests();
+                    }
+                }
+            }
+        });
+
+        List<IToken> importedModules = getTokenImportedModules(module, state);
+        List<?> participants = ExtensionHelper.getParticipants(ExtensionHelper.PYDEV_COMPLETION);
+        for (Object o : participants) {
+            final IPyDevCompletionParticipant participant = (IPyDevCompletionParticipant) o;
+            final ICompletionState participantState = createSourceState(state);
+            participantState.setTokenImportedModules(importedModules);
+            sources.add(new CompletionSources.Source(participant.getClass().getName(),
+                    PARTICIPANT_SOURCE_BUDGET_MILLIS) {
+
+                @Override
+                public Collection<Object> compute() throws Exception {
+                    boolean started = request.nature.startRequests();
+                    try {
+                        return participant.getGlobalCompletions(request, participantState);
+                    } finally {
+                        if (started) {
+                            request.nature.endRequests();
+                        }
+                    }
+                }
+            });
+        }
+
+        try {
+            tokensList.addAll(CompletionSources.compute(getCompletionSessionKey(request), sources,
+                    request.onLateResults));
+        } catch (InterruptedException e) {
+            //Keep the interrupted state for the caller.
+            Thread.currentThread().interrupt();
+            throw new CompletionRecursionException("Stopping analysis: completion was interrupted.");
+        }
         if (DebugSettings.DEBUG_CODE_COMPLETION) {
             Log.remLogLevel();
             Log.toLogFile(this, "END astManager.getCompletionsForToken");
         }
+    }
+
+    /**
+     * @return a new state for a completion source (with the same info of the passed state but without sharing its
+     * memory, as the sources are computed in parallel).
+     */
+    private static ICompletionState createSourceState(ICompletionState state) {
+        ICompletionState ret = new CompletionState(state.getLine(), state.getCol(), state.getActivationToken(),
+                state.getNature(), state.getQualifier());
+        ret.setIsInCalltip(state.getIsInCalltip());
+        return ret;
+    }
 
-        for (int i = 0; i < comps.length; i++) {
-            tokensList.add(comps[i]);
+    /**
+     * @return the tokens imported in the module (and in the local scope) for the participants (which is the same
+     * info the AST manager would set in the state when getting the completions for the module).
+     */
+    private static List<IToken> getTokenImportedModules(IModule module, ICompletionState state) {
+        List<IToken> importedModules = new ArrayList<IToken>();
+        int line = state.getLine();
+        if (line >= 0) {
+            ILocalScope localScope = module.getLocalScope(line, state.getCol());
+            if (localScope != null) {
+                importedModules.addAll(localScope.getLocalImportedModules(line + 1, state.getCol() + 1,
+                        module.getName()));
+            }
         }
-        tokensList.addAll(getGlobalsFromParticipants(request, state));
+        importedModules.addAll(Arrays.asList(module.getTokenImportedModules()));
+        return importedModules;
+    }
+
+    /**
+     * @return the key identifying the request (the completion sources are reused while the document isn't changed).
+     */
+    private static Object getCompletionSessionKey(CompletionRequest request) {
+        long stamp = -1;
+        if (request.doc instanceof IDocumentExtension4) {
+            stamp = ((IDocumentExtension4) request.doc).getModificationStamp();
+        }
+        return new Tuple4<Object, Integer, Long, String>(request.doc, request.documentOffset, stamp,
+                request.activationToken + "|" + request.qualifier);
     }
 
     /**
@@ -568,23 +682,6 @@ public class PyCodeCompletion extends AbstractPyCodeCompletion {
         }
     }
 
-    /**
-     * @return completions added from contributors
-     * @throws MisconfigurationException 
-     */
-    @SuppressWarnings({ "unchecked", "rawtypes" })
-    private Collection<Object> getGlobalsFromParticipants(CompletionRequest request, ICompletionState state)
-            throws MisconfigurationException {
-        ArrayList ret = new ArrayList();
-
-        List participants = ExtensionHelper.getParticipants(ExtensionHelper.PYDEV_COMPLETION);
-        for (Iterator iter = participants.iterator(); iter.hasNext();) {
-            IPyDevCompletionParticipant participant = (IPyDevCompletionParticipant) iter.next();
-            ret.addAll(participant.getGlobalCompletions(request, state));
-        }
-        return ret;
-    }
-
     /**
      * @param request this is the request for the completion
      * @param theList OUT - returned completions are added here. (IToken instances)
@@ -18,6 +18,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.contentassist.ContentAssistEvent;
 import org.eclipse.jface.text.contentassist.ICompletionListener;
@@ -36,8 +37,10 @@ import org.python.pydev.editor.IPySyntaxHighlightingAndCodeCompletionEditor;
 import org.python.pydev.editor.codecompletion.templates.PyTemplateCompletionProcessor;
 import org.python.pydev.plugin.PydevPlugin;
 import org.python.pydev.plugin.nature.SystemPythonNature;
+import org.python.pydev.shared_core.callbacks.ICallback0;
 import org.python.pydev.shared_core.string.StringUtils;
 import org.python.pydev.shared_ui.content_assist.AbstractCompletionProcessorWithCycling;
+import org.python.pydev.shared_ui.utils.RunInUiThread;
 import org.python.pydev.ui.interpreters.ChooseInterpreterManager;
 
 /**
@@ -150,6 +153,7 @@ public class PythonCompletionProcessor extends AbstractCompletionProcessorWithCy
             try {
                 CompletionRequest request = new CompletionRequest(edit.getEditorFile(), nature, doc, documentOffset,
                         codeCompletion);
+                request.onLateResults = createOnLateResultsCallback(viewer, doc, documentOffset);
 
                 //SECOND: getting code completions and deciding if templates should be shown too.
                 //Get code completion proposals
@@ -199,6 +203,41 @@ public class PythonCompletionProcessor extends AbstractCompletionProcessorWithCy
         return proposals;
     }
 
+    /**
+     * @return a callback that shows the proposals that only became available after the popup was shown (if the
+     * popup is still showing the python proposals for the same document and offset).
+     */
+    private ICallback0<Object> createOnLateResultsCallback(final ITextViewer viewer, final IDocument doc,
+            final int documentOffset) {
+        final long stamp = doc instanceof IDocumentExtension4 ? ((IDocumentExtension4) doc).getModificationStamp()
+                : -1;
+        return new ICallback0<Object>() {
+
+            public Object call() {
+                RunInUiThread.async(new Runnable() {
+
+                    public void run() {
+                        if (viewer.getDocument() != doc || viewer.getSelectedRange().x != documentOffset) {
+                            return;
+                        }
+                        if (doc instanceof IDocumentExtension4
+                                && ((IDocumentExtension4) doc).getModificationStamp() != stamp) {
+                            return;
+                        }
+                        if (whatToShow != SHOW_ONLY_TEMPLATES) {
+                            return; //the user already cycled to the templates
+                        }
+                        whatToShow = SHOW_ALL;
+                        if (!contentAssistant.refreshProposals()) {
+                            whatToShow = SHOW_ONLY_TEMPLATES;
+                        }
+                    }
+                });
+                return null;
+            }
+        };
+    }
+
     /**
      * Returns the python proposals as a list.
      * First parameter of tuple is a list and second is a Boolean object indicating whether the templates
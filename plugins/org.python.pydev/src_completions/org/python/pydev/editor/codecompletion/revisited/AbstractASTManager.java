@@ -16,6 +16,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -80,6 +82,24 @@ public abstract class AbstractASTManager implements ICodeCompletionASTManager {
 
     private static final boolean DEBUG_CACHE = false;
 
+    /**
+     * Whether the wild imports of a module may be resolved in parallel (may be turned off to resolve them one after
+     * the other with the same state, as was always done -- i.e.: for comparing both approaches).
+     */
+    public static volatile boolean resolveWildImportsInParallel = true;
+
+    /**
+     * Modules with less wild imports than this resolve them in the calling thread.
+     */
+    private static final int MIN_WILD_IMPORTS_TO_RESOLVE_IN_PARALLEL = 2;
+
+    /**
+     * Bounded pool where the wild imports are resolved (the wild imports found while resolving a wild import in the
+     * pool are resolved in the same thread -- see: getStateToBranch).
+     */
+    private static final ForkJoinPool wildImportsPool = new ForkJoinPool(Math.max(2,
+            Math.min(4, Runtime.getRuntime().availableProcessors())));
+
     private final AssignAnalysis assignAnalysis = new AssignAnalysis();
 
     public AbstractASTManager() {
@@ -1573,15 +1593,99 @@ public abstract class AbstractASTManager implements ICodeCompletionASTManager {
         //wild imports: recursively go and get those completions. Must be done before getting the builtins, because
         //when we do a wild import, we may get tokens that are filtered, and there's a chance that the builtins get
         //filtered out if they are gotten from a wild import and not from the module itself.
-        for (int i = 0; i < wildImportedModules.length; i++) {
+        if (resolveWildImportsInParallel && wildImportedModules.length >= MIN_WILD_IMPORTS_TO_RESOLVE_IN_PARALLEL
+                && getStateToBranch(state) != null) {
+            getCompletionsForWildImportsInParallel(state, current, completions, wildImportedModules);
 
-            //for wild imports, we must get the global completions with __all__ filtered
-            IToken name = wildImportedModules[i];
-            getCompletionsForWildImport(state, current, completions, name);
+        } else {
+            for (int i = 0; i < wildImportedModules.length; i++) {
+
+                //for wild imports, we must get the global completions with __all__ filtered
+                IToken name = wildImportedModules[i];
+                getCompletionsForWildImport(state, current, completions, name);
+            }
         }
         return completions;
     }
 
+    /**
+     * Resolves a wild import (in its own state) in the wild imports pool or in the calling thread.
+     */
+    private final class WildImportTask extends RecursiveTask<List<IToken>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ICompletionState state;
+        private final IModule current;
+        private final IToken name;
+
+        private WildImportTask(ICompletionState state, IModule current, IToken name) {
+            this.state = state;
+            this.current = current;
+            this.name = name;
+        }
+
+        @Override
+        protected List<IToken> compute() {
+            List<IToken> completions = new ArrayList<IToken>();
+            getCompletionsForWildImport(state, current, completions, name);
+            return completions;
+        }
+    }
+
+    /**
+     * @return the CompletionState which keeps the memories and flags of the passed state (or null if it's not
+     * a state we know how to copy or if it's already resolving a wild import in a branch).
+     */
+    private static CompletionState getStateToBranch(ICompletionState state) {
+        CompletionState base = null;
+        if (state instanceof CompletionState) {
+            base = (CompletionState) state;
+        } else if (state instanceof CompletionStateWrapper) {
+            base = ((CompletionStateWrapper) state).getWrapped();
+        }
+        if (base == null || base.isWildImportBranch()) {
+            return null;
+        }
+        return base;
+    }
+
+    /**
+     * Same as calling getCompletionsForWildImport for each wild import, but each one is resolved in parallel in its
+     * own copy of the state (so, what's gotten for a wild import doesn't depend on the order in which they're
+     * resolved). The completions are added in the same order of the wild imports and the completion cache of each
+     * copy is merged back into the cache of the passed state.
+     *
+     * The wild imports found inside a branch are resolved in the branch.
+     */
+    private void getCompletionsForWildImportsInParallel(ICompletionState state, IModule current,
+            List<IToken> completions, IToken[] wildImportedModules) {
+        CompletionState base = getStateToBranch(state);
+        List<CompletionState> branches = new ArrayList<CompletionState>(wildImportedModules.length);
+        List<WildImportTask> tasks = new ArrayList<WildImportTask>(wildImportedModules.length);
+        for (IToken name : wildImportedModules) {
+            CompletionState copy = base.getBranchCopy();
+            copy.setActivationToken(state.getActivationToken());
+            copy.setLocalImportsGotten(state.getLocalImportsGotten());
+            copy.setLine(state.getLine());
+            copy.setCol(state.getCol());
+            branches.add(copy);
+            tasks.add(new WildImportTask(copy, current, name));
+        }
+
+        //The first one is resolved in the calling thread while the others are resolved in the pool.
+        for (int i = 1; i < tasks.size(); i++) {
+            wildImportsPool.execute(tasks.get(i));
+        }
+        tasks.get(0).invoke();
+        for (WildImportTask task : tasks) {
+            completions.addAll(task.join());
+        }
+        for (CompletionState branch : branches) {
+            base.mergeBranchCache(branch);
+        }
+    }
+
     /**
      * @return the builtin completions
      */
@@ -6,6 +6,8 @@
  */
 package org.python.pydev.editor.codecompletion.revisited;
 
+import java.util.Map;
+
 import org.python.pydev.core.ICompletionCache;
 import org.python.pydev.shared_core.cache.CacheMapWrapper;
 import org.python.pydev.shared_core.cache.LRUMap;
@@ -21,4 +23,24 @@ public final class CompletionCache extends CacheMapWrapper<Object, Object> imple
         super(new LRUMap<Object, Object>(200));
     }
 
+    /**
+     * @return a new cache with the same entries (changing one doesn't change the other).
+     */
+    /*default*/CompletionCache copy() {
+        CompletionCache ret = new CompletionCache();
+        ret.cache.putAll(cache);
+        return ret;
+    }
+
+    /**
+     * Adds the entries of the given cache which are not in this one (i.e.: entries added to a copy of this cache).
+     */
+    /*default*/void addMissing(CompletionCache other) {
+        for (Map.Entry<Object, Object> entry : other.cache.entrySet()) {
+            if (!cache.containsKey(entry.getKey())) {
+                cache.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
 }
@@ -28,6 +28,7 @@ import org.python.pydev.core.IModule;
 import org.python.pydev.core.IPythonNature;
 import org.python.pydev.core.IToken;
 import org.python.pydev.core.structure.CompletionRecursionException;
+import org.python.pydev.editor.codecompletion.CompletionSources;
 import org.python.pydev.editor.codecompletion.PyCodeCompletionPreferencesPage;
 import org.python.pydev.editor.codecompletion.revisited.visitors.Definition;
 import org.python.pydev.shared_core.SharedCorePlugin;
@@ -45,17 +46,17 @@ public final class CompletionState implements ICompletionState {
     private String qualifier;
     private int levelGetCompletionsUnpackingObject = 0;
 
-    private final Memo<String> memory = new Memo<String>();
-    private final Memo<Definition> definitionMemory = new Memo<Definition>();
-    private final Memo<IModule> wildImportMemory = new Memo<IModule>();
-    private final Memo<String> importedModsCalled = new Memo<String>();
-    private final Memo<String> findMemory = new Memo<String>();
-    private final Memo<String> resolveImportMemory = new Memo<String>();
-    private final Memo<String> findDefinitionMemory = new Memo<String>();
-    private final Memo<String> findLocalDefinedDefinitionMemory = new Memo<String>();
+    private Memo<String> memory = new Memo<String>();
+    private Memo<Definition> definitionMemory = new Memo<Definition>();
+    private Memo<IModule> wildImportMemory = new Memo<IModule>();
+    private Memo<String> importedModsCalled = new Memo<String>();
+    private Memo<String> findMemory = new Memo<String>();
+    private Memo<String> resolveImportMemory = new Memo<String>();
+    private Memo<String> findDefinitionMemory = new Memo<String>();
+    private Memo<String> findLocalDefinedDefinitionMemory = new Memo<String>();
     private Stack<Memo<IToken>> findResolveImportMemory = new Stack<Memo<IToken>>();
-    private final Memo<String> findModuleCompletionsMemory = new Memo<String>();
-    private final Memo<String> findSourceFromCompiledMemory = new Memo<String>(1); //max is 1 for this one!
+    private Memo<String> findModuleCompletionsMemory = new Memo<String>();
+    private Memo<String> findSourceFromCompiledMemory = new Memo<String>(1); //max is 1 for this one!
 
     private boolean builtinsGotten = false;
     private boolean localImportsGotten = false;
@@ -67,6 +68,7 @@ public final class CompletionState implements ICompletionState {
     private String fullActivationToken;
     private long initialMillis = 0;
     private long maxMillisToComplete;
+    private boolean wildImportBranch = false;
 
     public ICompletionState getCopy() {
         return new CompletionStateWrapper(this);
@@ -77,10 +79,70 @@ public final class CompletionState implements ICompletionState {
                 this.completionCache);
         state.nature = nature;
         state.findResolveImportMemory = findResolveImportMemory;
+        state.wildImportBranch = wildImportBranch;
 
         return state;
     }
 
+    /**
+     * @return a state with a copy of everything in this state (memories, flags, levels and cache), so that it may be
+     * used in another thread to resolve a wild import: nothing changed in the returned state is seen in this one (and
+     * vice versa).
+     */
+    /*default*/CompletionState getBranchCopy() {
+        ICompletionCache cache = completionCache instanceof CompletionCache ? ((CompletionCache) completionCache)
+                .copy() : new CompletionCache();
+        CompletionState state = new CompletionState(line, col, activationToken, nature, qualifier, cache);
+        state.wildImportBranch = true;
+        state.levelGetCompletionsUnpackingObject = levelGetCompletionsUnpackingObject;
+        state.memory = memory.copy();
+        state.definitionMemory = definitionMemory.copy();
+        state.wildImportMemory = wildImportMemory.copy();
+        state.importedModsCalled = importedModsCalled.copy();
+        state.findMemory = findMemory.copy();
+        state.resolveImportMemory = resolveImportMemory.copy();
+        state.findDefinitionMemory = findDefinitionMemory.copy();
+        state.findLocalDefinedDefinitionMemory = findLocalDefinedDefinitionMemory.copy();
+        state.findResolveImportMemory = new Stack<Memo<IToken>>();
+        for (Memo<IToken> memo : findResolveImportMemory) {
+            state.findResolveImportMemory.push(memo.copy());
+        }
+        state.findModuleCompletionsMemory = findModuleCompletionsMemory.copy();
+        state.findSourceFromCompiledMemory = findSourceFromCompiledMemory.copy();
+        state.builtinsGotten = builtinsGotten;
+        state.localImportsGotten = localImportsGotten;
+        state.isInCalltip = isInCalltip;
+        state.lookingForInstance = lookingForInstance;
+        if (tokenImportedModules != null) {
+            state.tokenImportedModules = new ArrayList<IToken>(tokenImportedModules);
+        }
+        state.fullActivationToken = fullActivationToken;
+        state.initialMillis = initialMillis;
+        state.maxMillisToComplete = maxMillisToComplete;
+        state.foundSameDefinitionMemory.addAll(foundSameDefinitionMemory);
+        state.alreadySearchedInAssign.addAll(alreadySearchedInAssign);
+        state.assign = assign;
+        return state;
+    }
+
+    /**
+     * Merges the completion cache of a state gotten from getBranchCopy into the cache of this state (so that what
+     * was cached while resolving the wild import in the branch is not computed again).
+     */
+    /*default*/void mergeBranchCache(CompletionState branch) {
+        if (completionCache instanceof CompletionCache && branch.completionCache instanceof CompletionCache) {
+            ((CompletionCache) completionCache).addMissing((CompletionCache) branch.completionCache);
+        }
+    }
+
+    /**
+     * @return whether this state was gotten from getBranchCopy (the wild imports resolved with it aren't branched
+     * again, so that the recursion memories bound the work done in the branch as they'd do without branches).
+     */
+    /*default*/boolean isWildImportBranch() {
+        return wildImportBranch;
+    }
+
     /**
      * this is a class that can act as a memo and check if something is defined more than 'n' times
      *
@@ -138,6 +200,17 @@ public final class CompletionState implements ICompletionState {
 
             return occuredMoreThanMax;
         }
+
+        /**
+         * @return a memo with the same number of occurrences (which may be changed without changing this one).
+         */
+        public Memo<E> copy() {
+            Memo<E> ret = new Memo<E>(max);
+            for (Map.Entry<IModule, Map<E, Integer>> entry : memo.entrySet()) {
+                ret.memo.put(entry.getKey(), new HashMap<E, Integer>(entry.getValue()));
+            }
+            return ret;
+        }
     }
 
     /**
@@ -253,6 +326,10 @@ public final class CompletionState implements ICompletionState {
     }
 
     public void checkMaxTimeForCompletion() throws CompletionRecursionException {
+        if (CompletionSources.isCancelled() || Thread.currentThread().isInterrupted()) {
+            //i.e.: the completion source computing it was cancelled.
+            throw new CompletionRecursionException("Stopping analysis: completion was cancelled.");
+        }
         if (this.initialMillis <= 0) {
             this.initialMillis = System.currentTimeMillis();
             if (SharedCorePlugin.inTestMode()) {
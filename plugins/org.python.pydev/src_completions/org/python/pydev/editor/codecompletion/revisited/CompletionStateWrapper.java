@@ -26,6 +26,13 @@ public final class CompletionStateWrapper implements ICompletionState {
         this.localImportsGotten = state.getLocalImportsGotten();
     }
 
+    /**
+     * @return the state wrapped (where the things that are not kept in the wrapper are kept).
+     */
+    /*default*/CompletionState getWrapped() {
+        return (CompletionState) wrapped;
+    }
+
     //things that are not delegated ------------------------------------------------------------------------------------
     private String activationToken;
     private int col = -1;
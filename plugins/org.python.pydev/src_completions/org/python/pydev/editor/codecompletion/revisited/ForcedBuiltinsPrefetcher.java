@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.editor.codecompletion.revisited;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.python.pydev.core.IInterpreterInfo;
+import org.python.pydev.core.IInterpreterManager;
+import org.python.pydev.core.IInterpreterManagerListener;
+import org.python.pydev.core.ISystemModulesManager;
+import org.python.pydev.core.log.Log;
+import org.python.pydev.editor.codecompletion.revisited.modules.CompiledModule;
+import org.python.pydev.editor.codecompletion.shell.AbstractShell;
+import org.python.pydev.plugin.PydevPlugin;
+import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+import org.python.pydev.shared_core.string.StringUtils;
+
+/**
+ * Introspects the forced builtins of the configured interpreters in the background (using some shells in parallel)
+ * so that the information is already in the disk cache of the CompiledModules when it's first needed for a
+ * code-completion (otherwise the first completion requesting numpy, wx, etc. could take seconds).
+ *
+ * The modules which were already requested are written to a file in the interpreter io directory, so, on a restart,
+ * modules which don't give any info (i.e.: not installed) aren't requested again (only when the interpreter
+ * is configured again).
+ *
+ * @author Fabio
+ */
+public class ForcedBuiltinsPrefetcher implements IInterpreterManagerListener {
+
+    private static final String PREFETCHED_FILE_NAME = "forced_builtins_prefetched.txt";
+
+    private final PrefetchJob job = new PrefetchJob();
+
+    /**
+     * Starts tracking the interpreter managers and prefetches the information for the interpreters already
+     * configured (only what's still not in the cache).
+     */
+    public void start() {
+        IInterpreterManager[] managers = PydevPlugin.getAllInterpreterManagers();
+        for (IInterpreterManager manager : managers) {
+            if (manager != null) {
+                manager.addListener(this);
+                job.addToPrefetch(manager.getInterpreterInfos(), false);
+            }
+        }
+    }
+
+    public void stop() {
+        job.cancel();
+    }
+
+    public void afterSetInfos(IInterpreterManager manager, IInterpreterInfo[] interpreterInfos) {
+        job.addToPrefetch(interpreterInfos, true);
+    }
+
+    private static final class PrefetchJob extends Job {
+
+        /**
+         * Interpreter info to whether the modules which were already requested should be requested again.
+         */
+        private final Map<IInterpreterInfo, Boolean> pending = new LinkedHashMap<IInterpreterInfo, Boolean>();
+        private final Object lock = new Object();
+
+        private PrefetchJob() {
+            super("Prefetch forced builtins");
+            setPriority(Job.DECORATE);
+            setSystem(true);
+        }
+
+        private void addToPrefetch(IInterpreterInfo[] infos, boolean force) {
+            if (infos == null || infos.length == 0) {
+                return;
+            }
+            synchronized (lock) {
+                for (IInterpreterInfo info : infos) {
+                    Boolean current = pending.get(info);
+                    pending.put(info, force || (current != null && current));
+                }
+            }
+            //Give some time for the shells to be restarted after a configuration change.
+            schedule(2000);
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            while (!monitor.isCanceled()) {
+                IInterpreterInfo info;
+                boolean force;
+                synchronized (lock) {
+                    Iterator<Map.Entry<IInterpreterInfo, Boolean>> it = pending.entrySet().iterator();
+                    if (!it.hasNext()) {
+                        break;
+                    }
+                    Map.Entry<IInterpreterInfo, Boolean> entry = it.next();
+                    it.remove();
+                    info = entry.getKey();
+                    force = entry.getValue();
+                }
+                try {
+                    prefetch(info, force, monitor);
+                } catch (Exception e) {
+                    Log.log(e);
+                }
+            }
+            return Status.OK_STATUS;
+        }
+    }
+
+    /**
+     * Requests the info on the forced builtins of the given interpreter which still aren't in the cache.
+     *
+     * @param force if false, modules requested in a previous prefetch aren't requested again.
+     */
+    /*default*/static void prefetch(final IInterpreterInfo info, boolean force, final IProgressMonitor monitor) {
+        final ISystemModulesManager manager = info.getModulesManager();
+        if (manager == null) {
+            return;
+        }
+        File prefetchedFile = null;
+        File ioDirectory = manager.getIoDirectory();
+        if (ioDirectory != null) {
+            prefetchedFile = new File(ioDirectory, PREFETCHED_FILE_NAME);
+        }
+        Set<String> alreadyRequested = new HashSet<String>();
+        if (!force && prefetchedFile != null && prefetchedFile.exists()) {
+            try {
+                alreadyRequested.addAll(StringUtils.splitAndRemoveEmptyTrimmed(
+                        FileUtils.getFileContents(prefetchedFile), '\n'));
+            } catch (Exception e) {
+                Log.log(e);
+            }
+        }
+
+        final ConcurrentLinkedQueue<String> toRequest = new ConcurrentLinkedQueue<String>();
+        FastStringBuffer requested = new FastStringBuffer();
+        for (Iterator<String> it = info.forcedLibsIterator(); it.hasNext();) {
+            String name = it.next();
+            requested.append(name).append('\n');
+            if (!alreadyRequested.contains(name) && CompiledModule.needsPrefetch(name, manager)) {
+                toRequest.add(name);
+            }
+        }
+        if (toRequest.isEmpty()) {
+            return;
+        }
+
+        int workers = Math.min(AbstractShell.MAX_PREFETCH_SHELLS, Runtime.getRuntime().availableProcessors());
+        workers = Math.max(1, Math.min(workers, toRequest.size()));
+        Thread[] threads = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            final int shellId = AbstractShell.getPrefetchShellId(i);
+            threads[i] = new Thread("Prefetch forced builtins: " + i) {
+                @Override
+                public void run() {
+                    try {
+                        String name;
+                        while (!monitor.isCanceled() && (name = toRequest.poll()) != null) {
+                            try {
+                                CompiledModule.prefetchToCache(name, manager, shellId);
+                            } catch (Exception e) {
+                                Log.log("Error prefetching: " + name, e);
+                            }
+                        }
+                    } finally {
+                        //The prefetch shells are only used here.
+                        AbstractShell.stopServerShell(info, shellId);
+                    }
+                }
+            };
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+
+        if (!monitor.isCanceled() && prefetchedFile != null) {
+            FileUtils.writeStrToFile(requested.toString(), prefetchedFile);
+        }
+    }
+}
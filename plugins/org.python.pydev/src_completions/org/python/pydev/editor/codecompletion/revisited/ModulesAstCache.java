@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.editor.codecompletion.revisited;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.python.pydev.editor.codecompletion.revisited.modules.SourceModule;
+import org.python.pydev.parser.jython.AstBinarySerializer;
+import org.python.pydev.parser.jython.SimpleNode;
+import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.metrics.Counter;
+import org.python.pydev.shared_core.metrics.Metrics;
+
+/**
+ * Keeps the ASTs of source modules in the disk, so that when a module which was removed from the
+ * ModulesManagerCache is requested again, it may be restored without having to parse its contents again (the
+ * library modules are requested over and over during code-analysis and code-completion and don't usually change).
+ *
+ * Each entry is only valid for the same file (absolute path), size, modification time and grammar version it was
+ * created for (any other error reading it is also considered a cache miss).
+ */
+final class ModulesAstCache {
+
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Files changed in this interval (in millis) are not cached as the modification time resolution may not be
+     * enough to detect a subsequent change.
+     */
+    private static final long MIN_AGE_TO_CACHE = 2000;
+
+    private static final Counter CACHE_HITS = Metrics.counter("modules.ast_cache.hits");
+    private static final Counter CACHE_MISSES = Metrics.counter("modules.ast_cache.misses");
+
+    private final File dir;
+
+    ModulesAstCache(File dir) {
+        this.dir = dir;
+    }
+
+    private File getCacheFile(String moduleName) {
+        return new File(dir, moduleName + ".ast");
+    }
+
+    /**
+     * @return the module with the AST restored from the disk or null if it's not available (or not valid).
+     */
+    /*default*/SourceModule getModule(String name, File f, long size, long lastModified, int grammarVersion) {
+        File cacheFile = getCacheFile(name);
+        if (!cacheFile.exists()) {
+            CACHE_MISSES.inc();
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            try {
+                if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(FileUtils.getFileAbsolutePath(f))
+                        || in.readLong() != size || in.readLong() != lastModified || in.readInt() != grammarVersion) {
+                    CACHE_MISSES.inc();
+                    return null;
+                }
+                int len = in.readInt();
+                if (len < 0 || len > cacheFile.length()) {
+                    throw new IOException("Invalid length: " + len);
+                }
+                byte[] bytes = new byte[len];
+                in.readFully(bytes);
+                SimpleNode ast = AstBinarySerializer.read(bytes, 0, bytes.length);
+                CACHE_HITS.inc();
+                return new SourceModule(name, f, ast, null);
+            } finally {
+                in.close();
+            }
+        } catch (Exception e) {
+            //Corrupted (or written by a different version): just remove it (it'll be written again).
+            CACHE_MISSES.inc();
+            cacheFile.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Saves the AST of the passed module (only modules without errors are saved).
+     *
+     * @param size the size of the file when the module was created.
+     * @param lastModified the modification time of the file when the module was created.
+     */
+    /*default*/void putModule(SourceModule module, File f, long size, long lastModified, int grammarVersion) {
+        SimpleNode ast = module.getAst();
+        if (ast == null || module.parseError != null
+                || System.currentTimeMillis() - lastModified < MIN_AGE_TO_CACHE) {
+            return;
+        }
+        File tempFile = null;
+        try {
+            byte[] bytes = AstBinarySerializer.write(ast);
+            if (!dir.exists()) {
+                dir.mkdirs();
+            }
+            //Written in a temporary file and then moved so that readers never see a partial file.
+            tempFile = File.createTempFile("ast", ".tmp", dir);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            try {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(FileUtils.getFileAbsolutePath(f));
+                out.writeLong(size);
+                out.writeLong(lastModified);
+                out.writeInt(grammarVersion);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            } finally {
+                out.close();
+            }
+            Files.move(tempFile.toPath(), getCacheFile(module.getName()).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            tempFile = null;
+        } catch (IOException e) {
+            //Unable to save it (or the AST has something not supported): it'll just be parsed again later on.
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Removes all the ASTs saved.
+     */
+    /*default*/void clear() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                if (f.isFile()) {
+                    f.delete();
+                }
+            }
+        }
+    }
+}
@@ -12,9 +12,11 @@
 package org.python.pydev.editor.codecompletion.revisited;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -194,6 +196,87 @@ public abstract class ModulesManager implements IModulesManager {
     protected final PyPublicTreeMap<ModulesKey, ModulesKey> modulesKeys = new PyPublicTreeMap<ModulesKey, ModulesKey>();
     protected final Object modulesKeysLock = new Object();
 
+    /**
+     * Changed whenever the keys of this manager change (so, a table merging the keys of many managers can know if
+     * it's still valid by checking the stamps of the managers it uses -- see: ModulesResolutionTable).
+     *
+     * Note: only changed with the modulesKeysLock held.
+     */
+    private volatile long modulesKeysStamp;
+
+    /**
+     * The names of the modules changed (added, removed or replaced) after modulesKeysChangesStartStamp (one entry for
+     * each increment in the modulesKeysStamp), so that a table using this manager can be updated with only the names
+     * that changed. It's restarted when all the keys change at once (or when it grows too much).
+     *
+     * Note: only accessed with the modulesKeysLock held.
+     */
+    private final List<String> modulesKeysChanges = new ArrayList<String>();
+    private long modulesKeysChangesStartStamp;
+    private static final int MAX_MODULES_KEYS_CHANGES = 1000;
+
+    /**
+     * Changed whenever the names of the temporary modules of this manager change.
+     */
+    private volatile long temporaryModulesStamp;
+
+    /**
+     * Must be called whenever the modulesKeys are changed (when all the keys may have changed: if a single key
+     * changed, onModulesKeyChanged should be used).
+     */
+    protected final void onModulesKeysChanged() {
+        synchronized (modulesKeysLock) {
+            modulesKeysChanges.clear();
+            modulesKeysStamp++;
+            modulesKeysChangesStartStamp = modulesKeysStamp;
+        }
+    }
+
+    /**
+     * Must be called whenever the key with the given name is added, removed or replaced (with the modulesKeysLock
+     * held).
+     */
+    private void onModulesKeyChanged(String name) {
+        if (modulesKeysChanges.size() >= MAX_MODULES_KEYS_CHANGES) {
+            onModulesKeysChanged();
+            return;
+        }
+        modulesKeysChanges.add(name);
+        modulesKeysStamp++;
+    }
+
+    /*default*/long getModulesKeysStamp() {
+        return modulesKeysStamp;
+    }
+
+    /**
+     * @return the names of the modules changed after the given stamp or null if those are not available (in which
+     * case all the keys must be considered changed).
+     */
+    /*default*/List<String> getModulesKeysChangedSince(long stamp) {
+        synchronized (modulesKeysLock) {
+            if (stamp < modulesKeysChangesStartStamp) {
+                return null;
+            }
+            int size = modulesKeysChanges.size();
+            int from = (int) Math.min(stamp - modulesKeysChangesStartStamp, size);
+            return new ArrayList<String>(modulesKeysChanges.subList(from, size));
+        }
+    }
+
+    /**
+     * @return the key for the module with the given name or null if this manager doesn't have it.
+     */
+    /*default*/ModulesKey getModulesKey(String name) {
+        synchronized (modulesKeysLock) {
+            return this.modulesKeys.get(new ModulesKey(name, null));
+        }
+    }
+
+    /*default*/long getTemporaryModulesStamp() {
+        return temporaryModulesStamp;
+    }
+
     protected static final ModulesManagerCache cache = new ModulesManagerCache();
 
     /**
@@ -457,6 +540,7 @@ public abstract class ModulesManager implements IModulesManager {
                     throw new UnsupportedOperationException();
                 }
             }, null, null);
+            modulesManager.onModulesKeysChanged();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -520,6 +604,7 @@ public abstract class ModulesManager implements IModulesManager {
             //assign to instance variable
             this.modulesKeys.clear();
             this.modulesKeys.putAll(keys);
+            onModulesKeysChanged();
         }
 
     }
@@ -657,7 +742,9 @@ public abstract class ModulesManager implements IModulesManager {
             if (DEBUG_BUILD) {
                 System.out.println("Removing module:" + key + " - " + this.getClass());
             }
-            this.modulesKeys.remove(key);
+            if (this.modulesKeys.remove(key) != null) {
+                onModulesKeyChanged(key.name);
+            }
             ModulesManager.cache.remove(key, this);
         }
     }
@@ -703,11 +790,44 @@ public abstract class ModulesManager implements IModulesManager {
             System.out.println("Adding module:" + key + " - " + this.getClass());
         }
         synchronized (modulesKeysLock) {
-            this.modulesKeys.put(key, key);
+            ModulesKey old = this.modulesKeys.put(key, key);
+            if (old == null) {
+                onModulesKeyChanged(key.name);
+
+            } else if (!isSameKeyInfo(old, key)) {
+                //The put only replaces the value: the key must be replaced too (i.e.: the module is now in a
+                //different file).
+                this.modulesKeys.remove(old);
+                this.modulesKeys.put(key, key);
+                onModulesKeyChanged(key.name);
+            }
             ModulesManager.cache.add(key, n, this);
         }
     }
 
+    /**
+     * @return whether the given keys (with the same name) have the same information.
+     */
+    private static boolean isSameKeyInfo(ModulesKey old, ModulesKey key) {
+        if (old == key) {
+            return true;
+        }
+        if (old.getClass() != key.getClass()) {
+            return false;
+        }
+        if (old.file == null ? key.file != null : !old.file.equals(key.file)) {
+            return false;
+        }
+        if (old instanceof ModulesKeyForZip) {
+            ModulesKeyForZip oldZip = (ModulesKeyForZip) old;
+            ModulesKeyForZip keyZip = (ModulesKeyForZip) key;
+            return oldZip.isFile == keyZip.isFile
+                    && (oldZip.zipModulePath == null ? keyZip.zipModulePath == null : oldZip.zipModulePath
+                            .equals(keyZip.zipModulePath));
+        }
+        return true;
+    }
+
     /**
      * @return a set of all module keys
      *
@@ -772,6 +892,23 @@ public abstract class ModulesManager implements IModulesManager {
     private final Object lockTemporaryModules = new Object();
     private int nextHandle = 0;
 
+    /**
+     * Immutable snapshot with the names in temporaryModules (so that it can be checked without any lock).
+     */
+    private volatile Set<String> temporaryModulesNames = Collections.emptySet();
+
+    /**
+     * Note that the lockTemporaryModules must be already synched before this method is called.
+     */
+    private void onTemporaryModulesNamesChanged() {
+        temporaryModulesNames = Collections.unmodifiableSet(new HashSet<String>(temporaryModules.keySet()));
+        temporaryModulesStamp++;
+    }
+
+    /*default*/Set<String> getTemporaryModulesNames() {
+        return temporaryModulesNames;
+    }
+
     /**
      * Returns the handle to be used to remove the module added later on!
      */
@@ -781,6 +918,7 @@ public abstract class ModulesManager implements IModulesManager {
             if (map == null) {
                 map = new TreeMap<Integer, IModule>(); //small initial size!
                 temporaryModules.put(moduleName, map);
+                onTemporaryModulesNamesChanged();
             }
             if (module instanceof AbstractModule) {
                 module = decorateModule((AbstractModule) module, null);
@@ -800,6 +938,7 @@ public abstract class ModulesManager implements IModulesManager {
                     stack.remove(handle);
                     if (stack.size() == 0) {
                         temporaryModules.remove(moduleName);
+                        onTemporaryModulesNamesChanged();
                     }
                 }
             } catch (Throwable e) {
@@ -912,15 +1051,18 @@ public abstract class ModulesManager implements IModulesManager {
                         } else {
                             //regular case... just go on and create it.
                             try {
-                                //NOTE: The nature (and so the grammar to be used) must be defined by this modules
-                                //manager (and not by the initial caller)!!
-                                n = AbstractModule.createModule(name, e.f, this.getNature(), true);
+                                n = createModuleFromFile(name, e.f);
                                 n = decorateModule(n, nature);
-                            } catch (IOException exc) {
+                            } catch (FileNotFoundException exc) {
+                                //The file was removed after the check: remove its key.
                                 keyForCacheAccess.name = name;
                                 keyForCacheAccess.file = e.f;
                                 doRemoveSingleModule(keyForCacheAccess);
                                 n = null;
+                            } catch (IOException exc) {
+                                //The file still exists (i.e.: the read was interrupted -- ClosedByInterruptException),
+                                //so, its key must be kept.
+                                n = null;
                             } catch (MisconfigurationException exc) {
                                 Log.log(exc);
                                 n = null;
@@ -965,6 +1107,17 @@ public abstract class ModulesManager implements IModulesManager {
         return n;
     }
 
+    /**
+     * Creates the module for the given file (which is not inside a zip). Subclasses may override to get it from
+     * some cache.
+     */
+    protected AbstractModule createModuleFromFile(String name, File f) throws IOException,
+            MisconfigurationException {
+        //NOTE: The nature (and so the grammar to be used) must be defined by this modules
+        //manager (and not by the initial caller)!!
+        return AbstractModule.createModule(name, f, this.getNature(), true);
+    }
+
     /**
      * Called after the creation of any module. Used as a workaround for filling tokens that are in no way
      * available in the code-completion through the regular inspection.
@@ -9,6 +9,8 @@ package org.python.pydev.editor.codecompletion.revisited;
 import org.python.pydev.core.ModulesKey;
 import org.python.pydev.editor.codecompletion.revisited.modules.AbstractModule;
 import org.python.pydev.shared_core.cache.LRUCache;
+import org.python.pydev.shared_core.metrics.Counter;
+import org.python.pydev.shared_core.metrics.Metrics;
 import org.python.pydev.shared_core.structure.Tuple;
 
 /**
@@ -21,6 +23,9 @@ final class ModulesManagerCache {
      */
     private static final int MAX_NUMBER_OF_MODULES = 400;
 
+    private static final Counter CACHE_HITS = Metrics.counter("modules.cache.hits");
+    private static final Counter CACHE_MISSES = Metrics.counter("modules.cache.misses");
+
     /**
      * The access to the cache is synchronized
      */
@@ -41,9 +46,12 @@ final class ModulesManagerCache {
             synchronized (lock) {
                 AbstractModule obj = internalCache.getObj(keyTuple);
                 if (obj == null && modulesManager.modulesKeys.containsKey(key)) {
+                    CACHE_MISSES.inc();
                     key = modulesManager.modulesKeys.get(key); //get the 'real' key
                     obj = AbstractModule.createEmptyModule(key);
                     internalCache.add(keyTuple, obj);
+                } else if (obj != null) {
+                    CACHE_HITS.inc();
                 }
                 return obj;
             }
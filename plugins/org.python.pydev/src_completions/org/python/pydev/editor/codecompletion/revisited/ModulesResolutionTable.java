@@ -0,0 +1,303 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.editor.codecompletion.revisited;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.python.pydev.core.IModulesManager;
+import org.python.pydev.core.ModulesKey;
+
+/**
+ * Table with the module names of many modules managers merged (in the order the managers are searched), so that
+ * finding the manager which has some module is a single hash lookup (instead of asking each manager -- which
+ * requires a lock and a lookup in a sorted map in each one).
+ *
+ * The table keeps the stamps of the managers it was built from (so, checking whether it's up to date only checks
+ * those managers). When some manager changes, only the names changed in it are updated in the table (it's only
+ * created again if the changes are not available, i.e.: all the keys of some manager were replaced).
+ *
+ * Lookups may be done concurrently with an update (which must be done by a single thread at a time).
+ *
+ * @author Fabio
+ */
+/*default*/final class ModulesResolutionTable {
+
+    /**
+     * Where some module name was found.
+     */
+    private static final class Location {
+
+        private final int managerIndex;
+        private final ModulesKey key;
+
+        private Location(int managerIndex, ModulesKey key) {
+            this.managerIndex = managerIndex;
+            this.key = key;
+        }
+    }
+
+    private final ModulesManager[] managers;
+
+    /**
+     * The stamps of the managers when their keys were gotten (replaced after the table is updated).
+     */
+    private volatile long[] stamps;
+
+    /**
+     * The stamps of the temporary modules of the managers when they were gotten.
+     */
+    private volatile long[] temporaryStamps;
+
+    /**
+     * Name of module to the first manager which has it.
+     */
+    private final Map<String, Location> nameToLocation;
+
+    /**
+     * The keys merged (each name appears only once, with the key of the first manager which has it), sorted by name.
+     */
+    private final ConcurrentSkipListMap<String, ModulesKey> sortedKeys;
+
+    /**
+     * Name of temporary module to the first manager which has it.
+     */
+    private volatile Map<String, Integer> temporaryNameToManagerIndex;
+
+    private ModulesResolutionTable(ModulesManager[] managers, long[] stamps, long[] temporaryStamps,
+            Map<String, Location> nameToLocation, ConcurrentSkipListMap<String, ModulesKey> sortedKeys,
+            Map<String, Integer> temporaryNameToManagerIndex) {
+        this.managers = managers;
+        this.stamps = stamps;
+        this.temporaryStamps = temporaryStamps;
+        this.nameToLocation = nameToLocation;
+        this.sortedKeys = sortedKeys;
+        this.temporaryNameToManagerIndex = temporaryNameToManagerIndex;
+    }
+
+    /**
+     * @return true if this table reflects the current state of the given managers.
+     */
+    public boolean isUpToDate(IModulesManager[] managersInvolved) {
+        if (!hasSameManagers(managersInvolved)) {
+            return false;
+        }
+        long[] stamps = this.stamps;
+        long[] temporaryStamps = this.temporaryStamps;
+        for (int i = 0; i < managers.length; i++) {
+            if (managers[i].getModulesKeysStamp() != stamps[i]
+                    || managers[i].getTemporaryModulesStamp() != temporaryStamps[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasSameManagers(IModulesManager[] managersInvolved) {
+        if (managersInvolved.length != managers.length) {
+            return false;
+        }
+        for (int i = 0; i < managers.length; i++) {
+            if (managersInvolved[i] != managers[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param managersInvolved the managers (in the order they should be searched).
+     * @return the table for the given managers or null if it can't be created for them (i.e.: some manager is not
+     * a ModulesManager, such as the managers for the java integration).
+     */
+    public static ModulesResolutionTable create(IModulesManager[] managersInvolved) {
+        int len = managersInvolved.length;
+        ModulesManager[] managers = new ModulesManager[len];
+        for (int i = 0; i < len; i++) {
+            if (!(managersInvolved[i] instanceof ModulesManager)) {
+                return null;
+            }
+            managers[i] = (ModulesManager) managersInvolved[i];
+        }
+        //Note: get the stamps before getting the contents (so, if something changes while we're building, the
+        //table will be considered outdated and the names changed will be updated later on).
+        long[] stamps = new long[len];
+        long[] temporaryStamps = new long[len];
+        ModulesKey[][] keysPerManager = new ModulesKey[len][];
+        int total = 0;
+        for (int i = 0; i < len; i++) {
+            stamps[i] = managers[i].getModulesKeysStamp();
+            temporaryStamps[i] = managers[i].getTemporaryModulesStamp();
+            keysPerManager[i] = managers[i].getOnlyDirectModules();
+            total += keysPerManager[i].length;
+        }
+        Map<String, Integer> temporaryNameToManagerIndex = createTemporaryNameToManagerIndex(managers);
+
+        Map<String, Location> nameToLocation = new ConcurrentHashMap<String, Location>(Math.max(16, total));
+        ConcurrentSkipListMap<String, ModulesKey> sortedKeys = new ConcurrentSkipListMap<String, ModulesKey>();
+        for (int i = 0; i < len; i++) {
+            for (ModulesKey key : keysPerManager[i]) {
+                if (!nameToLocation.containsKey(key.name)) {
+                    nameToLocation.put(key.name, new Location(i, key));
+                    sortedKeys.put(key.name, key);
+                }
+            }
+        }
+
+        return new ModulesResolutionTable(managers, stamps, temporaryStamps, nameToLocation, sortedKeys,
+                temporaryNameToManagerIndex);
+    }
+
+    /**
+     * Updates the table with the names which changed in the managers since it was created (or last updated).
+     *
+     * Note: must not be called concurrently (lookups may still be done while it's being updated).
+     *
+     * @return false if the table can't be updated for the given managers (in which case a new table must be
+     * created).
+     */
+    public boolean update(IModulesManager[] managersInvolved) {
+        if (!hasSameManagers(managersInvolved)) {
+            return false;
+        }
+        int len = managers.length;
+        long[] stamps = this.stamps;
+        long[] temporaryStamps = this.temporaryStamps;
+        long[] newStamps = new long[len];
+        long[] newTemporaryStamps = new long[len];
+        boolean temporaryChanged = false;
+        Set<String> changed = new HashSet<String>();
+        for (int i = 0; i < len; i++) {
+            //Note: get the stamp before getting the changes (the changes may already have more names, but updating
+            //a name more than once is not a problem).
+            newStamps[i] = managers[i].getModulesKeysStamp();
+            if (newStamps[i] != stamps[i]) {
+                List<String> names = managers[i].getModulesKeysChangedSince(stamps[i]);
+                if (names == null) {
+                    return false;
+                }
+                changed.addAll(names);
+            }
+            newTemporaryStamps[i] = managers[i].getTemporaryModulesStamp();
+            if (newTemporaryStamps[i] != temporaryStamps[i]) {
+                temporaryChanged = true;
+            }
+        }
+
+        for (String name : changed) {
+            updateLocation(name);
+        }
+        if (temporaryChanged) {
+            this.temporaryNameToManagerIndex = createTemporaryNameToManagerIndex(managers);
+        }
+        this.temporaryStamps = newTemporaryStamps;
+        this.stamps = newStamps;
+        return true;
+    }
+
+    /**
+     * Makes the given name point to the first manager which currently has it (or removes it if no manager has it).
+     */
+    private void updateLocation(String name) {
+        for (int i = 0; i < managers.length; i++) {
+            ModulesKey key = managers[i].getModulesKey(name);
+            if (key != null) {
+                nameToLocation.put(name, new Location(i, key));
+                sortedKeys.put(name, key);
+                return;
+            }
+        }
+        nameToLocation.remove(name);
+        sortedKeys.remove(name);
+    }
+
+    private static Map<String, Integer> createTemporaryNameToManagerIndex(ModulesManager[] managers) {
+        Map<String, Integer> ret = null;
+        for (int i = 0; i < managers.length; i++) {
+            Set<String> names = managers[i].getTemporaryModulesNames();
+            for (String name : names) {
+                if (ret == null) {
+                    ret = new HashMap<String, Integer>();
+                }
+                if (!ret.containsKey(name)) {
+                    ret.put(name, i);
+                }
+            }
+        }
+        if (ret == null) {
+            return Collections.emptyMap();
+        }
+        return ret;
+    }
+
+    /**
+     * @param dontSearchInit if false, a module named name.__init__ is also accepted (as in ModulesManager.getModule).
+     * @return the index of the first manager (in the managers used to build this table) which has the given module
+     * or -1 if no manager has it.
+     */
+    public int getManagerIndex(String name, boolean dontSearchInit) {
+        int ret = Integer.MAX_VALUE;
+
+        Integer temporary = temporaryNameToManagerIndex.get(name);
+        if (temporary != null) {
+            ret = temporary;
+        }
+
+        Location location = nameToLocation.get(name);
+        if (location != null && location.managerIndex < ret) {
+            ret = location.managerIndex;
+        }
+
+        if (!dontSearchInit && ret > 0) {
+            location = nameToLocation.get(name + ".__init__");
+            if (location != null && location.managerIndex < ret) {
+                ret = location.managerIndex;
+            }
+        }
+        return ret == Integer.MAX_VALUE ? -1 : ret;
+    }
+
+    /**
+     * @return the key for the given name in the first manager which has it (or null if it's not available).
+     */
+    public ModulesKey getKey(String name) {
+        Location location = nameToLocation.get(name);
+        if (location != null) {
+            return location.key;
+        }
+        return null;
+    }
+
+    /**
+     * @return the modules that start with the given string (same semantics of
+     * ModulesManager.getAllDirectModulesStartingWith, but considering all the managers).
+     */
+    public SortedMap<ModulesKey, ModulesKey> getModulesStartingWith(String strStartingWith) {
+        PyPublicTreeMap<ModulesKey, ModulesKey> ret = new PyPublicTreeMap<ModulesKey, ModulesKey>();
+        Map<String, ModulesKey> keys;
+        if (strStartingWith.length() == 0) {
+            keys = sortedKeys;
+        } else {
+            keys = sortedKeys.subMap(strStartingWith, strStartingWith + "\uffff\uffff\uffff\uffff");
+        }
+        for (ModulesKey key : keys.values()) {
+            ret.put(key, key);
+        }
+        return ret;
+    }
+
+    public int size() {
+        return sortedKeys.size();
+    }
+}
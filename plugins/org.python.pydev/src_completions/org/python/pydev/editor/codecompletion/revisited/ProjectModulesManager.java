@@ -143,8 +143,12 @@ public final class ProjectModulesManager extends ModulesManagerWithBuild impleme
      */
     @Override
     public SortedMap<ModulesKey, ModulesKey> getAllModulesStartingWith(String strStartingWith) {
-        SortedMap<ModulesKey, ModulesKey> ret = new TreeMap<ModulesKey, ModulesKey>();
         IModulesManager[] managersInvolved = this.getManagersInvolved(true);
+        ModulesResolutionTable table = getResolutionTable(managersInvolved);
+        if (table != null) {
+            return table.getModulesStartingWith(strStartingWith);
+        }
+        SortedMap<ModulesKey, ModulesKey> ret = new TreeMap<ModulesKey, ModulesKey>();
         for (int i = 0; i < managersInvolved.length; i++) {
             ret.putAll(managersInvolved[i].getAllDirectModulesStartingWith(strStartingWith));
         }
@@ -201,18 +205,29 @@ public final class ProjectModulesManager extends ModulesManagerWithBuild impleme
             }
         }
 
-        for (IModulesManager m : managersInvolved) {
-            if (m instanceof IProjectModulesManager) {
-                IProjectModulesManager pM = (IProjectModulesManager) m;
-                module = pM.getModuleInDirectManager(name, nature, dontSearchInit);
-
-            } else if (m instanceof ISystemModulesManager) {
-                ISystemModulesManager systemModulesManager = (ISystemModulesManager) m;
-                module = systemModulesManager.getModuleWithoutBuiltins(name, nature, dontSearchInit);
-
-            } else {
-                throw new RuntimeException("Unexpected: " + m);
+        ModulesResolutionTable table = getResolutionTable(managersInvolved);
+        if (table != null) {
+            int i = table.getManagerIndex(name, dontSearchInit);
+            if (i < 0) {
+                if (DEBUG_MODULES) {
+                    System.out.println("Trying to get:" + name + " - " + " returned:null (not in table) - "
+                            + this.getClass());
+                }
+                return null;
             }
+            IModulesManager m = managersInvolved[i];
+            module = getModuleInManager(m, name, nature, dontSearchInit);
+            if (module != null) {
+                if (DEBUG_MODULES) {
+                    System.out.println("Trying to get:" + name + " - " + " returned:" + module + " - " + m.getClass());
+                }
+                return new Tuple<IModule, IModulesManager>(module, m);
+            }
+            //The module could not be created (i.e.: removed from the disk): do the regular search.
+        }
+
+        for (IModulesManager m : managersInvolved) {
+            module = getModuleInManager(m, name, nature, dontSearchInit);
 
             if (module != null) {
                 if (DEBUG_MODULES) {
@@ -227,6 +242,46 @@ public final class ProjectModulesManager extends ModulesManagerWithBuild impleme
         return null;
     }
 
+    private static IModule getModuleInManager(IModulesManager m, String name, IPythonNature nature,
+            boolean dontSearchInit) {
+        if (m instanceof IProjectModulesManager) {
+            IProjectModulesManager pM = (IProjectModulesManager) m;
+            return pM.getModuleInDirectManager(name, nature, dontSearchInit);
+
+        } else if (m instanceof ISystemModulesManager) {
+            ISystemModulesManager systemModulesManager = (ISystemModulesManager) m;
+            return systemModulesManager.getModuleWithoutBuiltins(name, nature, dontSearchInit);
+
+        } else {
+            throw new RuntimeException("Unexpected: " + m);
+        }
+    }
+
+    /**
+     * Table with the module names of all the managers involved merged (updated with the names that changed
+     * whenever the keys of some of those managers change).
+     */
+    private volatile ModulesResolutionTable resolutionTable;
+    private final Object resolutionTableLock = new Object();
+
+    /**
+     * @return a table to find the modules in the given managers (or null if it's not available for those managers).
+     */
+    private ModulesResolutionTable getResolutionTable(IModulesManager[] managersInvolved) {
+        ModulesResolutionTable table = this.resolutionTable;
+        if (table != null && table.isUpToDate(managersInvolved)) {
+            return table;
+        }
+        synchronized (resolutionTableLock) {
+            table = this.resolutionTable;
+            if (table == null || !table.update(managersInvolved)) {
+                table = ModulesResolutionTable.create(managersInvolved);
+                this.resolutionTable = table;
+            }
+            return table;
+        }
+    }
+
     /**
      * Only searches the modules contained in the direct modules manager.
      */
@@ -21,6 +21,7 @@ import java.util.SortedMap;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.jface.text.IDocument;
 import org.python.pydev.core.DeltaSaver;
 import org.python.pydev.core.FileUtilsFileBuffer;
@@ -59,6 +60,8 @@ public final class SystemModulesManager extends ModulesManagerWithBuild implemen
 
     private static final String DIR_NAME_FOR_COMPILED_CACHE = "shell";
 
+    private static final String DIR_NAME_FOR_AST_CACHE = "asts";
+
     /**
      * The system modules manager may have a nature if we create a SystemASTManager
      */
@@ -69,6 +72,11 @@ public final class SystemModulesManager extends ModulesManagerWithBuild implemen
      */
     private InterpreterInfo info;
 
+    /**
+     * Keeps the ASTs of the modules in the disk (lazily created).
+     */
+    private transient volatile ModulesAstCache astCache;
+
     public SystemModulesManager(InterpreterInfo info) {
         this.info = info;
     }
@@ -397,6 +405,7 @@ public final class SystemModulesManager extends ModulesManagerWithBuild implemen
         synchronized (modulesKeysLock) {
             modulesKeys.clear();
             modulesKeys.putAll(keysFound);
+            onModulesKeysChanged();
         }
         this.save();
     }
@@ -426,12 +435,62 @@ public final class SystemModulesManager extends ModulesManagerWithBuild implemen
                     }
                 }
             }
+
+            //And the ASTs saved.
+            ModulesAstCache c = getAstCache();
+            if (c != null) {
+                c.clear();
+            }
         } catch (Exception e) {
             Log.log(e);
         }
         super.changePythonPath(pythonpath, project, monitor);
     }
 
+    /**
+     * @return the cache for the ASTs of the modules (or null if there's no place to save it).
+     */
+    private ModulesAstCache getAstCache() {
+        ModulesAstCache c = astCache;
+        if (c == null) {
+            File ioDirectory = getIoDirectory();
+            if (ioDirectory == null) {
+                return null;
+            }
+            c = astCache = new ModulesAstCache(new File(ioDirectory, DIR_NAME_FOR_AST_CACHE));
+        }
+        return c;
+    }
+
+    /**
+     * Overridden to get the AST of source modules from the disk cache (the library modules are recreated whenever
+     * they're removed from the modules cache and they don't usually change).
+     */
+    @Override
+    protected AbstractModule createModuleFromFile(String name, File f) throws IOException,
+            MisconfigurationException {
+        ModulesAstCache c = getAstCache();
+        if (c == null || !PythonPathHelper.isValidSourceFile(f.getName())
+                || FileUtilsFileBuffer.getDocFromPath(Path.fromOSString(FileUtils.getFileAbsolutePath(f))) != null) {
+            //Note: if it's opened in an editor, the contents of the editor are used (and not the ones in the disk).
+            return super.createModuleFromFile(name, f);
+        }
+        int grammarVersion = getNature().getGrammarVersion();
+        //Gotten before creating it (so, if it changes during the parse, the cached version won't be used later on).
+        long size = f.length();
+        long lastModified = f.lastModified();
+
+        SourceModule module = c.getModule(name, f, size, lastModified, grammarVersion);
+        if (module != null) {
+            return module;
+        }
+        AbstractModule n = super.createModuleFromFile(name, f);
+        if (n instanceof SourceModule) {
+            c.putModule((SourceModule) n, f, size, lastModified, grammarVersion);
+        }
+        return n;
+    }
+
     /**
      * Gets the directory where compiled modules should be saved.
      */
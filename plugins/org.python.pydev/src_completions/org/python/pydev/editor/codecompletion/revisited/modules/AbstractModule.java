@@ -39,7 +39,9 @@ import org.python.pydev.editor.codecompletion.revisited.visitors.Definition;
 import org.python.pydev.parser.PyParser;
 import org.python.pydev.parser.jython.SimpleNode;
 import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.io.PySourceLoader;
 import org.python.pydev.shared_core.parsing.BaseParser.ParseOutput;
+import org.python.pydev.shared_core.string.FastStringBuffer;
 
 /**
  * @author Fabio Zadrozny
@@ -269,7 +271,17 @@ public abstract class AbstractModule implements IModule {
             throws IOException, MisconfigurationException {
         if (PythonPathHelper.isValidFileMod(f.getName())) {
             if (PythonPathHelper.isValidSourceFile(f.getName())) {
-                return createModuleFromDoc(name, f, FileUtilsFileBuffer.getDocFromFile(f), nature, checkForPath);
+                //The contents are only needed during the parse (so, a pooled buffer is used and its internal array
+                //is given directly to the parser).
+                FastStringBuffer contents = PySourceLoader.acquireBuffer();
+                try {
+                    FileUtilsFileBuffer.fillBufferWithFileContents(f, contents);
+                    ParseOutput obj = PyParser.reparseDocument(new PyParser.ParserInfo(contents, nature
+                            .getGrammarVersion(), name, f));
+                    return new SourceModule(name, f, (SimpleNode) obj.ast, obj.error);
+                } finally {
+                    PySourceLoader.releaseBuffer(contents);
+                }
 
             } else { //this should be a compiled extension... we have to get completions from the python shell.
                 return new CompiledModule(name, nature.getAstManager().getModulesManager());
@@ -164,7 +164,7 @@ public class CompiledModule extends AbstractModule {
             if (COMPILED_MODULES_ENABLED) {
 
                 try {
-                    info = createTokensFromServer(name, manager);
+                    info = createTokensFromServer(name, manager, AbstractShell.getShellId());
                     this.file = info.o1;
                     this.tokens = asMap(info.o2);
 
@@ -237,36 +237,7 @@ public class CompiledModule extends AbstractModule {
 
                         @Override
                         public void run() {
-                            try (OutputStream out = new FileOutputStream(cacheFile)) {
-                                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
-                                    try (BufferedOutputStream buf = new BufferedOutputStream(gzip)) {
-                                        try (ObjectOutputStream stream = new ObjectOutputStream(buf)) {
-                                            stream.writeObject(name);
-                                            stream.writeObject(info.o1);
-
-                                            IToken[] toks = info.o2;
-                                            int size = toks.length;
-                                            stream.writeInt(size);
-
-                                            //Write in 2 batches (leave the docstring in a separate batch as it's usually
-                                            //the big part of the info -- that way we can partially read it without reading
-                                            //the docstrings later on).
-                                            for (int i = 0; i < size; i++) {
-                                                IToken tok = toks[i];
-                                                stream.writeObject(tok.getRepresentation());
-                                                stream.writeInt(tok.getType());
-                                                stream.writeObject(tok.getArgs());
-                                                stream.writeObject(tok.getParentPackage());
-                                            }
-                                            for (int i = 0; i < size; i++) {
-                                                stream.writeObject(toks[i].getDocStr());
-                                            }
-                                        }
-                                    }
-                                }
-                            } catch (Exception e) {
-                                Log.log(e);
-                            }
+                            writeCache(cacheFile, name, info);
                         }
 
                         @Override
@@ -281,6 +252,86 @@ public class CompiledModule extends AbstractModule {
         }
     }
 
+    /**
+     * Writes the info to the given cache file (a temporary file is written and then renamed so that a reader never
+     * sees a partially written file).
+     */
+    private static void writeCache(File cacheFile, String name, Tuple<File, IToken[]> info) {
+        File tempFile = new File(cacheFile.getPath() + ".tmp" + Thread.currentThread().getId());
+        try (OutputStream out = new FileOutputStream(tempFile)) {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                try (BufferedOutputStream buf = new BufferedOutputStream(gzip)) {
+                    try (ObjectOutputStream stream = new ObjectOutputStream(buf)) {
+                        stream.writeObject(name);
+                        stream.writeObject(info.o1);
+
+                        IToken[] toks = info.o2;
+                        int size = toks.length;
+                        stream.writeInt(size);
+
+                        //Write in 2 batches (leave the docstring in a separate batch as it's usually
+                        //the big part of the info -- that way we can partially read it without reading
+                        //the docstrings later on).
+                        for (int i = 0; i < size; i++) {
+                            IToken tok = toks[i];
+                            stream.writeObject(tok.getRepresentation());
+                            stream.writeInt(tok.getType());
+                            stream.writeObject(tok.getArgs());
+                            stream.writeObject(tok.getParentPackage());
+                        }
+                        for (int i = 0; i < size; i++) {
+                            stream.writeObject(toks[i].getDocStr());
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Log.log(e);
+            tempFile.delete();
+            return;
+        }
+        if (!tempFile.renameTo(cacheFile)) {
+            //On windows renameTo fails if the target exists (i.e.: someone else wrote it in the meantime).
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Gets the information for the given module from the shell with the given id and writes it to the disk cache
+     * (if it's still not there) so that the creation of the CompiledModule later on doesn't need to go to the shell.
+     *
+     * @param shellId the shell to be used (so that many modules may be gotten in parallel).
+     * @return true if the cache was written and false otherwise (already cached or no relevant info).
+     */
+    public static boolean prefetchToCache(String name, ISystemModulesManager manager, int shellId) throws Exception {
+        if (!COMPILED_MODULES_ENABLED) {
+            return false;
+        }
+        File cacheFile = getCacheFile(name, manager);
+        if (cacheFile == null || cacheFile.exists()) {
+            return false;
+        }
+        synchronized (manager.getCompiledModuleCreationLock(name)) {
+            if (cacheFile.exists()) {
+                return false;
+            }
+            Tuple<File, IToken[]> info = createTokensFromServer(name, manager, shellId);
+            if (info == null || info.o2 == null || info.o2.length <= 10) { //same rule used in updateCache.
+                return false;
+            }
+            writeCache(cacheFile, name, info);
+            return true;
+        }
+    }
+
+    /**
+     * @return whether the given module still doesn't have its information in the disk cache.
+     */
+    public static boolean needsPrefetch(String name, ISystemModulesManager manager) {
+        File cacheFile = getCacheFile(name, manager);
+        return COMPILED_MODULES_ENABLED && cacheFile != null && !cacheFile.exists();
+    }
+
     /**
      * Gets cached information for the given name. Could be a dotted or non-dotted name.
      */
@@ -350,7 +401,7 @@ public class CompiledModule extends AbstractModule {
         return manager.getCompletePythonPath(nature.getProjectInterpreter(), nature.getRelatedInterpreterManager());
     }
 
-    private static Tuple<File, IToken[]> createTokensFromServer(String name, IModulesManager manager)
+    private static Tuple<File, IToken[]> createTokensFromServer(String name, IModulesManager manager, int shellId)
             throws IOException,
             Exception,
             CoreException {
@@ -358,7 +409,7 @@ public class CompiledModule extends AbstractModule {
             Log.log(IStatus.INFO, ("Compiled modules: getting info for:" + name), null);
         }
         final IPythonNature nature = manager.getNature();
-        AbstractShell shell = AbstractShell.getServerShell(nature, AbstractShell.getShellId());
+        AbstractShell shell = AbstractShell.getServerShell(nature, shellId);
         Tuple<String, List<String[]>> completions = shell.getImportCompletions(name,
                 getCompletePythonpath(manager, nature)); //default
 
@@ -39,6 +39,9 @@ import org.python.pydev.editor.codecompletion.revisited.modules.CompiledToken;
 import org.python.pydev.logging.DebugSettings;
 import org.python.pydev.plugin.PydevPlugin;
 import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.metrics.Counter;
+import org.python.pydev.shared_core.metrics.Histogram;
+import org.python.pydev.shared_core.metrics.Metrics;
 import org.python.pydev.shared_core.net.SocketUtil;
 import org.python.pydev.shared_core.string.FastStringBuffer;
 import org.python.pydev.shared_core.string.StringUtils;
@@ -62,8 +65,36 @@ public abstract class AbstractShell {
 
     private static final int OTHER_THREADS_SHELL = 2;
 
+    /**
+     * Shells used to get information in the background in parallel (i.e.: prefetching the forced builtins) have
+     * ids starting at this value.
+     */
+    private static final int FIRST_PREFETCH_SHELL = 10;
+
+    /**
+     * Max number of shells used in parallel for prefetching information.
+     */
+    public static final int MAX_PREFETCH_SHELLS = 3;
+
     public static int[] getAllShellIds() {
-        return new int[] { MAIN_THREAD_SHELL, OTHER_THREADS_SHELL };
+        int[] ret = new int[2 + MAX_PREFETCH_SHELLS];
+        ret[0] = MAIN_THREAD_SHELL;
+        ret[1] = OTHER_THREADS_SHELL;
+        for (int i = 0; i < MAX_PREFETCH_SHELLS; i++) {
+            ret[2 + i] = getPrefetchShellId(i);
+        }
+        return ret;
+    }
+
+    /**
+     * @param worker a number from 0 to MAX_PREFETCH_SHELLS - 1
+     * @return the id of the shell to be used by the given prefetch worker.
+     */
+    public static int getPrefetchShellId(int worker) {
+        if (worker < 0 || worker >= MAX_PREFETCH_SHELLS) {
+            throw new IllegalArgumentException("Invalid prefetch worker: " + worker);
+        }
+        return FIRST_PREFETCH_SHELL + worker;
     }
 
     public static final int getShellId() {
@@ -74,6 +105,10 @@ public abstract class AbstractShell {
 
     protected static final int DEBUG_SHELL = -1;
 
+    private static final Histogram ACQUIRE_WAIT_TIME = Metrics.histogram("shell.acquire.wait");
+    private static final Histogram ROUND_TRIP_TIME = Metrics.histogram("shell.roundtrip");
+    private static final Counter RESTARTS = Metrics.counter("shell.restarts");
+
     /**
      * Determines if we are already in a method that starts the shell
      */
@@ -640,6 +675,7 @@ public abstract class AbstractShell {
         synchronized (ioLock) {
             if (!isInRestart) {// we don't want to end up in a loop here...
                 isInRestart = true;
+                RESTARTS.inc();
                 try {
                     if (finishedForGood) {
                         throw new RuntimeException(
@@ -665,7 +701,9 @@ public abstract class AbstractShell {
     @SuppressWarnings("unused")
     private AutoCloseable acquire(String msg) {
         final Timer timer = new Timer();
+        long startTime = Metrics.startTime();
         semaphore.acquire();
+        ACQUIRE_WAIT_TIME.recordSince(startTime);
         if (DEBUG_SHELL >= 1) {
             String name = Thread.currentThread().getName();
             msg += " (" + name + ")";
@@ -688,8 +726,10 @@ public abstract class AbstractShell {
 
         try {
             synchronized (ioLock) {
+                long startTime = Metrics.startTime();
                 this.write(StringUtils.join("", str));
                 FastStringBuffer read = this.read();
+                ROUND_TRIP_TIME.recordSince(startTime);
                 return read;
             }
 
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.navigator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.python.pydev.shared_core.structure.Tuple;
+
+/**
+ * The tree updates computed from resource deltas. Updates from many deltas may be merged in a single instance
+ * and minimize() removes the ones which are already covered by the refresh of some parent (so that a
+ * git checkout which touches thousands of files becomes a few refreshes in the viewer).
+ *
+ * Not thread-safe.
+ *
+ * @author Fabio
+ */
+/*default*/final class CoalescedTreeUpdates {
+
+    /**
+     * If a project has more than this number of changes, the whole project is refreshed.
+     */
+    /*default*/static final int MAX_CHANGES_PER_PROJECT = 200;
+
+    /**
+     * Resources which must be refreshed (structural changes: children are also refreshed).
+     */
+    /*default*/final Set<IResource> refresh = new LinkedHashSet<IResource>();
+
+    /**
+     * Resources which must be updated (only the label/icon).
+     */
+    /*default*/final Set<IResource> update = new LinkedHashSet<IResource>();
+
+    /**
+     * Additions/removals of children in a parent (parent resource and runnable which changes the viewer).
+     */
+    /*default*/final List<Tuple<IResource, Runnable>> structuralChanges = new ArrayList<Tuple<IResource, Runnable>>();
+
+    /**
+     * Containers added or removed (checked later on to see if some source folder changed). Not changed in minimize().
+     */
+    /*default*/final Set<IResource> addedOrRemovedContainers = new LinkedHashSet<IResource>();
+
+    public void refresh(IResource resource) {
+        if (resource != null) {
+            refresh.add(resource);
+        }
+    }
+
+    public void update(IResource resource) {
+        if (resource != null) {
+            update.add(resource);
+        }
+    }
+
+    public void structuralChange(IResource parent, Runnable runnable) {
+        structuralChanges.add(new Tuple<IResource, Runnable>(parent, runnable));
+    }
+
+    public void addAll(CoalescedTreeUpdates other) {
+        refresh.addAll(other.refresh);
+        update.addAll(other.update);
+        structuralChanges.addAll(other.structuralChanges);
+        addedOrRemovedContainers.addAll(other.addedOrRemovedContainers);
+    }
+
+    public boolean isEmpty() {
+        return refresh.isEmpty() && update.isEmpty() && structuralChanges.isEmpty()
+                && addedOrRemovedContainers.isEmpty();
+    }
+
+    public int size() {
+        return refresh.size() + update.size() + structuralChanges.size();
+    }
+
+    /**
+     * Removes the changes which are already covered by the refresh of some resource (or one of its parents)
+     * and collapses the changes of a project into a refresh of the project if it has too many changes.
+     */
+    public void minimize() {
+        removeCovered();
+
+        Map<IProject, Integer> changesPerProject = new HashMap<IProject, Integer>();
+        countPerProject(refresh, changesPerProject);
+        countPerProject(update, changesPerProject);
+        for (Tuple<IResource, Runnable> change : structuralChanges) {
+            countPerProject(change.o1, changesPerProject);
+        }
+        boolean collapsed = false;
+        for (Map.Entry<IProject, Integer> entry : changesPerProject.entrySet()) {
+            if (entry.getValue() > MAX_CHANGES_PER_PROJECT) {
+                refresh.add(entry.getKey());
+                collapsed = true;
+            }
+        }
+        if (collapsed) {
+            removeCovered();
+        }
+    }
+
+    private void removeCovered() {
+        //Refreshes covered by the refresh of a parent
+        for (Iterator<IResource> it = refresh.iterator(); it.hasNext();) {
+            IResource resource = it.next();
+            if (isParentRefreshed(resource)) {
+                it.remove();
+            }
+        }
+        //Updates/structural changes covered by the refresh of itself or a parent
+        for (Iterator<IResource> it = update.iterator(); it.hasNext();) {
+            IResource resource = it.next();
+            if (refresh.contains(resource) || isParentRefreshed(resource)) {
+                it.remove();
+            }
+        }
+        for (Iterator<Tuple<IResource, Runnable>> it = structuralChanges.iterator(); it.hasNext();) {
+            IResource resource = it.next().o1;
+            if (refresh.contains(resource) || isParentRefreshed(resource)) {
+                it.remove();
+            }
+        }
+    }
+
+    private boolean isParentRefreshed(IResource resource) {
+        if (resource == null || refresh.isEmpty()) {
+            return false;
+        }
+        IResource parent = getParent(resource);
+        while (parent != null) {
+            if (refresh.contains(parent)) {
+                return true;
+            }
+            parent = getParent(parent);
+        }
+        return false;
+    }
+
+    private static IResource getParent(IResource resource) {
+        if (resource instanceof IProject) {
+            return null; //the workspace root is never refreshed through here.
+        }
+        return resource.getParent();
+    }
+
+    private static void countPerProject(Set<IResource> resources, Map<IProject, Integer> changesPerProject) {
+        for (IResource resource : resources) {
+            countPerProject(resource, changesPerProject);
+        }
+    }
+
+    private static void countPerProject(IResource resource, Map<IProject, Integer> changesPerProject) {
+        if (resource == null || resource instanceof IProject) {
+            return;
+        }
+        IProject project = resource.getProject();
+        if (project != null) {
+            Integer curr = changesPerProject.get(project);
+            changesPerProject.put(project, curr == null ? 1 : curr + 1);
+        }
+    }
+}
@@ -86,6 +86,7 @@ import org.python.pydev.plugin.preferences.PyTitlePreferencesPage;
 import org.python.pydev.shared_core.SharedCorePlugin;
 import org.python.pydev.shared_core.callbacks.ICallback;
 import org.python.pydev.shared_core.structure.TreeNode;
+import org.python.pydev.shared_core.structure.Tuple;
 import org.python.pydev.shared_ui.outline.IParsedItem;
 import org.python.pydev.ui.filetypes.FileTypesPreferencesPage;
 
@@ -129,6 +130,34 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
 
     public static final boolean DEBUG = false;
 
+    /**
+     * Calculates the children of the nodes in the interpreter pythonpath in a background job (a placeholder
+     * is shown until they're available and then the tree is refreshed in batches).
+     */
+    private final PythonpathChildrenLoader pythonpathChildrenLoader = new PythonpathChildrenLoader(
+            new ICallback<Object, List<PythonpathTreeNode>>() {
+
+                public Object call(final List<PythonpathTreeNode> nodes) {
+                    Collection<Runnable> runnables = new ArrayList<Runnable>(1);
+                    runnables.add(new Runnable() {
+
+                        public void run() {
+                            Control control = viewer.getControl();
+                            control.setRedraw(false);
+                            try {
+                                for (PythonpathTreeNode node : nodes) {
+                                    viewer.refresh(node);
+                                }
+                            } finally {
+                                control.setRedraw(true);
+                            }
+                        }
+                    });
+                    processRunnables(runnables);
+                    return null;
+                }
+            });
+
     /**
      * This callback should return the working sets available.
      *
@@ -543,6 +572,14 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
             }
 
         } else if (parentElement instanceof TreeNode<?>) {
+            if (parentElement instanceof PythonpathTreeNode && viewer != null) {
+                //Listing the folders/zips may be slow: do it in a background job.
+                PythonpathTreeNode pythonpathTreeNode = (PythonpathTreeNode) parentElement;
+                if (pythonpathTreeNode.needsChildrenCalculation()) {
+                    pythonpathChildrenLoader.load(pythonpathTreeNode);
+                    return new Object[] { new PythonpathPendingTreeNode(pythonpathTreeNode) };
+                }
+            }
             TreeNode<?> treeNode = (TreeNode<?>) parentElement;
             return treeNode.getChildren().toArray();
         }
@@ -838,6 +875,18 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
             Log.log(e);
         }
 
+        try {
+            this.pythonpathChildrenLoader.cancel();
+        } catch (Exception e) {
+            Log.log(e);
+        }
+
+        try {
+            this.applyPendingUpdatesJob.cancel();
+        } catch (Exception e) {
+            Log.log(e);
+        }
+
         try {
             super.dispose();
         } catch (Exception e) {
@@ -934,6 +983,47 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
         processDelta(event.getDelta());
     }
 
+    /**
+     * Time to wait for other resource deltas before updating the tree.
+     */
+    private static final int COALESCE_DELAY_MILLIS = 150;
+
+    /**
+     * Updates computed from the resource deltas which still weren't applied to the tree (guarded by
+     * pendingUpdatesLock).
+     */
+    private CoalescedTreeUpdates pendingUpdates = new CoalescedTreeUpdates();
+    private boolean applyPendingUpdatesScheduled = false;
+    private final Object pendingUpdatesLock = new Object();
+
+    /**
+     * Merges the updates from the deltas received in a short window, removes the ones covered by the
+     * refresh of a parent and applies them all in a single runnable in the UI thread.
+     */
+    private final Job applyPendingUpdatesJob = new Job("Update PyDev Package Explorer") {
+
+        {
+            setSystem(true);
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            final CoalescedTreeUpdates updates;
+            synchronized (pendingUpdatesLock) {
+                updates = pendingUpdates;
+                pendingUpdates = new CoalescedTreeUpdates();
+                applyPendingUpdatesScheduled = false;
+            }
+            if (!updates.isEmpty()) {
+                updates.minimize();
+                Collection<Runnable> runnables = new ArrayList<Runnable>(1);
+                runnables.add(getApplyUpdatesRunnable(updates));
+                processRunnables(runnables);
+            }
+            return Status.OK_STATUS;
+        }
+    };
+
     /**
      * Process the resource delta.
      *
@@ -945,9 +1035,67 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
             return;
         }
 
-        final Collection<Runnable> runnables = new ArrayList<Runnable>();
-        processDelta(delta, runnables);
-        processRunnables(runnables);
+        //Note: the delta is only valid during the notification, so, it must be processed now (but the
+        //updates in the tree are coalesced).
+        CoalescedTreeUpdates updates = new CoalescedTreeUpdates();
+        processDelta(delta, updates);
+        if (updates.isEmpty()) {
+            return;
+        }
+        synchronized (pendingUpdatesLock) {
+            pendingUpdates.addAll(updates);
+            if (applyPendingUpdatesScheduled) {
+                return;
+            }
+            applyPendingUpdatesScheduled = true;
+        }
+        applyPendingUpdatesJob.schedule(COALESCE_DELAY_MILLIS);
+    }
+
+    /**
+     * @return a runnable which applies all the given updates with a single redraw of the tree.
+     */
+    private Runnable getApplyUpdatesRunnable(final CoalescedTreeUpdates updates) {
+        return new Runnable() {
+            public void run() {
+                Control control = viewer.getControl();
+                boolean batch = updates.size() > 1;
+                if (batch) {
+                    control.setRedraw(false);
+                }
+                try {
+                    for (Tuple<IResource, Runnable> change : updates.structuralChanges) {
+                        change.o2.run();
+                    }
+                    for (IResource resource : updates.refresh) {
+                        ((StructuredViewer) viewer).refresh(getResourceInPythonModel(resource));
+                    }
+                    for (IResource resource : updates.update) {
+                        ((StructuredViewer) viewer).update(getResourceInPythonModel(resource), null);
+                    }
+                } finally {
+                    if (batch) {
+                        control.setRedraw(true);
+                    }
+                }
+
+                //now, we have to make a bridge among the tree and the python model (so, if some
+                //source folder is added or removed, the pythonpath must be rebuilt).
+                Set<IProject> notifyRebuilt = new HashSet<IProject>();
+                for (IResource container : updates.addedOrRemovedContainers) {
+                    Object inPythonModel = getResourceInPythonModel(container, true);
+                    if (inPythonModel instanceof PythonSourceFolder) {
+                        notifyRebuilt.add(container.getProject());
+                    }
+                }
+                for (IProject project : notifyRebuilt) {
+                    PythonNature nature = PythonNature.getPythonNature(project);
+                    if (nature != null) {
+                        notifyPythonPathRebuilt(project, nature);
+                    }
+                }
+            }
+        };
     }
 
     /**
@@ -1020,9 +1168,9 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
     private final IResource[] EMPTY_RESOURCE_ARRAY = new IResource[0];
 
     /**
-     * Process a resource delta. Add any runnables
+     * Process a resource delta. Add the needed tree updates.
      */
-    private void processDelta(final IResourceDelta delta, final Collection<Runnable> runnables) {
+    private void processDelta(final IResourceDelta delta, final CoalescedTreeUpdates updates) {
         // he widget may have been destroyed
         // by the time this is run. Check for this and do nothing if so.
         Control ctrl = viewer.getControl();
@@ -1042,7 +1190,7 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
         IResourceDelta[] affectedChildren = delta.getAffectedChildren(IResourceDelta.CHANGED);
         for (int i = 0; i < affectedChildren.length; i++) {
             if ((affectedChildren[i].getFlags() & IResourceDelta.TYPE) != 0) {
-                runnables.add(getRefreshRunnable(resource));
+                updates.refresh(resource);
                 return;
             }
         }
@@ -1053,9 +1201,9 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
         int changeFlags = delta.getFlags();
         if ((changeFlags & IResourceDelta.OPEN) != 0) {
             if (resource.isAccessible()) {
-                runnables.add(getUpdateRunnable(resource));
+                updates.update(resource);
             } else {
-                runnables.add(getRefreshRunnable(resource));
+                updates.refresh(resource);
                 return;
             }
         }
@@ -1063,11 +1211,11 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
         // See ResourceLabelProvider for the aspects it cares about.
         // Notice we don't care about F_CONTENT or F_MARKERS currently.
         if ((changeFlags & (IResourceDelta.SYNC | IResourceDelta.TYPE | IResourceDelta.DESCRIPTION)) != 0) {
-            runnables.add(getUpdateRunnable(resource));
+            updates.update(resource);
         }
         // Replacing a resource may affect its label and its children
         if ((changeFlags & IResourceDelta.REPLACED) != 0) {
-            runnables.add(getRefreshRunnable(resource));
+            updates.refresh(resource);
             return;
         }
 
@@ -1076,7 +1224,7 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
             if (resource instanceof IFile) {
                 IFile file = (IFile) resource;
                 if (PythonPathHelper.isValidSourceFile(file)) {
-                    runnables.add(getRefreshRunnable(resource));
+                    updates.refresh(resource);
                 }
             }
             return;
@@ -1084,7 +1232,7 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
 
         // Handle changed children .
         for (int i = 0; i < affectedChildren.length; i++) {
-            processDelta(affectedChildren[i], runnables);
+            processDelta(affectedChildren[i], updates);
         }
 
         // @issue several problems here:
@@ -1108,6 +1256,9 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
             return;
         }
 
+        // Many changes in the same folder: a single refresh is cheaper than adding/removing each one.
+        boolean refreshInsteadOfAddAndRemove = addedChildren.length + removedChildren.length > CoalescedTreeUpdates.MAX_CHANGES_PER_PROJECT;
+
         final IResource[] addedObjects;
         final IResource[] removedObjects;
 
@@ -1121,7 +1272,10 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
             for (int i = 0; i < addedChildren.length; i++) {
                 final IResourceDelta addedChild = addedChildren[i];
                 addedObjects[i] = addedChild.getResource();
-                if (checkInit(addedObjects[i], runnables)) {
+                if (addedObjects[i] instanceof IContainer) {
+                    updates.addedOrRemovedContainers.add(addedObjects[i]);
+                }
+                if (checkInit(addedObjects[i], updates)) {
                     return; // If true, it means a refresh for the parent was issued!
                 }
                 if ((addedChild.getFlags() & IResourceDelta.MOVED_FROM) != 0) {
@@ -1138,7 +1292,10 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
             for (int i = 0; i < removedChildren.length; i++) {
                 final IResourceDelta removedChild = removedChildren[i];
                 removedObjects[i] = removedChild.getResource();
-                if (checkInit(removedObjects[i], runnables)) {
+                if (removedObjects[i] instanceof IContainer) {
+                    updates.addedOrRemovedContainers.add(removedObjects[i]);
+                }
+                if (checkInit(removedObjects[i], updates)) {
                     return; // If true, it means a refresh for the parent was issued!
                 }
                 if ((removedChild.getFlags() & IResourceDelta.MOVED_TO) != 0) {
@@ -1148,6 +1305,11 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
         } else {
             removedObjects = EMPTY_RESOURCE_ARRAY;
         }
+        if (refreshInsteadOfAddAndRemove) {
+            updates.refresh(resource);
+            return;
+        }
+
         // heuristic test for items moving within same folder (i.e. renames)
         final boolean hasRename = numMovedFrom > 0 && numMovedTo > 0;
 
@@ -1164,42 +1326,14 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
                         treeViewer.getControl().setRedraw(false);
                     }
                     try {
-                        Set<IProject> notifyRebuilt = new HashSet<IProject>();
-
-                        //now, we have to make a bridge among the tree and
-                        //the python model (so, if some element is removed,
-                        //we have to create an actual representation for it)
+                        //Note: the source folders added/removed are checked after all the changes are applied
+                        //(see: getApplyUpdatesRunnable).
                         if (addedObjects.length > 0) {
                             treeViewer.add(resource, addedObjects);
-                            for (Object object : addedObjects) {
-                                if (object instanceof IResource) {
-                                    IResource rem = (IResource) object;
-                                    Object remInPythonModel = getResourceInPythonModel(rem, true);
-                                    if (remInPythonModel instanceof PythonSourceFolder) {
-                                        notifyRebuilt.add(rem.getProject());
-                                    }
-                                }
-                            }
                         }
 
                         if (removedObjects.length > 0) {
                             treeViewer.remove(removedObjects);
-                            for (Object object : removedObjects) {
-                                if (object instanceof IResource) {
-                                    IResource rem = (IResource) object;
-                                    Object remInPythonModel = getResourceInPythonModel(rem, true);
-                                    if (remInPythonModel instanceof PythonSourceFolder) {
-                                        notifyRebuilt.add(rem.getProject());
-                                    }
-                                }
-                            }
-                        }
-
-                        for (IProject project : notifyRebuilt) {
-                            PythonNature nature = PythonNature.getPythonNature(project);
-                            if (nature != null) {
-                                notifyPythonPathRebuilt(project, nature);
-                            }
                         }
                     } finally {
                         if (hasRename) {
@@ -1211,21 +1345,21 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
                 }
             }
         };
-        runnables.add(addAndRemove);
+        updates.structuralChange(resource, addAndRemove);
     }
 
     /**
      * Checks if a given resource is an __init__ file and if it is, updates its parent (because its icon may have changed)
      * @return
      */
-    private boolean checkInit(final IResource resource, final Collection<Runnable> runnables) {
+    private boolean checkInit(final IResource resource, final CoalescedTreeUpdates updates) {
         if (resource != null) {
             String name = resource.getName();
             if (name != null) {
                 for (String init : FileTypesPreferencesPage.getValidInitFiles()) {
                     if (name.equals(init)) {
                         //we must make an actual refresh (and not only update) because it'll affect all the children too.
-                        runnables.add(getRefreshRunnable(resource.getParent()));
+                        updates.refresh(resource.getParent());
                         return true;
                     }
                 }
@@ -1245,15 +1379,4 @@ public abstract class PythonBaseModelProvider extends BaseWorkbenchContentProvid
         };
     }
 
-    /**
-     * Return a runnable for updating a resource. Does not handle structural changes.
-     */
-    private Runnable getUpdateRunnable(final IResource resource) {
-        return new Runnable() {
-            public void run() {
-                ((StructuredViewer) viewer).update(getResourceInPythonModel(resource), null);
-            }
-        };
-    }
-
 }
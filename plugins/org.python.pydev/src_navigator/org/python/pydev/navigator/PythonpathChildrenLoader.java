@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.navigator;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.python.pydev.core.log.Log;
+import org.python.pydev.shared_core.callbacks.ICallback;
+
+/**
+ * Calculates the children of PythonpathTreeNodes (which list folders and zip files in the disk) in a background
+ * job (so that expanding a folder with many entries in the interpreter info doesn't freeze the UI).
+ *
+ * The nodes which had the children calculated are notified in batches (so that the tree is updated once for
+ * many nodes).
+ *
+ * @author Fabio
+ */
+/*default*/class PythonpathChildrenLoader extends Job {
+
+    /**
+     * Time to wait for other requests before starting (so that expanding many nodes is a single job run).
+     */
+    private static final int DELAY_MILLIS = 50;
+
+    /**
+     * The nodes calculated are notified at least in this interval (if the calculation takes longer).
+     */
+    private static final int NOTIFY_INTERVAL_MILLIS = 300;
+
+    private final Set<PythonpathTreeNode> pending = new LinkedHashSet<PythonpathTreeNode>();
+    private final Object lock = new Object();
+
+    /**
+     * Called (in the job thread) with the nodes which had the children calculated.
+     */
+    private final ICallback<Object, List<PythonpathTreeNode>> onChildrenCalculated;
+
+    /*default*/PythonpathChildrenLoader(ICallback<Object, List<PythonpathTreeNode>> onChildrenCalculated) {
+        super("Listing interpreter pythonpath contents");
+        this.onChildrenCalculated = onChildrenCalculated;
+        this.setPriority(Job.SHORT);
+        this.setSystem(true);
+    }
+
+    /**
+     * Requests the children of the given node to be calculated (does nothing if it was already requested).
+     */
+    public void load(PythonpathTreeNode node) {
+        synchronized (lock) {
+            if (!pending.add(node)) {
+                return;
+            }
+        }
+        this.schedule(DELAY_MILLIS);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+        List<PythonpathTreeNode> calculated = new ArrayList<PythonpathTreeNode>();
+        long lastNotify = System.currentTimeMillis();
+        while (!monitor.isCanceled()) {
+            PythonpathTreeNode node;
+            synchronized (lock) {
+                Iterator<PythonpathTreeNode> it = pending.iterator();
+                if (!it.hasNext()) {
+                    break;
+                }
+                node = it.next();
+            }
+            try {
+                node.getChildren(); //calculates the children
+            } catch (Exception e) {
+                Log.log(e);
+            }
+            synchronized (lock) {
+                //Only remove after calculated (so that a new request for it while calculating is ignored).
+                pending.remove(node);
+            }
+            calculated.add(node);
+
+            long now = System.currentTimeMillis();
+            if (now - lastNotify >= NOTIFY_INTERVAL_MILLIS) {
+                onChildrenCalculated.call(calculated);
+                calculated = new ArrayList<PythonpathTreeNode>();
+                lastNotify = now;
+            }
+        }
+        if (calculated.size() > 0) {
+            onChildrenCalculated.call(calculated);
+        }
+        return Status.OK_STATUS;
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.navigator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.ZipFile;
+
+import org.python.pydev.core.log.Log;
+import org.python.pydev.shared_core.cache.LRUCache;
+
+/**
+ * Cache for the contents of the folders and zip files in the interpreter pythonpath (shown in the PyDev Package
+ * Explorer).
+ *
+ * An entry is reused while the file-system stamp of the folder/zip is the same (the modification time of a folder
+ * changes when a file is added or removed and for a zip we also check the length).
+ *
+ * Note: the returned values are shared, so, they must not be changed by clients.
+ *
+ * @author Fabio
+ */
+public final class PythonpathListingCache {
+
+    private static final File[] EMPTY_FILES = new File[0];
+
+    private static final int MAX_ENTRIES = 2000;
+
+    private static final class CachedListing {
+
+        private final long lastModified;
+        private final long length;
+        private final Object contents;
+
+        private CachedListing(long lastModified, long length, Object contents) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.contents = contents;
+        }
+    }
+
+    private static final LRUCache<File, CachedListing> cache = new LRUCache<File, CachedListing>(MAX_ENTRIES);
+    private static final Object lock = new Object();
+
+    private PythonpathListingCache() {
+    }
+
+    private static Object getCached(File file, long lastModified, long length) {
+        if (lastModified == 0) {
+            return null; //not available: don't use the cache
+        }
+        synchronized (lock) {
+            CachedListing cached = cache.getObj(file);
+            if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+                return cached.contents;
+            }
+        }
+        return null;
+    }
+
+    private static void putCached(File file, long lastModified, long length, Object contents) {
+        if (lastModified == 0) {
+            return;
+        }
+        synchronized (lock) {
+            cache.add(file, new CachedListing(lastModified, length, contents));
+        }
+    }
+
+    /**
+     * @return the files in the given directory (never null).
+     */
+    public static File[] listFiles(File dir) {
+        long lastModified = dir.lastModified();
+        File[] files = (File[]) getCached(dir, lastModified, 0);
+        if (files == null) {
+            files = dir.listFiles();
+            if (files == null) {
+                files = EMPTY_FILES;
+            }
+            putCached(dir, lastModified, 0, files);
+        }
+        return files;
+    }
+
+    /**
+     * @return the structure of the given zip file or null if it could not be read.
+     */
+    public static ZipStructure getZipStructure(File file) {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        ZipStructure zipStructure = (ZipStructure) getCached(file, lastModified, length);
+        if (zipStructure == null) {
+            ZipFile zipFile = null;
+            try {
+                zipFile = new ZipFile(file);
+            } catch (IOException e) {
+                Log.log(e);
+                return null;
+            }
+            try {
+                zipStructure = new ZipStructure(file, zipFile);
+            } finally {
+                try {
+                    zipFile.close();
+                } catch (IOException e) {
+                    Log.log(e);
+                }
+            }
+            putCached(file, lastModified, length, zipStructure);
+        }
+        return zipStructure;
+    }
+
+    public static void clear() {
+        synchronized (lock) {
+            cache.clear();
+        }
+    }
+}
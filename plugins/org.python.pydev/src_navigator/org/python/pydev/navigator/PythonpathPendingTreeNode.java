@@ -0,0 +1,42 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.navigator;
+
+import org.python.pydev.navigator.elements.ISortedElement;
+import org.python.pydev.plugin.PydevPlugin;
+import org.python.pydev.shared_core.structure.TreeNode;
+import org.python.pydev.shared_ui.UIConstants;
+
+/**
+ * Placeholder shown as the child of a PythonpathTreeNode while its children are being calculated in a
+ * background job.
+ *
+ * Note that it's not added to the children of the parent (it's only given to the viewer).
+ */
+public class PythonpathPendingTreeNode extends TreeNode<LabelAndImage> implements ISortedElement {
+
+    private final Object parentNode;
+
+    public PythonpathPendingTreeNode(PythonpathTreeNode parentNode) {
+        super(null, new LabelAndImage("Pending...", PydevPlugin.getImageCache().get(UIConstants.FILE_ICON)));
+        this.parentNode = parentNode;
+    }
+
+    @Override
+    public Object getParent() {
+        return parentNode;
+    }
+
+    @Override
+    public boolean hasChildren() {
+        return false;
+    }
+
+    public int getRank() {
+        return ISortedElement.RANK_PYTHON_FILE;
+    }
+}
@@ -7,14 +7,11 @@
 package org.python.pydev.navigator;
 
 import java.io.File;
-import java.io.IOException;
 import java.net.URI;
 import java.util.List;
-import java.util.zip.ZipFile;
 
 import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.swt.graphics.Image;
-import org.python.pydev.core.log.Log;
 import org.python.pydev.editor.codecompletion.revisited.PythonPathHelper;
 import org.python.pydev.navigator.elements.ISortedElement;
 import org.python.pydev.plugin.PydevPlugin;
@@ -32,8 +29,6 @@ import org.python.pydev.ui.filetypes.FileTypesPreferencesPage;
  */
 public class PythonpathTreeNode extends TreeNode<LabelAndImage> implements ISortedElement, IAdaptable {
 
-    private static final File[] EMPTY_FILES = new File[0];
-
     /**
      * The file/folder we're wrapping here.
      */
@@ -42,7 +37,13 @@ public class PythonpathTreeNode extends TreeNode<LabelAndImage> implements ISort
     /**
      * Identifies whether we already calculated the children
      */
-    private boolean calculated = false;
+    private volatile boolean calculated = false;
+
+    /**
+     * The file-system stamp of the file when the children were calculated (if it changes, the children
+     * are calculated again).
+     */
+    private volatile long calculatedStamp;
 
     /**
      * Is this a file for a directory?
@@ -78,10 +79,7 @@ public class PythonpathTreeNode extends TreeNode<LabelAndImage> implements ISort
             this.file = file;
             this.isDir = file.isDirectory();
             if (isDir) {
-                dirFiles = file.listFiles();
-                if (dirFiles == null) {
-                    dirFiles = EMPTY_FILES;
-                }
+                dirFiles = PythonpathListingCache.listFiles(file);
                 //This one can only be a package if its parent is a root or if it's also a package.
                 if (isPythonpathRoot) {
                     isPackage = true;
@@ -145,40 +143,49 @@ public class PythonpathTreeNode extends TreeNode<LabelAndImage> implements ISort
         return isDir ? ISortedElement.RANK_PYTHON_FOLDER : ISortedElement.RANK_PYTHON_FILE;
     }
 
+    private long getStamp() {
+        return file.lastModified() + file.length();
+    }
+
+    /**
+     * @return true if getChildren() has to list the folder/zip (so, it may be slow and should be called
+     * in a background thread) and false if the children are already available.
+     */
+    public boolean needsChildrenCalculation() {
+        if (!calculated) {
+            return hasChildren();
+        }
+        return (isDir || isZipFile()) && getStamp() != calculatedStamp;
+    }
+
     @SuppressWarnings("rawtypes")
     @Override
     public synchronized List<TreeNode> getChildren() {
+        if (calculated && (isDir || isZipFile()) && getStamp() != calculatedStamp) {
+            //Changed in the filesystem: calculate the children again.
+            this.calculated = false;
+            this.clear();
+            if (isDir) {
+                dirFiles = PythonpathListingCache.listFiles(file);
+            }
+        }
         if (!calculated) {
-            this.calculated = true;
+            this.calculatedStamp = getStamp();
             if (isDir && dirFiles != null) {
                 for (File file : dirFiles) {
                     //just creating it will already add it to the children
                     new PythonpathTreeNode(this, file);
                 }
             } else if (!isDir && isZipFile()) {
-                ZipFile zipFile = null;
-                try {
-                    zipFile = new ZipFile(file);
-                } catch (IOException e) {
-                    Log.log(e);
-                }
-                if (zipFile != null) {
-                    try {
-                        ZipStructure zipStructure = new ZipStructure(file, zipFile);
-                        for (String content : zipStructure.contents("")) {
-                            //just creating it will already add it to the children
-                            new PythonpathZipChildTreeNode(this, zipStructure, content, null, true);
-                        }
-
-                    } finally {
-                        try {
-                            zipFile.close();
-                        } catch (IOException e) {
-                            Log.log(e);
-                        }
+                ZipStructure zipStructure = PythonpathListingCache.getZipStructure(file);
+                if (zipStructure != null) {
+                    for (String content : zipStructure.contents("")) {
+                        //just creating it will already add it to the children
+                        new PythonpathZipChildTreeNode(this, zipStructure, content, null, true);
                     }
                 }
             }
+            this.calculated = true;
         }
         return super.getChildren();
     }
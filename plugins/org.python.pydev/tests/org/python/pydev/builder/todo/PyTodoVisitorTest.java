@@ -7,8 +7,10 @@
 package org.python.pydev.builder.todo;
 
 import java.util.Arrays;
+import java.util.List;
 
 import org.eclipse.jface.text.Document;
+import org.python.pydev.shared_ui.utils.PyMarkerUtils.MarkerInfo;
 
 import junit.framework.TestCase;
 
@@ -46,5 +48,23 @@ public class PyTodoVisitorTest extends TestCase {
 
         document = new Document("#TODO\nTODO");
         assertEquals(1, todoVisitor.computeTodoMarkers(document, Arrays.asList("TODO")).size());
+
+        document = new Document("a = `TODO`\nb = br'TODO'\nc = '#TODO' #FIXME");
+        assertEquals(3, todoVisitor.computeTodoMarkers(document, Arrays.asList("TODO", "FIXME")).size());
+    }
+
+    public void testTodoMessage() throws Exception {
+        PyTodoVisitor todoVisitor = new PyTodoVisitor();
+        Document document = new Document("'''TODO: a\nb'''\n#TODO: c\r\nx = u'TODO: d' + 'TODO: e");
+        List<MarkerInfo> markers = todoVisitor.computeTodoMarkers(document, Arrays.asList("TODO"));
+        assertEquals(4, markers.size());
+        assertEquals("TODO: a\nb", markers.get(0).message);
+        assertEquals(0, markers.get(0).lineStart);
+        assertEquals(3, markers.get(0).absoluteStart);
+        assertEquals("TODO: c", markers.get(1).message);
+        assertEquals(2, markers.get(1).lineStart);
+        assertEquals("TODO: d", markers.get(2).message);
+        assertEquals("TODO: e", markers.get(3).message);
+        assertEquals(3, markers.get(3).lineStart);
     }
 }
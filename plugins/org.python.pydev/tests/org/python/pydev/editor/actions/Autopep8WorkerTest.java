@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.editor.actions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.python.pydev.core.TestDependent;
+import org.python.pydev.shared_core.callbacks.ICallback0;
+import org.python.pydev.shared_core.io.FileUtils;
+
+public class Autopep8WorkerTest extends TestCase {
+
+    private static final long TIMEOUT = 20000;
+
+    private static int executableId = 0;
+
+    private List<Process> processes;
+    private File baseDir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        processes = new ArrayList<Process>();
+        baseDir = new File(System.getProperty("java.io.tmpdir"), "autopep8_worker_test");
+        FileUtils.deleteDirectoryTree(baseDir);
+        baseDir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (Process process : processes) {
+            process.destroy();
+        }
+        FileUtils.deleteDirectoryTree(baseDir);
+        super.tearDown();
+    }
+
+    private Process startProcess(String... cmdarray) {
+        try {
+            Process process = new ProcessBuilder(cmdarray).start();
+            processes.add(process);
+            return process;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Autopep8Worker startWorker(String executable) {
+        File script = new File(TestDependent.TEST_PYDEV_PLUGIN_LOC, "pysrc/" + Autopep8Worker.WORKER_SCRIPT);
+        return new Autopep8Worker(executable, startProcess(TestDependent.PYTHON_EXE, script.getAbsolutePath()));
+    }
+
+    /**
+     * Each test uses its own executable (so that idle workers from other tests aren't reused).
+     */
+    private String newExecutable() {
+        return TestDependent.PYTHON_EXE + " (test " + (executableId++) + ")";
+    }
+
+    public void testRequests() throws Exception {
+        Autopep8Worker worker = startWorker(TestDependent.PYTHON_EXE);
+        assertEquals("a = 1\n", worker.request("a=1\n", new String[0], null, TIMEOUT));
+        assertEquals("def f(a):\n    return a\n",
+                worker.request("def f( a ):\n  return a\n", new String[0], null, TIMEOUT));
+        assertEquals("s = 'a\u00e7\u00e3o'\n", worker.request("s='a\u00e7\u00e3o'\n", new String[0], null, TIMEOUT));
+
+        //invalid parameters: error response but the worker is still alive
+        assertNull(worker.request("a=1\n", new String[] { "--max-line-length=0" }, null, TIMEOUT));
+        assertEquals("b = 1\n", worker.request("b=1\n", new String[0], null, TIMEOUT));
+    }
+
+    public void testConfigFromFileDir() throws Exception {
+        File projectDir = new File(baseDir, "project");
+        File packageDir = new File(projectDir, "pack");
+        packageDir.mkdirs();
+        //only fix trailing whitespaces
+        FileUtils.writeStrToFile("[pep8]\nselect = W291\n", new File(projectDir, "setup.cfg"));
+
+        Autopep8Worker worker = startWorker(TestDependent.PYTHON_EXE);
+        assertEquals("a=1\n", worker.request("a=1 \n", new String[0], packageDir, TIMEOUT));
+        assertEquals("a = 1\n", worker.request("a=1 \n", new String[0], baseDir, TIMEOUT));
+        assertEquals("a = 1\n", worker.request("a=1 \n", new String[0], null, TIMEOUT));
+    }
+
+    public void testRestartAfterWorkerDies() throws Exception {
+        final String executable = newExecutable();
+        final List<Autopep8Worker> started = new ArrayList<Autopep8Worker>();
+        ICallback0<Autopep8Worker> starter = new ICallback0<Autopep8Worker>() {
+
+            public Autopep8Worker call() {
+                Autopep8Worker worker = startWorker(executable);
+                started.add(worker);
+                return worker;
+            }
+        };
+        assertEquals("a = 1\n", Autopep8Worker.format(executable, starter, "a=1\n", new String[0], null, TIMEOUT));
+        assertEquals(1, started.size());
+
+        //reuses the idle worker
+        assertEquals("b = 1\n", Autopep8Worker.format(executable, starter, "b=1\n", new String[0], null, TIMEOUT));
+        assertEquals(1, started.size());
+
+        Process process = processes.get(0);
+        process.destroy();
+        process.waitFor();
+
+        assertEquals("c = 1\n", Autopep8Worker.format(executable, starter, "c=1\n", new String[0], null, TIMEOUT));
+        assertEquals(2, started.size());
+    }
+
+    public void testTimeoutKillsWorker() throws Exception {
+        final String executable = newExecutable();
+        final List<Autopep8Worker> started = new ArrayList<Autopep8Worker>();
+        ICallback0<Autopep8Worker> starter = new ICallback0<Autopep8Worker>() {
+
+            public Autopep8Worker call() {
+                //never answers
+                Autopep8Worker worker = new Autopep8Worker(executable, startProcess(TestDependent.PYTHON_EXE, "-c",
+                        "import time;time.sleep(60)"));
+                started.add(worker);
+                return worker;
+            }
+        };
+        long initial = System.currentTimeMillis();
+        assertEquals("a=1\n", Autopep8Worker.format(executable, starter, "a=1\n", new String[0], null, 500));
+        assertTrue(System.currentTimeMillis() - initial < 10000);
+        processes.get(0).waitFor(); //killed
+
+        //a new worker is started for the next request
+        assertEquals("b=1\n", Autopep8Worker.format(executable, starter, "b=1\n", new String[0], null, 500));
+        assertEquals(2, started.size());
+    }
+}
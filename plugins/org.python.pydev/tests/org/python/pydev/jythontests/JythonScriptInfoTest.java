@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.jythontests;
+
+import junit.framework.TestCase;
+
+import org.python.pydev.jython.JythonScriptInfo;
+
+public class JythonScriptInfoTest extends TestCase {
+
+    public void testHandledCommands() throws Exception {
+        JythonScriptInfo info = JythonScriptInfo.create("" +
+                "if False:\n" +
+                "    cmd = 'command string'\n" +
+                "assert cmd is not None\n" +
+                "#print cmd\n" +
+                "if cmd == 'onCreateActions':\n" +
+                "    pass\n" +
+                "if DEBUG and cmd == \"onSave\":\n" +
+                "    cmd = 'onCreateActions'\n" +
+                "", 0, true);
+        assertTrue(info.handles("onCreateActions"));
+        assertTrue(info.handles("onSave"));
+        assertFalse(info.handles("onSetDocument"));
+        assertFalse(info.handles("onDispose"));
+        assertFalse(info.getDeferActionsCreation());
+    }
+
+    public void testHandlesAll() throws Exception {
+        //cmd not checked
+        JythonScriptInfo info = JythonScriptInfo.create("assert cmd is not None\nprint 'here'\n", 0, true);
+        assertTrue(info.handles("onDispose"));
+
+        //cmd used in some other way
+        info = JythonScriptInfo.create("if cmd == 'onSave':\n    pass\nprint 'Command: ' + cmd\n", 0, true);
+        assertTrue(info.handles("onSave"));
+        assertTrue(info.handles("onDispose"));
+
+        info = JythonScriptInfo.create("if cmd in ('onSave', 'onDispose'):\n    pass\n", 0, true);
+        assertTrue(info.handles("onDispose"));
+    }
+
+    public void testNotBundled() throws Exception {
+        //Scripts not bundled with PyDev are executed for all the commands unless they opt in.
+        String contents = "if cmd == 'onCreateActions':\n    pass\n";
+        JythonScriptInfo info = JythonScriptInfo.create(contents, 0, false);
+        assertTrue(info.handles("onCreateActions"));
+        assertTrue(info.handles("onSave"));
+
+        info = JythonScriptInfo.create("#@OnlyRunForCheckedCommands\n" + contents, 0, false);
+        assertTrue(info.handles("onCreateActions"));
+        assertFalse(info.handles("onSave"));
+    }
+
+    public void testDeferActionsCreation() throws Exception {
+        JythonScriptInfo info = JythonScriptInfo.create("" +
+                "#@DeferActionsCreation\n" +
+                "if cmd == 'onCreateActions':\n" +
+                "    editor.addOfflineActionListener('kill', ListCommand(editor), 'Kill', True)\n" +
+                "", 0, true);
+        assertTrue(info.getDeferActionsCreation());
+        assertTrue(info.handles("onCreateActions"));
+        assertFalse(info.handles("onSave"));
+    }
+}
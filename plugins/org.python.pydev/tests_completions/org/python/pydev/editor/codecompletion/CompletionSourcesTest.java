@@ -0,0 +1,251 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.editor.codecompletion;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.python.pydev.shared_core.callbacks.ICallback0;
+import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.io.PySourceLoader;
+import org.python.pydev.shared_core.string.FastStringBuffer;
+
+public class CompletionSourcesTest extends TestCase {
+
+    private static class TestSource extends CompletionSources.Source {
+
+        private final List<Object> results;
+        private final CountDownLatch release;
+        private final AtomicInteger computed = new AtomicInteger();
+
+        public TestSource(String name, long timeBudgetMillis, CountDownLatch release, Object... results) {
+            super(name, timeBudgetMillis);
+            this.release = release;
+            this.results = Arrays.asList(results);
+        }
+
+        @Override
+        public Collection<Object> compute() throws Exception {
+            computed.incrementAndGet();
+            if (release != null) {
+                release.await();
+            }
+            return new ArrayList<Object>(results);
+        }
+    }
+
+    public void testResultsInSourcesOrder() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        TestSource slow = new TestSource("slow", 1000, release, "a", "b");
+        TestSource fast = new TestSource("fast", 1000, null, "c");
+
+        //The first source only finishes after the second one.
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                }
+                release.countDown();
+            }
+        }.start();
+
+        List<CompletionSources.Source> sources = new ArrayList<CompletionSources.Source>();
+        sources.add(slow);
+        sources.add(fast);
+        assertEquals(Arrays.asList("a", "b", "c"), CompletionSources.compute(null, sources, null));
+    }
+
+    public void testLateResults() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TestSource late = new TestSource("late", 200, release, "late");
+        TestSource fast = new TestSource("fast", 5000, null, "fast");
+        List<CompletionSources.Source> sources = new ArrayList<CompletionSources.Source>();
+        sources.add(late);
+        sources.add(fast);
+
+        final CountDownLatch notified = new CountDownLatch(1);
+        ICallback0<Object> onLateResults = new ICallback0<Object>() {
+
+            public Object call() {
+                notified.countDown();
+                return null;
+            }
+        };
+        Object key = new Object();
+        assertEquals(Arrays.asList("fast"), CompletionSources.compute(key, sources, onLateResults));
+
+        release.countDown();
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+
+        //Requesting again in the same session gets all the results without computing them again.
+        assertEquals(Arrays.asList("late", "fast"), CompletionSources.compute(key, sources, onLateResults));
+        assertEquals(1, late.computed.get());
+        assertEquals(1, fast.computed.get());
+
+        //A new session computes them again.
+        assertEquals(Arrays.asList("late", "fast"), CompletionSources.compute(new Object(), sources, onLateResults));
+        assertEquals(2, late.computed.get());
+        assertEquals(2, fast.computed.get());
+    }
+
+    public void testErrorDoesNotDiscardOtherSources() throws Exception {
+        List<CompletionSources.Source> sources = new ArrayList<CompletionSources.Source>();
+        sources.add(new TestSource("before", 1000, null, "a"));
+        sources.add(new CompletionSources.Source("error", 1000) {
+
+            @Override
+            public Collection<Object> compute() throws Exception {
+                throw new IllegalStateException("error (expected in test)");
+            }
+        });
+        sources.add(new TestSource("after", 1000, null, "b"));
+        assertEquals(Arrays.asList("a", "b"), CompletionSources.compute(null, sources, null));
+    }
+
+    /**
+     * Source which only finishes when cancelled.
+     */
+    private static class BlockingSource extends CompletionSources.Source {
+
+        private final AtomicInteger started = new AtomicInteger();
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+        private final AtomicBoolean interrupted = new AtomicBoolean();
+
+        public BlockingSource(String name) {
+            super(name, 50);
+        }
+
+        @Override
+        public Collection<Object> compute() throws Exception {
+            started.incrementAndGet();
+            long initial = System.currentTimeMillis();
+            try {
+                while (!CompletionSources.isCancelled() && System.currentTimeMillis() - initial < 60 * 1000) {
+                    Thread.sleep(5);
+                }
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw e;
+            }
+            cancelled.countDown();
+            return new ArrayList<Object>();
+        }
+    }
+
+    /**
+     * Source which keeps loading a file until cancelled.
+     */
+    private static class LoadingSource extends CompletionSources.Source {
+
+        private final File file;
+        private final AtomicInteger loads = new AtomicInteger();
+        private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        private final AtomicBoolean interrupted = new AtomicBoolean();
+        private final CountDownLatch stopped = new CountDownLatch(1);
+
+        public LoadingSource(String name, File file) {
+            super(name, 50);
+            this.file = file;
+        }
+
+        @Override
+        public Collection<Object> compute() throws Exception {
+            try {
+                while (!CompletionSources.isCancelled()) {
+                    PySourceLoader.load(file);
+                    loads.incrementAndGet();
+                }
+            } catch (Throwable e) {
+                error.set(e);
+            } finally {
+                interrupted.set(Thread.currentThread().isInterrupted());
+                stopped.countDown();
+            }
+            return new ArrayList<Object>();
+        }
+    }
+
+    private final ICallback0<Object> noopOnLateResults = new ICallback0<Object>() {
+
+        public Object call() {
+            return null;
+        }
+    };
+
+    public void testSupersededSessionIsCancelled() throws Exception {
+        //Enough sources to keep all the threads busy and some in the queue.
+        List<BlockingSource> blocking = new ArrayList<BlockingSource>();
+        List<CompletionSources.Source> sources = new ArrayList<CompletionSources.Source>();
+        for (int i = 0; i < CompletionSources.THREADS + 2; i++) {
+            BlockingSource source = new BlockingSource("blocking" + i);
+            blocking.add(source);
+            sources.add(source);
+        }
+        assertEquals(0, CompletionSources.compute(new Object(), sources, noopOnLateResults).size());
+
+        //The new session cancels the running sources (without interrupting them) and drops the queued ones.
+        TestSource fast = new TestSource("fast", 5000, null, "fast");
+        sources = new ArrayList<CompletionSources.Source>();
+        sources.add(fast);
+        long initial = System.currentTimeMillis();
+        assertEquals(Arrays.asList("fast"), CompletionSources.compute(new Object(), sources, noopOnLateResults));
+        assertTrue(System.currentTimeMillis() - initial < 5000);
+
+        for (BlockingSource source : blocking) {
+            if (source.started.get() > 0) {
+                assertTrue(source.cancelled.await(5, TimeUnit.SECONDS));
+                assertFalse(source.interrupted.get());
+            }
+        }
+        assertEquals(0, blocking.get(blocking.size() - 1).started.get());
+    }
+
+    public void testCancelledWhileLoading() throws Exception {
+        File file = File.createTempFile("completion_sources_test", ".py");
+        try {
+            FastStringBuffer buf = new FastStringBuffer();
+            for (int i = 0; i < 20000; i++) {
+                buf.append("# -*- coding: utf-8 -*-\nvar").append(i).append(" = 'some contents'\n");
+            }
+            FileUtils.writeStrToFile(buf.toString(), file);
+
+            LoadingSource loading = new LoadingSource("loading", file);
+            List<CompletionSources.Source> sources = new ArrayList<CompletionSources.Source>();
+            sources.add(loading);
+            assertEquals(0, CompletionSources.compute(new Object(), sources, noopOnLateResults).size());
+            long initial = System.currentTimeMillis();
+            while (loading.loads.get() == 0 && System.currentTimeMillis() - initial < 5000) {
+                Thread.sleep(5);
+            }
+
+            //Superseding the session while the file is being loaded must not interrupt the read (which would close
+            //the channel with a ClosedByInterruptException).
+            sources = new ArrayList<CompletionSources.Source>();
+            sources.add(new TestSource("fast", 5000, null, "fast"));
+            assertEquals(Arrays.asList("fast"), CompletionSources.compute(new Object(), sources, noopOnLateResults));
+
+            assertTrue(loading.stopped.await(5, TimeUnit.SECONDS));
+            assertNull(loading.error.get());
+            assertFalse(loading.interrupted.get());
+            assertTrue(loading.loads.get() > 0);
+        } finally {
+            file.delete();
+        }
+    }
+}
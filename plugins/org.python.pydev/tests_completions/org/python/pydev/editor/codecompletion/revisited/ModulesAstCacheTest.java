@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.editor.codecompletion.revisited;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jface.text.Document;
+import org.python.pydev.core.IGrammarVersionProvider;
+import org.python.pydev.editor.codecompletion.revisited.modules.SourceModule;
+import org.python.pydev.parser.PyParser;
+import org.python.pydev.parser.jython.SimpleNode;
+import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.shared_core.parsing.BaseParser.ParseOutput;
+
+public class ModulesAstCacheTest extends TestCase {
+
+    private static final int GRAMMAR = IGrammarVersionProvider.GRAMMAR_PYTHON_VERSION_2_7;
+
+    private File baseDir;
+    private ModulesAstCache cache;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        baseDir = new File(FileUtils.getFileAbsolutePath(new File("modules_ast_cache.temporary_dir")));
+        try {
+            FileUtils.deleteDirectoryTree(baseDir);
+        } catch (Exception e) {
+            //ignore
+        }
+        baseDir.mkdir();
+        cache = new ModulesAstCache(new File(baseDir, "asts"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            FileUtils.deleteDirectoryTree(baseDir);
+        } catch (Exception e) {
+            //ignore
+        }
+        super.tearDown();
+    }
+
+    private File createFile(String contents, long lastModified) {
+        File f = new File(baseDir, "mod.py");
+        FileUtils.writeStrToFile(contents, f);
+        f.setLastModified(lastModified);
+        return f;
+    }
+
+    private SourceModule createModule(File f, String contents) {
+        ParseOutput output = PyParser.reparseDocument(new PyParser.ParserInfo(new Document(contents), GRAMMAR));
+        return new SourceModule("mod", f, (SimpleNode) output.ast, output.error);
+    }
+
+    public void testPutAndGet() throws Exception {
+        String contents = "class A(object):\n    def m(self): #comment\n        pass\n";
+        long lastModified = System.currentTimeMillis() - 10000;
+        File f = createFile(contents, lastModified);
+        lastModified = f.lastModified();
+        SourceModule module = createModule(f, contents);
+
+        assertNull(cache.getModule("mod", f, f.length(), lastModified, GRAMMAR));
+        cache.putModule(module, f, f.length(), lastModified, GRAMMAR);
+
+        SourceModule restored = cache.getModule("mod", f, f.length(), lastModified, GRAMMAR);
+        assertNotNull(restored);
+        assertNotSame(module.getAst(), restored.getAst());
+        assertEquals(module.getAst().toString(), restored.getAst().toString());
+
+        //Any difference in the key is a miss.
+        assertNull(cache.getModule("mod", f, f.length() + 1, lastModified, GRAMMAR));
+        assertNull(cache.getModule("mod", f, f.length(), lastModified + 1000, GRAMMAR));
+        assertNull(cache.getModule("mod", f, f.length(), lastModified,
+                IGrammarVersionProvider.GRAMMAR_PYTHON_VERSION_3_0));
+        assertNull(cache.getModule("mod", new File(baseDir, "mod2.py"), f.length(), lastModified, GRAMMAR));
+        assertNotNull(cache.getModule("mod", f, f.length(), lastModified, GRAMMAR));
+
+        cache.clear();
+        assertNull(cache.getModule("mod", f, f.length(), lastModified, GRAMMAR));
+    }
+
+    public void testNotCached() throws Exception {
+        //Recently changed
+        String contents = "a = 10\n";
+        File f = createFile(contents, System.currentTimeMillis());
+        cache.putModule(createModule(f, contents), f, f.length(), f.lastModified(), GRAMMAR);
+        assertNull(cache.getModule("mod", f, f.length(), f.lastModified(), GRAMMAR));
+
+        //With errors
+        contents = "a = = 10\n";
+        f = createFile(contents, System.currentTimeMillis() - 10000);
+        cache.putModule(createModule(f, contents), f, f.length(), f.lastModified(), GRAMMAR);
+        assertNull(cache.getModule("mod", f, f.length(), f.lastModified(), GRAMMAR));
+    }
+
+    public void testCorruptedFile() throws Exception {
+        String contents = "a = 10\n";
+        File f = createFile(contents, System.currentTimeMillis() - 10000);
+        cache.putModule(createModule(f, contents), f, f.length(), f.lastModified(), GRAMMAR);
+        File cacheFile = new File(new File(baseDir, "asts"), "mod.ast");
+        assertTrue(cacheFile.exists());
+
+        byte[] bytes = Files.readAllBytes(cacheFile.toPath());
+        FileUtils.writeBytesToFile(Arrays.copyOf(bytes, bytes.length - 3), cacheFile);
+        assertNull(cache.getModule("mod", f, f.length(), f.lastModified(), GRAMMAR));
+        assertFalse(cacheFile.exists());
+    }
+}
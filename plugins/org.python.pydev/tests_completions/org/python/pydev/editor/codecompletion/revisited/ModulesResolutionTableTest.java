@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.editor.codecompletion.revisited;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+
+import junit.framework.TestCase;
+
+import org.python.pydev.core.IModulesManager;
+import org.python.pydev.core.ModulesKey;
+import org.python.pydev.editor.codecompletion.revisited.modules.AbstractModule;
+
+public class ModulesResolutionTableTest extends TestCase {
+
+    private ProjectModulesManager manager1;
+    private ProjectModulesManager manager2;
+    private IModulesManager[] managers;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        manager1 = new ProjectModulesManager();
+        manager1.addModule(new ModulesKey("pack1", new File("pack1")));
+        manager1.addModule(new ModulesKey("pack1.mod1", new File("pack1/mod1.py")));
+        manager1.addModule(new ModulesKey("shared", new File("m1/shared.py")));
+
+        manager2 = new ProjectModulesManager();
+        manager2.addModule(new ModulesKey("pack2.__init__", new File("pack2/__init__.py")));
+        manager2.addModule(new ModulesKey("pack2.mod2", new File("pack2/mod2.py")));
+        manager2.addModule(new ModulesKey("shared", new File("m2/shared.py")));
+        managers = new IModulesManager[] { manager1, manager2 };
+    }
+
+    public void testFirstManagerWins() throws Exception {
+        ModulesResolutionTable table = ModulesResolutionTable.create(managers);
+        assertTrue(table.isUpToDate(managers));
+
+        assertEquals(0, table.getManagerIndex("pack1.mod1", true));
+        assertEquals(1, table.getManagerIndex("pack2.mod2", true));
+        assertEquals(0, table.getManagerIndex("shared", true));
+        assertEquals(new File("m1/shared.py"), table.getKey("shared").file);
+        assertEquals(-1, table.getManagerIndex("unknown", false));
+
+        //__init__ only considered if dontSearchInit == false
+        assertEquals(-1, table.getManagerIndex("pack2", true));
+        assertEquals(1, table.getManagerIndex("pack2", false));
+
+        assertFalse(table.isUpToDate(new IModulesManager[] { manager2, manager1 }));
+    }
+
+    public void testModulesStartingWith() throws Exception {
+        ModulesResolutionTable table = ModulesResolutionTable.create(managers);
+        assertEquals(Arrays.asList("pack1", "pack1.mod1"), names(table.getModulesStartingWith("pack1")));
+        assertEquals(Arrays.asList("pack2.__init__", "pack2.mod2"), names(table.getModulesStartingWith("pack2")));
+        assertEquals(5, table.getModulesStartingWith("").size());
+        assertEquals(5, table.size());
+    }
+
+    public void testUpdatedOnChanges() throws Exception {
+        ModulesResolutionTable table = ModulesResolutionTable.create(managers);
+
+        manager2.addModule(new ModulesKey("pack2.mod3", new File("pack2/mod3.py")));
+        assertFalse(table.isUpToDate(managers));
+        assertTrue(table.update(managers));
+        assertTrue(table.isUpToDate(managers));
+        assertEquals(1, table.getManagerIndex("pack2.mod3", true));
+        assertEquals(Arrays.asList("pack2.__init__", "pack2.mod2", "pack2.mod3"),
+                names(table.getModulesStartingWith("pack2")));
+
+        List<ModulesKey> toRemove = new ArrayList<ModulesKey>();
+        toRemove.add(new ModulesKey("shared", null));
+        manager1.removeModules(toRemove);
+        assertFalse(table.isUpToDate(managers));
+        assertTrue(table.update(managers));
+        assertEquals(1, table.getManagerIndex("shared", true));
+        assertEquals(new File("m2/shared.py"), table.getKey("shared").file);
+
+        toRemove.clear();
+        toRemove.add(new ModulesKey("pack2.mod3", null));
+        manager2.removeModules(toRemove);
+        assertTrue(table.update(managers));
+        assertEquals(-1, table.getManagerIndex("pack2.mod3", true));
+        assertEquals(5, table.size());
+
+        //Changes in a manager not in the table don't make it outdated.
+        ProjectModulesManager other = new ProjectModulesManager();
+        other.addModule(new ModulesKey("other", null));
+        assertTrue(table.isUpToDate(managers));
+        assertEquals(-1, table.getManagerIndex("other", true));
+
+        //Nothing changed: adding the same key again.
+        manager1.addModule(new ModulesKey("pack1.mod1", new File("pack1/mod1.py")));
+        assertTrue(table.isUpToDate(managers));
+    }
+
+    public void testKeyReplaced() throws Exception {
+        ModulesResolutionTable table = ModulesResolutionTable.create(managers);
+        manager1.addModule(new ModulesKey("shared", new File("m1/other/shared.py")));
+        assertFalse(table.isUpToDate(managers));
+        assertTrue(table.update(managers));
+        assertEquals(new File("m1/other/shared.py"), table.getKey("shared").file);
+        assertEquals(new File("m1/other/shared.py"), manager1.getOnlyDirectModules()[2].file);
+    }
+
+    public void testChangesNotAvailable() throws Exception {
+        //Too many changes: the names changed are no longer kept (so, the table must be created again).
+        ModulesResolutionTable table = ModulesResolutionTable.create(managers);
+        for (int i = 0; i < 1001; i++) {
+            manager2.addModule(new ModulesKey("pack2.m" + i, new File("pack2/m" + i + ".py")));
+        }
+        assertFalse(table.isUpToDate(managers));
+        assertFalse(table.update(managers));
+
+        table = ModulesResolutionTable.create(managers);
+        assertTrue(table.isUpToDate(managers));
+        assertEquals(1, table.getManagerIndex("pack2.m1000", true));
+        assertEquals(1006, table.size());
+    }
+
+    public void testTemporaryModules() throws Exception {
+        ModulesResolutionTable table = ModulesResolutionTable.create(managers);
+        assertEquals(0, table.getManagerIndex("shared", true));
+
+        int handle = manager2.pushTemporaryModule("temp",
+                AbstractModule.createEmptyModule(new ModulesKey("temp", null)));
+        try {
+            assertFalse(table.isUpToDate(managers));
+            assertTrue(table.update(managers));
+            assertEquals(1, table.getManagerIndex("temp", true));
+        } finally {
+            manager2.popTemporaryModule("temp", handle);
+        }
+        assertTrue(table.update(managers));
+        assertEquals(-1, table.getManagerIndex("temp", true));
+    }
+
+    public void testNotAvailableForOtherManagers() throws Exception {
+        assertNull(ModulesResolutionTable.create(new IModulesManager[] { manager1, null }));
+    }
+
+    private List<String> names(SortedMap<ModulesKey, ModulesKey> map) {
+        List<String> ret = new ArrayList<String>();
+        for (ModulesKey key : map.keySet()) {
+            ret.add(key.name);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.editor.codecompletion.revisited;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.python.pydev.core.ICompletionState;
+import org.python.pydev.core.IGrammarVersionProvider;
+import org.python.pydev.core.IModule;
+import org.python.pydev.core.IPythonNature;
+import org.python.pydev.core.IToken;
+import org.python.pydev.editor.codecompletion.revisited.modules.SourceModule;
+import org.python.pydev.parser.PyParser;
+import org.python.pydev.parser.jython.SimpleNode;
+import org.python.pydev.shared_core.callbacks.ICallback0;
+
+public class WildImportsInParallelTest extends TestCase {
+
+    /**
+     * Manager which gets the modules from memory (no nature/modules manager/builtins needed).
+     */
+    private static final class InMemoryASTManager extends AbstractASTManager {
+
+        private final Map<String, IModule> modules = new HashMap<String, IModule>();
+
+        private void addModule(String name, String contents) {
+            PyParser.ParserInfo info = new PyParser.ParserInfo(new Document(contents),
+                    IGrammarVersionProvider.GRAMMAR_PYTHON_VERSION_2_7);
+            modules.put(name, new SourceModule(name, new File(name + ".py"),
+                    (SimpleNode) PyParser.reparseDocument(info).ast, null));
+        }
+
+        private IModule getModule(String name) {
+            return modules.get(name);
+        }
+
+        @Override
+        public IModule getModule(String name, IPythonNature nature, boolean dontSearchInit) {
+            return getModule(name);
+        }
+
+        @Override
+        public IModule getModule(String name, IPythonNature nature, boolean dontSearchInit,
+                boolean lookingForRelative) {
+            return getModule(name);
+        }
+
+        @Override
+        protected IModule getBuiltinMod(IPythonNature nature) {
+            return null;
+        }
+
+        @Override
+        protected IToken[] getBuiltinComps(IPythonNature nature) {
+            return null;
+        }
+
+        @Override
+        public void setProject(IProject project, IPythonNature nature, boolean restoreDeltas) {
+        }
+
+        @Override
+        public void rebuildModule(File file, ICallback0<IDocument> doc, IProject project, IProgressMonitor monitor,
+                IPythonNature nature) {
+        }
+
+        @Override
+        public void removeModule(File file, IProject project, IProgressMonitor monitor) {
+        }
+
+        public void changePythonPath(String pythonpath, IProject project, IProgressMonitor monitor) {
+        }
+
+        public void saveToFile(File astOutputFile) {
+        }
+    }
+
+    private InMemoryASTManager manager;
+    private boolean initialResolveWildImportsInParallel;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        initialResolveWildImportsInParallel = AbstractASTManager.resolveWildImportsInParallel;
+        manager = new InMemoryASTManager();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        AbstractASTManager.resolveWildImportsInParallel = initialResolveWildImportsInParallel;
+        super.tearDown();
+    }
+
+    private List<String> getGlobalCompletions(String moduleName, boolean parallel) throws Exception {
+        AbstractASTManager.resolveWildImportsInParallel = parallel;
+        ICompletionState state = new CompletionState(-1, -1, "", null, "");
+        state.setBuiltinsGotten(true);
+        IToken[] tokens = manager.getCompletionsForModule(manager.getModule(moduleName), state, true, false);
+        List<String> ret = new ArrayList<String>();
+        for (IToken token : tokens) {
+            ret.add(token.getParentPackage() + ":" + token.getRepresentation());
+        }
+        return ret;
+    }
+
+    /**
+     * Note: the completions are compared without duplicates (the original resolution -- parallel == false -- uses a
+     * single state for all the wild imports, so, it stops resolving a module wild imported many times sooner, which
+     * may give less duplicates).
+     */
+    private static List<String> distinct(List<String> completions) {
+        return new ArrayList<String>(new LinkedHashSet<String>(completions));
+    }
+
+    private void checkParallelSameAsSequential(String moduleName) throws Exception {
+        List<String> sequential = distinct(getGlobalCompletions(moduleName, false));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(sequential, distinct(getGlobalCompletions(moduleName, true)));
+        }
+        assertEquals(sequential, distinct(getGlobalCompletions(moduleName, false)));
+    }
+
+    public void testParallelResultsStable() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            manager.addModule("mod" + i, "from shared import *\nfrom mod" + (i + 1) + " import *\nfrom other" + i
+                    + " import *\na" + i + " = 10\n");
+            manager.addModule("other" + i, "from shared import *\nb" + i + " = 10\n");
+        }
+        manager.addModule("shared", "s = 10\n");
+
+        //The parallel resolution always gives the same list (including duplicates).
+        List<String> parallel = getGlobalCompletions("mod0", true);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(parallel, getGlobalCompletions("mod0", true));
+        }
+        checkParallelSameAsSequential("mod0");
+    }
+
+    public void testBranchCacheMerged() throws Exception {
+        CompletionState state = new CompletionState(-1, -1, "", null, "");
+        state.add("parent", "parentValue");
+        CompletionState branch = state.getBranchCopy();
+        assertEquals("parentValue", branch.getObj("parent"));
+
+        branch.add("branch", "branchValue");
+        branch.add("parent", "changedInBranch");
+        assertNull(state.getObj("branch"));
+
+        state.mergeBranchCache(branch);
+        assertEquals("branchValue", state.getObj("branch"));
+        assertEquals("parentValue", state.getObj("parent"));
+    }
+
+    public void testNestedWildImports() throws Exception {
+        //Each module wild imports its children and a shared module (which is also wild imported inside a branch).
+        for (int i = 0; i < 40; i++) {
+            StringBuilder buf = new StringBuilder();
+            for (int c = 1; c <= 3; c++) {
+                int child = i * 3 + c;
+                if (child < 40) {
+                    buf.append("from mod").append(child).append(" import *\n");
+                }
+            }
+            buf.append("from shared").append(i % 3).append(" import *\n");
+            buf.append("a").append(i).append(" = 10\n");
+            buf.append("_private").append(i).append(" = 10\n");
+            buf.append("class C").append(i).append(":\n    pass\n");
+            manager.addModule("mod" + i, buf.toString());
+        }
+        manager.addModule("shared0", "from shared1 import *\nfrom shared2 import *\ns0 = 10\n");
+        manager.addModule("shared1", "__all__ = ['s1']\ns1 = 10\nnot_in_all = 10\n");
+        manager.addModule("shared2", "def s2():\n    pass\n");
+
+        List<String> completions = getGlobalCompletions("mod0", false);
+        assertTrue(completions.contains("mod39:a39"));
+        assertTrue(completions.contains("shared1:s1"));
+        assertTrue(completions.contains("shared2:s2"));
+        assertFalse(completions.contains("shared1:not_in_all"));
+        assertFalse(completions.contains("mod39:_private39"));
+
+        checkParallelSameAsSequential("mod0");
+    }
+
+    public void testRecursiveWildImports() throws Exception {
+        //The recursion memories are hit while resolving the wild imports.
+        manager.addModule("mod0", "from mod1 import *\nfrom mod2 import *\nfrom mod3 import *\na0 = 10\n");
+        manager.addModule("mod1", "from mod0 import *\nfrom mod2 import *\na1 = 10\n");
+        manager.addModule("mod2", "from mod3 import *\nfrom mod1 import *\na2 = 10\n");
+        manager.addModule("mod3", "from mod0 import *\nfrom mod1 import *\nfrom mod2 import *\na3 = 10\n");
+
+        List<String> completions = getGlobalCompletions("mod0", false);
+        assertTrue(completions.contains("mod3:a3"));
+
+        checkParallelSameAsSequential("mod0");
+        checkParallelSameAsSequential("mod3");
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.navigator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IResource;
+import org.python.pydev.shared_core.resource_stubs.FileMock;
+import org.python.pydev.shared_core.resource_stubs.FolderMock;
+import org.python.pydev.shared_core.resource_stubs.ProjectMock;
+import org.python.pydev.shared_core.structure.Tuple;
+
+public class CoalescedTreeUpdatesTest extends TestCase {
+
+    private static final Runnable NOOP = new Runnable() {
+        public void run() {
+        }
+    };
+
+    private ProjectMock project;
+    private FolderMock src;
+    private FolderMock pack;
+    private FileMock mod1;
+    private FileMock mod2;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        project = new ProjectMock();
+        src = new FolderMock("src");
+        project.addMember(src);
+        pack = new FolderMock("pack");
+        src.addMember(pack);
+        mod1 = new FileMock("mod1.py");
+        pack.addMember(mod1);
+        mod2 = new FileMock("mod2.py");
+        src.addMember(mod2);
+    }
+
+    public void testChangesCoveredByParentRefresh() throws Exception {
+        CoalescedTreeUpdates updates = new CoalescedTreeUpdates();
+        updates.update(mod1);
+        updates.update(mod2);
+        updates.refresh(pack);
+        updates.structuralChange(pack, NOOP);
+
+        CoalescedTreeUpdates other = new CoalescedTreeUpdates();
+        other.refresh(mod1);
+        other.refresh(pack);
+        updates.addAll(other);
+
+        updates.minimize();
+        assertEquals(Arrays.asList(pack), new ArrayList<IResource>(updates.refresh));
+        assertEquals(Arrays.asList(mod2), new ArrayList<IResource>(updates.update));
+        assertEquals(0, updates.structuralChanges.size());
+        assertEquals(2, updates.size());
+    }
+
+    public void testStructuralChangeKeptWithoutRefresh() throws Exception {
+        CoalescedTreeUpdates updates = new CoalescedTreeUpdates();
+        updates.structuralChange(pack, NOOP);
+        updates.update(mod2);
+        updates.minimize();
+
+        List<Tuple<IResource, Runnable>> structuralChanges = updates.structuralChanges;
+        assertEquals(1, structuralChanges.size());
+        assertSame(pack, structuralChanges.get(0).o1);
+        assertEquals(1, updates.update.size());
+        assertEquals(0, updates.refresh.size());
+    }
+
+    public void testCollapseToProjectRefresh() throws Exception {
+        CoalescedTreeUpdates updates = new CoalescedTreeUpdates();
+        for (int i = 0; i < CoalescedTreeUpdates.MAX_CHANGES_PER_PROJECT + 1; i++) {
+            FileMock file = new FileMock("mod" + i + ".py");
+            pack.addMember(file);
+            updates.update(file);
+        }
+        assertEquals(CoalescedTreeUpdates.MAX_CHANGES_PER_PROJECT + 1, updates.size());
+
+        updates.minimize();
+        assertEquals(Arrays.asList(project), new ArrayList<IResource>(updates.refresh));
+        assertEquals(0, updates.update.size());
+        assertEquals(1, updates.size());
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2005-2013 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Eclipse Public License (EPL).
+ * Please see the license.txt included with this distribution for details.
+ * Any modifications to this file must keep this entire header intact.
+ */
+package org.python.pydev.navigator;
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.python.pydev.plugin.PydevPlugin;
+import org.python.pydev.shared_core.io.FileUtils;
+import org.python.pydev.ui.BundleInfoStub;
+
+public class PythonpathListingCacheTest extends TestCase {
+
+    private File baseDir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        PydevPlugin.setBundleInfo(new BundleInfoStub());
+        baseDir = new File(FileUtils.getFileAbsolutePath(new File("PythonpathListingCacheTest.temporary_dir")));
+        try {
+            FileUtils.deleteDirectoryTree(baseDir);
+        } catch (Exception e) {
+            //ignore
+        }
+        assertTrue(baseDir.mkdir());
+        PythonpathListingCache.clear();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            FileUtils.deleteDirectoryTree(baseDir);
+        } catch (IOException e) {
+            //ignore
+        }
+        PythonpathListingCache.clear();
+        PydevPlugin.setBundleInfo(null);
+        super.tearDown();
+    }
+
+    public void testListingInvalidatedByStamp() throws Exception {
+        FileUtils.writeStrToFile("", new File(baseDir, "mod1.py"));
+        assertTrue(baseDir.setLastModified(10000));
+
+        File[] files = PythonpathListingCache.listFiles(baseDir);
+        assertEquals(1, files.length);
+        assertSame(files, PythonpathListingCache.listFiles(baseDir));
+
+        //Same stamp: the cached listing is still used.
+        FileUtils.writeStrToFile("", new File(baseDir, "mod2.py"));
+        assertTrue(baseDir.setLastModified(10000));
+        assertSame(files, PythonpathListingCache.listFiles(baseDir));
+
+        //Changed stamp: listed again.
+        assertTrue(baseDir.setLastModified(20000));
+        files = PythonpathListingCache.listFiles(baseDir);
+        assertEquals(2, files.length);
+    }
+
+    public void testTreeNodeChildrenRecalculated() throws Exception {
+        File pkg = new File(baseDir, "pkg");
+        assertTrue(pkg.mkdir());
+        FileUtils.writeStrToFile("", new File(pkg, "__init__.py"));
+        assertTrue(pkg.setLastModified(10000));
+
+        PythonpathTreeNode node = new PythonpathTreeNode(null, pkg, null, true);
+        assertTrue(node.needsChildrenCalculation());
+        assertEquals(1, node.getChildren().size());
+        assertFalse(node.needsChildrenCalculation());
+
+        FileUtils.writeStrToFile("", new File(pkg, "mod.py"));
+        assertTrue(pkg.setLastModified(20000));
+        assertTrue(node.needsChildrenCalculation());
+        assertEquals(2, node.getChildren().size());
+        assertFalse(node.needsChildrenCalculation());
+    }
+}